@@ -0,0 +1,92 @@
+package swp391.code.swp391.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.web.filter.OncePerRequestFilter;
+import swp391.code.swp391.service.JwtClaimsCache;
+import swp391.code.swp391.service.JwtClaimsCache.VerifiedToken;
+import swp391.code.swp391.utils.JWTUtils;
+
+import java.io.IOException;
+
+/**
+ * Đọc header "Authorization: Bearer <token>" và dựng Authentication cho request.
+ * Token được tra trong JwtClaimsCache theo SHA-256; chỉ khi không có trong cache mới kiểm tra HMAC và thời hạn
+ * rồi lưu lại claims tới khi token hết hạn. Không tra DB: userId, email, role lấy từ claims.
+ * Request không có token đi tiếp như anonymous; token sai, hết hạn hoặc đã bị thu hồi nhận 401.
+ * Không khai báo là @Component để filter chỉ chạy trong security filter chain, không bị đăng ký thêm lần nữa ở servlet.
+ */
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JWTUtils jwtUtils;
+    private final JwtClaimsCache claimsCache;
+
+    public JwtAuthenticationFilter(JWTUtils jwtUtils, JwtClaimsCache claimsCache) {
+        this.jwtUtils = jwtUtils;
+        this.claimsCache = claimsCache;
+    }
+
+    // Đăng nhập / đăng ký không cần token (tránh token cũ còn lưu ở client làm hỏng lần đăng nhập mới)
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getServletPath();
+        return path.equals("/api/auth/user/login") || path.equals("/api/auth/user/register");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith(BEARER_PREFIX)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String token = header.substring(BEARER_PREFIX.length()).trim();
+        String tokenHash = JwtClaimsCache.hash(token);
+        VerifiedToken verified = claimsCache.get(tokenHash);
+        if (verified == null) {
+            try {
+                verified = toVerifiedToken(jwtUtils.verifyToken(token));
+            } catch (JwtException | IllegalArgumentException e) {
+                response.sendError(HttpStatus.UNAUTHORIZED.value(), "Invalid or expired token");
+                return;
+            }
+            claimsCache.put(tokenHash, verified);
+        }
+        if (claimsCache.isRevoked(verified)) {
+            response.sendError(HttpStatus.UNAUTHORIZED.value(), "Token has been revoked");
+            return;
+        }
+
+        UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken(verified.getUserId(), null, verified.getAuthorities());
+        authentication.setDetails(verified);
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(authentication);
+        SecurityContextHolder.setContext(context);
+        filterChain.doFilter(request, response);
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private VerifiedToken toVerifiedToken(Jwt jwt) {
+        if (jwt.getSubject() == null || jwt.getIssuedAt() == null || jwt.getExpiresAt() == null) {
+            throw new IllegalArgumentException("Token is missing required claims");
+        }
+        return new VerifiedToken(Long.valueOf(jwt.getSubject()), jwt.getClaimAsString(JWTUtils.CLAIM_EMAIL),
+                jwt.getClaimAsString(JWTUtils.CLAIM_ROLE), jwt.getIssuedAt().toEpochMilli(),
+                jwt.getExpiresAt().toEpochMilli());
+    }
+}
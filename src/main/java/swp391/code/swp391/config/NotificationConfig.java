@@ -0,0 +1,31 @@
+package swp391.code.swp391.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import swp391.code.swp391.entity.NotificationOutbox.Channel;
+import swp391.code.swp391.service.LoggingNotificationSender;
+import swp391.code.swp391.service.NotificationSender;
+
+// Sender giả lập cho từng kênh; đặt notification.{kênh}.sender khác "log" và khai báo bean sender thật để thay thế
+@Configuration
+public class NotificationConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "notification.email.sender", havingValue = "log", matchIfMissing = true)
+    public NotificationSender emailNotificationSender() {
+        return new LoggingNotificationSender(Channel.EMAIL);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "notification.sms.sender", havingValue = "log", matchIfMissing = true)
+    public NotificationSender smsNotificationSender() {
+        return new LoggingNotificationSender(Channel.SMS);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "notification.push.sender", havingValue = "log", matchIfMissing = true)
+    public NotificationSender pushNotificationSender() {
+        return new LoggingNotificationSender(Channel.PUSH);
+    }
+}
@@ -0,0 +1,65 @@
+package swp391.code.swp391.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Giới hạn số request được xử lý đồng thời khi chạy trên virtual threads.
+ * Với thread pool của Tomcat, số worker đã là giới hạn tự nhiên; với virtual threads mỗi request có một luồng riêng
+ * nên hàng nghìn request có thể cùng chờ connection pool. Request phải lấy permit trước khi vào controller,
+ * chờ tối đa acquire-timeout-ms rồi trả 503 kèm Retry-After.
+ * Request bất đồng bộ (SSE, StreamingResponseBody) trả permit ngay khi handler trả về.
+ */
+@Component
+public class RequestConcurrencyFilter extends OncePerRequestFilter {
+
+    private final boolean enabled;
+    private final Semaphore permits;
+
+    @Value("${server.concurrency.acquire-timeout-ms:2000}")
+    private long acquireTimeoutMs;
+
+    public RequestConcurrencyFilter(@Value("${spring.threads.virtual.enabled:false}") boolean enabled,
+                                    @Value("${server.concurrency.max-in-flight:200}") int maxInFlight) {
+        this.enabled = enabled;
+        this.permits = new Semaphore(maxInFlight, true);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Server is busy, please retry");
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+}
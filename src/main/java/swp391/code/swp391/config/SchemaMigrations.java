@@ -0,0 +1,128 @@
+package swp391.code.swp391.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import swp391.code.swp391.entity.Transaction.PaymentMethod;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Các thay đổi schema mà ddl-auto=update không tự làm được trên bảng đã có dữ liệu (SQL Server).
+ * Chạy sau khi Hibernate cập nhật schema (DependsOn entityManagerFactory) và trước ApplicationReadyEvent,
+ * mỗi bước kiểm tra trạng thái hiện tại nên chạy lại nhiều lần không sao.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class SchemaMigrations {
+
+    private static final String TRANSACTION_TABLE = "[Transaction]";
+    private static final String PAYMENT_METHOD_CHECK = "ck_transaction_payment_method";
+    private static final String IDEMPOTENCY_KEY_INDEX = "ux_transaction_idempotency_key";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void migrate() {
+        migratePaymentMethodCheck();
+        migrateIdempotencyKeyIndex();
+        backfillTransactionCreatedAt();
+        scrubCompletedNotificationContent();
+    }
+
+    /**
+     * Hibernate tạo CHECK (payment_method IN (...)) theo enum lúc tạo bảng và không sửa lại khi enum có thêm giá trị,
+     * nên WALLET bị chặn trên bảng cũ. Xóa mọi CHECK trên cột rồi tạo lại theo enum hiện tại.
+     */
+    private void migratePaymentMethodCheck() {
+        List<String> definitions = jdbcTemplate.queryForList(
+                "SELECT cc.definition FROM sys.check_constraints cc " +
+                        "JOIN sys.columns c ON c.object_id = cc.parent_object_id AND c.column_id = cc.parent_column_id " +
+                        "WHERE cc.parent_object_id = OBJECT_ID(?) AND c.name = 'payment_method'",
+                String.class, TRANSACTION_TABLE);
+        List<String> values = Arrays.stream(PaymentMethod.values()).map(Enum::name).toList();
+        if (definitions.size() == 1 && values.stream().allMatch(value -> definitions.get(0).contains("'" + value + "'"))) {
+            return;
+        }
+        jdbcTemplate.execute(
+                "DECLARE @sql nvarchar(max) = N''; " +
+                        "SELECT @sql += N'ALTER TABLE " + TRANSACTION_TABLE + " DROP CONSTRAINT ' + QUOTENAME(cc.name) + N'; ' " +
+                        "FROM sys.check_constraints cc " +
+                        "JOIN sys.columns c ON c.object_id = cc.parent_object_id AND c.column_id = cc.parent_column_id " +
+                        "WHERE cc.parent_object_id = OBJECT_ID(N'" + TRANSACTION_TABLE + "') AND c.name = 'payment_method'; " +
+                        "EXEC sp_executesql @sql;");
+        jdbcTemplate.execute("ALTER TABLE " + TRANSACTION_TABLE + " ADD CONSTRAINT " + PAYMENT_METHOD_CHECK +
+                " CHECK (payment_method IN (" + values.stream().map(value -> "'" + value + "'")
+                .collect(Collectors.joining(", ")) + "))");
+        log.info("Recreated {} with values {}", PAYMENT_METHOD_CHECK, values);
+    }
+
+    /**
+     * Unique trên idempotency_key phải bỏ qua NULL: SQL Server coi các NULL là trùng nhau nên unique constraint
+     * thường không tạo được trên bảng đã có giao dịch cũ (key NULL). Dùng unique index có điều kiện thay thế.
+     */
+    private void migrateIdempotencyKeyIndex() {
+        Integer exists = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM sys.indexes WHERE object_id = OBJECT_ID(?) AND name = ?",
+                Integer.class, TRANSACTION_TABLE, IDEMPOTENCY_KEY_INDEX);
+        if (exists != null && exists > 0) {
+            return;
+        }
+        // Bỏ unique constraint Hibernate có thể đã tạo trên bảng trống trước đây
+        jdbcTemplate.execute(
+                "DECLARE @sql nvarchar(max) = N''; " +
+                        "SELECT @sql += N'ALTER TABLE " + TRANSACTION_TABLE + " DROP CONSTRAINT ' + QUOTENAME(kc.name) + N'; ' " +
+                        "FROM sys.key_constraints kc " +
+                        "JOIN sys.index_columns ic ON ic.object_id = kc.parent_object_id AND ic.index_id = kc.unique_index_id " +
+                        "JOIN sys.columns c ON c.object_id = ic.object_id AND c.column_id = ic.column_id " +
+                        "WHERE kc.parent_object_id = OBJECT_ID(N'" + TRANSACTION_TABLE + "') AND kc.type = 'UQ' " +
+                        "AND c.name = 'idempotency_key'; " +
+                        "EXEC sp_executesql @sql;");
+        jdbcTemplate.execute("CREATE UNIQUE INDEX " + IDEMPOTENCY_KEY_INDEX + " ON " + TRANSACTION_TABLE +
+                " (idempotency_key) WHERE idempotency_key IS NOT NULL");
+        log.info("Created filtered unique index {}", IDEMPOTENCY_KEY_INDEX);
+    }
+
+    /**
+     * Cột created_at của Transaction có sau các giao dịch cũ nên các dòng đó là NULL, khiến RevenueAggregator bỏ qua
+     * và ColumnarExporter không xuất được chúng. Lấy thời điểm kết thúc của session làm thời điểm giao dịch
+     * (settlement chạy ngay sau khi session kết thúc), theo từng phần để không giữ khóa lâu.
+     */
+    private void backfillTransactionCreatedAt() {
+        int total = 0;
+        int updated;
+        do {
+            updated = jdbcTemplate.update("UPDATE TOP (5000) t SET t.created_at = s.end_time " +
+                    "FROM " + TRANSACTION_TABLE + " t JOIN Session s ON s.session_id = t.session_id " +
+                    "WHERE t.created_at IS NULL");
+            total += updated;
+        } while (updated >= 5000);
+        if (total > 0) {
+            log.info("Backfilled created_at of {} {} rows from session end_time", total, TRANSACTION_TABLE);
+        }
+    }
+
+    /**
+     * NotificationDispatcher xóa content khi dòng outbox chuyển SENT / FAILED; các dòng đã xong trước thay đổi đó
+     * vẫn còn nội dung (có thể là mã xác thực) nên xóa một lần, theo từng phần để không giữ khóa lâu.
+     */
+    private void scrubCompletedNotificationContent() {
+        int total = 0;
+        int updated;
+        do {
+            updated = jdbcTemplate.update("UPDATE TOP (5000) notification_outbox SET content = '' " +
+                    "WHERE status IN ('SENT', 'FAILED') AND content <> ''");
+            total += updated;
+        } while (updated >= 5000);
+        if (total > 0) {
+            log.info("Cleared content of {} completed notification_outbox rows", total);
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package swp391.code.swp391.config;
 
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 //import org.springframework.http.HttpMethod;
@@ -12,8 +14,13 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import swp391.code.swp391.service.JwtClaimsCache;
+import swp391.code.swp391.utils.JWTUtils;
 
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
@@ -23,8 +30,14 @@ import java.nio.charset.StandardCharsets;
 @EnableWebSecurity
 public class SecurityConfig {
 
+    // Khóa HS512 phải dài ít nhất 64 byte
+    private static final int MIN_JWT_SECRET_BYTES = 64;
+
+    @Value("${jwt.secret:}")
+    private String jwtSecret;
+
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, JWTUtils jwtUtils, JwtClaimsCache claimsCache) throws Exception {
         http
             .csrf(httpSecurityCsrfConfigurer -> httpSecurityCsrfConfigurer.disable())
 //            .cors(cors -> cors.disable())
@@ -37,16 +50,34 @@ public class SecurityConfig {
             )
             .sessionManagement(session ->
                 session.sessionCreationPolicy(SessionCreationPolicy.STATELESS) //Không dùng session vì đang dùng JWT
-            );
+            )
+            .addFilterBefore(new JwtAuthenticationFilter(jwtUtils, claimsCache), UsernamePasswordAuthenticationFilter.class); //Xác thực Bearer token trước khi tới controller
 
         return http.build();
     }
     @Bean
     public JwtDecoder jwtDecoder() { //Cấu hình giải mã JWT với thuật toán HS512
-        String key = "123456";
-        SecretKey secretKey = new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "hs512"); //Tạo SecretKey từ chuỗi key với thuật toán HS512
-        return NimbusJwtDecoder.withSecretKey(secretKey) //NimbusJwtDecoder là một triển khai của JwtDecoder sử dụng thư viện Nimbus JOSE + JWT để giải mã và xác thực JWT
+        return NimbusJwtDecoder.withSecretKey(jwtSecretKey()) //NimbusJwtDecoder là một triển khai của JwtDecoder sử dụng thư viện Nimbus JOSE + JWT để giải mã và xác thực JWT
                 .macAlgorithm(MacAlgorithm.HS512)
                 .build();
     }
+
+    @Bean
+    public JwtEncoder jwtEncoder() { //Ký JWT khi đăng nhập, cùng khóa với decoder
+        return new NimbusJwtEncoder(new ImmutableSecret<>(jwtSecretKey()));
+    }
+
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        return new BCryptPasswordEncoder();
+    }
+
+    private SecretKey jwtSecretKey() {
+        // Không có khóa mặc định ngoài profile dev: thiếu JWT_SECRET thì dừng khởi động thay vì ký token bằng khóa ai cũng biết
+        if (jwtSecret == null || jwtSecret.getBytes(StandardCharsets.UTF_8).length < MIN_JWT_SECRET_BYTES) {
+            throw new IllegalStateException("JWT_SECRET must be set to at least " + MIN_JWT_SECRET_BYTES
+                    + " bytes (only the dev profile has a default key)");
+        }
+        return new SecretKeySpec(jwtSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA512"); //Tạo SecretKey từ chuỗi key với thuật toán HS512
+    }
 }
\ No newline at end of file
@@ -0,0 +1,77 @@
+package swp391.code.swp391.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import swp391.code.swp391.dto.ChargingPointDTO;
+import swp391.code.swp391.dto.OrderDTO;
+import swp391.code.swp391.service.BookingService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/bookings")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class BookingController {
+
+    private final BookingService bookingService;
+
+    // Đặt chỗ charging point
+    @PostMapping
+    public ResponseEntity<?> createBooking(@RequestBody @Validated OrderDTO orderDTO) {
+        try {
+            OrderDTO createdOrder = bookingService.createBooking(orderDTO);
+            return new ResponseEntity<>(createdOrder, HttpStatus.CREATED);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Lấy order theo ID
+    @GetMapping("/{orderId}")
+    public ResponseEntity<?> getBookingById(@PathVariable Long orderId) {
+        try {
+            OrderDTO order = bookingService.getBookingById(orderId);
+            return new ResponseEntity<>(order, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        }
+    }
+
+    // Lấy orders theo user ID
+    @GetMapping("/user/{userId}")
+    public ResponseEntity<List<OrderDTO>> getBookingsByUserId(@PathVariable Long userId) {
+        List<OrderDTO> orders = bookingService.getBookingsByUserId(userId);
+        return new ResponseEntity<>(orders, HttpStatus.OK);
+    }
+
+    // Hủy đặt chỗ
+    @DeleteMapping("/{orderId}")
+    public ResponseEntity<?> cancelBooking(@PathVariable Long orderId) {
+        try {
+            OrderDTO canceledOrder = bookingService.cancelBooking(orderId);
+            return new ResponseEntity<>(canceledOrder, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Lấy charging points của station còn trống trong khung giờ
+    @GetMapping("/station/{stationId}/available-points")
+    public ResponseEntity<?> getAvailableChargingPoints(
+            @PathVariable Long stationId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        try {
+            List<ChargingPointDTO> chargingPoints = bookingService.getAvailableChargingPoints(stationId, start, end);
+            return new ResponseEntity<>(chargingPoints, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+}
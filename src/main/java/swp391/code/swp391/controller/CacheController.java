@@ -0,0 +1,36 @@
+package swp391.code.swp391.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import swp391.code.swp391.dto.CacheStatsDTO;
+import swp391.code.swp391.service.CacheService;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/caches")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class CacheController {
+
+    private final CacheService cacheService;
+
+    // Số liệu hit/miss của các cache (connector-types, stations)
+    @GetMapping("/stats")
+    public ResponseEntity<List<CacheStatsDTO>> getCacheStats() {
+        return new ResponseEntity<>(cacheService.getCacheStats(), HttpStatus.OK);
+    }
+
+    // Nạp lại cache từ DB
+    @PostMapping("/{name}/refresh")
+    public ResponseEntity<?> refreshCache(@PathVariable String name) {
+        try {
+            CacheStatsDTO stats = cacheService.refreshCache(name);
+            return new ResponseEntity<>(stats, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        }
+    }
+}
@@ -1,23 +1,36 @@
 package swp391.code.swp391.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import swp391.code.swp391.dto.ChargingPointDTO;
+import swp391.code.swp391.dto.KeysetPageDTO;
 import swp391.code.swp391.entity.ChargingPoint.ChargingPointStatus;
 import swp391.code.swp391.service.ChargingPointService;
+import swp391.code.swp391.service.ChargingPointStatusBroadcaster;
+import swp391.code.swp391.utils.JsonStreamUtils;
 
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/charging-points")
 @RequiredArgsConstructor
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = KeysetPageDTO.NEXT_AFTER_HEADER)
 public class ChargingPointController {
 
     private final ChargingPointService chargingPointService;
+    private final ChargingPointStatusBroadcaster statusBroadcaster;
+    private final ObjectMapper objectMapper;
+
+    // Bán kính tối đa cho subscription theo khu vực
+    private static final double MAX_STREAM_RADIUS_KM = 50;
 
     // Tạo charging point mới
     @PostMapping
@@ -41,11 +54,25 @@ public class ChargingPointController {
         }
     }
 
-    // Lấy tất cả charging points
+    // Lấy charging points theo keyset (?after=id&limit=), header X-Next-After chứa giá trị after của trang kế
     @GetMapping
-    public ResponseEntity<List<ChargingPointDTO>> getAllChargingPoints() {
-        List<ChargingPointDTO> chargingPoints = chargingPointService.getAllChargingPoints();
-        return new ResponseEntity<>(chargingPoints, HttpStatus.OK);
+    public ResponseEntity<List<ChargingPointDTO>> getChargingPoints(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "" + KeysetPageDTO.DEFAULT_LIMIT) int limit) {
+        KeysetPageDTO<ChargingPointDTO> page = chargingPointService.getChargingPointsPage(after, limit);
+        HttpHeaders headers = new HttpHeaders();
+        if (page.getNextAfter() != null) {
+            headers.set(KeysetPageDTO.NEXT_AFTER_HEADER, page.getNextAfter());
+        }
+        return new ResponseEntity<>(page.getItems(), headers, HttpStatus.OK);
+    }
+
+    // Lấy toàn bộ charging points dạng JSON array, đọc theo từng trang keyset (mỗi trang một transaction ngắn) và ghi ngay
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllChargingPoints() {
+        StreamingResponseBody body = JsonStreamUtils.keysetArray(objectMapper, after ->
+                chargingPointService.getChargingPointsPage(after != null ? Long.valueOf(after) : null, KeysetPageDTO.MAX_LIMIT));
+        return new ResponseEntity<>(body, HttpStatus.OK);
     }
 
     // Lấy charging points theo station ID
@@ -55,6 +82,27 @@ public class ChargingPointController {
         return new ResponseEntity<>(chargingPoints, HttpStatus.OK);
     }
 
+    // Subscribe (SSE) thay đổi trạng thái các charging points của station
+    @GetMapping(value = "/station/{stationId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChargingPointStatusByStation(@PathVariable Long stationId) {
+        try {
+            return new ResponseEntity<>(statusBroadcaster.subscribeStation(stationId), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+    }
+
+    // Subscribe (SSE) thay đổi trạng thái charging points của các stations trong bán kính
+    @GetMapping(value = "/stream/nearby", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChargingPointStatusNearby(@RequestParam double lat,
+                                                                      @RequestParam double lng,
+                                                                      @RequestParam(defaultValue = "5") double radiusKm) {
+        if (lat < -90 || lat > 90 || lng < -180 || lng > 180 || radiusKm <= 0 || radiusKm > MAX_STREAM_RADIUS_KM) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(statusBroadcaster.subscribeArea(lat, lng, radiusKm), HttpStatus.OK);
+    }
+
     // Cập nhật charging point
     @PutMapping("/{chargingPointId}")
     public ResponseEntity<?> updateChargingPoint(@PathVariable Long chargingPointId,
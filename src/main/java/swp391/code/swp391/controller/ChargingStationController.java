@@ -1,24 +1,32 @@
 package swp391.code.swp391.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import swp391.code.swp391.dto.BulkOnboardingResultDTO;
 import swp391.code.swp391.dto.ChargingPointDTO;
 import swp391.code.swp391.dto.ChargingStationDTO;
+import swp391.code.swp391.dto.KeysetPageDTO;
 import swp391.code.swp391.entity.ChargingStation.ChargingStationStatus;
 import swp391.code.swp391.service.ChargingStationService;
+import swp391.code.swp391.utils.JsonStreamUtils;
 
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/charging-stations")
 @RequiredArgsConstructor
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = KeysetPageDTO.NEXT_AFTER_HEADER)
 public class ChargingStationController {
 
     private final ChargingStationService chargingStationService;
+    private final ObjectMapper objectMapper;
 
     // Tạo charging station mới
     @PostMapping
@@ -50,11 +58,36 @@ public class ChargingStationController {
         }
     }
 
-    // Lấy tất cả charging stations
+    // Tạo nhiều charging stations cùng lúc (bulk onboarding), tất cả hoặc không trạm nào được tạo
+    @PostMapping("/bulk")
+    public ResponseEntity<?> createChargingStations(@RequestBody List<ChargingStationDTO> chargingStationDTOs) {
+        try {
+            BulkOnboardingResultDTO result = chargingStationService.createChargingStations(chargingStationDTOs);
+            return new ResponseEntity<>(result, HttpStatus.CREATED);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Lấy charging stations theo keyset (?after=id&limit=), header X-Next-After chứa giá trị after của trang kế
     @GetMapping
-    public ResponseEntity<List<ChargingStationDTO>> getAllChargingStations() {
-        List<ChargingStationDTO> chargingStations = chargingStationService.getAllChargingStations();
-        return new ResponseEntity<>(chargingStations, HttpStatus.OK);
+    public ResponseEntity<List<ChargingStationDTO>> getChargingStations(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "" + KeysetPageDTO.DEFAULT_LIMIT) int limit) {
+        KeysetPageDTO<ChargingStationDTO> page = chargingStationService.getChargingStationsPage(after, limit);
+        HttpHeaders headers = new HttpHeaders();
+        if (page.getNextAfter() != null) {
+            headers.set(KeysetPageDTO.NEXT_AFTER_HEADER, page.getNextAfter());
+        }
+        return new ResponseEntity<>(page.getItems(), headers, HttpStatus.OK);
+    }
+
+    // Lấy toàn bộ charging stations dạng JSON array, đọc theo từng trang keyset (mỗi trang một transaction ngắn) và ghi ngay
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllChargingStations() {
+        StreamingResponseBody body = JsonStreamUtils.keysetArray(objectMapper, after ->
+                chargingStationService.getChargingStationsPage(after != null ? Long.valueOf(after) : null, KeysetPageDTO.MAX_LIMIT));
+        return new ResponseEntity<>(body, HttpStatus.OK);
     }
 
     // Cập nhật charging station
@@ -166,6 +199,20 @@ public class ChargingStationController {
         return new ResponseEntity<>(count, HttpStatus.OK);
     }
 
+    // Tìm stations gần vị trí hiện tại
+    @GetMapping("/nearby")
+    public ResponseEntity<?> getNearbyChargingStations(@RequestParam double lat,
+                                                       @RequestParam double lng,
+                                                       @RequestParam(required = false) Double radiusKm,
+                                                       @RequestParam(defaultValue = "20") int limit) {
+        try {
+            List<ChargingStationDTO> stations = chargingStationService.getNearbyChargingStations(lat, lng, radiusKm, limit);
+            return new ResponseEntity<>(stations, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
     // Kiểm tra tên station có tồn tại không
     @GetMapping("/exists")
     public ResponseEntity<Boolean> isStationNameExists(@RequestParam String stationName) {
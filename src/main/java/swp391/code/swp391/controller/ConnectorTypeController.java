@@ -1,22 +1,29 @@
 package swp391.code.swp391.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import swp391.code.swp391.dto.ConnectorTypeDTO;
+import swp391.code.swp391.dto.KeysetPageDTO;
 import swp391.code.swp391.service.ConnectorTypeService;
+import swp391.code.swp391.utils.JsonStreamUtils;
 
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/connector-types")
 @RequiredArgsConstructor
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = KeysetPageDTO.NEXT_AFTER_HEADER)
 public class ConnectorTypeController {
 
     private final ConnectorTypeService connectorTypeService;
+    private final ObjectMapper objectMapper;
 
     // Tạo connector type mới
     @PostMapping
@@ -40,11 +47,25 @@ public class ConnectorTypeController {
         }
     }
 
-    // Lấy tất cả connector types
+    // Lấy connector types theo keyset (?after=id&limit=), header X-Next-After chứa giá trị after của trang kế
     @GetMapping
-    public ResponseEntity<List<ConnectorTypeDTO>> getAllConnectorTypes() {
-        List<ConnectorTypeDTO> connectorTypes = connectorTypeService.getAllConnectorTypes();
-        return new ResponseEntity<>(connectorTypes, HttpStatus.OK);
+    public ResponseEntity<List<ConnectorTypeDTO>> getConnectorTypes(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "" + KeysetPageDTO.DEFAULT_LIMIT) int limit) {
+        KeysetPageDTO<ConnectorTypeDTO> page = connectorTypeService.getConnectorTypesPage(after, limit);
+        HttpHeaders headers = new HttpHeaders();
+        if (page.getNextAfter() != null) {
+            headers.set(KeysetPageDTO.NEXT_AFTER_HEADER, page.getNextAfter());
+        }
+        return new ResponseEntity<>(page.getItems(), headers, HttpStatus.OK);
+    }
+
+    // Lấy toàn bộ connector types dạng JSON array, đọc theo từng trang keyset (mỗi trang một transaction ngắn) và ghi ngay
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllConnectorTypes() {
+        StreamingResponseBody body = JsonStreamUtils.keysetArray(objectMapper, after ->
+                connectorTypeService.getConnectorTypesPage(after != null ? Long.valueOf(after) : null, KeysetPageDTO.MAX_LIMIT));
+        return new ResponseEntity<>(body, HttpStatus.OK);
     }
 
     // Lấy connector types theo charging point ID
@@ -0,0 +1,52 @@
+package swp391.code.swp391.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import swp391.code.swp391.dto.ExportJobDTO;
+import swp391.code.swp391.service.ColumnarExporter.ExportTable;
+import swp391.code.swp391.service.ExportService;
+
+import java.time.YearMonth;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/exports")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class ExportController {
+
+    private final ExportService exportService;
+
+    // Tạo job xuất Session / Transaction / Fee của một tháng (mặc định cả ba bảng)
+    @PostMapping
+    public ResponseEntity<?> startExport(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month,
+            @RequestParam(required = false) List<ExportTable> tables) {
+        try {
+            ExportJobDTO job = exportService.startExport(month, tables);
+            return new ResponseEntity<>(job, HttpStatus.ACCEPTED);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    // Lấy trạng thái job
+    @GetMapping("/{jobId}")
+    public ResponseEntity<?> getExportJob(@PathVariable String jobId) {
+        try {
+            ExportJobDTO job = exportService.getExportJob(jobId);
+            return new ResponseEntity<>(job, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        }
+    }
+
+    // Lấy các job gần đây
+    @GetMapping
+    public ResponseEntity<List<ExportJobDTO>> getExportJobs() {
+        return new ResponseEntity<>(exportService.getExportJobs(), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,68 @@
+package swp391.code.swp391.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import swp391.code.swp391.dto.ImportJobDTO;
+import swp391.code.swp391.service.ImportService;
+import swp391.code.swp391.service.StationImporter.ImportFormat;
+
+import java.nio.file.Path;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/imports")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class ImportController {
+
+    private final ImportService importService;
+
+    // Upload file CSV/JSON và tạo job nhập trạm sạc (format mặc định theo đuôi file)
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> startImport(@RequestParam("file") MultipartFile file,
+                                         @RequestParam(required = false) ImportFormat format) {
+        try {
+            ImportJobDTO job = importService.startImport(file, format);
+            return new ResponseEntity<>(job, HttpStatus.ACCEPTED);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Lấy trạng thái và tiến độ job
+    @GetMapping("/{jobId}")
+    public ResponseEntity<?> getImportJob(@PathVariable String jobId) {
+        try {
+            ImportJobDTO job = importService.getImportJob(jobId);
+            return new ResponseEntity<>(job, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        }
+    }
+
+    // Tải báo cáo các dòng bị loại (CSV: line, station_name, reason)
+    @GetMapping("/{jobId}/rejections")
+    public ResponseEntity<?> getRejectionReport(@PathVariable String jobId) {
+        try {
+            Path report = importService.getRejectionReport(jobId);
+            return ResponseEntity.ok()
+                    .contentType(new MediaType("text", "csv"))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"rejections-" + jobId + ".csv\"")
+                    .body(new FileSystemResource(report));
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        }
+    }
+
+    // Lấy các job gần đây
+    @GetMapping
+    public ResponseEntity<List<ImportJobDTO>> getImportJobs() {
+        return new ResponseEntity<>(importService.getImportJobs(), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,51 @@
+package swp391.code.swp391.controller;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import swp391.code.swp391.dto.MeterSeriesDTO;
+import swp391.code.swp391.dto.MeterValueDTO;
+import swp391.code.swp391.service.MeterValueService;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/sessions/{sessionId}/meter-values")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+@Validated
+public class MeterValueController {
+
+    private final MeterValueService meterValueService;
+
+    // Ghi các mẫu đo của session (gửi theo lô)
+    @PostMapping
+    public ResponseEntity<?> recordMeterValues(@PathVariable Long sessionId,
+                                               @RequestBody List<@Valid MeterValueDTO> meterValues) {
+        try {
+            int accepted = meterValueService.recordMeterValues(sessionId, meterValues);
+            return new ResponseEntity<>(Map.of("accepted", accepted, "rejected", meterValues.size() - accepted),
+                    HttpStatus.ACCEPTED);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Lấy timeline meter value của session, from/to là epoch millis
+    @GetMapping
+    public ResponseEntity<?> getMeterValues(@PathVariable Long sessionId,
+                                            @RequestParam(required = false) Long from,
+                                            @RequestParam(required = false) Long to,
+                                            @RequestParam(defaultValue = "500") int maxPoints) {
+        try {
+            MeterSeriesDTO series = meterValueService.getMeterValues(sessionId, from, to, maxPoints);
+            return new ResponseEntity<>(series, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+}
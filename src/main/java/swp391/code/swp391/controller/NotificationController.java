@@ -0,0 +1,82 @@
+package swp391.code.swp391.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import swp391.code.swp391.dto.KeysetPageDTO;
+import swp391.code.swp391.dto.NotificationDTO;
+import swp391.code.swp391.dto.NotificationMetricsDTO;
+import swp391.code.swp391.service.NotificationService;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/notifications")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*", exposedHeaders = KeysetPageDTO.NEXT_AFTER_HEADER)
+public class NotificationController {
+
+    private final NotificationService notificationService;
+
+    // Tạo notification cho user
+    @PostMapping
+    public ResponseEntity<?> createNotification(@RequestBody @Validated NotificationDTO notificationDTO) {
+        try {
+            NotificationDTO created = notificationService.createNotification(notificationDTO);
+            return new ResponseEntity<>(created, HttpStatus.CREATED);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Inbox của user theo keyset (?after=&limit=), mới nhất trước, header X-Next-After chứa giá trị after của trang kế
+    @GetMapping("/user/{userId}")
+    public ResponseEntity<?> getInbox(@PathVariable Long userId,
+                                      @RequestParam(required = false) String after,
+                                      @RequestParam(defaultValue = "" + KeysetPageDTO.DEFAULT_LIMIT) int limit) {
+        try {
+            KeysetPageDTO<NotificationDTO> page = notificationService.getInbox(userId, after, limit);
+            HttpHeaders headers = new HttpHeaders();
+            if (page.getNextAfter() != null) {
+                headers.set(KeysetPageDTO.NEXT_AFTER_HEADER, page.getNextAfter());
+            }
+            return new ResponseEntity<>(page.getItems(), headers, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Số notification chưa đọc (badge), không truy vấn DB
+    @GetMapping("/user/{userId}/unread-count")
+    public ResponseEntity<Map<String, Object>> getUnreadCount(@PathVariable Long userId) {
+        long unread = notificationService.getUnreadCount(userId);
+        return new ResponseEntity<>(Map.of("userId", userId, "unread", unread), HttpStatus.OK);
+    }
+
+    // Đánh dấu đã đọc một notification
+    @PutMapping("/user/{userId}/{notificationId}/read")
+    public ResponseEntity<?> markAsRead(@PathVariable Long userId, @PathVariable Long notificationId) {
+        try {
+            notificationService.markAsRead(userId, notificationId);
+            return new ResponseEntity<>("Notification marked as read", HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        }
+    }
+
+    // Đánh dấu đã đọc toàn bộ notification của user
+    @PutMapping("/user/{userId}/read-all")
+    public ResponseEntity<Map<String, Object>> markAllAsRead(@PathVariable Long userId) {
+        int updated = notificationService.markAllAsRead(userId);
+        return new ResponseEntity<>(Map.of("userId", userId, "updated", updated), HttpStatus.OK);
+    }
+
+    // Số liệu hàng đợi / độ trễ gửi của notification outbox
+    @GetMapping("/outbox/metrics")
+    public ResponseEntity<NotificationMetricsDTO> getOutboxMetrics() {
+        return new ResponseEntity<>(notificationService.getOutboxMetrics(), HttpStatus.OK);
+    }
+}
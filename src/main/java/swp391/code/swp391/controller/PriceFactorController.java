@@ -0,0 +1,106 @@
+package swp391.code.swp391.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import swp391.code.swp391.dto.PriceFactorDTO;
+import swp391.code.swp391.dto.TariffSegmentDTO;
+import swp391.code.swp391.service.PriceFactorService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/price-factors")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class PriceFactorController {
+
+    private final PriceFactorService priceFactorService;
+
+    // Tạo price factor mới
+    @PostMapping
+    public ResponseEntity<?> createPriceFactor(@RequestBody @Validated PriceFactorDTO priceFactorDTO) {
+        try {
+            PriceFactorDTO createdPriceFactor = priceFactorService.createPriceFactor(priceFactorDTO);
+            return new ResponseEntity<>(createdPriceFactor, HttpStatus.CREATED);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Lấy price factor theo ID
+    @GetMapping("/{priceFactorId}")
+    public ResponseEntity<?> getPriceFactorById(@PathVariable Long priceFactorId) {
+        try {
+            PriceFactorDTO priceFactor = priceFactorService.getPriceFactorById(priceFactorId);
+            return new ResponseEntity<>(priceFactor, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        }
+    }
+
+    // Lấy price factors theo station ID
+    @GetMapping("/station/{stationId}")
+    public ResponseEntity<List<PriceFactorDTO>> getPriceFactorsByStationId(@PathVariable Long stationId) {
+        List<PriceFactorDTO> priceFactors = priceFactorService.getPriceFactorsByStationId(stationId);
+        return new ResponseEntity<>(priceFactors, HttpStatus.OK);
+    }
+
+    // Cập nhật price factor
+    @PutMapping("/{priceFactorId}")
+    public ResponseEntity<?> updatePriceFactor(@PathVariable Long priceFactorId,
+                                               @RequestBody @Validated PriceFactorDTO priceFactorDTO) {
+        try {
+            PriceFactorDTO updatedPriceFactor = priceFactorService.updatePriceFactor(priceFactorId, priceFactorDTO);
+            return new ResponseEntity<>(updatedPriceFactor, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Xóa price factor
+    @DeleteMapping("/{priceFactorId}")
+    public ResponseEntity<?> deletePriceFactor(@PathVariable Long priceFactorId) {
+        try {
+            priceFactorService.deletePriceFactor(priceFactorId);
+            return new ResponseEntity<>("Price factor deleted successfully", HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        }
+    }
+
+    // Hệ số giá của station tại thời điểm cho trước
+    @GetMapping("/station/{stationId}/factor")
+    public ResponseEntity<Map<String, Object>> getFactorAt(
+            @PathVariable Long stationId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        double factor = priceFactorService.getFactorAt(stationId, at);
+        return new ResponseEntity<>(Map.of("stationId", stationId, "at", at, "factor", factor), HttpStatus.OK);
+    }
+
+    // Các đoạn hệ số giá của station trong khoảng thời gian
+    @GetMapping("/station/{stationId}/timeline")
+    public ResponseEntity<?> getTariffTimeline(
+            @PathVariable Long stationId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime start,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime end) {
+        try {
+            List<TariffSegmentDTO> timeline = priceFactorService.getTariffTimeline(stationId, start, end);
+            return new ResponseEntity<>(timeline, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Nạp lại toàn bộ cache hệ số giá (sau khi import PriceFactor trực tiếp vào DB)
+    @PostMapping("/reload")
+    public ResponseEntity<Map<String, Object>> reloadTariffCache() {
+        int stations = priceFactorService.reloadTariffCache();
+        return new ResponseEntity<>(Map.of("stations", stations), HttpStatus.OK);
+    }
+}
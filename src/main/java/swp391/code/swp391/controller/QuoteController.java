@@ -0,0 +1,63 @@
+package swp391.code.swp391.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import swp391.code.swp391.dto.QuoteDTO;
+import swp391.code.swp391.service.QuoteService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/quote")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class QuoteController {
+
+    // Bán kính tối đa cho báo giá theo khu vực
+    private static final double MAX_RADIUS_KM = 50;
+
+    private final QuoteService quoteService;
+
+    // Báo giá các charging point tương thích tại một station
+    @GetMapping("/station/{stationId}")
+    public ResponseEntity<?> quoteStation(
+            @PathVariable Long stationId,
+            @RequestParam String plateNumber,
+            @RequestParam double startedBattery,
+            @RequestParam double expectedBattery,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime) {
+        try {
+            List<QuoteDTO> quotes = quoteService.quoteStation(stationId, plateNumber, startedBattery,
+                    expectedBattery, startTime);
+            return new ResponseEntity<>(quotes, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Báo giá các charging point tương thích tại các station gần vị trí
+    @GetMapping("/nearby")
+    public ResponseEntity<?> quoteNearby(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(defaultValue = "10") double radiusKm,
+            @RequestParam String plateNumber,
+            @RequestParam double startedBattery,
+            @RequestParam double expectedBattery,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTime) {
+        if (radiusKm <= 0 || radiusKm > MAX_RADIUS_KM) {
+            return new ResponseEntity<>("radiusKm must be between 0 and " + MAX_RADIUS_KM, HttpStatus.BAD_REQUEST);
+        }
+        try {
+            List<QuoteDTO> quotes = quoteService.quoteNearby(lat, lng, radiusKm, plateNumber, startedBattery,
+                    expectedBattery, startTime);
+            return new ResponseEntity<>(quotes, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+}
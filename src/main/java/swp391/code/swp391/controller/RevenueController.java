@@ -0,0 +1,59 @@
+package swp391.code.swp391.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import swp391.code.swp391.dto.RevenueDTO;
+import swp391.code.swp391.entity.Revenue;
+import swp391.code.swp391.service.RevenueService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/revenues")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class RevenueController {
+
+    private final RevenueService revenueService;
+
+    // Doanh thu của station theo từng giờ / ngày / tháng
+    @GetMapping("/station/{stationId}")
+    public ResponseEntity<?> getStationRevenue(
+            @PathVariable Long stationId,
+            @RequestParam(defaultValue = "DAY") Revenue.Granularity granularity,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        try {
+            List<RevenueDTO> revenues = revenueService.getStationRevenue(stationId, granularity, from, to);
+            return new ResponseEntity<>(revenues, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Tổng doanh thu của từng station trong khoảng thời gian, cao nhất trước
+    @GetMapping("/summary")
+    public ResponseEntity<?> getRevenueSummary(
+            @RequestParam(defaultValue = "DAY") Revenue.Granularity granularity,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        try {
+            List<RevenueDTO> revenues = revenueService.getRevenueSummary(granularity, from, to);
+            return new ResponseEntity<>(revenues, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Dựng lại toàn bộ doanh thu từ bảng Transaction
+    @PostMapping("/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildRevenue() {
+        long transactions = revenueService.rebuildRevenue();
+        return new ResponseEntity<>(Map.of("transactions", transactions), HttpStatus.OK);
+    }
+}
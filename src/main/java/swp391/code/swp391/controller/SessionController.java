@@ -0,0 +1,51 @@
+package swp391.code.swp391.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import swp391.code.swp391.dto.SessionDTO;
+import swp391.code.swp391.service.ChargingSessionService;
+
+@RestController
+@RequestMapping("/api/sessions")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class SessionController {
+
+    private final ChargingSessionService chargingSessionService;
+
+    // Bắt đầu sạc cho order đã đặt, trụ gửi kèm chỉ số công tơ hiện tại nếu có
+    @PostMapping("/start/{orderId}")
+    public ResponseEntity<?> startSession(@PathVariable Long orderId,
+                                          @RequestParam(required = false) Double meterStart) {
+        try {
+            SessionDTO session = chargingSessionService.startSession(orderId, meterStart);
+            return new ResponseEntity<>(session, HttpStatus.CREATED);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Kết thúc sạc
+    @PostMapping("/{sessionId}/end")
+    public ResponseEntity<?> endSession(@PathVariable Long sessionId) {
+        try {
+            SessionDTO session = chargingSessionService.endSession(sessionId);
+            return new ResponseEntity<>(session, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Lấy session theo ID, kèm chi phí tạm tính nếu đang sạc
+    @GetMapping("/{sessionId}")
+    public ResponseEntity<?> getSessionById(@PathVariable Long sessionId) {
+        try {
+            SessionDTO session = chargingSessionService.getSessionById(sessionId);
+            return new ResponseEntity<>(session, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package swp391.code.swp391.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import swp391.code.swp391.dto.SettlementMetricsDTO;
+import swp391.code.swp391.dto.TransactionDTO;
+import swp391.code.swp391.service.SettlementService;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/settlements")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class SettlementController {
+
+    private final SettlementService settlementService;
+
+    // Lấy transaction quyết toán của session
+    @GetMapping("/session/{sessionId}")
+    public ResponseEntity<?> getSettlementBySessionId(@PathVariable Long sessionId) {
+        try {
+            TransactionDTO transaction = settlementService.getSettlementBySessionId(sessionId);
+            return new ResponseEntity<>(transaction, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        }
+    }
+
+    // Nạp lại các session chưa quyết toán (không cần chờ lần quét định kỳ)
+    @PostMapping("/recover")
+    public ResponseEntity<Map<String, Object>> recoverUnsettled() {
+        int sessions = settlementService.recoverUnsettled();
+        return new ResponseEntity<>(Map.of("sessions", sessions), HttpStatus.OK);
+    }
+
+    // Số liệu throughput / lag của settlement pipeline
+    @GetMapping("/metrics")
+    public ResponseEntity<SettlementMetricsDTO> getMetrics() {
+        return new ResponseEntity<>(settlementService.getMetrics(), HttpStatus.OK);
+    }
+}
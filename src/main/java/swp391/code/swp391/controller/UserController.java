@@ -1,18 +1,22 @@
 package swp391.code.swp391.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import swp391.code.swp391.dto.*;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import swp391.code.swp391.entity.User;
+import swp391.code.swp391.service.LoginRateLimiter;
 import swp391.code.swp391.service.UserServiceImpl;
 import swp391.code.swp391.dto.APIResponse;
 import swp391.code.swp391.dto.UpdateUserDTO;
 import swp391.code.swp391.service.VehicleServiceImpl;
 
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/auth/user")
@@ -27,19 +31,33 @@ public class UserController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<APIResponse<User>> checkLogin(@RequestBody LoginRequestDTO loginRequestDTO) { //return user if success, status code if fail
-        User user;
+    public ResponseEntity<APIResponse<LoginResponseDTO>> checkLogin(@RequestBody LoginRequestDTO loginRequestDTO,
+                                                                   HttpServletRequest request) { //return access token if success, status code if fail
+        LoginResponseDTO login;
         try{
-            user = userServiceImpl.checkLoginUser(loginRequestDTO);
-            if (user == null) {
+            login = userServiceImpl.login(loginRequestDTO, request.getRemoteAddr());
+            if (login == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(new APIResponse<>(false, "Invalid username or password", null));
             }
+        } catch(LoginRateLimiter.RateLimitExceededException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(new APIResponse<>(false, e.getMessage(), null));
+        } catch(RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(new APIResponse<>(false, e.getMessage(), null));
         } catch(IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(new APIResponse<>(false, e.getMessage(), null));
         } catch(Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(new APIResponse<>(false, e.getMessage(), null));
         }
-        return ResponseEntity.ok(new APIResponse<>(true, "Login successful", user));
+        return ResponseEntity.ok(new APIResponse<>(true, "Login successful", login));
+    }
+
+    // Số liệu pool băm mật khẩu (độ trễ, hàng đợi) và rate limit đăng nhập
+    @GetMapping("/auth-metrics")
+    public ResponseEntity<APIResponse<AuthMetricsDTO>> getAuthMetrics() {
+        return ResponseEntity.ok(APIResponse.success("Auth metrics", userServiceImpl.getAuthMetrics()));
     }
 
     @PostMapping("/register")
@@ -1,22 +1,32 @@
 package swp391.code.swp391.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import swp391.code.swp391.dto.ChargingStationDTO;
+import swp391.code.swp391.dto.KeysetPageDTO;
 import swp391.code.swp391.dto.VehicleDTO;
+import swp391.code.swp391.service.ChargingStationService;
 import swp391.code.swp391.service.VehicleService;
+import swp391.code.swp391.utils.JsonStreamUtils;
 
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/vehicles")
 @RequiredArgsConstructor
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = KeysetPageDTO.NEXT_AFTER_HEADER)
 public class VehicleController {
 
     private final VehicleService vehicleService;
+    private final ChargingStationService chargingStationService;
+    private final ObjectMapper objectMapper;
 
     // Tạo vehicle mới
     @PostMapping
@@ -40,11 +50,44 @@ public class VehicleController {
         }
     }
 
-    // Lấy tất cả vehicles
+    // Tìm stations tương thích connector của vehicle (?availableOnly=&limit=, thêm lat/lng/radiusKm để lọc theo vị trí)
+    @GetMapping("/{plateNumber}/compatible-stations")
+    public ResponseEntity<?> getCompatibleStations(@PathVariable String plateNumber,
+                                                   @RequestParam(required = false) Double lat,
+                                                   @RequestParam(required = false) Double lng,
+                                                   @RequestParam(required = false) Double radiusKm,
+                                                   @RequestParam(defaultValue = "true") boolean availableOnly,
+                                                   @RequestParam(defaultValue = "50") int limit) {
+        try {
+            List<ChargingStationDTO> stations = chargingStationService.getCompatibleChargingStations(
+                    plateNumber, lat, lng, radiusKm, availableOnly, limit);
+            return new ResponseEntity<>(stations, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        }
+    }
+
+    // Lấy vehicles theo keyset (?after=plateNumber&limit=), header X-Next-After chứa giá trị after của trang kế
     @GetMapping
-    public ResponseEntity<List<VehicleDTO>> getAllVehicles() {
-        List<VehicleDTO> vehicles = vehicleService.getAllVehicles();
-        return new ResponseEntity<>(vehicles, HttpStatus.OK);
+    public ResponseEntity<List<VehicleDTO>> getVehicles(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "" + KeysetPageDTO.DEFAULT_LIMIT) int limit) {
+        KeysetPageDTO<VehicleDTO> page = vehicleService.getVehiclesPage(after, limit);
+        HttpHeaders headers = new HttpHeaders();
+        if (page.getNextAfter() != null) {
+            headers.set(KeysetPageDTO.NEXT_AFTER_HEADER, page.getNextAfter());
+        }
+        return new ResponseEntity<>(page.getItems(), headers, HttpStatus.OK);
+    }
+
+    // Lấy toàn bộ vehicles dạng JSON array, đọc theo từng trang keyset (mỗi trang một transaction ngắn) và ghi ngay
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllVehicles() {
+        StreamingResponseBody body = JsonStreamUtils.keysetArray(objectMapper, after ->
+                vehicleService.getVehiclesPage(after, KeysetPageDTO.MAX_LIMIT));
+        return new ResponseEntity<>(body, HttpStatus.OK);
     }
 
     // Lấy vehicles theo user ID
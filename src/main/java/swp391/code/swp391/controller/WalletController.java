@@ -0,0 +1,100 @@
+package swp391.code.swp391.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import swp391.code.swp391.dto.WalletDTO;
+import swp391.code.swp391.dto.WalletTransactionDTO;
+import swp391.code.swp391.entity.WalletTransaction;
+import swp391.code.swp391.service.WalletService;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/wallets")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class WalletController {
+
+    private final WalletService walletService;
+
+    // Tạo wallet mới cho user
+    @PostMapping
+    public ResponseEntity<?> createWallet(@RequestBody @Validated WalletDTO walletDTO) {
+        try {
+            WalletDTO createdWallet = walletService.createWallet(walletDTO.getUserId());
+            return new ResponseEntity<>(createdWallet, HttpStatus.CREATED);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Lấy wallet theo ID
+    @GetMapping("/{walletId}")
+    public ResponseEntity<?> getWalletById(@PathVariable Long walletId) {
+        try {
+            WalletDTO wallet = walletService.getWalletById(walletId);
+            return new ResponseEntity<>(wallet, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        }
+    }
+
+    // Lấy wallets theo user ID
+    @GetMapping("/user/{userId}")
+    public ResponseEntity<List<WalletDTO>> getWalletsByUserId(@PathVariable Long userId) {
+        List<WalletDTO> wallets = walletService.getWalletsByUserId(userId);
+        return new ResponseEntity<>(wallets, HttpStatus.OK);
+    }
+
+    // Nạp tiền
+    @PostMapping("/{walletId}/deposit")
+    public ResponseEntity<?> deposit(@PathVariable Long walletId,
+                                     @RequestBody @Validated WalletTransactionDTO walletTransactionDTO) {
+        return post(walletId, WalletTransaction.Type.DEPOSIT, walletTransactionDTO);
+    }
+
+    // Rút tiền
+    @PostMapping("/{walletId}/withdraw")
+    public ResponseEntity<?> withdraw(@PathVariable Long walletId,
+                                      @RequestBody @Validated WalletTransactionDTO walletTransactionDTO) {
+        return post(walletId, WalletTransaction.Type.WITHDRAWAL, walletTransactionDTO);
+    }
+
+    // Thanh toán bằng ví
+    @PostMapping("/{walletId}/pay")
+    public ResponseEntity<?> pay(@PathVariable Long walletId,
+                                 @RequestBody @Validated WalletTransactionDTO walletTransactionDTO) {
+        return post(walletId, WalletTransaction.Type.PAYMENT, walletTransactionDTO);
+    }
+
+    // Lấy lịch sử giao dịch của wallet
+    @GetMapping("/{walletId}/transactions")
+    public ResponseEntity<List<WalletTransactionDTO>> getTransactionsByWalletId(@PathVariable Long walletId) {
+        List<WalletTransactionDTO> transactions = walletService.getTransactionsByWalletId(walletId);
+        return new ResponseEntity<>(transactions, HttpStatus.OK);
+    }
+
+    // Đối soát số dư với sổ cái
+    @GetMapping("/{walletId}/verify")
+    public ResponseEntity<?> verifyBalance(@PathVariable Long walletId) {
+        try {
+            Map<String, Object> result = walletService.verifyBalance(walletId);
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+        }
+    }
+
+    private ResponseEntity<?> post(Long walletId, WalletTransaction.Type type, WalletTransactionDTO walletTransactionDTO) {
+        try {
+            WalletTransactionDTO entry = walletService.post(walletId, type, walletTransactionDTO);
+            return new ResponseEntity<>(entry, HttpStatus.CREATED);
+        } catch (Exception e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+}
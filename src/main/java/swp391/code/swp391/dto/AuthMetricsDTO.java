@@ -0,0 +1,40 @@
+package swp391.code.swp391.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Số liệu của pool băm mật khẩu và rate limit đăng nhập (tính từ lúc ứng dụng khởi động)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuthMetricsDTO {
+
+    private int hashPoolSize;
+
+    private int hashActive;
+
+    private int hashQueueDepth;
+
+    private int hashQueueCapacity;
+
+    private long hashCompleted;
+
+    // Số lần băm bị từ chối vì hàng đợi đầy hoặc chờ quá timeout
+    private long hashRejected;
+
+    private double averageHashMillis;
+
+    private double maxHashMillis;
+
+    // Số lần đăng nhập bị chặn bởi rate limit theo tài khoản / theo IP
+    private long accountRateLimited;
+
+    private long ipRateLimited;
+
+    private int trackedAccounts;
+
+    private int trackedIps;
+}
@@ -0,0 +1,28 @@
+package swp391.code.swp391.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Kết quả onboarding nhiều trạm trong một request
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOnboardingResultDTO {
+
+    private int stationsCreated;
+
+    private int chargingPointsCreated;
+
+    // Thời gian xử lý phía server (ms) và tốc độ tương ứng, để theo dõi hiệu năng onboarding
+    private long elapsedMs;
+
+    private double stationsPerSecond;
+
+    // Các trạm đã tạo, kèm charging points
+    private List<ChargingStationDTO> stations;
+}
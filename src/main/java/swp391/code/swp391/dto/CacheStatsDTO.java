@@ -0,0 +1,31 @@
+package swp391.code.swp391.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Số liệu của một cache trong bộ nhớ (tính từ lúc ứng dụng khởi động)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsDTO {
+
+    private String name;
+
+    // Số phần tử đang giữ
+    private int size;
+
+    private long hits;
+
+    private long misses;
+
+    // hits / (hits + misses), 0 nếu chưa có lượt đọc nào
+    private double hitRate;
+
+    public static CacheStatsDTO of(String name, int size, long hits, long misses) {
+        long total = hits + misses;
+        return new CacheStatsDTO(name, size, hits, misses, total > 0 ? (double) hits / total : 0);
+    }
+}
@@ -6,11 +6,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import swp391.code.swp391.entity.ChargingPoint.ChargingPointStatus;
-import swp391.code.swp391.entity.ChargingStation;
-import swp391.code.swp391.entity.ConnectorType;
-
-import java.util.List;
 
+// Thứ tự field là thứ tự tham số của constructor dùng trong các câu "SELECT new" của ChargingPointRepository
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -30,12 +27,12 @@ public class ChargingPointDTO {
     // Cho input: chỉ cần station ID
     private Long stationId;
 
-    // Cho output: full ChargingStation object
-    private ChargingStation station;
+    // Cho output: tên station (không trả cả entity ChargingStation)
+    private String stationName;
 
-    // Cho output: list connector types
-    private List<ConnectorType> connectorTypes;
+    // Cho output: ID connector type đang gắn với charging point
+    private Long connectorTypeId;
 
-    private double powerOutput;
-    private double pricePerKwh;
-}
\ No newline at end of file
+    private Double powerOutput;
+    private Double pricePerKwh;
+}
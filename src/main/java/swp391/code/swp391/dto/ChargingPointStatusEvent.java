@@ -0,0 +1,29 @@
+package swp391.code.swp391.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import swp391.code.swp391.entity.ChargingPoint.ChargingPointStatus;
+
+/**
+ * Sự kiện đổi trạng thái của một trụ sạc, vừa dùng làm application event vừa là payload đẩy cho client qua SSE
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ChargingPointStatusEvent {
+
+    private Long chargingPointId;
+
+    private Long stationId;
+
+    // Trạng thái trước đó (null nếu trụ mới được tạo)
+    private ChargingPointStatus previousStatus;
+
+    private ChargingPointStatus status;
+
+    // Thời điểm đổi trạng thái (epoch millis)
+    private long timestamp;
+}
@@ -43,4 +43,7 @@ public class ChargingStationDTO {
 
     // Cho output: list charging points
     private List<ChargingPoint> chargingPoint;
+
+    // Cho output: khoảng cách (km) tới vị trí tìm kiếm
+    private Double distanceKm;
 }
\ No newline at end of file
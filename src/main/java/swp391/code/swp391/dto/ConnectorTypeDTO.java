@@ -7,11 +7,8 @@ import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import swp391.code.swp391.entity.ChargingPoint;
-import swp391.code.swp391.entity.Vehicle;
-
-import java.util.List;
 
+// Thứ tự field là thứ tự tham số của constructor dùng trong các câu "SELECT new" của ConnectorTypeRepository
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -33,9 +30,6 @@ public class ConnectorTypeDTO {
     // Cho input: chỉ cần charging point ID
     private Long chargingPointId;
 
-    // Cho output: full ChargingPoint object
-    private ChargingPoint chargingPoint;
-
-    // Cho output: list vehicles sử dụng connector type này
-    private List<Vehicle> vehicles;
-}
\ No newline at end of file
+    // Cho output: số vehicles sử dụng connector type này (không trả cả list Vehicle)
+    private Integer vehicleCount;
+}
@@ -0,0 +1,45 @@
+package swp391.code.swp391.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trạng thái một job xuất dữ liệu
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ExportJobDTO {
+
+    private String jobId;
+
+    // Tháng được xuất (yyyy-MM)
+    private String month;
+
+    private List<String> tables;
+
+    // QUEUED, RUNNING, COMPLETED, FAILED
+    private String status;
+
+    // Số dòng đã ghi (tăng dần khi đang chạy)
+    private Long rowsWritten;
+
+    // Số dòng theo từng bảng khi đã xong
+    private Map<String, Long> rowsByTable;
+
+    // Thư mục chứa file và manifest.json
+    private String directory;
+
+    private String error;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime finishedAt;
+}
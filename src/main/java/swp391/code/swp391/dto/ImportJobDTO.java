@@ -0,0 +1,54 @@
+package swp391.code.swp391.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Trạng thái một job nhập trạm sạc từ file
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportJobDTO {
+
+    private String jobId;
+
+    private String fileName;
+
+    // CSV, JSON
+    private String format;
+
+    // QUEUED, RUNNING, COMPLETED, FAILED
+    private String status;
+
+    // Tiến độ đọc file
+    private Long bytesRead;
+
+    private Long totalBytes;
+
+    private Double percent;
+
+    // Số bản ghi đã đọc (dòng CSV hoặc phần tử JSON)
+    private Long rowsRead;
+
+    private Long stationsImported;
+
+    private Long chargingPointsImported;
+
+    // Số trạm bị loại, chi tiết trong báo cáo /api/imports/{jobId}/rejections
+    private Long rejected;
+
+    // Số lần ghi lại chunk do lỗi tạm thời của DB
+    private Long retries;
+
+    private String error;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,43 @@
+package swp391.code.swp391.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Một trang theo keyset: items sắp tăng dần theo khóa, nextAfter là khóa của phần tử cuối
+ * (truyền vào ?after= để lấy trang kế), null khi đã hết dữ liệu.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KeysetPageDTO<T> {
+
+    // Header trả khóa của trang kế cho các endpoint danh sách
+    public static final String NEXT_AFTER_HEADER = "X-Next-After";
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    private List<T> items;
+
+    private String nextAfter;
+
+    // Giới hạn limit trong [1, MAX_LIMIT]
+    public static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    /**
+     * Tạo trang từ kết quả truy vấn limit + 1 dòng: có dòng thừa nghĩa là còn trang sau.
+     */
+    public static <T> KeysetPageDTO<T> of(List<T> rows, int limit, Function<T, Object> key) {
+        if (rows.size() <= limit) {
+            return new KeysetPageDTO<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new KeysetPageDTO<>(items, String.valueOf(key.apply(items.get(limit - 1))));
+    }
+}
@@ -10,11 +10,15 @@ import swp391.code.swp391.entity.User;
 @NoArgsConstructor
 public class LoginResponseDTO {
 
+    // Access token, gửi lại trong header "Authorization: Bearer <token>"
+    private String token;
+    private String tokenType = "Bearer";
+    // Thời điểm token hết hạn (epoch millis)
+    private Long expiresAt;
 
-    private User user;
-    private String error;
-
-    public LoginResponseDTO(String error) {
-        this.error = error;
-    }
+    // Thông tin cơ bản của user (không trả entity, không trả mật khẩu)
+    private Long userId;
+    private String fullName;
+    private String email;
+    private User.UserRole role;
 }
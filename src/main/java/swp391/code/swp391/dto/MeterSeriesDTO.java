@@ -0,0 +1,31 @@
+package swp391.code.swp391.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Chuỗi meter value của session trả về dạng cột (các mảng cùng độ dài) để giảm kích thước JSON
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MeterSeriesDTO {
+
+    private Long sessionId;
+
+    // Số mẫu gốc nằm trong khoảng truy vấn
+    private int sampleCount;
+
+    // true nếu các mẫu đã được gộp (downsample)
+    private boolean downsampled;
+
+    private long[] timestamps;
+
+    private float[] energyKwh;
+
+    private float[] powerKw;
+
+    // -1 nếu trụ không gửi SoC
+    private float[] soc;
+}
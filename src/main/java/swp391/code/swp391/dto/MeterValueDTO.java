@@ -0,0 +1,34 @@
+package swp391.code.swp391.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Một mẫu đo từ trụ sạc gửi lên trong session
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MeterValueDTO {
+
+    // Thời điểm đo (epoch millis), mặc định là thời điểm nhận
+    private Long timestamp;
+
+    // Chỉ số công tơ (kWh) của trụ, cùng thang với meterStart gửi lúc bắt đầu session
+    @NotNull(message = "Energy is required")
+    @PositiveOrZero(message = "Energy must not be negative")
+    private Double energyKwh;
+
+    // Công suất tức thời (kW)
+    @PositiveOrZero(message = "Power must not be negative")
+    private Double powerKw;
+
+    // Phần trăm pin hiện tại
+    @DecimalMin(value = "0.0", message = "SoC must be between 0 and 100")
+    @DecimalMax(value = "100.0", message = "SoC must be between 0 and 100")
+    private Double soc;
+}
@@ -0,0 +1,33 @@
+package swp391.code.swp391.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import swp391.code.swp391.entity.Notification.Type;
+
+import java.util.Date;
+
+// Thứ tự field là thứ tự tham số của constructor dùng trong các câu "SELECT new" của NotificationRepository
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationDTO {
+
+    private Long notificationId;
+
+    @NotNull(message = "User ID is required")
+    private Long userId;
+
+    @NotBlank(message = "Content is required")
+    private String content;
+
+    @NotNull(message = "Type is required")
+    private Type type;
+
+    private Date sentTime;
+
+    // null = chưa đọc
+    private Date readAt;
+}
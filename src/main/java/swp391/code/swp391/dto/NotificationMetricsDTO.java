@@ -0,0 +1,56 @@
+package swp391.code.swp391.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Số liệu của notification outbox (bộ đếm tính từ lúc ứng dụng khởi động)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationMetricsDTO {
+
+    // Số thông báo chờ gửi trong outbox (kể cả đang chờ thử lại)
+    private long pending;
+
+    // Tuổi của thông báo chờ gửi cũ nhất
+    private long oldestPendingLagMillis;
+
+    private long batches;
+
+    private long lastBatchSize;
+
+    // Thời gian từ lúc ghi outbox tới lúc gửi xong, của thông báo gần nhất / lớn nhất / trung bình
+    private long lastDeliveryLagMillis;
+
+    private long maxDeliveryLagMillis;
+
+    private double averageDeliveryLagMillis;
+
+    private List<ChannelMetrics> channels;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ChannelMetrics {
+
+        private String channel;
+
+        private int concurrency;
+
+        private int inFlight;
+
+        private long sent;
+
+        // Số lần gửi lỗi được hẹn thử lại / số thông báo bỏ cuộc sau max-attempts lần
+        private long retried;
+
+        private long failed;
+
+        private double averageSendMillis;
+    }
+}
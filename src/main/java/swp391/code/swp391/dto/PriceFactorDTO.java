@@ -0,0 +1,37 @@
+package swp391.code.swp391.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PriceFactorDTO {
+
+    private Long priceFactorId;
+
+    @NotNull(message = "Station ID is required")
+    private Long stationId;
+
+    // Hệ số nhân với giá pricePerKwh (vd: 1.5 giờ cao điểm, 0.8 giờ thấp điểm)
+    @NotNull(message = "Factor is required")
+    @Positive(message = "Factor must be positive")
+    private Double factor;
+
+    @NotNull(message = "Start time is required")
+    private LocalDateTime startTime;
+
+    @NotNull(message = "End time is required")
+    private LocalDateTime endTime;
+
+    @Size(max = 255, message = "Description must not exceed 255 characters")
+    private String description;
+}
@@ -0,0 +1,44 @@
+package swp391.code.swp391.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import swp391.code.swp391.entity.ChargingPoint.ChargingPointStatus;
+
+/**
+ * Báo giá ước tính cho một charging point
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class QuoteDTO {
+
+    private Long chargingPointId;
+
+    private Long stationId;
+
+    private String stationName;
+
+    // Khoảng cách tới vị trí tìm kiếm (chỉ có khi báo giá theo khu vực)
+    private Double distanceKm;
+
+    private String connectorTypeName;
+
+    private ChargingPointStatus status;
+
+    // Công suất sạc (kW)
+    private double powerKw;
+
+    private double pricePerKwh;
+
+    // Số kWh cần sạc
+    private double energyKwh;
+
+    // Thời gian sạc ước tính (phút)
+    private double durationMinutes;
+
+    // Chi phí ước tính, đã tính hệ số giá theo khung giờ
+    private double estimatedCost;
+}
@@ -0,0 +1,30 @@
+package swp391.code.swp391.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import swp391.code.swp391.entity.Revenue;
+
+import java.time.LocalDateTime;
+
+/**
+ * Doanh thu của một trạm trong một khoảng giờ / ngày / tháng
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RevenueDTO {
+
+    private Long stationId;
+
+    private Revenue.Granularity granularity;
+
+    // Thời điểm bắt đầu của khoảng
+    private LocalDateTime period;
+
+    private Double amount;
+
+    private Long transactionCount;
+}
@@ -0,0 +1,40 @@
+package swp391.code.swp391.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SessionDTO {
+
+    private Long sessionId;
+
+    private Long orderId;
+
+    private Long chargingPointId;
+
+    private LocalDateTime startTime;
+
+    // null khi session đang sạc
+    private LocalDateTime endTime;
+
+    // Số kWh đã sạc
+    private Double powerConsumed;
+
+    // Tiền điện (theo pricePerKwh và PriceFactor)
+    private Double energyCost;
+
+    // Phí phạt quá giờ
+    private Double penaltyCost;
+
+    // Tổng tiền
+    private Double cost;
+
+    private boolean active;
+}
@@ -0,0 +1,58 @@
+package swp391.code.swp391.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Số liệu của settlement pipeline (tính từ lúc ứng dụng khởi động)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SettlementMetricsDTO {
+
+    private int queueDepth;
+
+    private int queueCapacity;
+
+    // Số yêu cầu được nhận vào hàng đợi / bị từ chối vì hàng đợi đầy
+    private long submitted;
+
+    private long rejected;
+
+    // Số yêu cầu được nạp lại bởi recovery
+    private long recovered;
+
+    // Số Transaction đã ghi theo trạng thái
+    private long succeeded;
+
+    private long pending;
+
+    private long failed;
+
+    // Số yêu cầu bị bỏ qua vì session đã được quyết toán
+    private long duplicates;
+
+    // Số session quyết toán lỗi, chờ recovery
+    private long errors;
+
+    private long batches;
+
+    private double averageBatchSize;
+
+    private long lastBatchSize;
+
+    private long lastBatchMillis;
+
+    // Số session quyết toán mỗi giây, trung bình 60 giây gần nhất
+    private double throughputPerSecond;
+
+    // Thời gian chờ của yêu cầu cũ nhất đang trong hàng đợi
+    private long currentLagMillis;
+
+    // Thời gian chờ của yêu cầu đầu tiên trong lô gần nhất
+    private long lastLagMillis;
+
+    private long maxLagMillis;
+}
@@ -0,0 +1,22 @@
+package swp391.code.swp391.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Một đoạn thời gian có cùng hệ số giá
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TariffSegmentDTO {
+
+    private LocalDateTime startTime;
+
+    private LocalDateTime endTime;
+
+    private double factor;
+}
@@ -0,0 +1,32 @@
+package swp391.code.swp391.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import swp391.code.swp391.entity.Transaction;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TransactionDTO {
+
+    private Long transactionId;
+
+    private Long sessionId;
+
+    private Long userId;
+
+    private Double amount;
+
+    private Transaction.PaymentMethod paymentMethod;
+
+    private Transaction.Status status;
+
+    private String idempotencyKey;
+
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,26 @@
+package swp391.code.swp391.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WalletDTO {
+
+    private Long walletId;
+
+    @NotNull(message = "User ID is required")
+    private Long userId;
+
+    // Số dư hiện tại
+    private Double balance;
+
+    private LocalDateTime updatedAt;
+}
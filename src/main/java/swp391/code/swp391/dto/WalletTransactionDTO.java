@@ -0,0 +1,36 @@
+package swp391.code.swp391.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import swp391.code.swp391.entity.WalletTransaction;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WalletTransactionDTO {
+
+    private Long walletTransactionId;
+
+    private Long walletId;
+
+    // Cho input: giao dịch thanh toán liên quan (nếu có)
+    private Long transactionId;
+
+    @NotNull(message = "Amount is required")
+    @Positive(message = "Amount must be positive")
+    private Double amount;
+
+    // Số dư sau giao dịch
+    private Double balanceAfter;
+
+    private WalletTransaction.Type type;
+
+    private LocalDateTime createdAt;
+}
@@ -34,6 +34,10 @@ public class ChargingPoint {
     @JoinColumn(name = "connector_type_id")
     private ConnectorType connectorType;
 
+    // Optimistic locking: chặn hai request cùng đọc-sửa-ghi một trụ ghi đè lên nhau
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
 
     public enum ChargingPointStatus {
         AVAILABLE,
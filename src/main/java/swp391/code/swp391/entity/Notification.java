@@ -9,7 +9,10 @@ import java.util.Date;
 
 @Data
 @Entity
-@Table(name = "Notification")
+// Index cho inbox của user: lọc theo user_id, sắp theo (sent_time, notification_id) giảm dần
+@Table(name = "Notification", indexes = {
+        @Index(name = "idx_notification_user_sent", columnList = "user_id, sent_time, notification_id")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 public class Notification {
@@ -26,6 +29,9 @@ public class Notification {
 
     private Date sentTime;
 
+    // Thời điểm user đã đọc, null = chưa đọc
+    private Date readAt;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private Type type;
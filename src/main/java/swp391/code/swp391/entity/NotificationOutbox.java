@@ -0,0 +1,67 @@
+package swp391.code.swp391.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Thông báo chờ gửi (transactional outbox).
+ * Được ghi trong cùng transaction với thay đổi nghiệp vụ; NotificationDispatcher đọc theo lô và gửi qua kênh tương ứng.
+ * Dòng đang được gửi có nextAttemptAt bị đẩy tới hết thời hạn lease, nên nếu node chết giữa chừng dòng sẽ được gửi lại.
+ */
+@Data
+@Entity
+@Table(name = "notification_outbox",
+        indexes = @Index(name = "ix_notification_outbox_due", columnList = "status, next_attempt_at"))
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long outboxId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Channel channel;
+
+    // Email, số điện thoại hoặc userId (PUSH) của người nhận
+    @Column(nullable = false)
+    private String recipient;
+
+    private String subject;
+
+    // Xóa thành chuỗi rỗng khi dòng chuyển SENT / FAILED (có thể chứa mã xác thực)
+    @Column(nullable = false, columnDefinition = "NVARCHAR(MAX)")
+    private String content;
+
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status = Status.PENDING;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime sentAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    public enum Channel {
+        EMAIL, SMS, PUSH
+    }
+
+    public enum Status {
+        PENDING, SENT, FAILED
+    }
+}
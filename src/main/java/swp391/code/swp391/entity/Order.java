@@ -8,7 +8,10 @@ import lombok.NoArgsConstructor;
 import java.util.Date;
 
 @Entity
-@Table(name = "orders")
+// Index cho kiểm tra trùng lịch của trụ khi lưu order
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_point_window", columnList = "charging_point_id, start_time, end_time")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -31,6 +34,9 @@ public class Order {
 
     private Date startTime;
 
+    // Thời điểm kết thúc khung giờ đã đặt
+    private Date endTime;
+
     private Double startedBattery;
 
     private Double expectedBattery;
@@ -39,6 +45,11 @@ public class Order {
     @Column(nullable = false)
     private Status status = Status.BOOKED;
 
+    // Optimistic locking: chặn hai request cùng hủy/cập nhật một order ghi đè lên nhau
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
     public enum Status {
         BOOKED, CHARGING, COMPLETED, CANCELED
     }
@@ -5,11 +5,14 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
 import java.util.Date;
 
 @Data
 @Entity
-@Table(name = "Revenue")
+@Table(name = "Revenue", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_revenue_station_period", columnNames = {"station_id", "granularity", "period"})
+})
 @NoArgsConstructor
 @AllArgsConstructor
 public class Revenue {
@@ -23,5 +26,20 @@ public class Revenue {
 
     private Double amount;
 
+    // Thời điểm bắt đầu của khoảng tổng hợp
     private Date period;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10)
+    private Granularity granularity;
+
+    // Số giao dịch trong khoảng
+    @Column(name = "transaction_count")
+    private Long transactionCount;
+
+    private LocalDateTime updatedAt;
+
+    public enum Granularity {
+        HOUR, DAY, MONTH
+    }
 }
@@ -27,6 +27,9 @@ public class Session {
     @Column(nullable = false)
     private Date endTime;
 
+    // Chỉ số công tơ (kWh) lúc bắt đầu sạc, mốc để tính số kWh đã sạc; null với session cũ (coi như 0)
+    private Double meterStart;
+
     @Column(nullable = false)
     private Double powerConsumed; //Số kwh đã sạc
 
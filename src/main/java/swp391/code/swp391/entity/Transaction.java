@@ -5,6 +5,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 @Data
 @Entity
 @Table(name = "[Transaction]")
@@ -34,8 +36,15 @@ public class Transaction {
     @Column(nullable = false)
     private Status status = Status.PENDING;
 
+    // Khóa chống trùng khi quyết toán session ("session:{sessionId}"), mỗi session chỉ có một giao dịch.
+    // Unique qua index có điều kiện (WHERE idempotency_key IS NOT NULL) do SchemaMigrations tạo, vì giao dịch cũ có key NULL
+    @Column(name = "idempotency_key", length = 64)
+    private String idempotencyKey;
+
+    private LocalDateTime createdAt;
+
     public enum PaymentMethod {
-        VNPAY, CASH, QR
+        VNPAY, CASH, QR, WALLET
     }
 
     public enum Status {
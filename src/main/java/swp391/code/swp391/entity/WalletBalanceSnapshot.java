@@ -0,0 +1,31 @@
+package swp391.code.swp391.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Số dư của ví tại một thời điểm, tính tới WalletTransaction có id = lastEntryId.
+ * Số dư hiện tại = balanceMinor + tổng amountMinor của các WalletTransaction có id > lastEntryId.
+ */
+@Data
+@Entity
+@Table(name = "wallet_balance_snapshot")
+@NoArgsConstructor
+@AllArgsConstructor
+public class WalletBalanceSnapshot {
+    @Id
+    @Column(name = "wallet_id")
+    private Long walletId;
+
+    @Column(name = "balance_minor", nullable = false)
+    private Long balanceMinor;
+
+    @Column(name = "last_entry_id", nullable = false)
+    private Long lastEntryId;
+
+    private LocalDateTime takenAt;
+}
@@ -9,7 +9,9 @@ import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "wallet_transaction")
+@Table(name = "wallet_transaction", indexes = {
+        @Index(name = "idx_wallet_transaction_wallet", columnList = "wallet_id, wallet_transaction_id")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 public class WalletTransaction {
@@ -27,6 +29,14 @@ public class WalletTransaction {
 
     private Double amount;
 
+    // Số tiền theo đơn vị nhỏ nhất (1/100), có dấu: dương = nạp, âm = rút/thanh toán
+    @Column(name = "amount_minor")
+    private Long amountMinor;
+
+    // Số dư sau giao dịch (đơn vị nhỏ nhất), dùng để đối soát
+    @Column(name = "balance_after_minor")
+    private Long balanceAfterMinor;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private Type type;
@@ -1,25 +1,43 @@
 package swp391.code.swp391.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import swp391.code.swp391.dto.ChargingPointDTO;
 import swp391.code.swp391.entity.ChargingPoint;
 import swp391.code.swp391.entity.ChargingPoint.ChargingPointStatus;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ChargingPointRepository extends JpaRepository<ChargingPoint, Long> {
 
+    // Projection cho các API đọc: chỉ lấy đúng các cột ChargingPointDTO trả về, station và connector type
+    // được join trong cùng một câu query (không nạp entity, không lazy load)
+    String DTO_SELECT = "SELECT new swp391.code.swp391.dto.ChargingPointDTO(cp.chargingPointId, ct.typeName, " +
+            "cp.status, s.stationId, s.stationName, ct.connectorTypeId, ct.powerOutput, ct.pricePerKwh) " +
+            "FROM ChargingPoint cp LEFT JOIN cp.station s LEFT JOIN cp.connectorType ct ";
+
+    // Lấy charging point theo ID (projection)
+    @Query(DTO_SELECT + "WHERE cp.chargingPointId = :chargingPointId")
+    Optional<ChargingPointDTO> findDTOById(@Param("chargingPointId") Long chargingPointId);
+
     // Tìm charging points theo station ID
-    List<ChargingPoint> findByStationStationId(Long stationId);
+    @Query(DTO_SELECT + "WHERE s.stationId = :stationId")
+    List<ChargingPointDTO> findDTOsByStationId(@Param("stationId") Long stationId);
 
     // Tìm charging points theo status
-    List<ChargingPoint> findByStatus(ChargingPointStatus status);
+    @Query(DTO_SELECT + "WHERE cp.status = :status")
+    List<ChargingPointDTO> findDTOsByStatus(@Param("status") ChargingPointStatus status);
 
     // Tìm charging points theo station ID và status
-    List<ChargingPoint> findByStationStationIdAndStatus(Long stationId, ChargingPointStatus status);
+    @Query(DTO_SELECT + "WHERE s.stationId = :stationId AND cp.status = :status")
+    List<ChargingPointDTO> findDTOsByStationIdAndStatus(@Param("stationId") Long stationId,
+                                                        @Param("status") ChargingPointStatus status);
 
     // Kiểm tra charging point ID đã tồn tại
     boolean existsByChargingPointId(Long chargingPointId);
@@ -31,18 +49,33 @@ public interface ChargingPointRepository extends JpaRepository<ChargingPoint, Lo
     long countByStationStationId(Long stationId);
 
     // Custom query: Lấy available charging points có connector types
-    @Query("SELECT cp FROM ChargingPoint cp WHERE cp.status = 'AVAILABLE' AND SIZE(cp.connectorTypes) > 0")
-    List<ChargingPoint> findAvailableChargingPointsWithConnectors();
+    @Query(DTO_SELECT + "WHERE cp.status = 'AVAILABLE' AND SIZE(cp.connectorTypes) > 0")
+    List<ChargingPointDTO> findAvailableChargingPointsWithConnectors();
 
     // Custom query: Tìm charging points theo connector type
-    @Query("SELECT DISTINCT cp FROM ChargingPoint cp JOIN cp.connectorTypes ct WHERE ct.connectorTypeId = :connectorTypeId")
-    List<ChargingPoint> findByConnectorTypeId(@Param("connectorTypeId") Long connectorTypeId);
+    @Query(DTO_SELECT + "WHERE cp.chargingPointId IN (SELECT x.chargingPoint.chargingPointId FROM ConnectorType x " +
+            "WHERE x.connectorTypeId = :connectorTypeId)")
+    List<ChargingPointDTO> findByConnectorTypeId(@Param("connectorTypeId") Long connectorTypeId);
 
     // Custom query: Tìm charging points không có connector types
-    @Query("SELECT cp FROM ChargingPoint cp WHERE SIZE(cp.connectorTypes) = 0")
-    List<ChargingPoint> findChargingPointsWithoutConnectors();
+    @Query(DTO_SELECT + "WHERE SIZE(cp.connectorTypes) = 0")
+    List<ChargingPointDTO> findChargingPointsWithoutConnectors();
 
     // Custom query: Lấy charging points với số lượng connector types
     @Query("SELECT cp, SIZE(cp.connectorTypes) FROM ChargingPoint cp")
     List<Object[]> findChargingPointsWithConnectorCount();
-}
\ No newline at end of file
+
+    // Custom query: Lấy (chargingPointId, stationId, status, connectorTypeId, version) của tất cả charging points để nạp registry
+    @Query("SELECT cp.chargingPointId, s.stationId, cp.status, ct.connectorTypeId, cp.version FROM ChargingPoint cp " +
+            "LEFT JOIN cp.station s LEFT JOIN cp.connectorType ct")
+    List<Object[]> findAllPointStates();
+
+    // Khóa UPDLOCK các dòng trụ tới hết transaction hiện tại (tuần tự hóa việc lưu order giữa các instance)
+    @Query(value = "SELECT charging_point_id FROM charging_points WITH (UPDLOCK, ROWLOCK) " +
+            "WHERE charging_point_id IN (:ids)", nativeQuery = true)
+    List<Long> lockForBooking(@Param("ids") Collection<Long> ids);
+
+    // Keyset pagination: các charging points có chargingPointId lớn hơn after, tăng dần
+    @Query(DTO_SELECT + "WHERE cp.chargingPointId > :after ORDER BY cp.chargingPointId")
+    List<ChargingPointDTO> findDTOsAfter(@Param("after") Long after, Limit limit);
+}
@@ -1,5 +1,6 @@
 package swp391.code.swp391.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -7,6 +8,7 @@ import org.springframework.stereotype.Repository;
 import swp391.code.swp391.entity.ChargingStation;
 import swp391.code.swp391.entity.ChargingStation.ChargingStationStatus;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -31,6 +33,10 @@ public interface ChargingStationRepository extends JpaRepository<ChargingStation
     // Kiểm tra tên station đã tồn tại
     boolean existsByStationName(String stationName);
 
+    // Lấy các tên station đã tồn tại trong danh sách (kiểm tra trùng tên cho bulk onboarding trong một query)
+    @Query("SELECT s.stationName FROM ChargingStation s WHERE s.stationName IN :stationNames")
+    List<String> findExistingStationNames(@Param("stationNames") Collection<String> stationNames);
+
     // Đếm số lượng charging stations theo status
     long countByStatus(ChargingStationStatus status);
 
@@ -59,4 +65,7 @@ public interface ChargingStationRepository extends JpaRepository<ChargingStation
 
     // Custom query: Tìm stations theo tên và status
     List<ChargingStation> findByStationNameContainingIgnoreCaseAndStatus(String stationName, ChargingStationStatus status);
-}
\ No newline at end of file
+
+    // Keyset pagination: các charging stations có stationId lớn hơn after, tăng dần
+    List<ChargingStation> findByStationIdGreaterThanOrderByStationIdAsc(Long after, Limit limit);
+}
@@ -1,9 +1,11 @@
 package swp391.code.swp391.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import swp391.code.swp391.dto.ConnectorTypeDTO;
 import swp391.code.swp391.entity.ConnectorType;
 
 import java.util.List;
@@ -12,8 +14,19 @@ import java.util.Optional;
 @Repository
 public interface ConnectorTypeRepository extends JpaRepository<ConnectorType, Long> {
 
+    // Projection cho các API đọc: chỉ lấy các cột ConnectorTypeDTO trả về, số vehicles đếm bằng subquery
+    // trong cùng câu query thay vì nạp cả list vehicles
+    String DTO_SELECT = "SELECT new swp391.code.swp391.dto.ConnectorTypeDTO(ct.connectorTypeId, ct.typeName, " +
+            "ct.powerOutput, ct.pricePerKwh, cp.chargingPointId, SIZE(ct.vehicles)) " +
+            "FROM ConnectorType ct LEFT JOIN ct.chargingPoint cp ";
+
+    // Lấy connector type theo ID (projection)
+    @Query(DTO_SELECT + "WHERE ct.connectorTypeId = :connectorTypeId")
+    Optional<ConnectorTypeDTO> findDTOById(@Param("connectorTypeId") Long connectorTypeId);
+
     // Tìm connector type theo tên (không phân biệt hoa thường)
-    List<ConnectorType> findByTypeNameContainingIgnoreCase(String typeName);
+    @Query(DTO_SELECT + "WHERE LOWER(ct.typeName) LIKE LOWER(CONCAT('%', :typeName, '%'))")
+    List<ConnectorTypeDTO> findDTOsByTypeNameContaining(@Param("typeName") String typeName);
 
     // Tìm connector type theo tên chính xác
     Optional<ConnectorType> findByTypeName(String typeName);
@@ -22,17 +35,23 @@ public interface ConnectorTypeRepository extends JpaRepository<ConnectorType, Lo
     boolean existsByTypeName(String typeName);
 
     // Tìm connector types theo charging point ID
-    List<ConnectorType> findByChargingPointChargingPointId(Long chargingPointId);
+    @Query(DTO_SELECT + "WHERE cp.chargingPointId = :chargingPointId")
+    List<ConnectorTypeDTO> findDTOsByChargingPointId(@Param("chargingPointId") Long chargingPointId);
 
     // Custom query tìm connector types được sử dụng bởi vehicle nào đó
-    @Query("SELECT DISTINCT ct FROM ConnectorType ct JOIN ct.vehicles v WHERE v.plateNumber = :plateNumber")
-    List<ConnectorType> findByVehiclePlateNumber(@Param("plateNumber") String plateNumber);
+    @Query(DTO_SELECT + "WHERE ct.connectorTypeId IN (SELECT vct.connectorTypeId FROM Vehicle v " +
+            "JOIN v.connectorTypes vct WHERE v.plateNumber = :plateNumber)")
+    List<ConnectorTypeDTO> findByVehiclePlateNumber(@Param("plateNumber") String plateNumber);
 
     // Tìm connector types chưa được assign cho charging point nào
-    @Query("SELECT ct FROM ConnectorType ct WHERE ct.chargingPoint IS NULL")
-    List<ConnectorType> findUnassignedConnectorTypes();
+    @Query(DTO_SELECT + "WHERE cp IS NULL")
+    List<ConnectorTypeDTO> findUnassignedConnectorTypes();
 
     // Đếm số lượng vehicles sử dụng connector type
     @Query("SELECT ct, SIZE(ct.vehicles) FROM ConnectorType ct WHERE ct.connectorTypeId = :connectorTypeId")
     Object[] countVehiclesByConnectorType(@Param("connectorTypeId") Long connectorTypeId);
-}
\ No newline at end of file
+
+    // Keyset pagination: các connector types có connectorTypeId lớn hơn after, tăng dần
+    @Query(DTO_SELECT + "WHERE ct.connectorTypeId > :after ORDER BY ct.connectorTypeId")
+    List<ConnectorTypeDTO> findDTOsAfter(@Param("after") Long after, Limit limit);
+}
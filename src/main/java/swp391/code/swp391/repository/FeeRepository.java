@@ -0,0 +1,14 @@
+package swp391.code.swp391.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import swp391.code.swp391.entity.Fee;
+
+import java.util.List;
+
+@Repository
+public interface FeeRepository extends JpaRepository<Fee, Long> {
+
+    // Tìm fees theo session ID
+    List<Fee> findBySessionSessionId(Long sessionId);
+}
@@ -0,0 +1,17 @@
+package swp391.code.swp391.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import swp391.code.swp391.entity.NotificationOutbox;
+
+import java.util.List;
+
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+
+    // [số dòng, createdAt cũ nhất] của các dòng có trạng thái status
+    @Query("SELECT COUNT(o), MIN(o.createdAt) FROM NotificationOutbox o WHERE o.status = :status")
+    List<Object[]> findSummaryByStatus(@Param("status") NotificationOutbox.Status status);
+}
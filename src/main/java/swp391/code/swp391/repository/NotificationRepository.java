@@ -0,0 +1,50 @@
+package swp391.code.swp391.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import swp391.code.swp391.dto.NotificationDTO;
+import swp391.code.swp391.entity.Notification;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface NotificationRepository extends JpaRepository<Notification, Long> {
+
+    // Projection cho inbox: chỉ đọc cột FK user_id, không nạp entity User
+    String DTO_SELECT = "SELECT new swp391.code.swp391.dto.NotificationDTO(n.notificationId, n.user.userId, " +
+            "n.content, n.type, n.sentTime, n.readAt) FROM Notification n ";
+
+    // Trang đầu của inbox: mới nhất trước, theo (sentTime, notificationId) giảm dần
+    @Query(DTO_SELECT + "WHERE n.user.userId = :userId ORDER BY n.sentTime DESC, n.notificationId DESC")
+    List<NotificationDTO> findInbox(@Param("userId") Long userId, Limit limit);
+
+    // Keyset pagination: các notification đứng sau (sentTime, notificationId) của phần tử cuối trang trước
+    @Query(DTO_SELECT + "WHERE n.user.userId = :userId AND (n.sentTime < :sentTime " +
+            "OR (n.sentTime = :sentTime AND n.notificationId < :notificationId)) " +
+            "ORDER BY n.sentTime DESC, n.notificationId DESC")
+    List<NotificationDTO> findInboxAfter(@Param("userId") Long userId, @Param("sentTime") Date sentTime,
+                                         @Param("notificationId") Long notificationId, Limit limit);
+
+    boolean existsByNotificationIdAndUserUserId(Long notificationId, Long userId);
+
+    // Số notification chưa đọc của từng user (nạp bộ đếm khi khởi động)
+    @Query("SELECT n.user.userId, COUNT(n) FROM Notification n WHERE n.readAt IS NULL GROUP BY n.user.userId")
+    List<Object[]> countUnreadByUser();
+
+    // Đánh dấu đã đọc một notification của user, trả về 0 nếu không có hoặc đã đọc trước đó
+    @Modifying
+    @Query("UPDATE Notification n SET n.readAt = :readAt WHERE n.notificationId = :notificationId " +
+            "AND n.user.userId = :userId AND n.readAt IS NULL")
+    int markRead(@Param("userId") Long userId, @Param("notificationId") Long notificationId,
+                 @Param("readAt") Date readAt);
+
+    // Đánh dấu đã đọc toàn bộ notification của user, trả về số dòng thực sự chuyển sang đã đọc
+    @Modifying
+    @Query("UPDATE Notification n SET n.readAt = :readAt WHERE n.user.userId = :userId AND n.readAt IS NULL")
+    int markAllRead(@Param("userId") Long userId, @Param("readAt") Date readAt);
+}
@@ -0,0 +1,31 @@
+package swp391.code.swp391.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import swp391.code.swp391.entity.Order;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    // Tìm orders theo user ID
+    List<Order> findByUserUserId(Long userId);
+
+    // Custom query: Lấy (orderId, chargingPointId, startTime, endTime) của các order đang giữ chỗ để nạp lịch đặt trụ
+    @Query("SELECT o.orderId, o.chargingPoint.chargingPointId, o.startTime, o.endTime FROM Order o " +
+            "WHERE o.status IN :statuses AND o.endTime > :after")
+    List<Object[]> findReservationWindows(@Param("statuses") Collection<Order.Status> statuses,
+                                          @Param("after") Date after);
+
+    // Có order còn giữ chỗ trên trụ giao với khung giờ [start, end) không
+    @Query("SELECT COUNT(o) > 0 FROM Order o WHERE o.chargingPoint.chargingPointId = :chargingPointId " +
+            "AND o.status IN :statuses AND o.startTime < :end AND o.endTime > :start")
+    boolean existsOverlapping(@Param("chargingPointId") Long chargingPointId,
+                              @Param("statuses") Collection<Order.Status> statuses,
+                              @Param("start") Date start, @Param("end") Date end);
+}
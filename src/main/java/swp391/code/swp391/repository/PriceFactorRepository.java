@@ -0,0 +1,29 @@
+package swp391.code.swp391.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import swp391.code.swp391.entity.PriceFactor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PriceFactorRepository extends JpaRepository<PriceFactor, Long> {
+
+    // Tìm price factors theo station ID
+    List<PriceFactor> findByStationStationId(Long stationId);
+
+    // Tìm price factors của station còn hiệu lực sau thời điểm cho trước
+    List<PriceFactor> findByStationStationIdAndEndTimeAfter(Long stationId, LocalDateTime time);
+
+    // Lấy khung hệ số giá của mọi station để biên dịch TariffCache: (priceFactorId, stationId, factor, startTime, endTime)
+    @Query("SELECT pf.priceFactorId, s.stationId, pf.factor, pf.startTime, pf.endTime FROM PriceFactor pf JOIN pf.station s")
+    List<Object[]> findAllWindows();
+
+    // Lấy khung hệ số giá của một station, cùng định dạng với findAllWindows
+    @Query("SELECT pf.priceFactorId, s.stationId, pf.factor, pf.startTime, pf.endTime FROM PriceFactor pf JOIN pf.station s " +
+            "WHERE s.stationId = :stationId")
+    List<Object[]> findWindowsByStationId(@Param("stationId") Long stationId);
+}
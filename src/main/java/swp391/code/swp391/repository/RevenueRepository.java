@@ -0,0 +1,17 @@
+package swp391.code.swp391.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import swp391.code.swp391.entity.Revenue;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface RevenueRepository extends JpaRepository<Revenue, Long> {
+
+    // Tìm các dòng tổng hợp của trạm theo độ chi tiết và danh sách period
+    List<Revenue> findByStationStationIdAndGranularityAndPeriodIn(Long stationId, Revenue.Granularity granularity,
+                                                                   Collection<Date> periods);
+}
@@ -0,0 +1,30 @@
+package swp391.code.swp391.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import swp391.code.swp391.entity.Order;
+import swp391.code.swp391.entity.Session;
+
+import java.util.List;
+
+@Repository
+public interface SessionRepository extends JpaRepository<Session, Long> {
+
+    // Tìm sessions theo order ID
+    List<Session> findByOrderOrderId(Long orderId);
+
+    // Tìm sessions theo trạng thái order (CHARGING = session đang sạc)
+    List<Session> findByOrderStatus(Order.Status status);
+
+    // Kiểm tra order đã có session chưa
+    boolean existsByOrderOrderId(Long orderId);
+
+    // Lấy (sessionId, userId, stationId, cost) của các session đã kết thúc nhưng chưa có transaction quyết toán
+    @Query("SELECT s.sessionId, o.user.userId, o.station.stationId, s.cost FROM Session s JOIN s.order o " +
+            "WHERE o.status = :status AND NOT EXISTS (SELECT t FROM Transaction t WHERE t.session = s) " +
+            "ORDER BY s.sessionId")
+    List<Object[]> findUnsettled(@Param("status") Order.Status status, Pageable pageable);
+}
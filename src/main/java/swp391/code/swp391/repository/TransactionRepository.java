@@ -0,0 +1,35 @@
+package swp391.code.swp391.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import swp391.code.swp391.entity.Transaction;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+
+    // Tìm transactions theo user ID
+    List<Transaction> findByUserUserId(Long userId);
+
+    // Tìm transaction theo idempotency key
+    Optional<Transaction> findByIdempotencyKey(String idempotencyKey);
+
+    // Lấy (idempotencyKey, transactionId) của các key đã tồn tại
+    @Query("SELECT t.idempotencyKey, t.transactionId FROM Transaction t WHERE t.idempotencyKey IN :keys")
+    List<Object[]> findIdsByIdempotencyKeys(@Param("keys") Collection<String> keys);
+
+    // Khoảng id (min, max) của bảng Transaction, để chia quét song song
+    @Query("SELECT COALESCE(MIN(t.transactionId), 0), COALESCE(MAX(t.transactionId), 0) FROM Transaction t")
+    List<Object[]> findIdRange();
+
+    // Lấy (stationId, createdAt, amount) của các giao dịch thành công có id trong (fromId, toId]
+    @Query("SELECT o.station.stationId, t.createdAt, t.amount FROM Transaction t JOIN t.session s JOIN s.order o " +
+            "WHERE t.status = :status AND t.transactionId > :fromId AND t.transactionId <= :toId")
+    List<Object[]> findRevenueRows(@Param("status") Transaction.Status status, @Param("fromId") Long fromId,
+                                   @Param("toId") Long toId);
+}
@@ -1,5 +1,6 @@
 package swp391.code.swp391.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -31,10 +32,17 @@ public interface VehicleRepository extends JpaRepository<Vehicle, String> {
     @Query("SELECT v FROM Vehicle v JOIN v.connectorTypes ct WHERE ct.connectorTypeId = :connectorTypeId")
     List<Vehicle> findByConnectorTypeId(@Param("connectorTypeId") Long connectorTypeId);
 
+    // [capacity, connectorTypeId, typeName] của vehicle, mỗi connector type một dòng (connector type null nếu xe
+    // chưa có connector nào), danh sách rỗng nếu vehicle không tồn tại; không nạp entity
+    @Query("SELECT v.capacity, ct.connectorTypeId, ct.typeName FROM Vehicle v LEFT JOIN v.connectorTypes ct " +
+            "WHERE v.plateNumber = :plateNumber")
+    List<Object[]> findProfileRowsByPlateNumber(@Param("plateNumber") String plateNumber);
+
     // Kiểm tra vehicle có tồn tại với plate number
     boolean existsByPlateNumber(String plateNumber);
 
     Optional<Object> getVehiclesByUser_UserId(Long userId);
 
-
-}
\ No newline at end of file
+    // Keyset pagination: các vehicles có plateNumber lớn hơn after, tăng dần
+    List<Vehicle> findByPlateNumberGreaterThanOrderByPlateNumberAsc(String after, Limit limit);
+}
@@ -0,0 +1,29 @@
+package swp391.code.swp391.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import swp391.code.swp391.entity.Wallet;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface WalletRepository extends JpaRepository<Wallet, Long> {
+
+    // Tìm wallets theo user ID
+    List<Wallet> findByUserUserId(Long userId);
+
+    // Lấy (userId, walletId) của wallet tạo sớm nhất của mỗi user
+    @Query("SELECT w.user.userId, MIN(w.walletId) FROM Wallet w WHERE w.user.userId IN :userIds GROUP BY w.user.userId")
+    List<Object[]> findPrimaryWalletIds(@Param("userIds") Collection<Long> userIds);
+
+    // Cập nhật cột balance (bản sao để hiển thị) khi chụp snapshot
+    @Modifying
+    @Query("UPDATE Wallet w SET w.balance = :balance, w.updatedAt = :updatedAt WHERE w.walletId = :walletId")
+    int updateBalance(@Param("walletId") Long walletId, @Param("balance") Double balance,
+                      @Param("updatedAt") LocalDateTime updatedAt);
+}
@@ -0,0 +1,31 @@
+package swp391.code.swp391.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import swp391.code.swp391.entity.WalletTransaction;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface WalletTransactionRepository extends JpaRepository<WalletTransaction, Long> {
+
+    // Tìm giao dịch của wallet, mới nhất trước
+    List<WalletTransaction> findByWalletWalletIdOrderByWalletTransactionIdDesc(Long walletId);
+
+    // Tổng amountMinor và id lớn nhất của các giao dịch sau lastEntryId (để replay từ snapshot)
+    @Query("SELECT COALESCE(SUM(wt.amountMinor), 0), COALESCE(MAX(wt.walletTransactionId), :afterId) " +
+            "FROM WalletTransaction wt WHERE wt.wallet.walletId = :walletId AND wt.walletTransactionId > :afterId")
+    List<Object[]> sumAfter(@Param("walletId") Long walletId, @Param("afterId") Long afterId);
+
+    // Id giao dịch lớn nhất của wallet, 0 nếu chưa có
+    @Query("SELECT COALESCE(MAX(wt.walletTransactionId), 0) FROM WalletTransaction wt WHERE wt.wallet.walletId = :walletId")
+    Long findMaxEntryId(@Param("walletId") Long walletId);
+
+    // Lấy (walletId, id giao dịch lớn nhất) của nhiều wallet
+    @Query("SELECT wt.wallet.walletId, MAX(wt.walletTransactionId) FROM WalletTransaction wt " +
+            "WHERE wt.wallet.walletId IN :walletIds GROUP BY wt.wallet.walletId")
+    List<Object[]> findMaxEntryIds(@Param("walletIds") Collection<Long> walletIds);
+}
@@ -0,0 +1,25 @@
+package swp391.code.swp391.service;
+
+import swp391.code.swp391.dto.ChargingPointDTO;
+import swp391.code.swp391.dto.OrderDTO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface BookingService {
+
+    // Đặt chỗ một charging point trong khung giờ [startTime, endTime)
+    OrderDTO createBooking(OrderDTO orderDTO);
+
+    // Hủy đặt chỗ
+    OrderDTO cancelBooking(Long orderId);
+
+    // Lấy order theo ID
+    OrderDTO getBookingById(Long orderId);
+
+    // Lấy orders theo user ID
+    List<OrderDTO> getBookingsByUserId(Long userId);
+
+    // Lấy charging points của station còn trống trong khung giờ
+    List<ChargingPointDTO> getAvailableChargingPoints(Long stationId, LocalDateTime startTime, LocalDateTime endTime);
+}
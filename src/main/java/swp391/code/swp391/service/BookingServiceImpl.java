@@ -0,0 +1,197 @@
+package swp391.code.swp391.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import swp391.code.swp391.dto.ChargingPointDTO;
+import swp391.code.swp391.dto.OrderDTO;
+import swp391.code.swp391.entity.ChargingPoint.ChargingPointStatus;
+import swp391.code.swp391.entity.Order;
+import swp391.code.swp391.repository.OrderRepository;
+import swp391.code.swp391.repository.UserRepository;
+import swp391.code.swp391.service.ChargingPointBookingIndex.Reservation;
+import swp391.code.swp391.service.OrderBatchWriter.PendingOrder;
+import swp391.code.swp391.utils.TransactionUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class BookingServiceImpl implements BookingService {
+
+    // Một lần đặt chỗ tối đa 24 giờ
+    private static final long MAX_BOOKING_MILLIS = Duration.ofHours(24).toMillis();
+
+    private final OrderRepository orderRepository;
+    private final UserRepository userRepository;
+    private final ChargingPointAvailabilityRegistry availabilityRegistry;
+    private final ChargingPointBookingIndex bookingIndex;
+    private final OrderBatchWriter orderBatchWriter;
+
+    @Value("${booking.batch.wait-timeout-ms:5000}")
+    private long waitTimeoutMs;
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // Order được lưu theo lô bởi OrderBatchWriter
+    public OrderDTO createBooking(OrderDTO orderDTO) {
+        long start = toMillis(orderDTO.getStartTime());
+        long end = toMillis(orderDTO.getEndTime());
+        validateWindow(start, end);
+        if (start < System.currentTimeMillis()) {
+            throw new RuntimeException("Start time must be in the future");
+        }
+
+        // Kiểm tra charging point tồn tại và đang hoạt động
+        Long chargingPointId = orderDTO.getChargingPointId();
+        Long stationId = availabilityRegistry.getStationId(chargingPointId);
+        if (stationId == null) {
+            throw new RuntimeException("Charging point not found with id: " + chargingPointId);
+        }
+        if (!isBookable(availabilityRegistry.getStatus(chargingPointId))) {
+            throw new RuntimeException("Charging point " + chargingPointId + " is not in service");
+        }
+
+        if (!userRepository.existsById(orderDTO.getUserId())) {
+            throw new RuntimeException("User not found with id: " + orderDTO.getUserId());
+        }
+
+        // Giữ chỗ trong lịch của trụ
+        Reservation reservation = bookingIndex.tryReserve(chargingPointId, start, end);
+        if (reservation == null) {
+            throw new RuntimeException("Charging point " + chargingPointId + " is already booked in this time window");
+        }
+
+        // Lưu order theo lô và chờ commit
+        PendingOrder pendingOrder = new PendingOrder(orderDTO.getUserId(), stationId, reservation,
+                orderDTO.getStartedBattery(), orderDTO.getExpectedBattery());
+        try {
+            Order savedOrder = orderBatchWriter.submit(pendingOrder).get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+            return convertToDTO(savedOrder, chargingPointId, stationId);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Booking was interrupted");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Could not save booking: " + e.getCause().getMessage());
+        } catch (TimeoutException e) {
+            throw new RuntimeException("Booking is still being processed, please check your bookings later");
+        }
+    }
+
+    @Override
+    public OrderDTO cancelBooking(Long orderId) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
+
+        if (order.getStatus() != Order.Status.BOOKED) {
+            throw new RuntimeException("Only booked orders can be canceled, current status: " + order.getStatus());
+        }
+
+        order.setStatus(Order.Status.CANCELED);
+        Order savedOrder;
+        try {
+            // Flush ngay để kiểm tra @Version, order có thể vừa được cập nhật bởi request khác
+            savedOrder = orderRepository.saveAndFlush(order);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw new RuntimeException("Order " + orderId + " was modified concurrently, please retry");
+        }
+        TransactionUtils.afterCommit(() -> bookingIndex.releaseOrder(orderId));
+        return convertToDTO(savedOrder);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public OrderDTO getBookingById(Long orderId) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
+        return convertToDTO(order);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<OrderDTO> getBookingsByUserId(Long userId) {
+        return orderRepository.findByUserUserId(userId).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // Chỉ đọc từ bộ nhớ
+    public List<ChargingPointDTO> getAvailableChargingPoints(Long stationId, LocalDateTime startTime, LocalDateTime endTime) {
+        long start = toMillis(startTime);
+        long end = toMillis(endTime);
+        validateWindow(start, end);
+
+        List<ChargingPointDTO> result = new ArrayList<>();
+        for (Long chargingPointId : availabilityRegistry.getChargingPointIds(stationId)) {
+            ChargingPointStatus status = availabilityRegistry.getStatus(chargingPointId);
+            if (isBookable(status) && bookingIndex.isFree(chargingPointId, start, end)) {
+                ChargingPointDTO dto = new ChargingPointDTO();
+                dto.setChargingPointId(chargingPointId);
+                dto.setStationId(stationId);
+                dto.setStatus(status);
+                result.add(dto);
+            }
+        }
+        return result;
+    }
+
+    // Helper methods
+    private void validateWindow(long start, long end) {
+        if (end <= start) {
+            throw new RuntimeException("End time must be after start time");
+        }
+        if (end - start > MAX_BOOKING_MILLIS) {
+            throw new RuntimeException("Booking window must not exceed 24 hours");
+        }
+    }
+
+    // Trụ đang bảo trì hoặc ngừng hoạt động thì không nhận đặt chỗ
+    private boolean isBookable(ChargingPointStatus status) {
+        return status == ChargingPointStatus.AVAILABLE || status == ChargingPointStatus.OCCUPIED;
+    }
+
+    private long toMillis(LocalDateTime time) {
+        if (time == null) {
+            throw new RuntimeException("Start time and end time are required");
+        }
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private LocalDateTime toLocalDateTime(Date date) {
+        return date != null ? LocalDateTime.ofInstant(Instant.ofEpochMilli(date.getTime()), ZoneId.systemDefault()) : null;
+    }
+
+    private OrderDTO convertToDTO(Order order) {
+        return convertToDTO(order,
+                order.getChargingPoint() != null ? order.getChargingPoint().getChargingPointId() : null,
+                order.getStation() != null ? order.getStation().getStationId() : null);
+    }
+
+    private OrderDTO convertToDTO(Order order, Long chargingPointId, Long stationId) {
+        OrderDTO dto = new OrderDTO();
+        dto.setOrderId(order.getOrderId());
+        dto.setUserId(order.getUser() != null ? order.getUser().getUserId() : null);
+        dto.setChargingPointId(chargingPointId);
+        dto.setStationId(stationId);
+        dto.setStartTime(toLocalDateTime(order.getStartTime()));
+        dto.setEndTime(toLocalDateTime(order.getEndTime()));
+        dto.setStartedBattery(order.getStartedBattery());
+        dto.setExpectedBattery(order.getExpectedBattery());
+        dto.setStatus(order.getStatus());
+        return dto;
+    }
+}
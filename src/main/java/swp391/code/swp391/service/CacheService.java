@@ -0,0 +1,14 @@
+package swp391.code.swp391.service;
+
+import swp391.code.swp391.dto.CacheStatsDTO;
+
+import java.util.List;
+
+public interface CacheService {
+
+    // Số liệu hit/miss của các cache dữ liệu tham chiếu
+    List<CacheStatsDTO> getCacheStats();
+
+    // Nạp lại một cache từ DB (khi dữ liệu bị sửa trực tiếp trong DB), trả về số liệu sau khi nạp
+    CacheStatsDTO refreshCache(String name);
+}
@@ -0,0 +1,39 @@
+package swp391.code.swp391.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import swp391.code.swp391.dto.CacheStatsDTO;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class CacheServiceImpl implements CacheService {
+
+    private static final String CONNECTOR_TYPES = "connector-types";
+    private static final String STATIONS = "stations";
+
+    private final ConnectorTypeCache connectorTypeCache;
+    private final StationGeoIndex stationGeoIndex;
+    private final JwtClaimsCache jwtClaimsCache;
+
+    @Override
+    public List<CacheStatsDTO> getCacheStats() {
+        return List.of(connectorTypeCache.getStats(), stationGeoIndex.getStats(), jwtClaimsCache.getStats());
+    }
+
+    @Override
+    public CacheStatsDTO refreshCache(String name) {
+        switch (name) {
+            case CONNECTOR_TYPES -> {
+                connectorTypeCache.rebuild();
+                return connectorTypeCache.getStats();
+            }
+            case STATIONS -> {
+                stationGeoIndex.rebuild();
+                return stationGeoIndex.getStats();
+            }
+            default -> throw new RuntimeException("Cache not found with name: " + name);
+        }
+    }
+}
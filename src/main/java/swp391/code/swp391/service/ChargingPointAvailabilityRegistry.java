@@ -0,0 +1,293 @@
+package swp391.code.swp391.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import swp391.code.swp391.dto.ChargingPointStatusEvent;
+import swp391.code.swp391.entity.ChargingPoint;
+import swp391.code.swp391.entity.ChargingPoint.ChargingPointStatus;
+import swp391.code.swp391.repository.ChargingPointRepository;
+import swp391.code.swp391.utils.TransactionUtils;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Sổ trạng thái trụ sạc giữ trong bộ nhớ.
+ * Lưu trạng thái, connector type của từng trụ và bộ đếm theo ChargingPointStatus cho từng trạm và toàn hệ thống,
+ * để các API hỏi "còn trụ trống không" không phải join bảng trên DB.
+ * Đọc không cần khóa; mỗi lần đổi trạng thái một trụ được áp dụng nguyên tử (ConcurrentHashMap.compute)
+ * sau khi transaction commit, rồi phát ChargingPointStatusEvent cho các listener (push SSE).
+ * Mỗi trạng thái mang version (@Version của ChargingPoint), bản cũ hơn bản đang giữ bị bỏ qua.
+ * Các thay đổi cũng được đẩy sang ConnectorCompatibilityIndex để giữ bitmap trạm theo connector type.
+ */
+@Component
+@RequiredArgsConstructor
+public class ChargingPointAvailabilityRegistry {
+
+    private static final ChargingPointStatus[] STATUSES = ChargingPointStatus.values();
+
+    private final ChargingPointRepository chargingPointRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ConnectorCompatibilityIndex compatibilityIndex;
+
+    // chargingPointId -> trạng thái hiện tại của trụ
+    private final Map<Long, PointState> points = new ConcurrentHashMap<>();
+    // stationId -> các chargingPointId thuộc trạm
+    private final Map<Long, Set<Long>> stationPoints = new ConcurrentHashMap<>();
+    // stationId -> số trụ theo status (index = ordinal)
+    private final Map<Long, AtomicIntegerArray> stationCounters = new ConcurrentHashMap<>();
+    // Số trụ theo status trên toàn hệ thống
+    private final AtomicLongArray totalCounters = new AtomicLongArray(STATUSES.length);
+    // Trụ đã bị xóa: cập nhật cũ tới muộn không thêm lại trụ (id IDENTITY không được dùng lại)
+    private final Set<Long> removedPoints = ConcurrentHashMap.newKeySet();
+
+    // apply() lấy read lock, rebuild lấy write lock khi thay bằng dữ liệu vừa quét từ DB
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    // Chỉ một lần rebuild tại một thời điểm (ReentrantLock, không ghim carrier thread khi chạy trên virtual thread)
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    // Cập nhật commit trong lúc đang quét DB, null khi không rebuild
+    private volatile ConcurrentLinkedQueue<LiveUpdate> liveUpdates;
+
+    /**
+     * Nạp trạng thái toàn bộ trụ từ DB (khi ứng dụng khởi động).
+     * Quét DB không giữ khóa: các cập nhật commit trong lúc quét vẫn được áp dụng và được ghi lại,
+     * sau đó thay dữ liệu bằng kết quả quét rồi áp dụng lại các cập nhật đó (bản cũ hơn dòng đã quét bị bỏ qua nhờ version).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuildLock.lock();
+        liveUpdates = new ConcurrentLinkedQueue<>();
+        try {
+            List<Object[]> rows = chargingPointRepository.findAllPointStates();
+            swapLock.writeLock().lock();
+            try {
+                points.clear();
+                stationPoints.clear();
+                stationCounters.clear();
+                compatibilityIndex.clear();
+                for (int i = 0; i < STATUSES.length; i++) {
+                    totalCounters.set(i, 0);
+                }
+                for (Object[] row : rows) {
+                    applyLocked((Long) row[0], new PointState((Long) row[1], (ChargingPointStatus) row[2],
+                            (Long) row[3], row[4] != null ? ((Number) row[4]).longValue() : 0), null);
+                }
+                for (LiveUpdate update : liveUpdates) {
+                    applyLocked(update.chargingPointId(), update.next(), null);
+                }
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+        } finally {
+            liveUpdates = null;
+            rebuildLock.unlock();
+        }
+    }
+
+    // Ghi nhận trạng thái mới của trụ (sau khi transaction commit)
+    public void update(ChargingPoint chargingPoint) {
+        Long chargingPointId = chargingPoint.getChargingPointId();
+        PointState next = new PointState(
+                chargingPoint.getStation() != null ? chargingPoint.getStation().getStationId() : null,
+                chargingPoint.getStatus(),
+                chargingPoint.getConnectorType() != null ? chargingPoint.getConnectorType().getConnectorTypeId() : null,
+                chargingPoint.getVersion() != null ? chargingPoint.getVersion() : 0);
+        TransactionUtils.afterCommit(() -> apply(chargingPointId, next, true));
+    }
+
+    // Xóa trụ khỏi registry (sau khi transaction commit)
+    public void remove(Long chargingPointId) {
+        TransactionUtils.afterCommit(() -> apply(chargingPointId, null, true));
+    }
+
+    // Xóa toàn bộ trụ của một trạm (khi trạm bị xóa)
+    public void removeStation(Long stationId) {
+        TransactionUtils.afterCommit(() -> {
+            getChargingPointIds(stationId).forEach(chargingPointId -> apply(chargingPointId, null, true));
+            stationPoints.remove(stationId);
+            stationCounters.remove(stationId);
+        });
+    }
+
+    // =============== READ METHODS (lock-free) ===============
+
+    public ChargingPointStatus getStatus(Long chargingPointId) {
+        PointState state = points.get(chargingPointId);
+        return state != null ? state.getStatus() : null;
+    }
+
+    public Long getStationId(Long chargingPointId) {
+        PointState state = points.get(chargingPointId);
+        return state != null ? state.getStationId() : null;
+    }
+
+    public Long getConnectorTypeId(Long chargingPointId) {
+        PointState state = points.get(chargingPointId);
+        return state != null ? state.getConnectorTypeId() : null;
+    }
+
+    // Danh sách chargingPointId thuộc trạm
+    public List<Long> getChargingPointIds(Long stationId) {
+        Set<Long> ids = stationPoints.get(stationId);
+        if (ids == null) {
+            return new ArrayList<>();
+        }
+        List<Long> result = new ArrayList<>(ids);
+        result.sort(null);
+        return result;
+    }
+
+    public long count(ChargingPointStatus status) {
+        return totalCounters.get(status.ordinal());
+    }
+
+    public int countByStation(Long stationId, ChargingPointStatus status) {
+        AtomicIntegerArray counters = stationCounters.get(stationId);
+        return counters != null ? counters.get(status.ordinal()) : 0;
+    }
+
+    public int countByStation(Long stationId) {
+        AtomicIntegerArray counters = stationCounters.get(stationId);
+        if (counters == null) {
+            return 0;
+        }
+        int total = 0;
+        for (int i = 0; i < counters.length(); i++) {
+            total += counters.get(i);
+        }
+        return total;
+    }
+
+    // Số trụ của trạm theo từng status
+    public Map<ChargingPointStatus, Integer> getStationCounts(Long stationId) {
+        Map<ChargingPointStatus, Integer> counts = new EnumMap<>(ChargingPointStatus.class);
+        for (ChargingPointStatus status : STATUSES) {
+            counts.put(status, countByStation(stationId, status));
+        }
+        return counts;
+    }
+
+    // Danh sách stationId đang có ít nhất một trụ ở status cho trước
+    public List<Long> getStationIdsWith(ChargingPointStatus status) {
+        int ordinal = status.ordinal();
+        List<Long> stationIds = new ArrayList<>();
+        stationCounters.forEach((stationId, counters) -> {
+            if (counters.get(ordinal) > 0) {
+                stationIds.add(stationId);
+            }
+        });
+        stationIds.sort(null);
+        return stationIds;
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private void apply(Long chargingPointId, PointState next, boolean notify) {
+        PointState[] previousHolder = new PointState[1];
+        boolean applied;
+        swapLock.readLock().lock();
+        try {
+            applied = applyLocked(chargingPointId, next, previousHolder);
+            ConcurrentLinkedQueue<LiveUpdate> pending = liveUpdates;
+            if (pending != null) {
+                pending.add(new LiveUpdate(chargingPointId, next));
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+
+        // Chỉ phát sự kiện khi trạng thái thực sự thay đổi
+        PointState previous = previousHolder[0];
+        if (applied && notify && next != null && (previous == null || previous.getStatus() != next.getStatus())) {
+            eventPublisher.publishEvent(new ChargingPointStatusEvent(chargingPointId, next.getStationId(),
+                    previous != null ? previous.getStatus() : null, next.getStatus(), System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Áp dụng trạng thái mới của trụ (next = null là xóa), nguyên tử theo trụ nhờ ConcurrentHashMap.compute.
+     * Các callback afterCommit của nhiều transaction có thể chạy không theo thứ tự commit,
+     * nên bản có version nhỏ hơn bản đang giữ bị bỏ qua, và trụ đã xóa không được thêm lại.
+     * @return false nếu next bị bỏ qua
+     */
+    private boolean applyLocked(Long chargingPointId, PointState next, PointState[] previousHolder) {
+        boolean[] applied = new boolean[1];
+        points.compute(chargingPointId, (id, previous) -> {
+            if (next != null && (removedPoints.contains(id)
+                    || previous != null && next.getVersion() < previous.getVersion())) {
+                return previous;
+            }
+            applied[0] = true;
+            if (previousHolder != null) {
+                previousHolder[0] = previous;
+            }
+            if (previous != null) {
+                adjust(previous, -1);
+            }
+            if (next != null) {
+                adjust(next, 1);
+            } else {
+                removedPoints.add(id);
+            }
+            moveStation(id, previous != null ? previous.getStationId() : null,
+                    next != null ? next.getStationId() : null);
+            return next;
+        });
+        return applied[0];
+    }
+
+    private void moveStation(Long chargingPointId, Long fromStationId, Long toStationId) {
+        if (Objects.equals(fromStationId, toStationId)) {
+            return;
+        }
+        if (fromStationId != null) {
+            Set<Long> ids = stationPoints.get(fromStationId);
+            if (ids != null) {
+                ids.remove(chargingPointId);
+            }
+        }
+        if (toStationId != null) {
+            stationPoints.computeIfAbsent(toStationId, id -> ConcurrentHashMap.newKeySet()).add(chargingPointId);
+        }
+    }
+
+    private void adjust(PointState state, int delta) {
+        int ordinal = state.getStatus().ordinal();
+        totalCounters.addAndGet(ordinal, delta);
+        if (state.getStationId() != null) {
+            stationCounters.computeIfAbsent(state.getStationId(), id -> new AtomicIntegerArray(STATUSES.length))
+                    .addAndGet(ordinal, delta);
+        }
+        compatibilityIndex.adjust(state.getStationId(), state.getConnectorTypeId(),
+                state.getStatus() == ChargingPointStatus.AVAILABLE, delta);
+    }
+
+    // =============== INNER CLASSES ===============
+
+    @Getter
+    @AllArgsConstructor
+    private static final class PointState {
+        private final Long stationId;
+        private final ChargingPointStatus status;
+        private final Long connectorTypeId;
+        private final long version;
+    }
+
+    private record LiveUpdate(Long chargingPointId, PointState next) {
+    }
+}
@@ -0,0 +1,185 @@
+package swp391.code.swp391.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import swp391.code.swp391.entity.Order;
+import swp391.code.swp391.repository.OrderRepository;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lịch đặt chỗ của từng trụ sạc giữ trong bộ nhớ.
+ * Mỗi trụ có một TreeMap các khung giờ [start, end) không giao nhau, sắp theo start,
+ * nên kiểm tra trùng lịch và giữ chỗ chỉ tốn O(log n) (floorEntry/ceilingEntry).
+ * Gồm các order BOOKED và CHARGING chưa kết thúc.
+ * Lịch của một trụ được bảo vệ bởi khóa phân dải trong ChargingPointLocks, trụ khác không bị chặn.
+ * Lịch chỉ gồm order nạp lúc khởi động và order do instance này tạo; khi chạy nhiều instance,
+ * OrderBatchWriter kiểm tra lại với DB trước khi lưu.
+ */
+@Component
+@RequiredArgsConstructor
+public class ChargingPointBookingIndex {
+
+    private final OrderRepository orderRepository;
+    private final ChargingPointLocks chargingPointLocks;
+
+    // chargingPointId -> các khung giờ đã giữ, key = start (epoch millis)
+    private final Map<Long, TreeMap<Long, Reservation>> timelines = new ConcurrentHashMap<>();
+    // orderId -> khung giờ của order
+    private final Map<Long, Reservation> reservationsByOrder = new ConcurrentHashMap<>();
+
+    // Nạp các order còn hiệu lực khi ứng dụng khởi động
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Object[]> windows = orderRepository.findReservationWindows(
+                List.of(Order.Status.BOOKED, Order.Status.CHARGING), new Date());
+        for (Object[] row : windows) {
+            Long orderId = (Long) row[0];
+            Long chargingPointId = (Long) row[1];
+            Date start = (Date) row[2];
+            Date end = (Date) row[3];
+            if (start == null || end == null) {
+                continue;
+            }
+            Reservation reservation = tryReserve(chargingPointId, start.getTime(), end.getTime());
+            if (reservation != null) {
+                attachOrder(reservation, orderId);
+            }
+        }
+    }
+
+    /**
+     * Giữ chỗ khung giờ [start, end) cho trụ.
+     * @return Reservation nếu giữ chỗ thành công, null nếu trùng với khung giờ đã có
+     */
+    public Reservation tryReserve(Long chargingPointId, long start, long end) {
+        TreeMap<Long, Reservation> timeline = timelines.computeIfAbsent(chargingPointId, id -> new TreeMap<>());
+        ReentrantLock lock = chargingPointLocks.lock(chargingPointId);
+        try {
+            if (!isFree(timeline, start, end)) {
+                return null;
+            }
+            Reservation reservation = new Reservation(chargingPointId, start, end);
+            timeline.put(start, reservation);
+            return reservation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Gắn orderId cho khung giờ sau khi order đã được lưu
+    public void attachOrder(Reservation reservation, Long orderId) {
+        reservation.orderId = orderId;
+        reservationsByOrder.put(orderId, reservation);
+    }
+
+    // Trả lại khung giờ (order lưu thất bại)
+    public void release(Reservation reservation) {
+        TreeMap<Long, Reservation> timeline = timelines.get(reservation.getChargingPointId());
+        if (timeline == null) {
+            return;
+        }
+        ReentrantLock lock = chargingPointLocks.lock(reservation.getChargingPointId());
+        try {
+            timeline.remove(reservation.getStart(), reservation);
+        } finally {
+            lock.unlock();
+        }
+        if (reservation.getOrderId() != null) {
+            reservationsByOrder.remove(reservation.getOrderId(), reservation);
+        }
+    }
+
+    // Trả lại khung giờ của order (order bị hủy)
+    public void releaseOrder(Long orderId) {
+        Reservation reservation = reservationsByOrder.get(orderId);
+        if (reservation != null) {
+            release(reservation);
+        }
+    }
+
+    // Kiểm tra trụ còn trống trong khung giờ [start, end)
+    public boolean isFree(Long chargingPointId, long start, long end) {
+        TreeMap<Long, Reservation> timeline = timelines.get(chargingPointId);
+        if (timeline == null) {
+            return true;
+        }
+        ReentrantLock lock = chargingPointLocks.lock(chargingPointId);
+        try {
+            return isFree(timeline, start, end);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Dọn các khung giờ đã kết thúc
+    @Scheduled(fixedRate = 3600000)
+    public void prune() {
+        long now = System.currentTimeMillis();
+        timelines.forEach((chargingPointId, timeline) -> {
+            ReentrantLock lock = chargingPointLocks.lock(chargingPointId);
+            try {
+                while (!timeline.isEmpty() && timeline.firstEntry().getValue().getEnd() <= now) {
+                    Reservation expired = timeline.pollFirstEntry().getValue();
+                    if (expired.getOrderId() != null) {
+                        reservationsByOrder.remove(expired.getOrderId(), expired);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private static boolean isFree(TreeMap<Long, Reservation> timeline, long start, long end) {
+        // Khung giờ bắt đầu trước start phải kết thúc trước start
+        Map.Entry<Long, Reservation> before = timeline.floorEntry(start);
+        if (before != null && before.getValue().getEnd() > start) {
+            return false;
+        }
+        // Khung giờ bắt đầu sau start phải bắt đầu sau end
+        Map.Entry<Long, Reservation> after = timeline.higherEntry(start);
+        return after == null || after.getKey() >= end;
+    }
+
+    // =============== INNER CLASSES ===============
+
+    public static final class Reservation {
+        private final Long chargingPointId;
+        private final long start;
+        private final long end;
+        private volatile Long orderId;
+
+        Reservation(Long chargingPointId, long start, long end) {
+            this.chargingPointId = chargingPointId;
+            this.start = start;
+            this.end = end;
+        }
+
+        public Long getChargingPointId() {
+            return chargingPointId;
+        }
+
+        public long getStart() {
+            return start;
+        }
+
+        public long getEnd() {
+            return end;
+        }
+
+        public Long getOrderId() {
+            return orderId;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package swp391.code.swp391.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import swp391.code.swp391.utils.StripedLock;
+import swp391.code.swp391.utils.TransactionUtils;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Khóa phân dải (striped lock) theo chargingPointId.
+ * Các thao tác trên cùng một trụ được tuần tự hóa còn các trụ khác nhau gần như không bao giờ chờ nhau.
+ * Chỉ tuần tự hóa trong một instance. Giữa các instance: cập nhật trụ / order dựa vào @Version (optimistic locking),
+ * còn đặt chỗ (insert Order mới, @Version không áp dụng) được OrderBatchWriter chặn trùng bằng UPDLOCK trên dòng trụ
+ * và kiểm tra trùng lịch trong DB trước khi lưu.
+ */
+@Component
+public class ChargingPointLocks {
+
+    @Value("${charging-point.lock.stripes:1024}")
+    private int stripes;
+
+    @Value("${charging-point.lock.timeout-ms:3000}")
+    private long lockTimeoutMs;
+
+    private StripedLock locks;
+
+    @PostConstruct
+    public void init() {
+        locks = new StripedLock(stripes);
+    }
+
+    /**
+     * Khóa trụ tới khi transaction hiện tại kết thúc (commit hoặc rollback),
+     * để request khác chỉ đọc trụ sau khi thay đổi đã được commit.
+     */
+    public void lockUntilCompletion(Long chargingPointId) {
+        TransactionUtils.lockUntilCompletion(lock(chargingPointId));
+    }
+
+    // Khóa trụ, ném RuntimeException nếu chờ quá lâu thay vì treo request
+    public ReentrantLock lock(Long chargingPointId) {
+        return locks.lock(chargingPointId, lockTimeoutMs, "Charging point " + chargingPointId);
+    }
+}
@@ -1,6 +1,7 @@
 package swp391.code.swp391.service;
 
 import swp391.code.swp391.dto.ChargingPointDTO;
+import swp391.code.swp391.dto.KeysetPageDTO;
 import swp391.code.swp391.entity.ChargingPoint.ChargingPointStatus;
 
 import java.util.List;
@@ -13,8 +14,8 @@ public interface ChargingPointService {
     // Lấy charging point theo ID
     ChargingPointDTO getChargingPointById(Long chargingPointId);
 
-    // Lấy tất cả charging points
-    List<ChargingPointDTO> getAllChargingPoints();
+    // Lấy một trang charging points theo keyset (khóa lớn hơn after, tối đa limit phần tử)
+    KeysetPageDTO<ChargingPointDTO> getChargingPointsPage(Long after, int limit);
 
     // Lấy charging points theo station ID
     List<ChargingPointDTO> getChargingPointsByStationId(Long stationId);
@@ -1,9 +1,12 @@
 package swp391.code.swp391.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import swp391.code.swp391.dto.ChargingPointDTO;
+import swp391.code.swp391.dto.KeysetPageDTO;
 import swp391.code.swp391.entity.ChargingPoint;
 import swp391.code.swp391.entity.ChargingPoint.ChargingPointStatus;
 import swp391.code.swp391.entity.ChargingStation;
@@ -11,9 +14,11 @@ import swp391.code.swp391.entity.ConnectorType;
 import swp391.code.swp391.repository.ChargingPointRepository;
 import swp391.code.swp391.repository.ChargingStationRepository;
 import swp391.code.swp391.repository.ConnectorTypeRepository;
+import swp391.code.swp391.service.ConnectorTypeCache.ConnectorTypeInfo;
+import swp391.code.swp391.service.StationGeoIndex.StationLocation;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -23,6 +28,10 @@ public class ChargingPointServiceImpl implements ChargingPointService {
     private final ChargingPointRepository chargingPointRepository;
     private final ChargingStationRepository chargingStationRepository;
     private final ConnectorTypeRepository connectorTypeRepository;
+    private final ChargingPointAvailabilityRegistry availabilityRegistry;
+    private final ChargingPointLocks chargingPointLocks;
+    private final ConnectorTypeCache connectorTypeCache;
+    private final StationGeoIndex stationGeoIndex;
 
     @Override
     public ChargingPointDTO createChargingPoint(ChargingPointDTO chargingPointDTO) {
@@ -31,18 +40,14 @@ public class ChargingPointServiceImpl implements ChargingPointService {
             throw new RuntimeException("Charging point with ID " + chargingPointDTO.getChargingPointId() + " already exists");
         }
 
-        // Validate station exists
-        ChargingStation station = chargingStationRepository.findById(chargingPointDTO.getStationId())
-                .orElseThrow(() -> new RuntimeException("Charging station not found with id: " + chargingPointDTO.getStationId()));
-
-        // Validate and get connector type by name
-        ConnectorType connectorType = connectorTypeRepository.findByTypeName(chargingPointDTO.getTypeName())
-                .orElseThrow(() -> new RuntimeException("Connector type not found with name: " + chargingPointDTO.getTypeName()));
-
-        // Create charging point entity
+        // Create charging point entity (station và connector type được validate trong convertToEntity)
         ChargingPoint chargingPoint = convertToEntity(chargingPointDTO);
-        chargingPoint.setStation(station);
-        chargingPoint.setConnectorType(connectorType);
+        if (chargingPoint.getStation() == null) {
+            throw new RuntimeException("Station ID is required");
+        }
+        if (chargingPoint.getConnectorType() == null) {
+            throw new RuntimeException("Connector type name is required");
+        }
 
         // Set default status if not provided
         if (chargingPoint.getStatus() == null) {
@@ -51,42 +56,37 @@ public class ChargingPointServiceImpl implements ChargingPointService {
 
         // Save charging point
         ChargingPoint savedChargingPoint = chargingPointRepository.save(chargingPoint);
+        availabilityRegistry.update(savedChargingPoint);
 
         // Convert to DTO with connector type information
-        ChargingPointDTO resultDTO = convertToDTO(savedChargingPoint);
-        resultDTO.setTypeName(connectorType.getTypeName());
-        resultDTO.setPowerOutput(connectorType.getPowerOutput());
-        resultDTO.setPricePerKwh(connectorType.getPricePerKwh());
-
-        return resultDTO;
+        return convertToDTO(savedChargingPoint);
     }
 
     @Override
     @Transactional(readOnly = true)
     public ChargingPointDTO getChargingPointById(Long chargingPointId) {
-        ChargingPoint chargingPoint = chargingPointRepository.findById(chargingPointId)
+        return chargingPointRepository.findDTOById(chargingPointId)
                 .orElseThrow(() -> new RuntimeException("Charging point not found with id: " + chargingPointId));
-        return convertToDTO(chargingPoint);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<ChargingPointDTO> getAllChargingPoints() {
-        return chargingPointRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public KeysetPageDTO<ChargingPointDTO> getChargingPointsPage(Long after, int limit) {
+        int pageSize = KeysetPageDTO.clampLimit(limit);
+        List<ChargingPointDTO> rows = chargingPointRepository
+                .findDTOsAfter(after != null ? after : 0L, Limit.of(pageSize + 1));
+        return KeysetPageDTO.of(rows, pageSize, ChargingPointDTO::getChargingPointId);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ChargingPointDTO> getChargingPointsByStationId(Long stationId) {
-        return chargingPointRepository.findByStationStationId(stationId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return chargingPointRepository.findDTOsByStationId(stationId);
     }
 
     @Override
     public ChargingPointDTO updateChargingPoint(Long chargingPointId, ChargingPointDTO chargingPointDTO) {
+        chargingPointLocks.lockUntilCompletion(chargingPointId);
         ChargingPoint existingChargingPoint = chargingPointRepository.findById(chargingPointId)
                 .orElseThrow(() -> new RuntimeException("Charging point not found with id: " + chargingPointId));
 
@@ -95,19 +95,16 @@ public class ChargingPointServiceImpl implements ChargingPointService {
 
         // Update connector type by name
         if (chargingPointDTO.getTypeName() != null) {
-            ConnectorType connectorType = connectorTypeRepository.findByTypeName(chargingPointDTO.getTypeName())
-                    .orElseThrow(() -> new RuntimeException("Connector type not found with name: " + chargingPointDTO.getTypeName()));
-            existingChargingPoint.setConnectorType(connectorType);
+            existingChargingPoint.setConnectorType(resolveConnectorType(chargingPointDTO.getTypeName()));
         }
 
         // Cập nhật station nếu có
         if (chargingPointDTO.getStationId() != null) {
-            ChargingStation station = chargingStationRepository.findById(chargingPointDTO.getStationId())
-                    .orElseThrow(() -> new RuntimeException("Charging station not found with id: " + chargingPointDTO.getStationId()));
-            existingChargingPoint.setStation(station);
+            existingChargingPoint.setStation(resolveStation(chargingPointDTO.getStationId()));
         }
 
-        ChargingPoint updatedChargingPoint = chargingPointRepository.save(existingChargingPoint);
+        ChargingPoint updatedChargingPoint = saveWithVersionCheck(existingChargingPoint);
+        availabilityRegistry.update(updatedChargingPoint);
         return convertToDTO(updatedChargingPoint);
     }
 
@@ -123,68 +120,72 @@ public class ChargingPointServiceImpl implements ChargingPointService {
         }
 
         chargingPointRepository.deleteById(chargingPointId);
+        availabilityRegistry.remove(chargingPointId);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ChargingPointDTO> getChargingPointsByStatus(ChargingPointStatus status) {
-        return chargingPointRepository.findByStatus(status).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return chargingPointRepository.findDTOsByStatus(status);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ChargingPointDTO> getChargingPointsByStationAndStatus(Long stationId, ChargingPointStatus status) {
-        return chargingPointRepository.findByStationStationIdAndStatus(stationId, status).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        // Registry cho biết trạm không có trụ nào ở status này thì không cần truy vấn DB
+        if (availabilityRegistry.countByStation(stationId, status) == 0) {
+            return new ArrayList<>();
+        }
+        return chargingPointRepository.findDTOsByStationIdAndStatus(stationId, status);
     }
 
     @Override
     public ChargingPointDTO updateChargingPointStatus(Long chargingPointId, ChargingPointStatus status) {
+        // Giữ khóa của trụ tới khi commit để request khác chỉ đọc trạng thái đã commit
+        chargingPointLocks.lockUntilCompletion(chargingPointId);
         ChargingPoint chargingPoint = chargingPointRepository.findById(chargingPointId)
                 .orElseThrow(() -> new RuntimeException("Charging point not found with id: " + chargingPointId));
 
+        // Không cho hai tài xế cùng chiếm một trụ
+        if (status == ChargingPointStatus.OCCUPIED && chargingPoint.getStatus() != ChargingPointStatus.AVAILABLE) {
+            throw new RuntimeException("Charging point " + chargingPointId + " is not available, current status: "
+                    + chargingPoint.getStatus());
+        }
+
         chargingPoint.setStatus(status);
-        ChargingPoint updatedChargingPoint = chargingPointRepository.save(chargingPoint);
+        ChargingPoint updatedChargingPoint = saveWithVersionCheck(chargingPoint);
+        availabilityRegistry.update(updatedChargingPoint);
         return convertToDTO(updatedChargingPoint);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ChargingPointDTO> getAvailableChargingPointsWithConnectors() {
-        return chargingPointRepository.findAvailableChargingPointsWithConnectors().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return chargingPointRepository.findAvailableChargingPointsWithConnectors();
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ChargingPointDTO> getChargingPointsByConnectorType(Long connectorTypeId) {
-        return chargingPointRepository.findByConnectorTypeId(connectorTypeId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return chargingPointRepository.findByConnectorTypeId(connectorTypeId);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ChargingPointDTO> getChargingPointsWithoutConnectors() {
-        return chargingPointRepository.findChargingPointsWithoutConnectors().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return chargingPointRepository.findChargingPointsWithoutConnectors();
     }
 
     @Override
     @Transactional(readOnly = true)
     public long countChargingPointsByStatus(ChargingPointStatus status) {
-        return chargingPointRepository.countByStatus(status);
+        return availabilityRegistry.count(status);
     }
 
     @Override
     @Transactional(readOnly = true)
     public long countChargingPointsByStation(Long stationId) {
-        return chargingPointRepository.countByStationStationId(stationId);
+        return availabilityRegistry.countByStation(stationId);
     }
 
     // Helper methods
@@ -196,29 +197,73 @@ public class ChargingPointServiceImpl implements ChargingPointService {
 
         // Set station
         if (chargingPointDTO.getStationId() != null) {
-            ChargingStation station = chargingStationRepository.findById(chargingPointDTO.getStationId())
-                    .orElseThrow(() -> new RuntimeException("Charging station not found with id: " + chargingPointDTO.getStationId()));
-            chargingPoint.setStation(station);
+            chargingPoint.setStation(resolveStation(chargingPointDTO.getStationId()));
         }
 
         // Tìm connector type theo tên
         if (chargingPointDTO.getTypeName() != null) {
-            ConnectorType connectorType = connectorTypeRepository.findByTypeName(chargingPointDTO.getTypeName())
-                    .orElseThrow(() -> new RuntimeException("Connector type not found with name: " + chargingPointDTO.getTypeName()));
-            chargingPoint.setConnectorType(connectorType);
+            chargingPoint.setConnectorType(resolveConnectorType(chargingPointDTO.getTypeName()));
         }
 
         return chargingPoint;
     }
 
+    // Trạm đã có trong StationGeoIndex thì chỉ lấy reference (không SELECT), chưa có (vd. vừa tạo trong cùng
+    // transaction) thì đọc qua findById
+    private ChargingStation resolveStation(Long stationId) {
+        if (stationGeoIndex.get(stationId) != null) {
+            return chargingStationRepository.getReferenceById(stationId);
+        }
+        return chargingStationRepository.findById(stationId)
+                .orElseThrow(() -> new RuntimeException("Charging station not found with id: " + stationId));
+    }
+
+    // Tra connector type theo tên trong ConnectorTypeCache, chỉ lấy reference để gán quan hệ
+    private ConnectorType resolveConnectorType(String typeName) {
+        ConnectorTypeInfo info = connectorTypeCache.findByName(typeName);
+        if (info == null) {
+            throw new RuntimeException("Connector type not found with name: " + typeName);
+        }
+        return connectorTypeRepository.getReferenceById(info.getConnectorTypeId());
+    }
+
+    // Flush ngay để kiểm tra @Version trong method, trả lỗi rõ ràng nếu trụ vừa bị instance khác sửa
+    private ChargingPoint saveWithVersionCheck(ChargingPoint chargingPoint) {
+        try {
+            return chargingPointRepository.saveAndFlush(chargingPoint);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw new RuntimeException("Charging point " + chargingPoint.getChargingPointId()
+                    + " was modified concurrently, please retry");
+        }
+    }
+
     private ChargingPointDTO convertToDTO(ChargingPoint chargingPoint) {
         ChargingPointDTO dto = new ChargingPointDTO();
         dto.setChargingPointId(chargingPoint.getChargingPointId());
         dto.setStatus(chargingPoint.getStatus());
 
-        // Cho response: set full objects
-        dto.setStation(chargingPoint.getStation());
-        dto.setConnectorTypes(chargingPoint.getConnectorTypes());
+        // Cho response: chỉ lấy các trường cần thiết của station và connector type.
+        // Ưu tiên đọc từ cache để không khởi tạo các reference lấy bằng getReferenceById
+        ChargingStation station = chargingPoint.getStation();
+        if (station != null) {
+            dto.setStationId(station.getStationId());
+            StationLocation location = stationGeoIndex.get(station.getStationId());
+            dto.setStationName(location != null ? location.getStationName() : station.getStationName());
+        }
+        ConnectorType connectorType = chargingPoint.getConnectorType();
+        if (connectorType != null) {
+            dto.setConnectorTypeId(connectorType.getConnectorTypeId());
+            ConnectorTypeInfo info = connectorTypeCache.get(connectorType.getConnectorTypeId());
+            if (info != null) {
+                dto.setTypeName(info.getTypeName());
+                dto.setPowerOutput(info.getPowerOutput());
+                dto.setPricePerKwh(info.getPricePerKwh());
+            } else {
+                dto.setTypeName(connectorType.getTypeName());
+                dto.setPowerOutput(connectorType.getPowerOutput());
+                dto.setPricePerKwh(connectorType.getPricePerKwh());
+            }
+        }
 
         return dto;
     }
@@ -0,0 +1,319 @@
+package swp391.code.swp391.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import swp391.code.swp391.dto.ChargingPointStatusEvent;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Đẩy thay đổi trạng thái trụ sạc tới client qua Server-Sent Events.
+ * - Subscriber đang chờ không giữ thread nào (servlet async), chỉ giữ một SseEmitter.
+ * - Sự kiện được gom (coalesce) theo chargingPointId và gửi theo đợt mỗi flush-interval-ms,
+ *   trụ đổi trạng thái nhiều lần trong một đợt chỉ gửi trạng thái cuối.
+ * - Mỗi subscriber có tối đa một lần gửi đang chạy; sự kiện đến trong lúc đó được gom vào hàng chờ riêng
+ *   (giới hạn max-pending-per-subscriber), client quá chậm bị ngắt kết nối và phải subscribe lại.
+ * - Mỗi lần gửi chạy trên virtual thread riêng nên client không đọc chỉ giữ thread của chính nó;
+ *   lần gửi quá send-timeout-ms thì subscriber bị ngắt, thread gửi bị interrupt.
+ */
+@Component
+@RequiredArgsConstructor
+public class ChargingPointStatusBroadcaster {
+
+    // Giới hạn số trạm cho một subscription theo khu vực
+    private static final int MAX_AREA_STATIONS = 200;
+
+    private final StationGeoIndex stationGeoIndex;
+    private final ChargingPointAvailabilityRegistry availabilityRegistry;
+
+    @Value("${charging-point.stream.timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    @Value("${charging-point.stream.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    @Value("${charging-point.stream.max-pending-per-subscriber:1024}")
+    private int maxPendingPerSubscriber;
+
+    // stationId -> các subscriber đang theo dõi trạm
+    private final Map<Long, Set<Subscriber>> subscribersByStation = new ConcurrentHashMap<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // Sự kiện chờ gửi ở đợt flush kế tiếp, chargingPointId -> sự kiện mới nhất
+    private final Map<Long, ChargingPointStatusEvent> pending = new ConcurrentHashMap<>();
+
+    private ExecutorService senders;
+
+    @PostConstruct
+    public void start() {
+        senders = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("cp-stream-", 0).factory());
+    }
+
+    @PreDestroy
+    public void stop() {
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.getEmitter().complete());
+    }
+
+    // Subscribe trạng thái các trụ của một trạm
+    public SseEmitter subscribeStation(Long stationId) {
+        if (stationGeoIndex.get(stationId) == null) {
+            throw new IllegalArgumentException("Charging station not found with id: " + stationId);
+        }
+        return subscribe(Set.of(stationId));
+    }
+
+    // Subscribe trạng thái các trụ của các trạm nằm trong bán kính quanh vị trí
+    public SseEmitter subscribeArea(double latitude, double longitude, double radiusKm) {
+        Set<Long> stationIds = new LinkedHashSet<>();
+        stationGeoIndex.findNearby(latitude, longitude, radiusKm, MAX_AREA_STATIONS)
+                .forEach(nearby -> stationIds.add(nearby.getLocation().getStationId()));
+        return subscribe(stationIds);
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    // Nhận sự kiện từ ChargingPointAvailabilityRegistry, chỉ ghi vào hàng chờ để gửi ở đợt kế tiếp
+    @EventListener
+    public void onStatusChanged(ChargingPointStatusEvent event) {
+        if (event.getStationId() == null || !subscribersByStation.containsKey(event.getStationId())) {
+            return;
+        }
+        pending.merge(event.getChargingPointId(), event, (older, latest) -> new ChargingPointStatusEvent(
+                latest.getChargingPointId(), latest.getStationId(), older.getPreviousStatus(),
+                latest.getStatus(), latest.getTimestamp()));
+    }
+
+    // Gửi các sự kiện đã gom theo đợt
+    @Scheduled(fixedDelayString = "${charging-point.stream.flush-interval-ms:250}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        Set<Subscriber> touched = new HashSet<>();
+        for (Long chargingPointId : pending.keySet()) {
+            ChargingPointStatusEvent event = pending.remove(chargingPointId);
+            if (event == null) {
+                continue;
+            }
+            Set<Subscriber> stationSubscribers = subscribersByStation.get(event.getStationId());
+            if (stationSubscribers == null) {
+                continue;
+            }
+            for (Subscriber subscriber : stationSubscribers) {
+                if (subscriber.offer(event, maxPendingPerSubscriber)) {
+                    touched.add(subscriber);
+                } else {
+                    // Client không theo kịp: ngắt kết nối, client subscribe lại sẽ nhận snapshot mới
+                    unsubscribe(subscriber);
+                    subscriber.getEmitter().complete();
+                }
+            }
+        }
+        touched.forEach(subscriber -> schedule(subscriber, false));
+    }
+
+    // Ngắt các subscriber có lần gửi chạy quá send-timeout-ms (client không đọc, socket bị đầy)
+    @Scheduled(fixedDelayString = "${charging-point.stream.send-timeout-check-ms:1000}")
+    public void dropStalledSubscribers() {
+        long now = System.nanoTime();
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        for (Subscriber subscriber : subscribers) {
+            long startedAt = subscriber.getSendStartedNanos();
+            if (startedAt != 0 && now - startedAt > timeoutNanos) {
+                unsubscribe(subscriber);
+                Thread sender = subscriber.getSender();
+                if (sender != null) {
+                    sender.interrupt();
+                }
+                // complete chờ khóa ghi của emitter đang bị lần gửi kia giữ: chạy ở thread khác để không chặn scheduler
+                senders.execute(() -> subscriber.getEmitter()
+                        .completeWithError(new TimeoutException("SSE send timed out")));
+            }
+        }
+    }
+
+    // Heartbeat để giữ kết nối qua proxy và phát hiện client đã ngắt
+    @Scheduled(fixedRateString = "${charging-point.stream.heartbeat-interval-ms:25000}")
+    public void heartbeat() {
+        subscribers.forEach(subscriber -> schedule(subscriber, true));
+    }
+
+    // =============== HELPER METHODS ===============
+
+    // Tách riêng để test thay bằng emitter giả lập client
+    SseEmitter createEmitter() {
+        return new SseEmitter(emitterTimeoutMs);
+    }
+
+    private SseEmitter subscribe(Collection<Long> stationIds) {
+        SseEmitter emitter = createEmitter();
+        Subscriber subscriber = new Subscriber(emitter, Set.copyOf(stationIds));
+
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(error -> unsubscribe(subscriber));
+
+        subscribers.add(subscriber);
+        for (Long stationId : subscriber.getStationIds()) {
+            subscribersByStation.computeIfAbsent(stationId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        }
+
+        // Gửi snapshot số trụ theo trạng thái của từng trạm ngay khi subscribe
+        try {
+            Map<Long, Object> snapshot = new HashMap<>();
+            for (Long stationId : subscriber.getStationIds()) {
+                snapshot.put(stationId, availabilityRegistry.getStationCounts(stationId));
+            }
+            emitter.send(SseEmitter.event().name("snapshot").data(snapshot));
+        } catch (IOException e) {
+            unsubscribe(subscriber);
+            emitter.completeWithError(e);
+        }
+        return emitter;
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (!subscribers.remove(subscriber)) {
+            return;
+        }
+        for (Long stationId : subscriber.getStationIds()) {
+            subscribersByStation.computeIfPresent(stationId, (id, stationSubscribers) -> {
+                stationSubscribers.remove(subscriber);
+                return stationSubscribers.isEmpty() ? null : stationSubscribers;
+            });
+        }
+    }
+
+    private void schedule(Subscriber subscriber, boolean heartbeat) {
+        if (!subscriber.getSending().compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            senders.execute(() -> drain(subscriber, heartbeat));
+        } catch (RejectedExecutionException e) {
+            subscriber.getSending().set(false);
+        }
+    }
+
+    private void drain(Subscriber subscriber, boolean heartbeat) {
+        SseEmitter emitter = subscriber.getEmitter();
+        subscriber.setSender(Thread.currentThread());
+        try {
+            List<ChargingPointStatusEvent> events = subscriber.takePending();
+            if (events.isEmpty() && heartbeat) {
+                send(subscriber, SseEmitter.event().comment("ping"));
+            }
+            while (!events.isEmpty() && subscribers.contains(subscriber)) {
+                send(subscriber, SseEmitter.event().name("status").data(events));
+                events = subscriber.takePending();
+            }
+        } catch (IOException | IllegalStateException e) {
+            unsubscribe(subscriber);
+            emitter.completeWithError(e);
+        } finally {
+            subscriber.setSender(null);
+            subscriber.getSending().set(false);
+        }
+        // Sự kiện đến sau lần takePending cuối nhưng trước khi nhả cờ sending
+        if (subscriber.hasPending() && subscribers.contains(subscriber)) {
+            schedule(subscriber, false);
+        }
+    }
+
+    // Ghi lại thời điểm bắt đầu gửi để dropStalledSubscribers phát hiện lần gửi bị treo
+    private void send(Subscriber subscriber, SseEmitter.SseEventBuilder event) throws IOException {
+        subscriber.setSendStartedNanos(System.nanoTime());
+        try {
+            subscriber.getEmitter().send(event);
+        } finally {
+            subscriber.setSendStartedNanos(0);
+        }
+    }
+
+    // =============== INNER CLASSES ===============
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final Set<Long> stationIds;
+        private final AtomicBoolean sending = new AtomicBoolean(false);
+        // Thời điểm (nanoTime) bắt đầu lần gửi đang chạy, 0 khi không gửi
+        private volatile long sendStartedNanos;
+        private volatile Thread sender;
+        // chargingPointId -> sự kiện mới nhất chưa gửi cho subscriber này
+        private final Map<Long, ChargingPointStatusEvent> pendingEvents = new LinkedHashMap<>();
+
+        Subscriber(SseEmitter emitter, Set<Long> stationIds) {
+            this.emitter = emitter;
+            this.stationIds = stationIds;
+        }
+
+        SseEmitter getEmitter() {
+            return emitter;
+        }
+
+        Set<Long> getStationIds() {
+            return stationIds;
+        }
+
+        AtomicBoolean getSending() {
+            return sending;
+        }
+
+        long getSendStartedNanos() {
+            return sendStartedNanos;
+        }
+
+        void setSendStartedNanos(long sendStartedNanos) {
+            this.sendStartedNanos = sendStartedNanos;
+        }
+
+        Thread getSender() {
+            return sender;
+        }
+
+        void setSender(Thread sender) {
+            this.sender = sender;
+        }
+
+        synchronized boolean offer(ChargingPointStatusEvent event, int maxPending) {
+            pendingEvents.merge(event.getChargingPointId(), event, (older, latest) -> new ChargingPointStatusEvent(
+                    latest.getChargingPointId(), latest.getStationId(), older.getPreviousStatus(),
+                    latest.getStatus(), latest.getTimestamp()));
+            return pendingEvents.size() <= maxPending;
+        }
+
+        synchronized List<ChargingPointStatusEvent> takePending() {
+            List<ChargingPointStatusEvent> events = new ArrayList<>(pendingEvents.values());
+            pendingEvents.clear();
+            return events;
+        }
+
+        synchronized boolean hasPending() {
+            return !pendingEvents.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package swp391.code.swp391.service;
+
+import swp391.code.swp391.dto.SessionDTO;
+
+public interface ChargingSessionService {
+
+    // Bắt đầu sạc cho order đã đặt, meterStart là chỉ số công tơ của trụ lúc bắt đầu (null = 0)
+    SessionDTO startSession(Long orderId, Double meterStart);
+
+    // Kết thúc sạc, ghi chi phí và các khoản phí
+    SessionDTO endSession(Long sessionId);
+
+    // Lấy session theo ID, kèm chi phí hiện tại nếu đang sạc
+    SessionDTO getSessionById(Long sessionId);
+}
@@ -0,0 +1,208 @@
+package swp391.code.swp391.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import swp391.code.swp391.dto.SessionDTO;
+import swp391.code.swp391.entity.ChargingPoint;
+import swp391.code.swp391.entity.ChargingPoint.ChargingPointStatus;
+import swp391.code.swp391.entity.Fee;
+import swp391.code.swp391.entity.Order;
+import swp391.code.swp391.entity.Session;
+import swp391.code.swp391.repository.FeeRepository;
+import swp391.code.swp391.repository.OrderRepository;
+import swp391.code.swp391.repository.SessionRepository;
+import swp391.code.swp391.service.SessionCostTracker.RunningCost;
+import swp391.code.swp391.service.TariffCache.Timeline;
+import swp391.code.swp391.utils.TransactionUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class ChargingSessionServiceImpl implements ChargingSessionService {
+
+    private final SessionRepository sessionRepository;
+    private final OrderRepository orderRepository;
+    private final FeeRepository feeRepository;
+    private final TariffCache tariffCache;
+    private final ChargingPointService chargingPointService;
+    private final ChargingPointBookingIndex bookingIndex;
+    private final SessionCostTracker costTracker;
+    private final MeterValueStore meterValueStore;
+    private final SettlementPipeline settlementPipeline;
+
+    // Khôi phục chi phí đang chạy của các session đang sạc khi ứng dụng khởi động lại
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void recoverActiveSessions() {
+        for (Session session : sessionRepository.findByOrderStatus(Order.Status.CHARGING)) {
+            RunningCost cost = openCost(session);
+            meterValueStore.replay(session.getSessionId(),
+                    (timestamp, energyKwh, powerKw, soc) -> cost.onSample(timestamp, energyKwh));
+        }
+    }
+
+    @Override
+    public SessionDTO startSession(Long orderId, Double meterStart) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found with id: " + orderId));
+
+        if (order.getStatus() != Order.Status.BOOKED) {
+            throw new RuntimeException("Only booked orders can start charging, current status: " + order.getStatus());
+        }
+        Date now = new Date();
+        if (order.getEndTime() != null && !now.before(order.getEndTime())) {
+            throw new RuntimeException("Booking of order " + orderId + " has already ended");
+        }
+        ChargingPoint chargingPoint = order.getChargingPoint();
+        if (chargingPoint.getConnectorType() == null || chargingPoint.getConnectorType().getPricePerKwh() == null) {
+            throw new RuntimeException("Charging point " + chargingPoint.getChargingPointId() + " has no price configured");
+        }
+        if (meterStart != null && meterStart < 0) {
+            throw new RuntimeException("Meter start must not be negative");
+        }
+        double startEnergy = meterStart != null ? meterStart : 0.0;
+
+        // Chiếm trụ, ném lỗi nếu trụ không còn AVAILABLE
+        chargingPointService.updateChargingPointStatus(chargingPoint.getChargingPointId(), ChargingPointStatus.OCCUPIED);
+
+        // endTime tạm bằng startTime, được ghi lại khi kết thúc session
+        Session session = new Session(null, order, now, now, startEnergy, 0.0, 0.0);
+        Session savedSession = sessionRepository.save(session);
+
+        order.setStatus(Order.Status.CHARGING);
+        saveOrder(order);
+
+        // Chốt giá và timeline hệ số giá tại thời điểm bắt đầu, chỉ bắt đầu tính tiền sau khi commit
+        Long sessionId = savedSession.getSessionId();
+        double pricePerKwh = chargingPoint.getConnectorType().getPricePerKwh();
+        Timeline tariff = tariffCache.get(order.getStation().getStationId());
+        Long bookedEnd = order.getEndTime() != null ? order.getEndTime().getTime() : null;
+        TransactionUtils.afterCommit(() ->
+                costTracker.open(sessionId, now.getTime(), startEnergy, pricePerKwh, tariff, bookedEnd));
+        return convertToDTO(savedSession, null, true);
+    }
+
+    @Override
+    public SessionDTO endSession(Long sessionId) {
+        Session session = sessionRepository.findById(sessionId)
+                .orElseThrow(() -> new RuntimeException("Session not found with id: " + sessionId));
+        Order order = session.getOrder();
+        if (order.getStatus() != Order.Status.CHARGING) {
+            throw new RuntimeException("Session " + sessionId + " is not active");
+        }
+
+        // Chi phí đã được cộng dồn theo từng mẫu đo, kết thúc session chỉ đọc lại kết quả
+        RunningCost cost = costTracker.get(sessionId);
+        if (cost == null) {
+            cost = openCost(session);
+            RunningCost replayed = cost;
+            meterValueStore.replay(sessionId, (timestamp, energyKwh, powerKw, soc) -> replayed.onSample(timestamp, energyKwh));
+        }
+        Date now = new Date();
+        // Chốt chi phí trước khi đọc: mẫu gửi tới từ đây bị từ chối thay vì được nhận mà không tính tiền
+        cost.finish(now.getTime());
+        RunningCost finished = cost;
+        TransactionUtils.afterRollback(finished::reopen);
+        double energyCost = cost.getEnergyCost();
+        double penaltyCost = cost.getPenaltyCost(now.getTime());
+
+        session.setEndTime(now);
+        session.setPowerConsumed(cost.getEnergyKwh());
+        session.setCost(energyCost + penaltyCost);
+        Session savedSession = sessionRepository.save(session);
+
+        feeRepository.save(new Fee(null, savedSession, energyCost, Fee.Type.CHARGING));
+        if (penaltyCost > 0) {
+            feeRepository.save(new Fee(null, savedSession, penaltyCost, Fee.Type.PENALTY));
+        }
+
+        order.setStatus(Order.Status.COMPLETED);
+        saveOrder(order);
+        chargingPointService.updateChargingPointStatus(order.getChargingPoint().getChargingPointId(),
+                ChargingPointStatus.AVAILABLE);
+
+        Long orderId = order.getOrderId();
+        Long userId = order.getUser().getUserId();
+        Long stationId = order.getStation().getStationId();
+        Double totalCost = savedSession.getCost();
+        TransactionUtils.afterCommit(() -> {
+            costTracker.close(sessionId);
+            meterValueStore.close(sessionId);
+            // Trả lại phần còn lại của khung giờ đã đặt
+            bookingIndex.releaseOrder(orderId);
+            // Quyết toán bất đồng bộ; nếu hàng đợi đầy, recovery sẽ nạp lại session này
+            settlementPipeline.submit(sessionId, userId, stationId, totalCost);
+        });
+
+        SessionDTO dto = convertToDTO(savedSession, null, false);
+        dto.setEnergyCost(energyCost);
+        dto.setPenaltyCost(penaltyCost);
+        return dto;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public SessionDTO getSessionById(Long sessionId) {
+        Session session = sessionRepository.findById(sessionId)
+                .orElseThrow(() -> new RuntimeException("Session not found with id: " + sessionId));
+        boolean active = session.getOrder().getStatus() == Order.Status.CHARGING;
+        return convertToDTO(session, active ? costTracker.get(sessionId) : null, active);
+    }
+
+    // Helper methods
+    private RunningCost openCost(Session session) {
+        Order order = session.getOrder();
+        ChargingPoint chargingPoint = order.getChargingPoint();
+        return costTracker.open(session.getSessionId(), session.getStartTime().getTime(),
+                session.getMeterStart() != null ? session.getMeterStart() : 0.0,
+                chargingPoint.getConnectorType().getPricePerKwh(),
+                tariffCache.get(order.getStation().getStationId()),
+                order.getEndTime() != null ? order.getEndTime().getTime() : null);
+    }
+
+    private void saveOrder(Order order) {
+        try {
+            orderRepository.saveAndFlush(order);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            throw new RuntimeException("Order " + order.getOrderId() + " was modified concurrently, please retry");
+        }
+    }
+
+    private LocalDateTime toLocalDateTime(Date date) {
+        return date != null ? LocalDateTime.ofInstant(Instant.ofEpochMilli(date.getTime()), ZoneId.systemDefault()) : null;
+    }
+
+    private SessionDTO convertToDTO(Session session, RunningCost cost, boolean active) {
+        SessionDTO dto = new SessionDTO();
+        dto.setSessionId(session.getSessionId());
+        dto.setOrderId(session.getOrder().getOrderId());
+        dto.setChargingPointId(session.getOrder().getChargingPoint().getChargingPointId());
+        dto.setStartTime(toLocalDateTime(session.getStartTime()));
+        dto.setActive(active);
+        if (!active) {
+            dto.setEndTime(toLocalDateTime(session.getEndTime()));
+            dto.setPowerConsumed(session.getPowerConsumed());
+            dto.setCost(session.getCost());
+        } else if (cost != null) {
+            // Chi phí tạm tính tới thời điểm hiện tại
+            long now = System.currentTimeMillis();
+            dto.setPowerConsumed(cost.getEnergyKwh());
+            dto.setEnergyCost(cost.getEnergyCost());
+            dto.setPenaltyCost(cost.getPenaltyCost(now));
+            dto.setCost(cost.getTotalCost(now));
+        } else {
+            dto.setPowerConsumed(0.0);
+            dto.setCost(0.0);
+        }
+        return dto;
+    }
+}
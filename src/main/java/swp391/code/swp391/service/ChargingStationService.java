@@ -1,6 +1,8 @@
 package swp391.code.swp391.service;
 
+import swp391.code.swp391.dto.BulkOnboardingResultDTO;
 import swp391.code.swp391.dto.ChargingStationDTO;
+import swp391.code.swp391.dto.KeysetPageDTO;
 import swp391.code.swp391.entity.ChargingStation.ChargingStationStatus;
 
 import java.util.List;
@@ -10,11 +12,14 @@ public interface ChargingStationService {
     // Tạo charging station mới
     ChargingStationDTO createChargingStation(ChargingStationDTO chargingStationDTO);
 
+    // Tạo nhiều charging stations (kèm charging points) trong một transaction
+    BulkOnboardingResultDTO createChargingStations(List<ChargingStationDTO> chargingStationDTOs);
+
     // Lấy charging station theo ID
     ChargingStationDTO getChargingStationById(Long stationId);
 
-    // Lấy tất cả charging stations
-    List<ChargingStationDTO> getAllChargingStations();
+    // Lấy một trang charging stations theo keyset (khóa lớn hơn after, tối đa limit phần tử)
+    KeysetPageDTO<ChargingStationDTO> getChargingStationsPage(Long after, int limit);
 
     // Cập nhật charging station
     ChargingStationDTO updateChargingStation(Long stationId, ChargingStationDTO chargingStationDTO);
@@ -57,4 +62,11 @@ public interface ChargingStationService {
 
     // Kiểm tra tên station đã tồn tại
     boolean isStationNameExists(String stationName);
+
+    // Tìm stations gần vị trí (theo bán kính và/hoặc k trạm gần nhất)
+    List<ChargingStationDTO> getNearbyChargingStations(double latitude, double longitude, Double radiusKm, int limit);
+
+    // Tìm stations có trụ tương thích connector của vehicle (availableOnly: còn trụ AVAILABLE), lọc thêm theo vị trí nếu có lat/lng
+    List<ChargingStationDTO> getCompatibleChargingStations(String plateNumber, Double latitude, Double longitude,
+                                                           Double radiusKm, boolean availableOnly, int limit);
 }
\ No newline at end of file
@@ -1,17 +1,35 @@
 package swp391.code.swp391.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import swp391.code.swp391.dto.BulkOnboardingResultDTO;
 import swp391.code.swp391.dto.ChargingPointDTO;
 import swp391.code.swp391.dto.ChargingStationDTO;
+import swp391.code.swp391.dto.KeysetPageDTO;
+import swp391.code.swp391.entity.ChargingPoint;
+import swp391.code.swp391.entity.ChargingPoint.ChargingPointStatus;
 import swp391.code.swp391.entity.ChargingStation;
 import swp391.code.swp391.entity.ChargingStation.ChargingStationStatus;
 import swp391.code.swp391.repository.ChargingStationRepository;
 import swp391.code.swp391.repository.ConnectorTypeRepository;
+import swp391.code.swp391.service.ConnectorTypeCache.ConnectorTypeInfo;
+import swp391.code.swp391.service.StationBulkWriter.InsertedPoint;
+import swp391.code.swp391.service.StationBulkWriter.NewPoint;
+import swp391.code.swp391.service.StationGeoIndex.NearbyStation;
+import swp391.code.swp391.service.StationGeoIndex.StationLocation;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,6 +40,19 @@ public class ChargingStationServiceImpl implements ChargingStationService {
     private final ChargingStationRepository chargingStationRepository;
     private final ChargingPointService chargingPointService;
     private final ConnectorTypeRepository connectorTypeRepository;
+    private final StationGeoIndex stationGeoIndex;
+    private final ChargingPointAvailabilityRegistry availabilityRegistry;
+    private final TariffCache tariffCache;
+    private final RevenueAggregator revenueAggregator;
+    private final StationBulkWriter stationBulkWriter;
+    private final ConnectorTypeCache connectorTypeCache;
+    private final ConnectorCompatibilityIndex compatibilityIndex;
+
+    // Giới hạn số trạm trả về cho tìm kiếm lân cận
+    private static final int MAX_NEARBY_LIMIT = 200;
+
+    // Giới hạn số trạm cho mỗi request bulk onboarding (giữ danh sách tên trong IN dưới giới hạn tham số của SQL Server)
+    private static final int MAX_BULK_STATIONS = 1000;
 
     @Override
     public ChargingStationDTO createChargingStation(ChargingStationDTO chargingStationDTO) {
@@ -40,8 +71,8 @@ public class ChargingStationServiceImpl implements ChargingStationService {
             if (chargingPoint.getTypeName() == null || chargingPoint.getTypeName().isEmpty()) {
                 throw new RuntimeException("Connector type name is required for each charging point");
             }
-            // Xác thực connector type có tồn tại
-            if (!connectorTypeRepository.existsByTypeName(chargingPoint.getTypeName())) {
+            // Xác thực connector type có tồn tại (tra trong ConnectorTypeCache)
+            if (connectorTypeCache.findByName(chargingPoint.getTypeName()) == null) {
                 throw new RuntimeException("Invalid connector type name: " + chargingPoint.getTypeName());
             }
         }
@@ -61,7 +92,7 @@ public class ChargingStationServiceImpl implements ChargingStationService {
         chargingStation.setLatitude(chargingStationDTO.getLatitude());  // Thêm dòng này
         chargingStation.setLongitude(chargingStationDTO.getLongitude()); // Thêm dòng này
         ChargingStation savedChargingStation = chargingStationRepository.save(chargingStation);
-
+        stationGeoIndex.put(savedChargingStation);
 
         // Tạo trụ sạc
         List<ChargingPointDTO> savedChargingPoints = new ArrayList<>();
@@ -76,6 +107,108 @@ public class ChargingStationServiceImpl implements ChargingStationService {
         return resultDTO;
     }
 
+    @Override
+    public BulkOnboardingResultDTO createChargingStations(List<ChargingStationDTO> chargingStationDTOs) {
+        long startNanos = System.nanoTime();
+        if (chargingStationDTOs == null || chargingStationDTOs.isEmpty()) {
+            throw new RuntimeException("At least one charging station is required");
+        }
+        if (chargingStationDTOs.size() > MAX_BULK_STATIONS) {
+            throw new RuntimeException("At most " + MAX_BULK_STATIONS + " charging stations can be created per request");
+        }
+
+        // Xác thực đầu vào trong bộ nhớ, gom tên trạm và tên connector type để kiểm tra bằng một query mỗi loại
+        Set<String> stationNames = new HashSet<>();
+        Set<String> typeNames = new HashSet<>();
+        for (ChargingStationDTO stationDTO : chargingStationDTOs) {
+            validateForOnboarding(stationDTO);
+            if (!stationNames.add(stationDTO.getStationName())) {
+                throw new RuntimeException("Duplicate station name in request: " + stationDTO.getStationName());
+            }
+            for (ChargingPointDTO chargingPoint : stationDTO.getChargingPoints()) {
+                typeNames.add(chargingPoint.getTypeName());
+            }
+        }
+
+        // Kiểm tra tên station đã tồn tại
+        List<String> existingNames = chargingStationRepository.findExistingStationNames(stationNames);
+        if (!existingNames.isEmpty()) {
+            throw new RuntimeException("Charging stations already exist with names: " + existingNames);
+        }
+
+        // Resolve connector types trong ConnectorTypeCache (chỉ đọc DB với tên chưa có trong cache)
+        Map<String, ConnectorTypeInfo> connectorTypesByName = new HashMap<>();
+        Map<Long, ConnectorTypeInfo> connectorTypesById = new HashMap<>();
+        for (String typeName : typeNames) {
+            ConnectorTypeInfo connectorType = connectorTypeCache.findByName(typeName);
+            if (connectorType == null) {
+                throw new RuntimeException("Invalid connector type name: " + typeName);
+            }
+            connectorTypesByName.put(typeName, connectorType);
+            connectorTypesById.put(connectorType.getConnectorTypeId(), connectorType);
+        }
+
+        // Thêm trạm theo lô
+        List<ChargingStation> stations = new ArrayList<>(chargingStationDTOs.size());
+        for (ChargingStationDTO stationDTO : chargingStationDTOs) {
+            ChargingStation station = convertToEntity(stationDTO);
+            station.setStationId(null);
+            station.setChargingPointNumber(stationDTO.getChargingPoints().size());
+            stations.add(station);
+        }
+        Map<String, Long> stationIds = stationBulkWriter.insertStations(stations);
+        Map<Long, ChargingStation> stationsById = new HashMap<>();
+        for (ChargingStation station : stations) {
+            station.setStationId(stationIds.get(station.getStationName()));
+            stationsById.put(station.getStationId(), station);
+            stationGeoIndex.put(station);
+        }
+
+        // Thêm trụ sạc theo lô
+        List<NewPoint> newPoints = new ArrayList<>();
+        for (int i = 0; i < stations.size(); i++) {
+            Long stationId = stations.get(i).getStationId();
+            for (ChargingPointDTO chargingPointDTO : chargingStationDTOs.get(i).getChargingPoints()) {
+                newPoints.add(new NewPoint(stationId,
+                        connectorTypesByName.get(chargingPointDTO.getTypeName()).getConnectorTypeId(),
+                        chargingPointDTO.getStatus() != null ? chargingPointDTO.getStatus() : ChargingPointStatus.AVAILABLE));
+            }
+        }
+        List<InsertedPoint> insertedPoints = stationBulkWriter.insertChargingPoints(newPoints);
+
+        Map<Long, List<ChargingPointDTO>> pointsByStation = new HashMap<>();
+        for (InsertedPoint inserted : insertedPoints) {
+            ChargingStation station = stationsById.get(inserted.stationId());
+            ConnectorTypeInfo connectorType = connectorTypesById.get(inserted.connectorTypeId());
+            ChargingPoint chargingPoint = new ChargingPoint();
+            chargingPoint.setChargingPointId(inserted.chargingPointId());
+            chargingPoint.setStation(station);
+            chargingPoint.setConnectorType(connectorTypeRepository.getReferenceById(inserted.connectorTypeId()));
+            chargingPoint.setStatus(inserted.status());
+            availabilityRegistry.update(chargingPoint);
+
+            pointsByStation.computeIfAbsent(inserted.stationId(), id -> new ArrayList<>())
+                    .add(new ChargingPointDTO(inserted.chargingPointId(), connectorType.getTypeName(), inserted.status(),
+                            station.getStationId(), station.getStationName(), connectorType.getConnectorTypeId(),
+                            connectorType.getPowerOutput(), connectorType.getPricePerKwh()));
+        }
+
+        List<ChargingStationDTO> created = new ArrayList<>(stations.size());
+        for (ChargingStation station : stations) {
+            ChargingStationDTO stationDTO = convertToDTO(station);
+            stationDTO.setChargingPointNumber(station.getChargingPointNumber());
+            List<ChargingPointDTO> points = pointsByStation.getOrDefault(station.getStationId(), new ArrayList<>());
+            points.sort(Comparator.comparing(ChargingPointDTO::getChargingPointId));
+            stationDTO.setChargingPoints(points);
+            created.add(stationDTO);
+        }
+
+        long elapsedNanos = System.nanoTime() - startNanos;
+        double stationsPerSecond = elapsedNanos > 0 ? stations.size() * 1_000_000_000.0 / elapsedNanos : 0;
+        return new BulkOnboardingResultDTO(stations.size(), insertedPoints.size(),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), stationsPerSecond, created);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public ChargingStationDTO getChargingStationById(Long stationId) {
@@ -86,10 +219,13 @@ public class ChargingStationServiceImpl implements ChargingStationService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<ChargingStationDTO> getAllChargingStations() {
-        return chargingStationRepository.findAll().stream()
+    public KeysetPageDTO<ChargingStationDTO> getChargingStationsPage(Long after, int limit) {
+        int pageSize = KeysetPageDTO.clampLimit(limit);
+        List<ChargingStationDTO> rows = chargingStationRepository
+                .findByStationIdGreaterThanOrderByStationIdAsc(after != null ? after : 0L, Limit.of(pageSize + 1)).stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
+        return KeysetPageDTO.of(rows, pageSize, ChargingStationDTO::getStationId);
     }
 
     @Override
@@ -107,8 +243,15 @@ public class ChargingStationServiceImpl implements ChargingStationService {
         existingStation.setStationName(chargingStationDTO.getStationName());
         existingStation.setAddress(chargingStationDTO.getAddress());
         existingStation.setStatus(chargingStationDTO.getStatus());
+        if (chargingStationDTO.getLatitude() != null) {
+            existingStation.setLatitude(chargingStationDTO.getLatitude());
+        }
+        if (chargingStationDTO.getLongitude() != null) {
+            existingStation.setLongitude(chargingStationDTO.getLongitude());
+        }
 
         ChargingStation updatedStation = chargingStationRepository.save(existingStation);
+        stationGeoIndex.put(updatedStation);
         return convertToDTO(updatedStation);
     }
 
@@ -120,6 +263,10 @@ public class ChargingStationServiceImpl implements ChargingStationService {
 
 
         chargingStationRepository.deleteById(stationId);
+        stationGeoIndex.remove(stationId);
+        availabilityRegistry.removeStation(stationId);
+        tariffCache.removeStation(stationId);
+        revenueAggregator.removeStation(stationId);
     }
 
     @Override
@@ -153,13 +300,17 @@ public class ChargingStationServiceImpl implements ChargingStationService {
 
         chargingStation.setStatus(status);
         ChargingStation updatedStation = chargingStationRepository.save(chargingStation);
+        stationGeoIndex.put(updatedStation);
         return convertToDTO(updatedStation);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ChargingStationDTO> getStationsWithAvailableChargingPoints() {
-        return chargingStationRepository.findStationsWithAvailableChargingPoints().stream()
+        // Đọc từ registry + geo index trong bộ nhớ thay cho JOIN trên DB
+        return availabilityRegistry.getStationIdsWith(ChargingPointStatus.AVAILABLE).stream()
+                .map(stationGeoIndex::get)
+                .filter(Objects::nonNull)
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
@@ -216,7 +367,89 @@ public class ChargingStationServiceImpl implements ChargingStationService {
         return chargingStationRepository.existsByStationName(stationName);
     }
 
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // Chỉ đọc từ bộ nhớ
+    public List<ChargingStationDTO> getNearbyChargingStations(double latitude, double longitude, Double radiusKm, int limit) {
+        validateNearbyQuery(latitude, longitude, radiusKm, limit);
+
+        // Đọc từ index trong bộ nhớ, không truy vấn DB
+        return stationGeoIndex.findNearby(latitude, longitude, radiusKm, limit).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ChargingStationDTO> getCompatibleChargingStations(String plateNumber, Double latitude, Double longitude,
+                                                                  Double radiusKm, boolean availableOnly, int limit) {
+        if ((latitude == null) != (longitude == null)) {
+            throw new IllegalArgumentException("Latitude and longitude must be provided together");
+        }
+        if (latitude == null && radiusKm != null) {
+            throw new IllegalArgumentException("Radius requires latitude and longitude");
+        }
+        long[] vehicleMask = compatibilityIndex.getVehicleMask(plateNumber);
+        if (vehicleMask == null) {
+            throw new RuntimeException("Vehicle not found with plate number: " + plateNumber);
+        }
+
+        // Phép OR bitmap theo connector của xe, không join bảng
+        ConnectorCompatibilityIndex.StationSet stations = compatibilityIndex.findStations(vehicleMask, availableOnly);
+        if (latitude != null) {
+            validateNearbyQuery(latitude, longitude, radiusKm, limit);
+            return stationGeoIndex.findNearby(latitude, longitude, radiusKm, limit, stations::contains).stream()
+                    .map(this::convertToDTO)
+                    .collect(Collectors.toList());
+        }
+        if (limit <= 0 || limit > MAX_NEARBY_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_NEARBY_LIMIT);
+        }
+        return stations.getStationIds().stream()
+                .sorted()
+                .map(stationGeoIndex::get)
+                .filter(Objects::nonNull)
+                .limit(limit)
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
     // Helper methods
+    private void validateNearbyQuery(double latitude, double longitude, Double radiusKm, int limit) {
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("Invalid coordinates: lat=" + latitude + ", lng=" + longitude);
+        }
+        if (radiusKm != null && radiusKm <= 0) {
+            throw new IllegalArgumentException("Radius must be positive");
+        }
+        if (limit <= 0 || limit > MAX_NEARBY_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_NEARBY_LIMIT);
+        }
+    }
+
+    private void validateForOnboarding(ChargingStationDTO stationDTO) {
+        if (stationDTO.getStationName() == null || stationDTO.getStationName().isBlank()) {
+            throw new RuntimeException("Station name is required for each charging station");
+        }
+        String station = "Charging station '" + stationDTO.getStationName() + "': ";
+        if (stationDTO.getAddress() == null || stationDTO.getAddress().isBlank()) {
+            throw new RuntimeException(station + "address is required");
+        }
+        if (stationDTO.getLatitude() == null || stationDTO.getLongitude() == null) {
+            throw new RuntimeException(station + "latitude and longitude are required");
+        }
+        if (stationDTO.getChargingPoints() == null || stationDTO.getChargingPoints().isEmpty()) {
+            throw new RuntimeException(station + "at least one charging point is required");
+        }
+        if (stationDTO.getChargingPointNumber() != stationDTO.getChargingPoints().size()) {
+            throw new RuntimeException(station + "charging point number must match the number of charging points provided");
+        }
+        for (ChargingPointDTO chargingPoint : stationDTO.getChargingPoints()) {
+            if (chargingPoint.getTypeName() == null || chargingPoint.getTypeName().isBlank()) {
+                throw new RuntimeException(station + "connector type name is required for each charging point");
+            }
+        }
+    }
+
     private ChargingStation convertToEntity(ChargingStationDTO chargingStationDTO) {
         ChargingStation chargingStation = new ChargingStation();
         chargingStation.setStationId(chargingStationDTO.getStationId());
@@ -245,4 +478,22 @@ public class ChargingStationServiceImpl implements ChargingStationService {
 
         return dto;
     }
+
+    private ChargingStationDTO convertToDTO(StationLocation location) {
+        ChargingStationDTO dto = new ChargingStationDTO();
+        dto.setStationId(location.getStationId());
+        dto.setStationName(location.getStationName());
+        dto.setAddress(location.getAddress());
+        dto.setStatus(location.getStatus());
+        dto.setLatitude(location.getLatitude());
+        dto.setLongitude(location.getLongitude());
+        dto.setChargingPointNumber(location.getChargingPointNumber());
+        return dto;
+    }
+
+    private ChargingStationDTO convertToDTO(NearbyStation nearby) {
+        ChargingStationDTO dto = convertToDTO(nearby.getLocation());
+        dto.setDistanceKm(nearby.getDistanceKm());
+        return dto;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,237 @@
+package swp391.code.swp391.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import swp391.code.swp391.utils.ColumnarWriter;
+import swp391.code.swp391.utils.ColumnarWriter.Column;
+import swp391.code.swp391.utils.ColumnarWriter.Type;
+
+import javax.sql.DataSource;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Xuất Session / Transaction / Fee trong một khoảng thời gian ra file dạng cột (ColumnarWriter, nén gzip).
+ * Khoảng id của các dòng cần xuất được chia đôi dần trong ForkJoinPool tới khi mỗi phần không quá
+ * partition-size id; mỗi phần đọc bằng JDBC cursor forward-only (fetch-size dòng mỗi lần) và ghi ra
+ * file riêng, nên bộ nhớ chỉ phụ thuộc số luồng và kích thước row group, không phụ thuộc kích thước bảng.
+ * Không dùng JPA nên không có entity nào được nạp vào persistence context.
+ */
+@Component
+@RequiredArgsConstructor
+public class ColumnarExporter {
+
+    private final DataSource dataSource;
+
+    @Value("${export.threads:4}")
+    private int threads;
+
+    @Value("${export.partition-size:100000}")
+    private long partitionSize;
+
+    @Value("${export.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${export.row-group-size:8192}")
+    private int rowGroupSize;
+
+    private JdbcTemplate jdbcTemplate;
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    public void init() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(fetchSize);
+        pool = new ForkJoinPool(threads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Xuất một bảng, các dòng có thời gian trong [from, to), vào thư mục dir/{bảng}.
+     * @param progress cộng dồn số dòng đã ghi, để theo dõi tiến độ
+     */
+    public TableExport export(ExportTable table, LocalDateTime from, LocalDateTime to, Path dir,
+                              LongAdder progress) throws IOException {
+        Timestamp start = Timestamp.valueOf(from);
+        Timestamp end = Timestamp.valueOf(to);
+        Path tableDir = dir.resolve(table.name().toLowerCase());
+        Files.createDirectories(tableDir);
+
+        Map<String, Object> range = jdbcTemplate.queryForMap(table.rangeSql, start, end);
+        Queue<PartFile> parts = new ConcurrentLinkedQueue<>();
+        Object min = range.get("min_id");
+        Object max = range.get("max_id");
+        if (min != null && max != null) {
+            long minId = ((Number) min).longValue();
+            long maxId = ((Number) max).longValue();
+            pool.invoke(new PartitionTask(table, minId - 1, maxId, start, end, tableDir, parts, progress));
+        }
+
+        List<PartFile> sorted = new ArrayList<>(parts);
+        sorted.sort(Comparator.comparingLong(PartFile::fromId));
+        long rows = sorted.stream().mapToLong(PartFile::rows).sum();
+        return new TableExport(table, table.columns, sorted, rows);
+    }
+
+    // =============== HELPER METHODS ===============
+
+    // Xuất các dòng có id trong (fromId, toId] ra một file, bỏ file nếu không có dòng nào
+    private PartFile exportPartition(ExportTable table, long fromId, long toId, Timestamp start, Timestamp end,
+                                     Path dir, LongAdder progress) {
+        Path file = dir.resolve("part-" + (fromId + 1) + "-" + toId + ".evc.gz");
+        long rows;
+        try (OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(file)), 1 << 16);
+             ColumnarWriter writer = new ColumnarWriter(out, table.name(), table.columns, rowGroupSize)) {
+            long[] before = {0};
+            jdbcTemplate.query(table.selectSql, (RowCallbackHandler) rs -> {
+                try {
+                    writer.append(rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                // Cập nhật tiến độ theo từng row group, tránh tranh chấp trên LongAdder
+                if (writer.getRowCount() - before[0] >= rowGroupSize) {
+                    progress.add(writer.getRowCount() - before[0]);
+                    before[0] = writer.getRowCount();
+                }
+            }, fromId, toId, start, end);
+            rows = writer.getRowCount();
+            progress.add(rows - before[0]);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            if (rows == 0) {
+                Files.deleteIfExists(file);
+                return null;
+            }
+            return new PartFile(dir.getFileName() + "/" + file.getFileName(), fromId + 1, toId, rows, Files.size(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // =============== INNER CLASSES ===============
+
+    private final class PartitionTask extends RecursiveAction {
+        private final ExportTable table;
+        private final long fromId;
+        private final long toId;
+        private final Timestamp start;
+        private final Timestamp end;
+        private final Path dir;
+        private final Queue<PartFile> parts;
+        private final LongAdder progress;
+
+        PartitionTask(ExportTable table, long fromId, long toId, Timestamp start, Timestamp end, Path dir,
+                      Queue<PartFile> parts, LongAdder progress) {
+            this.table = table;
+            this.fromId = fromId;
+            this.toId = toId;
+            this.start = start;
+            this.end = end;
+            this.dir = dir;
+            this.parts = parts;
+            this.progress = progress;
+        }
+
+        @Override
+        protected void compute() {
+            if (toId - fromId <= partitionSize) {
+                PartFile part = exportPartition(table, fromId, toId, start, end, dir, progress);
+                if (part != null) {
+                    parts.add(part);
+                }
+                return;
+            }
+            long mid = fromId + (toId - fromId) / 2;
+            invokeAll(new PartitionTask(table, fromId, mid, start, end, dir, parts, progress),
+                    new PartitionTask(table, mid, toId, start, end, dir, parts, progress));
+        }
+    }
+
+    // Một file đã ghi, chứa các dòng có id trong [fromId, toId]
+    public record PartFile(String file, long fromId, long toId, long rows, long bytes) {
+    }
+
+    public record TableExport(ExportTable table, List<Column> columns, List<PartFile> parts, long rows) {
+    }
+
+    /**
+     * Các bảng xuất được. Session và Fee lọc theo thời điểm bắt đầu session, Transaction theo thời điểm tạo.
+     * Câu select nhận tham số (fromId, toId, start, end) và trả các cột đúng thứ tự columns.
+     */
+    public enum ExportTable {
+        SESSION(
+                "SELECT MIN(s.session_id) AS min_id, MAX(s.session_id) AS max_id FROM Session s " +
+                        "WHERE s.start_time >= ? AND s.start_time < ?",
+                "SELECT s.session_id, s.order_id, o.user_id, o.station_id, o.charging_point_id, s.start_time, " +
+                        "s.end_time, s.power_consumed, s.cost FROM Session s JOIN orders o ON o.order_id = s.order_id " +
+                        "WHERE s.session_id > ? AND s.session_id <= ? AND s.start_time >= ? AND s.start_time < ? " +
+                        "ORDER BY s.session_id",
+                List.of(new Column("session_id", Type.LONG), new Column("order_id", Type.LONG),
+                        new Column("user_id", Type.LONG), new Column("station_id", Type.LONG),
+                        new Column("charging_point_id", Type.LONG), new Column("start_time", Type.TIMESTAMP),
+                        new Column("end_time", Type.TIMESTAMP), new Column("power_consumed", Type.DOUBLE),
+                        new Column("cost", Type.DOUBLE))),
+        TRANSACTION(
+                "SELECT MIN(t.transaction_id) AS min_id, MAX(t.transaction_id) AS max_id FROM [Transaction] t " +
+                        "WHERE t.created_at >= ? AND t.created_at < ?",
+                "SELECT t.transaction_id, t.session_id, t.user_id, t.amount, t.payment_method, t.status, " +
+                        "t.idempotency_key, t.created_at FROM [Transaction] t " +
+                        "WHERE t.transaction_id > ? AND t.transaction_id <= ? AND t.created_at >= ? AND t.created_at < ? " +
+                        "ORDER BY t.transaction_id",
+                List.of(new Column("transaction_id", Type.LONG), new Column("session_id", Type.LONG),
+                        new Column("user_id", Type.LONG), new Column("amount", Type.DOUBLE),
+                        new Column("payment_method", Type.STRING), new Column("status", Type.STRING),
+                        new Column("idempotency_key", Type.STRING), new Column("created_at", Type.TIMESTAMP))),
+        FEE(
+                "SELECT MIN(f.fee_id) AS min_id, MAX(f.fee_id) AS max_id FROM Fee f " +
+                        "JOIN Session s ON s.session_id = f.session_id WHERE s.start_time >= ? AND s.start_time < ?",
+                "SELECT f.fee_id, f.session_id, f.amount, f.type FROM Fee f " +
+                        "JOIN Session s ON s.session_id = f.session_id " +
+                        "WHERE f.fee_id > ? AND f.fee_id <= ? AND s.start_time >= ? AND s.start_time < ? " +
+                        "ORDER BY f.fee_id",
+                List.of(new Column("fee_id", Type.LONG), new Column("session_id", Type.LONG),
+                        new Column("amount", Type.DOUBLE), new Column("type", Type.STRING)));
+
+        private final String rangeSql;
+        private final String selectSql;
+        private final List<Column> columns;
+
+        ExportTable(String rangeSql, String selectSql, List<Column> columns) {
+            this.rangeSql = rangeSql;
+            this.selectSql = selectSql;
+            this.columns = columns;
+        }
+
+        public List<Column> getColumns() {
+            return columns;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package swp391.code.swp391.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import swp391.code.swp391.repository.VehicleRepository;
+import swp391.code.swp391.utils.TransactionUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Chỉ mục tương thích connector giữa xe và trạm, dạng bitset trong bộ nhớ.
+ * Mỗi connector type được gán một bit, mỗi trạm được gán một số thứ tự (ordinal) trong bitmap trạm.
+ * Với mỗi connector type giữ hai bitmap trên tập trạm: trạm có trụ loại này, và trạm có trụ loại này đang AVAILABLE.
+ * "Trạm tương thích với xe (và còn trụ trống)" là OR các bitmap theo các bit connector của xe:
+ * chỉ là phép toán bit trên mảng long, không join bảng.
+ * Bitmap trạm được cập nhật bởi ChargingPointAvailabilityRegistry cùng lúc với bộ đếm trạng thái (sau khi commit);
+ * Hồ sơ xe (bitset connector, tên connector types, dung lượng pin) được nạp khi cần bằng một truy vấn projection
+ * và bị xóa khi xe được cập nhật / xóa; báo giá và tìm trạm theo xe không cần transaction. Mỗi lần xóa tăng generation của
+ * biển số (giữ lại dạng tombstone), bitset nạp từ DB chỉ được lưu nếu generation không đổi trong lúc nạp
+ * nên lần đọc bắt đầu trước khi cập nhật commit không ghi đè bitset cũ vào cache.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConnectorCompatibilityIndex {
+
+    private static final int ALL = 0;
+    private static final int AVAILABLE = 1;
+
+    private final VehicleRepository vehicleRepository;
+
+    // Ghi (đổi trạng thái trụ) lấy write lock, truy vấn lấy read lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // connectorTypeId -> bit; bit đã gán không đổi nên bitset của xe không bị sai khi có connector type mới
+    private final Map<Long, Integer> connectorBits = new ConcurrentHashMap<>();
+    // stationId -> ordinal, ordinal -> stationId
+    private final Map<Long, Integer> stationOrdinals = new ConcurrentHashMap<>();
+    private long[] ordinalStationIds = new long[64];
+    // stationId -> [ALL | AVAILABLE][bit] số trụ của trạm theo connector type
+    private final Map<Long, int[][]> stationCounts = new HashMap<>();
+    // [ALL | AVAILABLE][bit][word] bitmap các trạm có trụ (đang AVAILABLE) của connector type
+    private final long[][][] bitmaps = new long[2][0][];
+    // plateNumber -> hồ sơ xe (profile null: tombstone sau khi xe bị cập nhật / xóa)
+    private final Map<String, CachedVehicle> vehicles = new ConcurrentHashMap<>();
+
+    // Xóa toàn bộ bitmap trạm (registry gọi trước khi nạp lại)
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            stationCounts.clear();
+            bitmaps[ALL] = new long[0][];
+            bitmaps[AVAILABLE] = new long[0][];
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Cộng delta trụ của connector type vào trạm (registry gọi mỗi khi một trụ được thêm / bớt khỏi trạng thái)
+    public void adjust(Long stationId, Long connectorTypeId, boolean available, int delta) {
+        if (stationId == null || connectorTypeId == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            int bit = bitFor(connectorTypeId);
+            int ordinal = ordinalFor(stationId);
+            int[][] counts = stationCounts.computeIfAbsent(stationId, id -> new int[2][0]);
+            update(counts, ALL, bit, ordinal, delta);
+            if (available) {
+                update(counts, AVAILABLE, bit, ordinal, delta);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Bitset connector types của xe (nạp từ DB lần đầu), null nếu xe không tồn tại
+    public long[] getVehicleMask(String plateNumber) {
+        VehicleProfile profile = getVehicleProfile(plateNumber);
+        return profile != null ? profile.mask() : null;
+    }
+
+    // Hồ sơ xe (nạp từ DB lần đầu), null nếu xe không tồn tại
+    public VehicleProfile getVehicleProfile(String plateNumber) {
+        CachedVehicle cached = vehicles.get(plateNumber);
+        if (cached != null && cached.profile() != null) {
+            return cached.profile();
+        }
+        long generation = cached != null ? cached.generation() : 0;
+        List<Object[]> rows = vehicleRepository.findProfileRowsByPlateNumber(plateNumber);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        long[] mask = new long[0];
+        Set<String> typeNames = new HashSet<>();
+        for (Object[] row : rows) {
+            if (row[1] == null) {
+                continue;
+            }
+            int bit = bitFor((Long) row[1]);
+            if ((bit >>> 6) >= mask.length) {
+                mask = Arrays.copyOf(mask, (bit >>> 6) + 1);
+            }
+            mask[bit >>> 6] |= 1L << bit;
+            typeNames.add(normalizeTypeName((String) row[2]));
+        }
+        VehicleProfile profile = new VehicleProfile(mask, Set.copyOf(typeNames), ((Number) rows.get(0)[0]).doubleValue());
+        CachedVehicle loaded = new CachedVehicle(generation, profile);
+        // Chỉ lưu nếu xe không bị cập nhật trong lúc nạp (compute chạy nguyên tử với evictVehicle trên cùng key)
+        vehicles.compute(plateNumber, (plate, current) ->
+                (current != null ? current.generation() : 0) == generation ? loaded : current);
+        return profile;
+    }
+
+    // Xóa bitset của xe (sau khi transaction commit), tăng generation để bỏ các lần nạp đang chạy
+    public void evictVehicle(String plateNumber) {
+        TransactionUtils.afterCommit(() -> vehicles.compute(plateNumber, (plate, current) ->
+                new CachedVehicle((current != null ? current.generation() : 0) + 1, null)));
+    }
+
+    // Tập trạm có trụ thuộc một trong các connector type của vehicleMask (availableOnly: trụ đang AVAILABLE)
+    public StationSet findStations(long[] vehicleMask, boolean availableOnly) {
+        lock.readLock().lock();
+        try {
+            long[][] perConnector = bitmaps[availableOnly ? AVAILABLE : ALL];
+            long[] result = new long[(stationOrdinals.size() + 63) >>> 6];
+            for (int word = 0; word < vehicleMask.length; word++) {
+                long bits = vehicleMask[word];
+                while (bits != 0) {
+                    int bit = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    if (bit < perConnector.length) {
+                        long[] stations = perConnector[bit];
+                        for (int i = 0; i < stations.length && i < result.length; i++) {
+                            result[i] |= stations[i];
+                        }
+                    }
+                }
+            }
+            return new StationSet(result, ordinalStationIds, stationOrdinals);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Tên connector type dạng so sánh được (bỏ khoảng trắng, chữ hoa)
+    public static String normalizeTypeName(String typeName) {
+        return typeName != null ? typeName.trim().toUpperCase(Locale.ROOT) : "";
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private int bitFor(Long connectorTypeId) {
+        Integer bit = connectorBits.get(connectorTypeId);
+        if (bit != null) {
+            return bit;
+        }
+        synchronized (connectorBits) {
+            return connectorBits.computeIfAbsent(connectorTypeId, id -> connectorBits.size());
+        }
+    }
+
+    // Gọi khi đang giữ write lock
+    private int ordinalFor(Long stationId) {
+        Integer ordinal = stationOrdinals.get(stationId);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        int next = stationOrdinals.size();
+        if (next >= ordinalStationIds.length) {
+            // Mảng mới: các StationSet đã trả ra vẫn giữ mảng cũ, vẫn đúng với các ordinal cũ
+            ordinalStationIds = Arrays.copyOf(ordinalStationIds, ordinalStationIds.length * 2);
+        }
+        ordinalStationIds[next] = stationId;
+        stationOrdinals.put(stationId, next);
+        return next;
+    }
+
+    private void update(int[][] counts, int kind, int bit, int ordinal, int delta) {
+        if (bit >= counts[kind].length) {
+            counts[kind] = Arrays.copyOf(counts[kind], bit + 1);
+        }
+        int count = counts[kind][bit] += delta;
+
+        long[][] perConnector = bitmaps[kind];
+        if (bit >= perConnector.length) {
+            perConnector = Arrays.copyOf(perConnector, bit + 1);
+            for (int i = 0; i < perConnector.length; i++) {
+                if (perConnector[i] == null) {
+                    perConnector[i] = new long[0];
+                }
+            }
+            bitmaps[kind] = perConnector;
+        }
+        int word = ordinal >>> 6;
+        long[] stations = perConnector[bit];
+        if (word >= stations.length) {
+            stations = Arrays.copyOf(stations, Math.max(word + 1, stations.length * 2));
+            perConnector[bit] = stations;
+        }
+        if (count > 0) {
+            stations[word] |= 1L << ordinal;
+        } else {
+            stations[word] &= ~(1L << ordinal);
+        }
+    }
+
+    // =============== INNER CLASSES ===============
+
+    private record CachedVehicle(long generation, VehicleProfile profile) {
+    }
+
+    /**
+     * Dữ liệu của xe dùng cho báo giá và tìm trạm: bitset connector types, tên connector types (đã chuẩn hóa)
+     * và dung lượng pin (kWh)
+     */
+    public record VehicleProfile(long[] mask, Set<String> typeNames, double capacity) {
+
+        public boolean supports(String typeName) {
+            return typeNames.contains(normalizeTypeName(typeName));
+        }
+    }
+
+    /**
+     * Bản chụp một tập trạm dạng bitmap theo ordinal
+     */
+    public static final class StationSet {
+        private final long[] bitmap;
+        private final long[] ordinalStationIds;
+        private final Map<Long, Integer> stationOrdinals;
+
+        private StationSet(long[] bitmap, long[] ordinalStationIds, Map<Long, Integer> stationOrdinals) {
+            this.bitmap = bitmap;
+            this.ordinalStationIds = ordinalStationIds;
+            this.stationOrdinals = stationOrdinals;
+        }
+
+        public boolean contains(Long stationId) {
+            Integer ordinal = stationOrdinals.get(stationId);
+            if (ordinal == null || (ordinal >>> 6) >= bitmap.length) {
+                return false;
+            }
+            return (bitmap[ordinal >>> 6] & (1L << ordinal)) != 0;
+        }
+
+        public int size() {
+            int size = 0;
+            for (long bits : bitmap) {
+                size += Long.bitCount(bits);
+            }
+            return size;
+        }
+
+        // Các stationId trong tập
+        public List<Long> getStationIds() {
+            List<Long> stationIds = new ArrayList<>(size());
+            for (int word = 0; word < bitmap.length; word++) {
+                long bits = bitmap[word];
+                while (bits != 0) {
+                    stationIds.add(ordinalStationIds[(word << 6) + Long.numberOfTrailingZeros(bits)]);
+                    bits &= bits - 1;
+                }
+            }
+            return stationIds;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package swp391.code.swp391.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import swp391.code.swp391.dto.CacheStatsDTO;
+import swp391.code.swp391.entity.ConnectorType;
+import swp391.code.swp391.repository.ConnectorTypeRepository;
+import swp391.code.swp391.utils.TransactionUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Dữ liệu tham chiếu của ConnectorType (tên, công suất, giá) giữ trong bộ nhớ dưới dạng object bất biến,
+ * để báo giá, các API đọc nhiều và các luồng ghi (tra connector type theo tên) không phải truy vấn DB.
+ * Được cập nhật / xóa sau khi transaction create/update/delete connector type commit; đếm hit/miss để theo dõi.
+ * Rebuild nạp vào bảng mới rồi thay một lần, người đọc không bao giờ thấy cache rỗng giữa chừng.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConnectorTypeCache {
+
+    private final ConnectorTypeRepository connectorTypeRepository;
+
+    // Bảng hiện tại, được thay cả object khi rebuild
+    private volatile Entries entries = new Entries();
+
+    // Ghi lấy read lock, rebuild lấy write lock khi thay bằng bảng vừa nạp
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    // Chỉ một lần rebuild tại một thời điểm
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    // Cập nhật commit trong lúc đang quét DB, null khi không rebuild
+    private volatile ConcurrentLinkedQueue<LiveUpdate> liveUpdates;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Nạp toàn bộ connector types (khi ứng dụng khởi động hoặc admin làm mới cache).
+     * Quét DB vào bảng mới, không khóa người đọc; các cập nhật commit trong lúc quét được áp dụng lại lên bảng mới
+     * trước khi thay.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuildLock.lock();
+        liveUpdates = new ConcurrentLinkedQueue<>();
+        try {
+            Entries rebuilt = new Entries();
+            for (ConnectorType connectorType : connectorTypeRepository.findAll()) {
+                rebuilt.apply(ConnectorTypeInfo.from(connectorType));
+            }
+            swapLock.writeLock().lock();
+            try {
+                for (LiveUpdate update : liveUpdates) {
+                    update.applyTo(rebuilt);
+                }
+                entries = rebuilt;
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+        } finally {
+            liveUpdates = null;
+            rebuildLock.unlock();
+        }
+    }
+
+    public void put(ConnectorType connectorType) {
+        ConnectorTypeInfo info = ConnectorTypeInfo.from(connectorType);
+        TransactionUtils.afterCommit(() -> applyLive(new LiveUpdate(info.getConnectorTypeId(), info)));
+    }
+
+    public void remove(Long connectorTypeId) {
+        TransactionUtils.afterCommit(() -> applyLive(new LiveUpdate(connectorTypeId, null)));
+    }
+
+    public ConnectorTypeInfo get(Long connectorTypeId) {
+        return count(connectorTypeId != null ? entries.byId.get(connectorTypeId) : null);
+    }
+
+    // Tìm theo tên chính xác, null nếu không có trong cache
+    public ConnectorTypeInfo getByName(String typeName) {
+        return count(typeName != null ? entries.byName.get(typeName) : null);
+    }
+
+    // Tìm theo tên chính xác, nếu cache chưa có thì đọc DB (và nạp vào cache sau khi commit); null nếu không tồn tại
+    public ConnectorTypeInfo findByName(String typeName) {
+        ConnectorTypeInfo info = getByName(typeName);
+        if (info != null || typeName == null) {
+            return info;
+        }
+        return connectorTypeRepository.findByTypeName(typeName)
+                .map(connectorType -> {
+                    put(connectorType);
+                    return ConnectorTypeInfo.from(connectorType);
+                })
+                .orElse(null);
+    }
+
+    public CacheStatsDTO getStats() {
+        return CacheStatsDTO.of("connector-types", entries.byId.size(), hits.sum(), misses.sum());
+    }
+
+    public int size() {
+        return entries.byId.size();
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private ConnectorTypeInfo count(ConnectorTypeInfo info) {
+        (info != null ? hits : misses).increment();
+        return info;
+    }
+
+    private void applyLive(LiveUpdate update) {
+        swapLock.readLock().lock();
+        try {
+            // Các lần ghi tuần tự với nhau để hai map luôn khớp và thứ tự trong hàng đợi đúng thứ tự áp dụng
+            synchronized (this) {
+                update.applyTo(entries);
+                ConcurrentLinkedQueue<LiveUpdate> pending = liveUpdates;
+                if (pending != null) {
+                    pending.add(update);
+                }
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    // =============== INNER CLASSES ===============
+
+    // Connector types theo id và theo tên; chỉ một luồng ghi tại một thời điểm, người đọc không cần khóa
+    private static final class Entries {
+        // connectorTypeId -> thông tin connector type
+        private final Map<Long, ConnectorTypeInfo> byId = new ConcurrentHashMap<>();
+        // typeName -> thông tin connector type (tên connector type là duy nhất)
+        private final Map<String, ConnectorTypeInfo> byName = new ConcurrentHashMap<>();
+
+        void apply(ConnectorTypeInfo info) {
+            ConnectorTypeInfo previous = byId.put(info.getConnectorTypeId(), info);
+            // Đổi tên: bỏ tên cũ khỏi index theo tên
+            if (previous != null && !previous.getTypeName().equals(info.getTypeName())) {
+                byName.remove(previous.getTypeName(), previous);
+            }
+            byName.put(info.getTypeName(), info);
+        }
+
+        void remove(Long connectorTypeId) {
+            ConnectorTypeInfo previous = byId.remove(connectorTypeId);
+            if (previous != null) {
+                byName.remove(previous.getTypeName(), previous);
+            }
+        }
+    }
+
+    // Thêm/cập nhật (info khác null) hoặc xóa một connector type
+    private record LiveUpdate(Long connectorTypeId, ConnectorTypeInfo info) {
+        void applyTo(Entries entries) {
+            if (info != null) {
+                entries.apply(info);
+            } else {
+                entries.remove(connectorTypeId);
+            }
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class ConnectorTypeInfo {
+        private final Long connectorTypeId;
+        private final String typeName;
+        private final double powerOutput;
+        private final double pricePerKwh;
+
+        static ConnectorTypeInfo from(ConnectorType connectorType) {
+            return new ConnectorTypeInfo(connectorType.getConnectorTypeId(), connectorType.getTypeName(),
+                    connectorType.getPowerOutput() != null ? connectorType.getPowerOutput() : 0,
+                    connectorType.getPricePerKwh() != null ? connectorType.getPricePerKwh() : 0);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package swp391.code.swp391.service;
 
 import swp391.code.swp391.dto.ConnectorTypeDTO;
+import swp391.code.swp391.dto.KeysetPageDTO;
 
 import java.util.List;
 
@@ -12,8 +13,8 @@ public interface ConnectorTypeService {
     // Lấy connector type theo ID
     ConnectorTypeDTO getConnectorTypeById(Long connectorTypeId);
 
-    // Lấy tất cả connector types
-    List<ConnectorTypeDTO> getAllConnectorTypes();
+    // Lấy một trang connector types theo keyset (khóa lớn hơn after, tối đa limit phần tử)
+    KeysetPageDTO<ConnectorTypeDTO> getConnectorTypesPage(Long after, int limit);
 
     // Lấy connector types theo charging point ID
     List<ConnectorTypeDTO> getConnectorTypesByChargingPointId(Long chargingPointId);
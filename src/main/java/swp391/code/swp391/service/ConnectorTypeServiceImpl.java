@@ -1,16 +1,17 @@
 package swp391.code.swp391.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import swp391.code.swp391.dto.ConnectorTypeDTO;
+import swp391.code.swp391.dto.KeysetPageDTO;
 import swp391.code.swp391.entity.ChargingPoint;
 import swp391.code.swp391.entity.ConnectorType;
 import swp391.code.swp391.repository.ChargingPointRepository;
 import swp391.code.swp391.repository.ConnectorTypeRepository;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -19,6 +20,7 @@ public class ConnectorTypeServiceImpl implements ConnectorTypeService {
 
     private final ConnectorTypeRepository connectorTypeRepository;
     private final ChargingPointRepository chargingPointRepository;
+    private final ConnectorTypeCache connectorTypeCache;
 
     @Override
     public ConnectorTypeDTO createConnectorType(ConnectorTypeDTO connectorTypeDTO) {
@@ -29,31 +31,30 @@ public class ConnectorTypeServiceImpl implements ConnectorTypeService {
 
         ConnectorType connectorType = convertToEntity(connectorTypeDTO);
         ConnectorType savedConnectorType = connectorTypeRepository.save(connectorType);
+        connectorTypeCache.put(savedConnectorType);
         return convertToDTO(savedConnectorType);
     }
 
     @Override
     @Transactional(readOnly = true)
     public ConnectorTypeDTO getConnectorTypeById(Long connectorTypeId) {
-        ConnectorType connectorType = connectorTypeRepository.findById(connectorTypeId)
+        return connectorTypeRepository.findDTOById(connectorTypeId)
                 .orElseThrow(() -> new RuntimeException("Connector type not found with id: " + connectorTypeId));
-        return convertToDTO(connectorType);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<ConnectorTypeDTO> getAllConnectorTypes() {
-        return connectorTypeRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public KeysetPageDTO<ConnectorTypeDTO> getConnectorTypesPage(Long after, int limit) {
+        int pageSize = KeysetPageDTO.clampLimit(limit);
+        List<ConnectorTypeDTO> rows = connectorTypeRepository
+                .findDTOsAfter(after != null ? after : 0L, Limit.of(pageSize + 1));
+        return KeysetPageDTO.of(rows, pageSize, ConnectorTypeDTO::getConnectorTypeId);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ConnectorTypeDTO> getConnectorTypesByChargingPointId(Long chargingPointId) {
-        return connectorTypeRepository.findByChargingPointChargingPointId(chargingPointId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return connectorTypeRepository.findDTOsByChargingPointId(chargingPointId);
     }
 
     @Override
@@ -82,6 +83,7 @@ public class ConnectorTypeServiceImpl implements ConnectorTypeService {
         }
 
         ConnectorType updatedConnectorType = connectorTypeRepository.save(existingConnectorType);
+        connectorTypeCache.put(updatedConnectorType);
         return convertToDTO(updatedConnectorType);
     }
 
@@ -90,37 +92,35 @@ public class ConnectorTypeServiceImpl implements ConnectorTypeService {
         ConnectorType connectorType = connectorTypeRepository.findById(connectorTypeId)
                 .orElseThrow(() -> new RuntimeException("Connector type not found with id: " + connectorTypeId));
 
-        // Kiểm tra có vehicles đang sử dụng connector type này không
-        if (connectorType.getVehicles() != null && !connectorType.getVehicles().isEmpty()) {
+        // Kiểm tra có vehicles đang sử dụng connector type này không (đếm bằng query, không nạp list vehicles)
+        Integer vehicleCount = connectorTypeRepository.findDTOById(connectorTypeId)
+                .map(ConnectorTypeDTO::getVehicleCount)
+                .orElse(0);
+        if (vehicleCount != null && vehicleCount > 0) {
             throw new RuntimeException("Cannot delete connector type. It is being used by " +
-                    connectorType.getVehicles().size() + " vehicle(s)");
+                    vehicleCount + " vehicle(s)");
         }
 
         connectorTypeRepository.deleteById(connectorTypeId);
+        connectorTypeCache.remove(connectorTypeId);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ConnectorTypeDTO> searchConnectorTypesByName(String typeName) {
-        return connectorTypeRepository.findByTypeNameContainingIgnoreCase(typeName).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return connectorTypeRepository.findDTOsByTypeNameContaining(typeName);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ConnectorTypeDTO> getConnectorTypesByVehiclePlateNumber(String plateNumber) {
-        return connectorTypeRepository.findByVehiclePlateNumber(plateNumber).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return connectorTypeRepository.findByVehiclePlateNumber(plateNumber);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ConnectorTypeDTO> getUnassignedConnectorTypes() {
-        return connectorTypeRepository.findUnassignedConnectorTypes().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return connectorTypeRepository.findUnassignedConnectorTypes();
     }
 
     @Override
@@ -154,9 +154,10 @@ public class ConnectorTypeServiceImpl implements ConnectorTypeService {
         dto.setPowerOutput(connectorType.getPowerOutput());
         dto.setPricePerKwh(connectorType.getPricePerKwh());
 
-        // Cho response: set full objects
-        dto.setChargingPoint(connectorType.getChargingPoint());
-        dto.setVehicles(connectorType.getVehicles());
+        // Cho response: chỉ trả ID charging point, không trả entity
+        if (connectorType.getChargingPoint() != null) {
+            dto.setChargingPointId(connectorType.getChargingPoint().getChargingPointId());
+        }
 
         return dto;
     }
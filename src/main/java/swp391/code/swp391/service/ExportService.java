@@ -0,0 +1,19 @@
+package swp391.code.swp391.service;
+
+import swp391.code.swp391.dto.ExportJobDTO;
+import swp391.code.swp391.service.ColumnarExporter.ExportTable;
+
+import java.time.YearMonth;
+import java.util.List;
+
+public interface ExportService {
+
+    // Tạo job xuất dữ liệu của một tháng, chạy nền
+    ExportJobDTO startExport(YearMonth month, List<ExportTable> tables);
+
+    // Lấy trạng thái job
+    ExportJobDTO getExportJob(String jobId);
+
+    // Lấy các job gần đây, mới nhất trước
+    List<ExportJobDTO> getExportJobs();
+}
@@ -0,0 +1,186 @@
+package swp391.code.swp391.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import swp391.code.swp391.dto.ExportJobDTO;
+import swp391.code.swp391.service.ColumnarExporter.ExportTable;
+import swp391.code.swp391.service.ColumnarExporter.TableExport;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Quản lý job xuất dữ liệu: mỗi lần chỉ chạy một job (các job sau xếp hàng), mỗi job ghi vào
+ * {export.dir}/{yyyy-MM}-{jobId}/ gồm thư mục của từng bảng và manifest.json mô tả cột, file và số dòng.
+ * Trạng thái job chỉ giữ trong bộ nhớ, tối đa MAX_JOBS job gần nhất.
+ */
+@Service
+@RequiredArgsConstructor
+public class ExportServiceImpl implements ExportService {
+
+    private static final int MAX_JOBS = 100;
+    private static final int MAX_QUEUED_JOBS = 10;
+
+    private final ColumnarExporter columnarExporter;
+    private final ObjectMapper objectMapper;
+
+    @Value("${export.dir:./data/exports}")
+    private String exportDir;
+
+    private final Map<String, ExportJob> jobs = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(MAX_QUEUED_JOBS), new CustomizableThreadFactory("export-job-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public ExportJobDTO startExport(YearMonth month, List<ExportTable> tables) {
+        List<ExportTable> selected = tables == null || tables.isEmpty() ? List.of(ExportTable.values())
+                : tables.stream().distinct().toList();
+        String jobId = UUID.randomUUID().toString();
+        ExportJob job = new ExportJob(jobId, month, selected,
+                Paths.get(exportDir).resolve(month + "-" + jobId), LocalDateTime.now());
+        evictOldJobs();
+        jobs.put(jobId, job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(jobId);
+            throw new RuntimeException("Too many export jobs queued, please retry later");
+        }
+        return convertToDTO(job);
+    }
+
+    @Override
+    public ExportJobDTO getExportJob(String jobId) {
+        ExportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new RuntimeException("Export job not found with id: " + jobId);
+        }
+        return convertToDTO(job);
+    }
+
+    @Override
+    public List<ExportJobDTO> getExportJobs() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing((ExportJob job) -> job.createdAt).reversed())
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    // Helper methods
+    private void run(ExportJob job) {
+        job.status = "RUNNING";
+        try {
+            Files.createDirectories(job.directory);
+            LocalDateTime from = job.month.atDay(1).atStartOfDay();
+            LocalDateTime to = job.month.plusMonths(1).atDay(1).atStartOfDay();
+
+            List<Map<String, Object>> manifestTables = new ArrayList<>();
+            for (ExportTable table : job.tables) {
+                TableExport export = columnarExporter.export(table, from, to, job.directory, job.progress);
+                job.rowsByTable.put(table.name(), export.rows());
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("table", table.name());
+                entry.put("rows", export.rows());
+                entry.put("columns", export.columns());
+                entry.put("parts", export.parts());
+                manifestTables.add(entry);
+            }
+
+            Map<String, Object> manifest = new LinkedHashMap<>();
+            manifest.put("jobId", job.jobId);
+            manifest.put("month", job.month.toString());
+            manifest.put("from", from.toString());
+            manifest.put("to", to.toString());
+            manifest.put("format", "EVCOL v1, gzip");
+            manifest.put("createdAt", LocalDateTime.now().toString());
+            manifest.put("tables", manifestTables);
+            objectMapper.writerWithDefaultPrettyPrinter()
+                    .writeValue(job.directory.resolve("manifest.json").toFile(), manifest);
+            job.status = "COMPLETED";
+        } catch (Exception e) {
+            job.error = e.getMessage();
+            job.status = "FAILED";
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+        }
+    }
+
+    private void evictOldJobs() {
+        if (jobs.size() < MAX_JOBS) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(job -> job.finishedAt != null)
+                .min(Comparator.comparing((ExportJob job) -> job.createdAt))
+                .ifPresent(job -> jobs.remove(job.jobId));
+    }
+
+    private ExportJobDTO convertToDTO(ExportJob job) {
+        return new ExportJobDTO(
+                job.jobId,
+                job.month.toString(),
+                job.tables.stream().map(Enum::name).toList(),
+                job.status,
+                job.progress.sum(),
+                job.finishedAt != null ? new LinkedHashMap<>(job.rowsByTable) : null,
+                job.directory.toString(),
+                job.error,
+                job.createdAt,
+                job.finishedAt
+        );
+    }
+
+    private static final class ExportJob {
+        private final String jobId;
+        private final YearMonth month;
+        private final List<ExportTable> tables;
+        private final Path directory;
+        private final LocalDateTime createdAt;
+        private final LongAdder progress = new LongAdder();
+        // Chỉ thread của job ghi; đọc sau khi finishedAt (volatile) được gán
+        private final Map<String, Long> rowsByTable = new LinkedHashMap<>();
+        private volatile String status = "QUEUED";
+        private volatile String error;
+        private volatile LocalDateTime finishedAt;
+
+        ExportJob(String jobId, YearMonth month, List<ExportTable> tables, Path directory, LocalDateTime createdAt) {
+            this.jobId = jobId;
+            this.month = month;
+            this.tables = tables;
+            this.directory = directory;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package swp391.code.swp391.service;
+
+import org.springframework.web.multipart.MultipartFile;
+import swp391.code.swp391.dto.ImportJobDTO;
+import swp391.code.swp391.service.StationImporter.ImportFormat;
+
+import java.nio.file.Path;
+import java.util.List;
+
+public interface ImportService {
+
+    // Lưu file upload và tạo job nhập trạm sạc, chạy nền (format null thì lấy theo đuôi file)
+    ImportJobDTO startImport(MultipartFile file, ImportFormat format);
+
+    // Lấy trạng thái job
+    ImportJobDTO getImportJob(String jobId);
+
+    // Lấy các job gần đây, mới nhất trước
+    List<ImportJobDTO> getImportJobs();
+
+    // Lấy file báo cáo các dòng bị loại của job
+    Path getRejectionReport(String jobId);
+}
@@ -0,0 +1,212 @@
+package swp391.code.swp391.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import swp391.code.swp391.dto.ImportJobDTO;
+import swp391.code.swp391.service.StationImporter.ImportFormat;
+import swp391.code.swp391.service.StationImporter.ImportProgress;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Quản lý job nhập trạm sạc: file upload được lưu vào {import.dir}/{jobId}/ rồi xử lý nền, mỗi lần một job
+ * (các job sau xếp hàng). File nguồn bị xóa khi job kết thúc, chỉ giữ lại rejections.csv.
+ * Trạng thái job chỉ giữ trong bộ nhớ, tối đa MAX_JOBS job gần nhất.
+ */
+@Service
+@RequiredArgsConstructor
+public class ImportServiceImpl implements ImportService {
+
+    private static final int MAX_JOBS = 100;
+    private static final int MAX_QUEUED_JOBS = 10;
+    private static final String REJECTION_FILE = "rejections.csv";
+
+    private final StationImporter stationImporter;
+
+    @Value("${import.dir:./data/imports}")
+    private String importDir;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(MAX_QUEUED_JOBS), new CustomizableThreadFactory("import-job-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public ImportJobDTO startImport(MultipartFile file, ImportFormat format) {
+        if (file == null || file.isEmpty()) {
+            throw new RuntimeException("Import file is required");
+        }
+        ImportFormat resolved = format != null ? format : detectFormat(file.getOriginalFilename());
+        String jobId = UUID.randomUUID().toString();
+        Path directory = Paths.get(importDir).toAbsolutePath().resolve(jobId);
+        Path source = directory.resolve("source." + resolved.name().toLowerCase(Locale.ROOT));
+        try {
+            Files.createDirectories(directory);
+            file.transferTo(source);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to store import file: " + e.getMessage());
+        }
+
+        ImportJob job = new ImportJob(jobId, file.getOriginalFilename(), resolved, directory, source, LocalDateTime.now());
+        evictOldJobs();
+        jobs.put(jobId, job);
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(jobId);
+            deleteQuietly(source);
+            throw new RuntimeException("Too many import jobs queued, please retry later");
+        }
+        return convertToDTO(job);
+    }
+
+    @Override
+    public ImportJobDTO getImportJob(String jobId) {
+        return convertToDTO(findJob(jobId));
+    }
+
+    @Override
+    public List<ImportJobDTO> getImportJobs() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing((ImportJob job) -> job.createdAt).reversed())
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Path getRejectionReport(String jobId) {
+        Path report = findJob(jobId).directory.resolve(REJECTION_FILE);
+        if (!Files.exists(report)) {
+            throw new RuntimeException("Rejection report is not available yet for job: " + jobId);
+        }
+        return report;
+    }
+
+    // Helper methods
+    private void run(ImportJob job) {
+        job.status = "RUNNING";
+        try {
+            stationImporter.importFile(job.source, job.format, job.directory.resolve(REJECTION_FILE), job.progress);
+            job.status = "COMPLETED";
+        } catch (Exception e) {
+            job.error = e.getMessage();
+            job.status = "FAILED";
+        } finally {
+            deleteQuietly(job.source);
+            job.finishedAt = LocalDateTime.now();
+        }
+    }
+
+    private ImportJob findJob(String jobId) {
+        ImportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new RuntimeException("Import job not found with id: " + jobId);
+        }
+        return job;
+    }
+
+    private ImportFormat detectFormat(String fileName) {
+        String name = fileName != null ? fileName.toLowerCase(Locale.ROOT) : "";
+        if (name.endsWith(".csv")) {
+            return ImportFormat.CSV;
+        }
+        if (name.endsWith(".json")) {
+            return ImportFormat.JSON;
+        }
+        throw new RuntimeException("Unsupported file format, expected .csv or .json");
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // File nguồn sẽ được dọn thủ công nếu không xóa được
+        }
+    }
+
+    private void evictOldJobs() {
+        if (jobs.size() < MAX_JOBS) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(job -> job.finishedAt != null)
+                .min(Comparator.comparing((ImportJob job) -> job.createdAt))
+                .ifPresent(job -> jobs.remove(job.jobId));
+    }
+
+    private ImportJobDTO convertToDTO(ImportJob job) {
+        ImportProgress progress = job.progress;
+        long totalBytes = progress.getTotalBytes();
+        long bytesRead = progress.getBytesRead();
+        return new ImportJobDTO(
+                job.jobId,
+                job.fileName,
+                job.format.name(),
+                job.status,
+                bytesRead,
+                totalBytes,
+                totalBytes > 0 ? Math.min(100.0, bytesRead * 100.0 / totalBytes) : null,
+                progress.getRowsRead(),
+                progress.getStationsImported(),
+                progress.getChargingPointsImported(),
+                progress.getRejected(),
+                progress.getRetries(),
+                job.error,
+                job.createdAt,
+                job.finishedAt
+        );
+    }
+
+    private static final class ImportJob {
+        private final String jobId;
+        private final String fileName;
+        private final ImportFormat format;
+        private final Path directory;
+        private final Path source;
+        private final LocalDateTime createdAt;
+        private final ImportProgress progress = new ImportProgress();
+        private volatile String status = "QUEUED";
+        private volatile String error;
+        private volatile LocalDateTime finishedAt;
+
+        ImportJob(String jobId, String fileName, ImportFormat format, Path directory, Path source,
+                  LocalDateTime createdAt) {
+            this.jobId = jobId;
+            this.fileName = fileName;
+            this.format = format;
+            this.directory = directory;
+            this.source = source;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package swp391.code.swp391.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * VerificationCodeStore trong bộ nhớ, hết hạn bằng hashed timing wheel.
+ * Thời gian chia thành tick TICK_MS; mã hết hạn ở tick t nằm trong ô t & (WHEEL_SIZE - 1).
+ * Mỗi tick chỉ duyệt một ô và xóa các mã đã tới hạn (mã còn vòng sau thì giữ lại),
+ * nên thêm / xóa / hết hạn đều O(1) và không còn mã bị bỏ quên trong map.
+ * Kiểm tra hết hạn khi đọc chỉ so sánh số tick, không tạo LocalDateTime.
+ */
+@Component
+@ConditionalOnProperty(name = "verification.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryVerificationCodeStore implements VerificationCodeStore {
+
+    private static final long TICK_MS = 1000;
+    // Số ô của wheel (lũy thừa của 2), một vòng khoảng 17 phút
+    private static final int WHEEL_SIZE = 1024;
+
+    @Value("${verification.max-codes-per-user:3}")
+    private int maxCodesPerUser;
+
+    private final long startMillis = System.currentTimeMillis();
+
+    // key -> mã đang chờ
+    private final Map<VerificationKey, Entry> entries = new ConcurrentHashMap<>();
+    // userId -> các key của user theo thứ tự tạo (cũ nhất ở đầu)
+    private final Map<Long, ArrayDeque<VerificationKey>> userKeys = new ConcurrentHashMap<>();
+    @SuppressWarnings("unchecked")
+    private final Set<Entry>[] wheel = new Set[WHEEL_SIZE];
+    // Tick cuối cùng đã xử lý hết hạn
+    private long processedTick = -1;
+
+    public InMemoryVerificationCodeStore() {
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = ConcurrentHashMap.newKeySet();
+        }
+    }
+
+    @Override
+    public void put(VerificationKey key, String code, Duration ttl) {
+        Entry entry = new Entry(key, code, currentTick() + Math.max(1, (ttl.toMillis() + TICK_MS - 1) / TICK_MS));
+        userKeys.compute(key.userId(), (userId, keys) -> {
+            if (keys == null) {
+                keys = new ArrayDeque<>();
+            }
+            keys.remove(key);
+            while (keys.size() >= maxCodesPerUser) {
+                unschedule(entries.remove(keys.pollFirst()));
+            }
+            keys.addLast(key);
+            unschedule(entries.put(key, entry));
+            wheel[slot(entry.deadlineTick)].add(entry);
+            return keys;
+        });
+    }
+
+    @Override
+    public String get(VerificationKey key) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.deadlineTick <= currentTick()) {
+            return null;
+        }
+        return entry.code;
+    }
+
+    @Override
+    public void remove(VerificationKey key) {
+        userKeys.computeIfPresent(key.userId(), (userId, keys) -> {
+            keys.remove(key);
+            unschedule(entries.remove(key));
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    // Quay wheel tới tick hiện tại, xóa các mã đã tới hạn
+    @Scheduled(fixedRate = TICK_MS)
+    public synchronized void advance() {
+        long now = currentTick();
+        // Bị trễ quá một vòng thì chỉ cần duyệt mỗi ô một lần
+        long from = Math.max(processedTick + 1, now - WHEEL_SIZE + 1);
+        for (long tick = from; tick <= now; tick++) {
+            for (Entry entry : wheel[slot(tick)]) {
+                if (entry.deadlineTick <= now) {
+                    expire(entry);
+                }
+            }
+        }
+        processedTick = now;
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private void expire(Entry entry) {
+        VerificationKey key = entry.key;
+        userKeys.computeIfPresent(key.userId(), (userId, keys) -> {
+            // Chỉ xóa nếu key chưa được thay bằng mã mới
+            if (entries.remove(key, entry)) {
+                keys.remove(key);
+            }
+            return keys.isEmpty() ? null : keys;
+        });
+        wheel[slot(entry.deadlineTick)].remove(entry);
+    }
+
+    private void unschedule(Entry entry) {
+        if (entry != null) {
+            wheel[slot(entry.deadlineTick)].remove(entry);
+        }
+    }
+
+    private long currentTick() {
+        return (System.currentTimeMillis() - startMillis) / TICK_MS;
+    }
+
+    private static int slot(long tick) {
+        return (int) (tick & (WHEEL_SIZE - 1));
+    }
+
+    // =============== INNER CLASSES ===============
+
+    // So sánh theo đối tượng (không override equals) để xóa đúng phần tử trong ô
+    private static final class Entry {
+        private final VerificationKey key;
+        private final String code;
+        private final long deadlineTick;
+
+        private Entry(VerificationKey key, String code, long deadlineTick) {
+            this.key = key;
+            this.code = code;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
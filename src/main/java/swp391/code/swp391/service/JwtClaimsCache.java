@@ -0,0 +1,129 @@
+package swp391.code.swp391.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+import swp391.code.swp391.dto.CacheStatsDTO;
+import swp391.code.swp391.utils.TransactionUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache các token JWT đã xác thực, khóa là SHA-256 của token (không giữ token gốc trong bộ nhớ).
+ * Mỗi phần tử sống tới đúng thời điểm token hết hạn; các request tiếp theo của cùng phiên app
+ * bỏ qua bước kiểm tra HMAC và không tra DB.
+ * Số phần tử có giới hạn: khi đầy thì dọn phần tử hết hạn, vẫn đầy thì không cache thêm (token vẫn được xác thực bình thường).
+ * Khi user bị ban / xóa / đổi mật khẩu, các token phát hành trước thời điểm đó bị thu hồi (chỉ trong bộ nhớ của instance này).
+ */
+@Component
+public class JwtClaimsCache {
+
+    @Value("${jwt.cache.max-size:10000}")
+    private int maxSize;
+
+    // SHA-256(token) -> claims đã xác thực
+    private final Map<String, VerifiedToken> tokens = new ConcurrentHashMap<>();
+    // userId -> thời điểm thu hồi (epoch millis, làm tròn xuống giây), token có iat trước thời điểm này bị từ chối
+    private final Map<Long, Long> revokedBefore = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    // Token đã xác thực còn hạn, null nếu chưa có trong cache
+    public VerifiedToken get(String tokenHash) {
+        VerifiedToken token = tokens.get(tokenHash);
+        if (token == null) {
+            misses.increment();
+            return null;
+        }
+        if (token.isExpired(System.currentTimeMillis())) {
+            tokens.remove(tokenHash, token);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return token;
+    }
+
+    public void put(String tokenHash, VerifiedToken token) {
+        if (tokens.size() >= maxSize) {
+            purgeExpired();
+            if (tokens.size() >= maxSize) {
+                return;
+            }
+        }
+        tokens.put(tokenHash, token);
+    }
+
+    // Token bị thu hồi nếu được phát hành trước lần thu hồi gần nhất của user.
+    // Claim iat chỉ có độ chính xác tới giây nên thời điểm thu hồi cũng được lưu theo giây: token phát hành lại
+    // ngay sau khi đổi mật khẩu (cùng giây) không bị từ chối nhầm
+    public boolean isRevoked(VerifiedToken token) {
+        Long revokedAt = revokedBefore.get(token.getUserId());
+        return revokedAt != null && token.getIssuedAtMs() < revokedAt;
+    }
+
+    // Thu hồi mọi token hiện có của user (sau khi transaction commit)
+    public void revokeUser(Long userId) {
+        TransactionUtils.afterCommit(() -> {
+            revokedBefore.put(userId, System.currentTimeMillis() / 1000 * 1000);
+            tokens.values().removeIf(token -> token.getUserId().equals(userId));
+        });
+    }
+
+    public CacheStatsDTO getStats() {
+        return CacheStatsDTO.of("jwt-claims", tokens.size(), hits.sum(), misses.sum());
+    }
+
+    // Dọn định kỳ các token đã hết hạn
+    @Scheduled(fixedDelayString = "${jwt.cache.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        tokens.values().removeIf(token -> token.isExpired(now));
+    }
+
+    // SHA-256 của token dạng hex
+    public static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // =============== INNER CLASSES ===============
+
+    /**
+     * Claims của một token đã xác thực, kèm authorities dựng sẵn
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class VerifiedToken {
+        private final Long userId;
+        private final String email;
+        private final String role;
+        private final long issuedAtMs;
+        private final long expiresAtMs;
+        private final List<GrantedAuthority> authorities;
+
+        public VerifiedToken(Long userId, String email, String role, long issuedAtMs, long expiresAtMs) {
+            this(userId, email, role, issuedAtMs, expiresAtMs, List.of(new SimpleGrantedAuthority("ROLE_" + role)));
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAtMs;
+        }
+    }
+}
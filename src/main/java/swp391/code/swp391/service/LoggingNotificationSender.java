@@ -0,0 +1,31 @@
+package swp391.code.swp391.service;
+
+import lombok.extern.slf4j.Slf4j;
+import swp391.code.swp391.entity.NotificationOutbox.Channel;
+
+/**
+ * Sender giả lập cho môi trường local: chỉ ghi thông báo ra log.
+ * Được dùng cho kênh nào chưa cấu hình sender thật (notification.{kênh}.sender=log).
+ * Nội dung (có thể chứa mã xác thực) chỉ ghi ở mức DEBUG.
+ */
+@Slf4j
+public class LoggingNotificationSender implements NotificationSender {
+
+    private final Channel channel;
+
+    public LoggingNotificationSender(Channel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public Channel getChannel() {
+        return channel;
+    }
+
+    @Override
+    public void send(Message message) {
+        log.info("Sending {} notification {} to {}, subject: {}", channel, message.outboxId(), message.recipient(),
+                message.subject());
+        log.debug("Content of notification {}: {}", message.outboxId(), message.content());
+    }
+}
@@ -0,0 +1,125 @@
+package swp391.code.swp391.service;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Giới hạn số lần đăng nhập theo tài khoản và theo IP bằng token bucket, kiểm tra trước khi tốn một lần băm BCrypt.
+ * Mỗi bucket chỉ là một AtomicLong (dạng GCRA): giá trị là thời điểm bucket đầy lại (nanoTime),
+ * lấy một token là cộng thêm một khoảng refill bằng CAS, không cần khóa.
+ * Bucket đã đầy lại được dọn định kỳ nên số bucket chỉ tỷ lệ với số tài khoản / IP đang hoạt động.
+ */
+@Component
+public class LoginRateLimiter {
+
+    // Bucket của một tài khoản: tối đa capacity lần liên tiếp, sau đó refill-per-minute lần mỗi phút
+    @Value("${auth.rate-limit.account.capacity:5}")
+    private int accountCapacity;
+
+    @Value("${auth.rate-limit.account.refill-per-minute:5}")
+    private int accountRefillPerMinute;
+
+    @Value("${auth.rate-limit.ip.capacity:30}")
+    private int ipCapacity;
+
+    @Value("${auth.rate-limit.ip.refill-per-minute:60}")
+    private int ipRefillPerMinute;
+
+    private final Map<String, AtomicLong> accountBuckets = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> ipBuckets = new ConcurrentHashMap<>();
+
+    private final LongAdder accountRejected = new LongAdder();
+    private final LongAdder ipRejected = new LongAdder();
+
+    /**
+     * Lấy một token từ bucket của IP và của tài khoản.
+     * @throws RateLimitExceededException nếu một trong hai bucket đã cạn
+     */
+    public void acquire(String username, String clientIp) {
+        if (clientIp != null) {
+            long waitNanos = tryAcquire(ipBuckets, clientIp, ipCapacity, ipRefillPerMinute);
+            if (waitNanos > 0) {
+                ipRejected.increment();
+                throw new RateLimitExceededException("Too many login attempts from this address", waitNanos);
+            }
+        }
+        if (username != null) {
+            String account = username.trim().toLowerCase(Locale.ROOT);
+            long waitNanos = tryAcquire(accountBuckets, account, accountCapacity, accountRefillPerMinute);
+            if (waitNanos > 0) {
+                accountRejected.increment();
+                throw new RateLimitExceededException("Too many login attempts for this account", waitNanos);
+            }
+        }
+    }
+
+    public long getAccountRejected() {
+        return accountRejected.sum();
+    }
+
+    public long getIpRejected() {
+        return ipRejected.sum();
+    }
+
+    public int getTrackedAccounts() {
+        return accountBuckets.size();
+    }
+
+    public int getTrackedIps() {
+        return ipBuckets.size();
+    }
+
+    // Dọn các bucket đã đầy lại (tương đương chưa từng dùng)
+    @Scheduled(fixedDelayString = "${auth.rate-limit.purge-interval-ms:60000}")
+    public void purgeFullBuckets() {
+        long now = System.nanoTime();
+        accountBuckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+        ipBuckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+    }
+
+    // =============== HELPER METHODS ===============
+
+    // Trả về 0 nếu lấy được token, ngược lại số nano giây cần chờ
+    private long tryAcquire(Map<String, AtomicLong> buckets, String key, int capacity, int refillPerMinute) {
+        long interval = TimeUnit.MINUTES.toNanos(1) / Math.max(1, refillPerMinute);
+        long burst = interval * Math.max(1, capacity);
+        long now = System.nanoTime();
+        AtomicLong bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        while (true) {
+            long fullAt = bucket.get();
+            // Bucket đầy lại từ trước: tính từ thời điểm hiện tại
+            long base = fullAt - now > 0 ? fullAt : now;
+            long next = base + interval;
+            if (next - now > burst) {
+                return next - now - burst;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // =============== INNER CLASSES ===============
+
+    /**
+     * Vượt giới hạn đăng nhập, kèm số giây nên chờ trước khi thử lại
+     */
+    @Getter
+    public static class RateLimitExceededException extends RuntimeException {
+        private final long retryAfterSeconds;
+
+        public RateLimitExceededException(String message, long waitNanos) {
+            super(message);
+            this.retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package swp391.code.swp391.service;
+
+import swp391.code.swp391.dto.MeterSeriesDTO;
+import swp391.code.swp391.dto.MeterValueDTO;
+
+import java.util.List;
+
+public interface MeterValueService {
+
+    // Ghi các mẫu đo của session, trả về số mẫu được nhận
+    int recordMeterValues(Long sessionId, List<MeterValueDTO> meterValues);
+
+    // Lấy chuỗi meter value trong khoảng [from, to], gộp còn tối đa maxPoints điểm
+    MeterSeriesDTO getMeterValues(Long sessionId, Long from, Long to, int maxPoints);
+}
@@ -0,0 +1,70 @@
+package swp391.code.swp391.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import swp391.code.swp391.dto.MeterSeriesDTO;
+import swp391.code.swp391.dto.MeterValueDTO;
+import swp391.code.swp391.service.MeterValueStore.SeriesSlice;
+import swp391.code.swp391.service.SessionCostTracker.RunningCost;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class MeterValueServiceImpl implements MeterValueService {
+
+    // Giới hạn số điểm trả về cho một lần truy vấn
+    private static final int MAX_POINTS = 5000;
+
+    private final MeterValueStore meterValueStore;
+    private final SessionCostTracker costTracker;
+
+    @Override
+    public int recordMeterValues(Long sessionId, List<MeterValueDTO> meterValues) {
+        if (meterValues == null || meterValues.isEmpty()) {
+            return 0;
+        }
+        // Chỉ nhận mẫu của session đang sạc
+        RunningCost cost = costTracker.get(sessionId);
+        if (cost == null || cost.isFinished()) {
+            throw new RuntimeException("Session " + sessionId + " is not active");
+        }
+        long now = System.currentTimeMillis();
+        int accepted = 0;
+        for (MeterValueDTO meterValue : meterValues) {
+            if (meterValue.getEnergyKwh() == null) {
+                throw new RuntimeException("Energy is required");
+            }
+            long timestamp = meterValue.getTimestamp() != null ? meterValue.getTimestamp() : now;
+            // Giữ lock của RunningCost để mẫu chỉ được lưu khi đã được tính tiền,
+            // và không lọt vào giữa lúc endSession chốt chi phí
+            synchronized (cost) {
+                if (!cost.onSample(timestamp, meterValue.getEnergyKwh())) {
+                    continue;
+                }
+                meterValueStore.append(sessionId, timestamp,
+                        meterValue.getEnergyKwh().floatValue(),
+                        meterValue.getPowerKw() != null ? meterValue.getPowerKw().floatValue() : 0f,
+                        meterValue.getSoc() != null ? meterValue.getSoc().floatValue() : -1f);
+            }
+            accepted++;
+        }
+        return accepted;
+    }
+
+    @Override
+    public MeterSeriesDTO getMeterValues(Long sessionId, Long from, Long to, int maxPoints) {
+        if (maxPoints <= 0 || maxPoints > MAX_POINTS) {
+            throw new RuntimeException("maxPoints must be between 1 and " + MAX_POINTS);
+        }
+        long start = from != null ? from : 0L;
+        long end = to != null ? to : Long.MAX_VALUE - 1;
+        if (end < start) {
+            throw new RuntimeException("'to' must not be before 'from'");
+        }
+
+        SeriesSlice slice = meterValueStore.query(sessionId, start, end, maxPoints);
+        return new MeterSeriesDTO(sessionId, slice.matched(), slice.size() < slice.matched(),
+                slice.timestamps(), slice.energyKwh(), slice.powerKw(), slice.soc());
+    }
+}
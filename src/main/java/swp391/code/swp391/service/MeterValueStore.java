@@ -0,0 +1,651 @@
+package swp391.code.swp391.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Kho meter value (timestamp, kWh, kW, SoC) theo từng session, chỉ ghi nối tiếp (append-only).
+ * - Trong bộ nhớ mỗi session có một block dạng cột gồm các mảng primitive (long[] ts, float[] kwh, kw, soc),
+ *   mỗi mẫu chỉ tốn 20 byte và không tạo object.
+ * - Block đầy được ghi xuống file của session theo thứ tự bởi một thread riêng, sau đó được đọc lại qua
+ *   memory-mapped file nên dữ liệu cũ không chiếm heap.
+ * - Mẫu phải có timestamp không giảm trong một session nên truy vấn theo khoảng thời gian dùng binary search.
+ * - Ghi lỗi (IOException) thì file được cắt về cuối block hợp lệ, block vẫn nằm trong bộ nhớ và được ghi lại
+ *   ở lần flush / evictClosed kế tiếp; các block sau chờ block lỗi để giữ thứ tự trong file.
+ * Định dạng một block trên đĩa: int count, long[count] ts, float[count] kwh, float[count] kw, float[count] soc.
+ */
+@Slf4j
+@Component
+public class MeterValueStore {
+
+    private static final int BLOCK_HEADER_BYTES = Integer.BYTES;
+    private static final int SAMPLE_BYTES = Long.BYTES + 3 * Float.BYTES;
+    private static final String FILE_SUFFIX = ".meter";
+
+    @Value("${meter.store.dir:./data/meter-values}")
+    private String storeDir;
+
+    @Value("${meter.store.block-size:4096}")
+    private int blockSize;
+
+    @Value("${meter.store.evict-after-ms:600000}")
+    private long evictAfterMs;
+
+    // sessionId -> chuỗi meter value đang mở
+    private final Map<Long, Series> series = new ConcurrentHashMap<>();
+
+    private Path root;
+    private ExecutorService flusher;
+
+    @PostConstruct
+    public void start() throws IOException {
+        root = Paths.get(storeDir);
+        Files.createDirectories(root);
+        // Một thread duy nhất để các block của một session được ghi đúng thứ tự
+        flusher = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("meter-flush-"));
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // Ghi nốt các block chưa đầy để không mất mẫu khi tắt ứng dụng
+        series.values().forEach(s -> s.sealActive(true));
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        series.values().stream().filter(Series::hasUnflushed).forEach(s ->
+                log.error("Meter values of session {} were not written to disk before shutdown", s.sessionId));
+    }
+
+    /**
+     * Thêm một mẫu vào session.
+     * @return false nếu mẫu có timestamp nhỏ hơn mẫu trước đó (bị bỏ qua)
+     */
+    public boolean append(Long sessionId, long timestamp, float energyKwh, float powerKw, float soc) {
+        return open(sessionId).append(timestamp, energyKwh, powerKw, soc);
+    }
+
+    // Đánh dấu session đã kết thúc: ghi block còn lại xuống đĩa, chuỗi được giải phóng khỏi bộ nhớ sau evict-after-ms
+    public void close(Long sessionId) {
+        Series s = series.get(sessionId);
+        if (s != null) {
+            s.sealActive(true);
+            s.closed = true;
+        }
+    }
+
+    // Mẫu cuối cùng của session, null nếu chưa có mẫu nào
+    public Sample last(Long sessionId) {
+        Series s = find(sessionId);
+        return s != null ? s.last() : null;
+    }
+
+    /**
+     * Lấy các mẫu trong khoảng [from, to].
+     * Nếu số mẫu vượt quá maxPoints thì gộp theo khoảng thời gian đều nhau:
+     * kWh và SoC lấy giá trị cuối của khoảng, kW lấy trung bình.
+     */
+    public SeriesSlice query(Long sessionId, long from, long to, int maxPoints) {
+        Series s = find(sessionId);
+        if (s == null || to < from) {
+            return SeriesSlice.empty();
+        }
+        List<Block> blocks = s.snapshot();
+
+        // Đếm số mẫu trong khoảng để quyết định có cần gộp không, đồng thời lấy mẫu đầu và cuối trong khoảng
+        int total = 0;
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        for (Block block : blocks) {
+            if (block.size() > 0 && block.ts(0) <= to && block.ts(block.size() - 1) >= from) {
+                int lower = block.lowerBound(from);
+                int upper = block.upperBound(to);
+                if (upper > lower) {
+                    total += upper - lower;
+                    first = Math.min(first, block.ts(lower));
+                    last = Math.max(last, block.ts(upper - 1));
+                }
+            }
+        }
+
+        int buckets = Math.min(total, Math.max(1, maxPoints));
+        SeriesSlice slice = new SeriesSlice(buckets, total);
+        if (total == 0) {
+            return slice;
+        }
+        boolean downsample = total > buckets;
+        // Chia khoảng theo mẫu thực tế chứ không theo [from, to]: khi không truyền from/to (0 .. Long.MAX_VALUE)
+        // mọi mẫu sẽ rơi vào cùng một khoảng
+        long span = last - first + 1;
+
+        int bucket = -1;
+        double powerSum = 0;
+        int powerCount = 0;
+        for (Block block : blocks) {
+            if (block.size() == 0 || block.ts(0) > to || block.ts(block.size() - 1) < from) {
+                continue;
+            }
+            int end = block.upperBound(to);
+            for (int i = block.lowerBound(from); i < end; i++) {
+                long ts = block.ts(i);
+                int b = downsample ? bucketOf(ts - first, span, buckets) : bucket + 1;
+                if (b != bucket) {
+                    if (bucket >= 0) {
+                        slice.powerKw[slice.size - 1] = (float) (powerSum / powerCount);
+                    }
+                    bucket = b;
+                    slice.size++;
+                    powerSum = 0;
+                    powerCount = 0;
+                }
+                int j = slice.size - 1;
+                slice.timestamps[j] = ts;
+                slice.energyKwh[j] = block.kwh(i);
+                slice.soc[j] = block.soc(i);
+                powerSum += block.kw(i);
+                powerCount++;
+            }
+        }
+        slice.powerKw[slice.size - 1] = (float) (powerSum / powerCount);
+        return slice;
+    }
+
+    // Duyệt lần lượt mọi mẫu của session theo thứ tự thời gian (dùng để khôi phục trạng thái sau khi khởi động lại)
+    public void replay(Long sessionId, SampleConsumer consumer) {
+        Series s = find(sessionId);
+        if (s == null) {
+            return;
+        }
+        for (Block block : s.snapshot()) {
+            for (int i = 0; i < block.size(); i++) {
+                consumer.accept(block.ts(i), block.kwh(i), block.kw(i), block.soc(i));
+            }
+        }
+    }
+
+    public int getOpenSeriesCount() {
+        return series.size();
+    }
+
+    // Giải phóng các session đã kết thúc khỏi bộ nhớ, dữ liệu vẫn còn trên đĩa.
+    // Session còn block chưa ghi được (lần ghi trước lỗi) thì không giải phóng mà thử ghi lại
+    @Scheduled(fixedDelayString = "${meter.store.evict-interval-ms:60000}")
+    public void evictClosed() {
+        long now = System.currentTimeMillis();
+        series.entrySet().removeIf(entry -> {
+            Series s = entry.getValue();
+            if (s.hasUnflushed()) {
+                s.scheduleFlush();
+                return false;
+            }
+            return s.closed && now - s.lastAccess > evictAfterMs;
+        });
+    }
+
+    // =============== HELPER METHODS ===============
+
+    // offset * buckets / span, tính bằng double khi phép nhân có thể tràn long
+    static int bucketOf(long offset, long span, int buckets) {
+        if (offset <= Long.MAX_VALUE / buckets) {
+            return (int) (offset * buckets / span);
+        }
+        return (int) Math.min(buckets - 1, (double) offset / span * buckets);
+    }
+
+    private Series open(Long sessionId) {
+        Series s = series.computeIfAbsent(sessionId, this::load);
+        s.closed = false;
+        return s;
+    }
+
+    private Series find(Long sessionId) {
+        Series s = series.get(sessionId);
+        if (s != null) {
+            return s;
+        }
+        if (!Files.exists(file(sessionId))) {
+            return null;
+        }
+        return series.computeIfAbsent(sessionId, id -> {
+            Series loaded = load(id);
+            loaded.closed = true;
+            return loaded;
+        });
+    }
+
+    private Path file(Long sessionId) {
+        return root.resolve(sessionId + FILE_SUFFIX);
+    }
+
+    private static int blockBytes(int count) {
+        return BLOCK_HEADER_BYTES + count * SAMPLE_BYTES;
+    }
+
+    // Nạp các block đã ghi của session từ đĩa (memory-mapped)
+    private Series load(Long sessionId) {
+        Series s = new Series(sessionId);
+        Path path = file(sessionId);
+        if (!Files.exists(path)) {
+            return s;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return s;
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            int position = 0;
+            while (position + BLOCK_HEADER_BYTES <= size) {
+                int count = mapped.getInt(position);
+                int length = blockBytes(count);
+                if (count <= 0 || position + length > size) {
+                    break; // Block ghi dở khi ứng dụng dừng đột ngột, lần ghi sau sẽ ghi đè lên
+                }
+                s.sealed.add(new MappedBlock(mapped, position, count));
+                position += length;
+            }
+            s.flushedBytes = position;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read meter values of session " + sessionId, e);
+        }
+        return s;
+    }
+
+    /**
+     * Ghi block vào file của session tại position (cuối block hợp lệ cuối cùng) và trả về block đọc qua
+     * memory-mapped file. Phần thừa sau position (block ghi dở) bị cắt bỏ trước khi ghi; ghi lỗi thì file
+     * được cắt lại về position để lần ghi lại bắt đầu từ cùng vị trí.
+     */
+    private Block write(Long sessionId, MemoryBlock block, long position) throws IOException {
+        int count = block.size();
+        ByteBuffer buffer = ByteBuffer.allocate(blockBytes(count))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(count);
+        for (int i = 0; i < count; i++) {
+            buffer.putLong(block.timestamps[i]);
+        }
+        for (int i = 0; i < count; i++) {
+            buffer.putFloat(block.energyKwh[i]);
+        }
+        for (int i = 0; i < count; i++) {
+            buffer.putFloat(block.powerKw[i]);
+        }
+        for (int i = 0; i < count; i++) {
+            buffer.putFloat(block.soc[i]);
+        }
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(file(sessionId),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ)) {
+            if (channel.size() > position) {
+                channel.truncate(position);
+            }
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer, position + buffer.position());
+                }
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, buffer.limit());
+                mapped.order(ByteOrder.LITTLE_ENDIAN);
+                return new MappedBlock(mapped, 0, count);
+            } catch (IOException e) {
+                try {
+                    channel.truncate(position);
+                } catch (IOException truncateError) {
+                    e.addSuppressed(truncateError);
+                }
+                throw e;
+            }
+        }
+    }
+
+    // =============== INNER CLASSES ===============
+
+    private final class Series {
+        private final Long sessionId;
+        // Các block đã đầy, theo thứ tự thời gian; MemoryBlock được thay bằng MappedBlock sau khi ghi xuống đĩa
+        private final List<Block> sealed = new CopyOnWriteArrayList<>();
+        private MemoryBlock active;
+        private long lastTimestamp = Long.MIN_VALUE;
+        private volatile boolean closed;
+        private volatile long lastAccess = System.currentTimeMillis();
+        // Chỉ một lần ghi đĩa tại một thời điểm (thread flusher hoặc ghi trực tiếp khi tắt ứng dụng)
+        private final ReentrantLock flushLock = new ReentrantLock();
+        // Độ dài phần file chứa các block đã ghi thành công, chỉ đọc / ghi khi giữ flushLock
+        private long flushedBytes;
+
+        Series(Long sessionId) {
+            this.sessionId = sessionId;
+            this.active = new MemoryBlock(blockSize);
+        }
+
+        synchronized boolean append(long timestamp, float energyKwh, float powerKw, float soc) {
+            lastAccess = System.currentTimeMillis();
+            if (lastTimestamp == Long.MIN_VALUE && !sealed.isEmpty()) {
+                Block tail = sealed.get(sealed.size() - 1);
+                lastTimestamp = tail.ts(tail.size() - 1);
+            }
+            if (timestamp < lastTimestamp) {
+                return false;
+            }
+            active.add(timestamp, energyKwh, powerKw, soc);
+            lastTimestamp = timestamp;
+            if (active.size() == active.capacity()) {
+                sealActive(false);
+            }
+            return true;
+        }
+
+        // Chuyển block đang ghi sang danh sách sealed và đưa vào hàng đợi ghi đĩa
+        synchronized void sealActive(boolean partial) {
+            MemoryBlock block = active;
+            if (block.size() == 0 || (!partial && block.size() < block.capacity())) {
+                return;
+            }
+            sealed.add(block);
+            active = new MemoryBlock(blockSize);
+            scheduleFlush();
+        }
+
+        void scheduleFlush() {
+            try {
+                flusher.execute(this::flushPending);
+            } catch (RejectedExecutionException e) {
+                // Đang tắt ứng dụng: ghi trực tiếp
+                flushPending();
+            }
+        }
+
+        boolean hasUnflushed() {
+            for (Block block : sealed) {
+                if (block instanceof MemoryBlock) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Ghi lần lượt các block chưa ghi; lỗi thì dừng ở block đó để các block sau không nằm trước nó trong file
+        private void flushPending() {
+            flushLock.lock();
+            try {
+                for (Block block : sealed) {
+                    if (!(block instanceof MemoryBlock memoryBlock)) {
+                        continue;
+                    }
+                    Block mapped;
+                    try {
+                        mapped = write(sessionId, memoryBlock, flushedBytes);
+                    } catch (IOException e) {
+                        // Block vẫn nằm trong bộ nhớ nên vẫn đọc được, evictClosed sẽ thử ghi lại
+                        log.error("Could not write meter values of session {}, will retry", sessionId, e);
+                        return;
+                    }
+                    flushedBytes += blockBytes(memoryBlock.size());
+                    // Chỉ append thêm vào cuối sealed nên vị trí của block không đổi; không lấy monitor của Series
+                    // để không deadlock với sealActive khi ghi trực tiếp lúc tắt ứng dụng
+                    int index = sealed.indexOf(memoryBlock);
+                    if (index >= 0) {
+                        sealed.set(index, mapped);
+                    }
+                }
+            } finally {
+                flushLock.unlock();
+            }
+        }
+
+        // Ảnh chụp các block hiện có; block đang ghi chỉ đọc tới số mẫu tại thời điểm chụp
+        synchronized List<Block> snapshot() {
+            lastAccess = System.currentTimeMillis();
+            List<Block> blocks = new ArrayList<>(sealed.size() + 1);
+            blocks.addAll(sealed);
+            if (active.size() > 0) {
+                blocks.add(active.view());
+            }
+            return blocks;
+        }
+
+        synchronized Sample last() {
+            if (active.size() > 0) {
+                return active.sample(active.size() - 1);
+            }
+            if (sealed.isEmpty()) {
+                return null;
+            }
+            Block tail = sealed.get(sealed.size() - 1);
+            return tail.sample(tail.size() - 1);
+        }
+    }
+
+    private abstract static class Block {
+        abstract int size();
+
+        abstract long ts(int i);
+
+        abstract float kwh(int i);
+
+        abstract float kw(int i);
+
+        abstract float soc(int i);
+
+        Sample sample(int i) {
+            return new Sample(ts(i), kwh(i), kw(i), soc(i));
+        }
+
+        // Vị trí mẫu đầu tiên có ts >= from
+        int lowerBound(long from) {
+            int low = 0;
+            int high = size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (ts(mid) < from) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // Vị trí mẫu đầu tiên có ts > to
+        int upperBound(long to) {
+            int low = 0;
+            int high = size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (ts(mid) <= to) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    private static final class MemoryBlock extends Block {
+        private final long[] timestamps;
+        private final float[] energyKwh;
+        private final float[] powerKw;
+        private final float[] soc;
+        private int size;
+
+        MemoryBlock(int capacity) {
+            this(new long[capacity], new float[capacity], new float[capacity], new float[capacity], 0);
+        }
+
+        private MemoryBlock(long[] timestamps, float[] energyKwh, float[] powerKw, float[] soc, int size) {
+            this.timestamps = timestamps;
+            this.energyKwh = energyKwh;
+            this.powerKw = powerKw;
+            this.soc = soc;
+            this.size = size;
+        }
+
+        void add(long timestamp, float kwh, float kw, float stateOfCharge) {
+            timestamps[size] = timestamp;
+            energyKwh[size] = kwh;
+            powerKw[size] = kw;
+            soc[size] = stateOfCharge;
+            size++;
+        }
+
+        // Dùng chung mảng nhưng cố định số mẫu, an toàn khi block gốc tiếp tục được ghi
+        MemoryBlock view() {
+            return new MemoryBlock(timestamps, energyKwh, powerKw, soc, size);
+        }
+
+        int capacity() {
+            return timestamps.length;
+        }
+
+        @Override
+        int size() {
+            return size;
+        }
+
+        @Override
+        long ts(int i) {
+            return timestamps[i];
+        }
+
+        @Override
+        float kwh(int i) {
+            return energyKwh[i];
+        }
+
+        @Override
+        float kw(int i) {
+            return powerKw[i];
+        }
+
+        @Override
+        float soc(int i) {
+            return soc[i];
+        }
+    }
+
+    private static final class MappedBlock extends Block {
+        private final ByteBuffer buffer;
+        private final int count;
+        private final int tsOffset;
+        private final int kwhOffset;
+        private final int kwOffset;
+        private final int socOffset;
+
+        MappedBlock(ByteBuffer buffer, int offset, int count) {
+            this.buffer = buffer;
+            this.count = count;
+            this.tsOffset = offset + BLOCK_HEADER_BYTES;
+            this.kwhOffset = tsOffset + count * Long.BYTES;
+            this.kwOffset = kwhOffset + count * Float.BYTES;
+            this.socOffset = kwOffset + count * Float.BYTES;
+        }
+
+        @Override
+        int size() {
+            return count;
+        }
+
+        // Đọc theo vị trí tuyệt đối nên nhiều thread đọc chung một buffer được
+        @Override
+        long ts(int i) {
+            return buffer.getLong(tsOffset + i * Long.BYTES);
+        }
+
+        @Override
+        float kwh(int i) {
+            return buffer.getFloat(kwhOffset + i * Float.BYTES);
+        }
+
+        @Override
+        float kw(int i) {
+            return buffer.getFloat(kwOffset + i * Float.BYTES);
+        }
+
+        @Override
+        float soc(int i) {
+            return buffer.getFloat(socOffset + i * Float.BYTES);
+        }
+    }
+
+    @FunctionalInterface
+    public interface SampleConsumer {
+        void accept(long timestamp, float energyKwh, float powerKw, float soc);
+    }
+
+    public record Sample(long timestamp, float energyKwh, float powerKw, float soc) {
+    }
+
+    // Kết quả truy vấn dạng cột
+    public static final class SeriesSlice {
+        private final long[] timestamps;
+        private final float[] energyKwh;
+        private final float[] powerKw;
+        private final float[] soc;
+        private final int matched;
+        private int size;
+
+        SeriesSlice(int capacity, int matched) {
+            this.timestamps = new long[capacity];
+            this.energyKwh = new float[capacity];
+            this.powerKw = new float[capacity];
+            this.soc = new float[capacity];
+            this.matched = matched;
+        }
+
+        static SeriesSlice empty() {
+            return new SeriesSlice(0, 0);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        // Số mẫu gốc nằm trong khoảng truy vấn (trước khi gộp)
+        public int matched() {
+            return matched;
+        }
+
+        public long[] timestamps() {
+            return Arrays.copyOf(timestamps, size);
+        }
+
+        public float[] energyKwh() {
+            return Arrays.copyOf(energyKwh, size);
+        }
+
+        public float[] powerKw() {
+            return Arrays.copyOf(powerKw, size);
+        }
+
+        public float[] soc() {
+            return Arrays.copyOf(soc, size);
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package swp391.code.swp391.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import swp391.code.swp391.dto.NotificationMetricsDTO;
+import swp391.code.swp391.entity.NotificationOutbox;
+import swp391.code.swp391.entity.NotificationOutbox.Channel;
+import swp391.code.swp391.repository.NotificationOutboxRepository;
+import swp391.code.swp391.service.NotificationSender.Message;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Đọc notification outbox theo lô và gửi qua NotificationSender của từng kênh.
+ * - Một worker lấy tối đa batch-size dòng tới hạn bằng một câu UPDATE ... OUTPUT (UPDLOCK, READPAST):
+ *   dòng được lấy có nextAttemptAt đẩy tới hết lease nên các node khác bỏ qua, node chết thì dòng được gửi lại sau lease.
+ * - Dòng đã lấy được xếp vào hàng đợi của kênh tương ứng; mỗi kênh có semaphore giới hạn số lời gọi send đồng thời.
+ *   Worker không bao giờ chờ semaphore: kênh hết chỗ thì để lại trong hàng đợi, các kênh khác vẫn gửi tiếp.
+ *   Hàng đợi đã có đủ batch-size dòng thì không lấy thêm, dòng nằm chờ quá lâu (gần hết lease) thì bỏ để node khác gửi.
+ * - Mỗi lời gọi send có thời hạn send-timeout-ms: quá hạn thì bị interrupt, trả chỗ cho kênh và hẹn gửi lại.
+ * - Kết quả gửi được gom lại và ghi bằng một JDBC batch update ở vòng lặp kế tiếp.
+ * - Gửi lỗi thì hẹn lại với exponential backoff (có jitter), quá max-attempts lần thì chuyển FAILED.
+ * - Dòng chuyển SENT / FAILED bị xóa nội dung (content có thể chứa mã xác thực) vì dòng còn được giữ lại sau khi gửi.
+ * Worker được đánh thức ngay khi có thông báo mới commit, ngoài ra quét định kỳ poll-interval-ms cho các lần thử lại.
+ */
+@Component
+@RequiredArgsConstructor
+public class NotificationDispatcher {
+
+    private static final String CLAIM = "WITH due AS (SELECT TOP (?) * FROM notification_outbox " +
+            "WITH (UPDLOCK, READPAST, ROWLOCK) WHERE status = 'PENDING' AND next_attempt_at <= ? " +
+            "ORDER BY next_attempt_at) " +
+            "UPDATE due SET next_attempt_at = ?, attempts = attempts + 1 " +
+            "OUTPUT INSERTED.outbox_id, INSERTED.channel, INSERTED.recipient, INSERTED.subject, INSERTED.content, " +
+            "INSERTED.user_id, INSERTED.attempts, INSERTED.created_at";
+    // Chỉ dòng còn PENDING (chờ gửi lại) giữ content
+    private static final String COMPLETE = "UPDATE notification_outbox SET status = ?, sent_at = ?, " +
+            "next_attempt_at = ?, last_error = ?, content = CASE WHEN ? = 'PENDING' THEN content ELSE '' END " +
+            "WHERE outbox_id = ?";
+    private static final String CLEANUP = "DELETE TOP (5000) FROM notification_outbox WHERE status = 'SENT' AND sent_at < ?";
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NotificationOutboxRepository outboxRepository;
+    private final List<NotificationSender> senders;
+
+    @Value("${notification.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${notification.outbox.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    @Value("${notification.outbox.lease-ms:60000}")
+    private long leaseMs;
+
+    @Value("${notification.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${notification.outbox.backoff-base-ms:1000}")
+    private long backoffBaseMs;
+
+    @Value("${notification.outbox.backoff-max-ms:600000}")
+    private long backoffMaxMs;
+
+    @Value("${notification.outbox.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    @Value("${notification.outbox.retention-days:7}")
+    private int retentionDays;
+
+    @Value("${notification.email.concurrency:8}")
+    private int emailConcurrency;
+
+    @Value("${notification.sms.concurrency:4}")
+    private int smsConcurrency;
+
+    @Value("${notification.push.concurrency:16}")
+    private int pushConcurrency;
+
+    private final Map<Channel, NotificationSender> sendersByChannel = new EnumMap<>(Channel.class);
+    private final Map<Channel, ChannelState> channels = new EnumMap<>(Channel.class);
+    private final Queue<Result> results = new ConcurrentLinkedQueue<>();
+    private final Semaphore wakeUps = new Semaphore(0);
+    private ExecutorService sendExecutor;
+    private Thread worker;
+    private volatile boolean running;
+
+    // Metrics
+    private final LongAdder batches = new LongAdder();
+    private final AtomicLong lastBatchSize = new AtomicLong();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder totalDeliveryLagMillis = new LongAdder();
+    private final AtomicLong lastDeliveryLagMillis = new AtomicLong();
+    private final AtomicLong maxDeliveryLagMillis = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        for (NotificationSender sender : senders) {
+            sendersByChannel.put(sender.getChannel(), sender);
+        }
+        channels.put(Channel.EMAIL, new ChannelState(emailConcurrency));
+        channels.put(Channel.SMS, new ChannelState(smsConcurrency));
+        channels.put(Channel.PUSH, new ChannelState(pushConcurrency));
+        sendExecutor = Executors.newCachedThreadPool(new CustomizableThreadFactory("notification-send-"));
+        running = true;
+        worker = new Thread(this::run, "notification-dispatcher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        wakeUp();
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+        sendExecutor.shutdown();
+        sendExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        // Ghi kết quả của các lần gửi đã xong; dòng chưa gửi được (kể cả dòng còn trong hàng đợi của kênh)
+        // sẽ được node khác / lần khởi động sau lấy lại khi hết lease
+        flushResults();
+    }
+
+    // Có thông báo mới: không chờ tới lần quét kế tiếp
+    public void wakeUp() {
+        if (wakeUps.availablePermits() == 0) {
+            wakeUps.release();
+        }
+    }
+
+    public NotificationMetricsDTO getMetrics() {
+        long pending = 0;
+        long oldestLag = 0;
+        List<Object[]> summary = outboxRepository.findSummaryByStatus(NotificationOutbox.Status.PENDING);
+        if (!summary.isEmpty() && summary.get(0)[0] != null) {
+            pending = ((Number) summary.get(0)[0]).longValue();
+            LocalDateTime oldest = (LocalDateTime) summary.get(0)[1];
+            if (oldest != null) {
+                oldestLag = Math.max(0, Duration.between(oldest, LocalDateTime.now()).toMillis());
+            }
+        }
+        List<NotificationMetricsDTO.ChannelMetrics> channelMetrics = new ArrayList<>();
+        channels.forEach((channel, state) -> channelMetrics.add(state.toMetrics(channel)));
+        long deliveredCount = delivered.sum();
+        return new NotificationMetricsDTO(pending, oldestLag, batches.sum(), lastBatchSize.get(),
+                lastDeliveryLagMillis.get(), maxDeliveryLagMillis.get(),
+                deliveredCount > 0 ? (double) totalDeliveryLagMillis.sum() / deliveredCount : 0.0, channelMetrics);
+    }
+
+    // Xóa thông báo đã gửi quá retention-days ngày
+    @Scheduled(fixedDelayString = "${notification.outbox.cleanup-interval-ms:3600000}")
+    public void cleanup() {
+        Timestamp before = Timestamp.valueOf(LocalDateTime.now().minusDays(retentionDays));
+        // Xóa từng phần để không giữ khóa lâu trên bảng
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(CLEANUP, before);
+        } while (deleted >= 5000);
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private void run() {
+        while (running) {
+            try {
+                flushResults();
+                dispatchQueued();
+                // Chỉ lấy thêm khi hàng đợi của các kênh còn chỗ
+                int capacity = batchSize - queuedCount();
+                int claimed = capacity > 0 ? claimBatch(capacity) : 0;
+                if (capacity <= 0 || claimed < capacity) {
+                    // Hết việc hoặc các kênh đang bận: chờ thông báo mới, một lần gửi xong hoặc tới lần quét kế tiếp
+                    wakeUps.tryAcquire(pollIntervalMs, TimeUnit.MILLISECONDS);
+                    wakeUps.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // Lỗi DB: thử lại ở vòng sau, các dòng đã lấy sẽ được lấy lại khi hết lease
+                try {
+                    TimeUnit.MILLISECONDS.sleep(pollIntervalMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private int claimBatch(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Message> messages = new ArrayList<>(limit);
+        jdbcTemplate.query(CLAIM, (RowCallbackHandler) rs -> messages.add(new Message(rs.getLong(1),
+                        Channel.valueOf(rs.getString(2)), rs.getString(3), rs.getString(4), rs.getString(5),
+                        rs.getObject(6, Long.class), rs.getInt(7), rs.getTimestamp(8).toLocalDateTime())),
+                limit, Timestamp.valueOf(now), Timestamp.valueOf(now.plus(Duration.ofMillis(leaseMs))));
+        if (messages.isEmpty()) {
+            return 0;
+        }
+        batches.increment();
+        lastBatchSize.set(messages.size());
+
+        long claimedAt = System.nanoTime();
+        for (Message message : messages) {
+            if (!sendersByChannel.containsKey(message.channel())) {
+                results.add(Result.failure(message, "No sender configured for channel " + message.channel(), false));
+                continue;
+            }
+            channels.get(message.channel()).queued.add(new Claimed(message, claimedAt));
+        }
+        dispatchQueued();
+        return messages.size();
+    }
+
+    // Gửi từ hàng đợi của từng kênh tới khi kênh hết chỗ; không chờ semaphore nên kênh chậm không giữ các kênh khác
+    private void dispatchQueued() {
+        // Dòng chờ quá thời điểm này thì có thể hết lease trước khi gửi xong (cấu hình sai thì vẫn chờ được nửa lease)
+        long maxWaitMs = Math.max(leaseMs / 2, leaseMs - sendTimeoutMs);
+        long deadline = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        channels.forEach((channel, state) -> {
+            NotificationSender sender = sendersByChannel.get(channel);
+            Claimed claimed;
+            while ((claimed = state.queued.peek()) != null) {
+                if (claimed.claimedAt() - deadline < 0) {
+                    // Bỏ qua: dòng sẽ được lấy lại khi hết lease, không gửi trùng với node khác
+                    state.queued.poll();
+                    continue;
+                }
+                if (!state.permits.tryAcquire()) {
+                    break;
+                }
+                state.queued.poll();
+                state.inFlight.incrementAndGet();
+                send(sender, state, claimed.message());
+            }
+        });
+    }
+
+    private void send(NotificationSender sender, ChannelState state, Message message) {
+        long started = System.nanoTime();
+        CompletableFuture<Void> call = new CompletableFuture<>();
+        Future<?> task = sendExecutor.submit(() -> {
+            try {
+                sender.send(message);
+                call.complete(null);
+            } catch (Exception e) {
+                call.completeExceptionally(e);
+            }
+        });
+        // Chỉ lần hoàn tất đầu tiên (gửi xong, lỗi hoặc quá hạn) được ghi nhận
+        call.orTimeout(sendTimeoutMs, TimeUnit.MILLISECONDS).whenComplete((ignored, error) -> {
+            if (error == null) {
+                results.add(Result.success(message));
+            } else if (error instanceof TimeoutException) {
+                // Sender bị treo: interrupt lời gọi và trả chỗ ngay, thông báo được gửi lại với backoff
+                task.cancel(true);
+                results.add(Result.failure(message, "Send timed out after " + sendTimeoutMs + " ms", true));
+            } else {
+                results.add(Result.failure(message, error.getClass().getSimpleName() + ": " + error.getMessage(), true));
+            }
+            state.sendNanos.add(System.nanoTime() - started);
+            state.sendCalls.increment();
+            state.inFlight.decrementAndGet();
+            state.permits.release();
+            // Kênh còn dòng chờ: đánh thức worker để gửi tiếp ngay
+            if (!state.queued.isEmpty()) {
+                wakeUp();
+            }
+        });
+    }
+
+    private int queuedCount() {
+        int count = 0;
+        for (ChannelState state : channels.values()) {
+            count += state.queued.size();
+        }
+        return count;
+    }
+
+    private void flushResults() {
+        if (results.isEmpty()) {
+            return;
+        }
+        List<Result> batch = new ArrayList<>();
+        Result result;
+        while ((result = results.poll()) != null) {
+            batch.add(result);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> args = new ArrayList<>(batch.size());
+        for (Result item : batch) {
+            Message message = item.message();
+            ChannelState state = channels.get(message.channel());
+            if (item.error() == null) {
+                args.add(completeArgs(NotificationOutbox.Status.SENT, Timestamp.valueOf(now),
+                        Timestamp.valueOf(now), null, message.outboxId()));
+                state.sent.increment();
+                recordDeliveryLag(Duration.between(message.createdAt(), now).toMillis());
+            } else if (item.retryable() && message.attempt() < maxAttempts) {
+                args.add(completeArgs(NotificationOutbox.Status.PENDING, null,
+                        Timestamp.valueOf(now.plus(Duration.ofMillis(backoffMillis(message.attempt())))),
+                        truncate(item.error()), message.outboxId()));
+                state.retried.increment();
+            } else {
+                args.add(completeArgs(NotificationOutbox.Status.FAILED, null, Timestamp.valueOf(now),
+                        truncate(item.error()), message.outboxId()));
+                state.failed.increment();
+            }
+        }
+        try {
+            jdbcTemplate.batchUpdate(COMPLETE, args);
+        } catch (RuntimeException e) {
+            // Không ghi được kết quả: các dòng sẽ được gửi lại khi hết lease (gửi ít nhất một lần)
+        }
+    }
+
+    // Tham số của COMPLETE: status xuất hiện hai lần (cột status và điều kiện giữ content)
+    private static Object[] completeArgs(NotificationOutbox.Status status, Timestamp sentAt, Timestamp nextAttemptAt,
+                                         String error, long outboxId) {
+        return new Object[]{status.name(), sentAt, nextAttemptAt, error, status.name(), outboxId};
+    }
+
+    // base * 2^(attempt - 1), tối đa backoff-max-ms, cộng jitter tới 20% để các lần thử lại không dồn cùng lúc
+    private long backoffMillis(int attempt) {
+        long delay = backoffBaseMs << Math.min(attempt - 1, 30);
+        if (delay <= 0 || delay > backoffMaxMs) {
+            delay = backoffMaxMs;
+        }
+        return delay + ThreadLocalRandom.current().nextLong(delay / 5 + 1);
+    }
+
+    private void recordDeliveryLag(long lagMillis) {
+        delivered.increment();
+        totalDeliveryLagMillis.add(lagMillis);
+        lastDeliveryLagMillis.set(lagMillis);
+        maxDeliveryLagMillis.accumulateAndGet(lagMillis, Math::max);
+    }
+
+    private static String truncate(String error) {
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+
+    // =============== INNER CLASSES ===============
+
+    private static final class ChannelState {
+        private final int concurrency;
+        private final Semaphore permits;
+        // Chỉ worker thêm / lấy ra; luồng gửi chỉ kiểm tra rỗng
+        private final Queue<Claimed> queued = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final LongAdder sent = new LongAdder();
+        private final LongAdder retried = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder sendCalls = new LongAdder();
+        private final LongAdder sendNanos = new LongAdder();
+
+        private ChannelState(int concurrency) {
+            this.concurrency = Math.max(1, concurrency);
+            this.permits = new Semaphore(this.concurrency);
+        }
+
+        private NotificationMetricsDTO.ChannelMetrics toMetrics(Channel channel) {
+            long calls = sendCalls.sum();
+            return new NotificationMetricsDTO.ChannelMetrics(channel.name(), concurrency, inFlight.get(), sent.sum(),
+                    retried.sum(), failed.sum(), calls > 0 ? sendNanos.sum() / 1_000_000.0 / calls : 0.0);
+        }
+    }
+
+    private record Claimed(Message message, long claimedAt) {
+    }
+
+    private record Result(Message message, String error, boolean retryable) {
+
+        static Result success(Message message) {
+            return new Result(message, null, false);
+        }
+
+        static Result failure(Message message, String error, boolean retryable) {
+            return new Result(message, error, retryable);
+        }
+    }
+}
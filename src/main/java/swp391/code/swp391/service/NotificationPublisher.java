@@ -0,0 +1,38 @@
+package swp391.code.swp391.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import swp391.code.swp391.entity.NotificationOutbox;
+import swp391.code.swp391.entity.NotificationOutbox.Channel;
+import swp391.code.swp391.repository.NotificationOutboxRepository;
+import swp391.code.swp391.utils.TransactionUtils;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ghi thông báo vào outbox trong transaction hiện tại của nghiệp vụ.
+ * Rollback thì thông báo cũng không được gửi; commit xong thì đánh thức NotificationDispatcher để gửi ngay,
+ * request không phải chờ thời gian gửi thật.
+ */
+@Component
+@RequiredArgsConstructor
+public class NotificationPublisher {
+
+    private final NotificationOutboxRepository outboxRepository;
+    private final NotificationDispatcher dispatcher;
+
+    public void enqueue(Channel channel, String recipient, String subject, String content, Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        NotificationOutbox outbox = new NotificationOutbox();
+        outbox.setChannel(channel);
+        outbox.setRecipient(recipient);
+        outbox.setSubject(subject);
+        outbox.setContent(content);
+        outbox.setUserId(userId);
+        outbox.setStatus(NotificationOutbox.Status.PENDING);
+        outbox.setNextAttemptAt(now);
+        outbox.setCreatedAt(now);
+        outboxRepository.save(outbox);
+        TransactionUtils.afterCommit(dispatcher::wakeUp);
+    }
+}
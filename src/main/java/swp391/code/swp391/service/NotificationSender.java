@@ -0,0 +1,24 @@
+package swp391.code.swp391.service;
+
+import swp391.code.swp391.entity.NotificationOutbox.Channel;
+
+import java.time.LocalDateTime;
+
+/**
+ * Gửi thông báo qua một kênh (email, SMS, push). Mỗi kênh có đúng một bean NotificationSender.
+ * NotificationDispatcher gọi send trên pool riêng, tối đa notification.{kênh}.concurrency lời gọi đồng thời;
+ * send ném exception thì thông báo được gửi lại với backoff.
+ */
+public interface NotificationSender {
+
+    Channel getChannel();
+
+    void send(Message message) throws Exception;
+
+    /**
+     * Một thông báo đã được lấy ra khỏi outbox
+     */
+    record Message(Long outboxId, Channel channel, String recipient, String subject, String content, Long userId,
+                   int attempt, LocalDateTime createdAt) {
+    }
+}
@@ -0,0 +1,26 @@
+package swp391.code.swp391.service;
+
+import swp391.code.swp391.dto.KeysetPageDTO;
+import swp391.code.swp391.dto.NotificationDTO;
+import swp391.code.swp391.dto.NotificationMetricsDTO;
+
+public interface NotificationService {
+
+    // Tạo notification cho user (kèm push qua outbox)
+    NotificationDTO createNotification(NotificationDTO notificationDTO);
+
+    // Inbox của user theo keyset, mới nhất trước; after là nextAfter của trang trước
+    KeysetPageDTO<NotificationDTO> getInbox(Long userId, String after, int limit);
+
+    // Số notification chưa đọc của user (đọc từ bộ đếm trong bộ nhớ)
+    long getUnreadCount(Long userId);
+
+    // Đánh dấu đã đọc một notification của user
+    void markAsRead(Long userId, Long notificationId);
+
+    // Đánh dấu đã đọc toàn bộ, trả về số notification vừa chuyển sang đã đọc
+    int markAllAsRead(Long userId);
+
+    // Số liệu hàng đợi / độ trễ gửi của notification outbox
+    NotificationMetricsDTO getOutboxMetrics();
+}
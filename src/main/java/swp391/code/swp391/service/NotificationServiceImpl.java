@@ -0,0 +1,120 @@
+package swp391.code.swp391.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import swp391.code.swp391.dto.KeysetPageDTO;
+import swp391.code.swp391.dto.NotificationDTO;
+import swp391.code.swp391.dto.NotificationMetricsDTO;
+import swp391.code.swp391.entity.Notification;
+import swp391.code.swp391.entity.NotificationOutbox;
+import swp391.code.swp391.entity.User;
+import swp391.code.swp391.repository.NotificationRepository;
+import swp391.code.swp391.repository.UserRepository;
+
+import java.util.Date;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class NotificationServiceImpl implements NotificationService {
+
+    // Khóa keyset của inbox: "<sentTime epoch millis>_<notificationId>"
+    private static final char CURSOR_SEPARATOR = '_';
+
+    private final NotificationRepository notificationRepository;
+    private final UserRepository userRepository;
+    private final UnreadNotificationCounter unreadCounter;
+    private final NotificationPublisher notificationPublisher;
+    private final NotificationDispatcher notificationDispatcher;
+
+    @Override
+    public NotificationDTO createNotification(NotificationDTO notificationDTO) {
+        User user = userRepository.findById(notificationDTO.getUserId())
+                .orElseThrow(() -> new RuntimeException("User not found with id: " + notificationDTO.getUserId()));
+
+        Notification notification = new Notification();
+        notification.setUser(user);
+        notification.setContent(notificationDTO.getContent());
+        notification.setType(notificationDTO.getType());
+        notification.setSentTime(new Date());
+        Notification saved = notificationRepository.save(notification);
+
+        unreadCounter.increment(user.getUserId());
+        // Push tới thiết bị của user qua outbox, gửi ở nền sau khi commit
+        notificationPublisher.enqueue(NotificationOutbox.Channel.PUSH, String.valueOf(user.getUserId()),
+                saved.getType().name(), saved.getContent(), user.getUserId());
+        return convertToDTO(saved);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetPageDTO<NotificationDTO> getInbox(Long userId, String after, int limit) {
+        int pageSize = KeysetPageDTO.clampLimit(limit);
+        Limit rowLimit = Limit.of(pageSize + 1);
+        List<NotificationDTO> rows;
+        if (after == null || after.isBlank()) {
+            rows = notificationRepository.findInbox(userId, rowLimit);
+        } else {
+            int separator = after.indexOf(CURSOR_SEPARATOR);
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + after);
+            }
+            try {
+                Date sentTime = new Date(Long.parseLong(after.substring(0, separator)));
+                Long notificationId = Long.parseLong(after.substring(separator + 1));
+                rows = notificationRepository.findInboxAfter(userId, sentTime, notificationId, rowLimit);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + after);
+            }
+        }
+        return KeysetPageDTO.of(rows, pageSize, this::cursorOf);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long getUnreadCount(Long userId) {
+        return unreadCounter.getUnread(userId);
+    }
+
+    @Override
+    public void markAsRead(Long userId, Long notificationId) {
+        int updated = notificationRepository.markRead(userId, notificationId, new Date());
+        if (updated == 0) {
+            // Đã đọc trước đó thì bỏ qua, chỉ báo lỗi khi notification không thuộc user
+            if (!notificationRepository.existsByNotificationIdAndUserUserId(notificationId, userId)) {
+                throw new RuntimeException("Notification not found with id: " + notificationId);
+            }
+            return;
+        }
+        unreadCounter.decrement(userId, updated);
+    }
+
+    @Override
+    public int markAllAsRead(Long userId) {
+        int updated = notificationRepository.markAllRead(userId, new Date());
+        unreadCounter.decrement(userId, updated);
+        return updated;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public NotificationMetricsDTO getOutboxMetrics() {
+        return notificationDispatcher.getMetrics();
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private Object cursorOf(NotificationDTO notification) {
+        long sentTime = notification.getSentTime() != null ? notification.getSentTime().getTime() : 0;
+        return sentTime + String.valueOf(CURSOR_SEPARATOR) + notification.getNotificationId();
+    }
+
+    private NotificationDTO convertToDTO(Notification notification) {
+        return new NotificationDTO(notification.getNotificationId(), notification.getUser().getUserId(),
+                notification.getContent(), notification.getType(), notification.getSentTime(),
+                notification.getReadAt());
+    }
+}
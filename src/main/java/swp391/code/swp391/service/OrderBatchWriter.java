@@ -0,0 +1,196 @@
+package swp391.code.swp391.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import swp391.code.swp391.entity.Order;
+import swp391.code.swp391.repository.ChargingPointRepository;
+import swp391.code.swp391.repository.ChargingStationRepository;
+import swp391.code.swp391.repository.OrderRepository;
+import swp391.code.swp391.repository.UserRepository;
+import swp391.code.swp391.service.ChargingPointBookingIndex.Reservation;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ghi Order theo lô (group commit).
+ * Request đặt chỗ chỉ giữ khung giờ trong ChargingPointBookingIndex rồi đưa order vào hàng đợi;
+ * một worker duy nhất gom các order đang chờ và lưu trong một transaction.
+ * Nếu cả lô thất bại thì lưu lại từng order để một order lỗi không kéo theo cả lô.
+ * Order lưu thất bại sẽ được trả lại khung giờ.
+ * Lịch trong bộ nhớ chỉ chặn trùng trong một instance; trước khi lưu, worker khóa UPDLOCK các dòng trụ của lô
+ * và kiểm tra trùng với các order đã commit trong DB, nên hai instance không thể cùng giữ một khung giờ.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderBatchWriter {
+
+    // Order còn giữ chỗ trên trụ
+    private static final List<Order.Status> ACTIVE_STATUSES = List.of(Order.Status.BOOKED, Order.Status.CHARGING);
+
+    private final OrderRepository orderRepository;
+    private final UserRepository userRepository;
+    private final ChargingPointRepository chargingPointRepository;
+    private final ChargingStationRepository chargingStationRepository;
+    private final ChargingPointBookingIndex bookingIndex;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${booking.batch.max-size:100}")
+    private int maxBatchSize;
+
+    @Value("${booking.batch.queue-capacity:10000}")
+    private int queueCapacity;
+
+    private BlockingQueue<PendingOrder> queue;
+    private TransactionTemplate transactionTemplate;
+    private Thread worker;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        running = true;
+        worker = new Thread(this::run, "order-batch-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    // Đưa order vào hàng đợi ghi, future hoàn thành khi order đã được commit
+    public CompletableFuture<Order> submit(PendingOrder pendingOrder) {
+        if (!queue.offer(pendingOrder)) {
+            bookingIndex.release(pendingOrder.getReservation());
+            throw new RuntimeException("Booking queue is full, please retry later");
+        }
+        return pendingOrder.getFuture();
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private void run() {
+        // Tiếp tục chạy khi đang dừng cho tới khi hết order trong hàng đợi
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingOrder first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<PendingOrder> batch = new ArrayList<>(maxBatchSize);
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void write(List<PendingOrder> batch) {
+        try {
+            Map<PendingOrder, Order> saved = transactionTemplate.execute(status -> saveGuarded(batch));
+            batch.forEach(pendingOrder -> complete(pendingOrder, saved.get(pendingOrder)));
+        } catch (RuntimeException batchError) {
+            // Lưu lại từng order riêng lẻ
+            for (PendingOrder pendingOrder : batch) {
+                try {
+                    Map<PendingOrder, Order> saved = transactionTemplate.execute(
+                            status -> saveGuarded(List.of(pendingOrder)));
+                    complete(pendingOrder, saved.get(pendingOrder));
+                } catch (RuntimeException e) {
+                    bookingIndex.release(pendingOrder.getReservation());
+                    pendingOrder.getFuture().completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Lưu các order của lô không trùng lịch với order đã commit trong DB (kể cả order do instance khác ghi).
+     * Dòng trụ bị khóa UPDLOCK tới hết transaction, nên các instance đặt cùng một trụ phải lần lượt kiểm tra rồi lưu.
+     * @return pendingOrder -> order đã lưu; order bị trùng không có trong map
+     */
+    private Map<PendingOrder, Order> saveGuarded(List<PendingOrder> batch) {
+        Set<Long> chargingPointIds = new TreeSet<>();
+        batch.forEach(pendingOrder -> chargingPointIds.add(pendingOrder.getReservation().getChargingPointId()));
+        chargingPointRepository.lockForBooking(chargingPointIds);
+
+        List<PendingOrder> accepted = new ArrayList<>(batch.size());
+        List<Order> orders = new ArrayList<>(batch.size());
+        for (PendingOrder pendingOrder : batch) {
+            Reservation reservation = pendingOrder.getReservation();
+            if (!orderRepository.existsOverlapping(reservation.getChargingPointId(), ACTIVE_STATUSES,
+                    new Date(reservation.getStart()), new Date(reservation.getEnd()))) {
+                accepted.add(pendingOrder);
+                orders.add(toEntity(pendingOrder));
+            }
+        }
+        List<Order> saved = orderRepository.saveAll(orders);
+        Map<PendingOrder, Order> result = new IdentityHashMap<>();
+        for (int i = 0; i < accepted.size(); i++) {
+            result.put(accepted.get(i), saved.get(i));
+        }
+        return result;
+    }
+
+    // saved = null: khung giờ đã được giữ trong DB (thường bởi instance khác)
+    private void complete(PendingOrder pendingOrder, Order saved) {
+        if (saved == null) {
+            bookingIndex.release(pendingOrder.getReservation());
+            pendingOrder.getFuture().completeExceptionally(new RuntimeException("Charging point "
+                    + pendingOrder.getReservation().getChargingPointId() + " is already booked in this time window"));
+            return;
+        }
+        bookingIndex.attachOrder(pendingOrder.getReservation(), saved.getOrderId());
+        pendingOrder.getFuture().complete(saved);
+    }
+
+    private Order toEntity(PendingOrder pendingOrder) {
+        Reservation reservation = pendingOrder.getReservation();
+        Order order = new Order();
+        order.setUser(userRepository.getReferenceById(pendingOrder.getUserId()));
+        order.setChargingPoint(chargingPointRepository.getReferenceById(reservation.getChargingPointId()));
+        order.setStation(chargingStationRepository.getReferenceById(pendingOrder.getStationId()));
+        order.setStartTime(new Date(reservation.getStart()));
+        order.setEndTime(new Date(reservation.getEnd()));
+        order.setStartedBattery(pendingOrder.getStartedBattery());
+        order.setExpectedBattery(pendingOrder.getExpectedBattery());
+        order.setStatus(Order.Status.BOOKED);
+        return order;
+    }
+
+    // =============== INNER CLASSES ===============
+
+    @Getter
+    @AllArgsConstructor
+    public static final class PendingOrder {
+        private final Long userId;
+        private final Long stationId;
+        private final Reservation reservation;
+        private final Double startedBattery;
+        private final Double expectedBattery;
+        private final CompletableFuture<Order> future = new CompletableFuture<>();
+    }
+}
@@ -0,0 +1,34 @@
+package swp391.code.swp391.service;
+
+import swp391.code.swp391.dto.PriceFactorDTO;
+import swp391.code.swp391.dto.TariffSegmentDTO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface PriceFactorService {
+
+    // Tạo price factor mới
+    PriceFactorDTO createPriceFactor(PriceFactorDTO priceFactorDTO);
+
+    // Lấy price factor theo ID
+    PriceFactorDTO getPriceFactorById(Long priceFactorId);
+
+    // Lấy price factors theo station ID
+    List<PriceFactorDTO> getPriceFactorsByStationId(Long stationId);
+
+    // Cập nhật price factor
+    PriceFactorDTO updatePriceFactor(Long priceFactorId, PriceFactorDTO priceFactorDTO);
+
+    // Xóa price factor
+    void deletePriceFactor(Long priceFactorId);
+
+    // Hệ số giá của station tại thời điểm cho trước (đọc từ cache)
+    double getFactorAt(Long stationId, LocalDateTime time);
+
+    // Các đoạn hệ số giá của station trong khoảng [startTime, endTime) (đọc từ cache)
+    List<TariffSegmentDTO> getTariffTimeline(Long stationId, LocalDateTime startTime, LocalDateTime endTime);
+
+    // Nạp lại toàn bộ cache hệ số giá, trả về số station có price factor
+    int reloadTariffCache();
+}
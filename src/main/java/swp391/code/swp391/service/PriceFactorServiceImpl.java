@@ -0,0 +1,143 @@
+package swp391.code.swp391.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import swp391.code.swp391.dto.PriceFactorDTO;
+import swp391.code.swp391.dto.TariffSegmentDTO;
+import swp391.code.swp391.entity.ChargingStation;
+import swp391.code.swp391.entity.PriceFactor;
+import swp391.code.swp391.repository.ChargingStationRepository;
+import swp391.code.swp391.repository.PriceFactorRepository;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class PriceFactorServiceImpl implements PriceFactorService {
+
+    private final PriceFactorRepository priceFactorRepository;
+    private final ChargingStationRepository chargingStationRepository;
+    private final TariffCache tariffCache;
+
+    @Override
+    public PriceFactorDTO createPriceFactor(PriceFactorDTO priceFactorDTO) {
+        validateWindow(priceFactorDTO);
+        ChargingStation station = chargingStationRepository.findById(priceFactorDTO.getStationId())
+                .orElseThrow(() -> new RuntimeException("Charging station not found with id: " + priceFactorDTO.getStationId()));
+
+        PriceFactor priceFactor = new PriceFactor(null, station, priceFactorDTO.getFactor(),
+                priceFactorDTO.getStartTime(), priceFactorDTO.getEndTime(), priceFactorDTO.getDescription());
+        PriceFactor savedPriceFactor = priceFactorRepository.save(priceFactor);
+        tariffCache.invalidate(station.getStationId());
+        return convertToDTO(savedPriceFactor);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PriceFactorDTO getPriceFactorById(Long priceFactorId) {
+        PriceFactor priceFactor = priceFactorRepository.findById(priceFactorId)
+                .orElseThrow(() -> new RuntimeException("Price factor not found with id: " + priceFactorId));
+        return convertToDTO(priceFactor);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<PriceFactorDTO> getPriceFactorsByStationId(Long stationId) {
+        return priceFactorRepository.findByStationStationId(stationId).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public PriceFactorDTO updatePriceFactor(Long priceFactorId, PriceFactorDTO priceFactorDTO) {
+        validateWindow(priceFactorDTO);
+        PriceFactor existingPriceFactor = priceFactorRepository.findById(priceFactorId)
+                .orElseThrow(() -> new RuntimeException("Price factor not found with id: " + priceFactorId));
+
+        Long previousStationId = existingPriceFactor.getStation().getStationId();
+        if (priceFactorDTO.getStationId() != null && !priceFactorDTO.getStationId().equals(previousStationId)) {
+            ChargingStation station = chargingStationRepository.findById(priceFactorDTO.getStationId())
+                    .orElseThrow(() -> new RuntimeException("Charging station not found with id: " + priceFactorDTO.getStationId()));
+            existingPriceFactor.setStation(station);
+            tariffCache.invalidate(previousStationId);
+        }
+
+        existingPriceFactor.setFactor(priceFactorDTO.getFactor());
+        existingPriceFactor.setStartTime(priceFactorDTO.getStartTime());
+        existingPriceFactor.setEndTime(priceFactorDTO.getEndTime());
+        existingPriceFactor.setDescription(priceFactorDTO.getDescription());
+
+        PriceFactor updatedPriceFactor = priceFactorRepository.save(existingPriceFactor);
+        tariffCache.invalidate(updatedPriceFactor.getStation().getStationId());
+        return convertToDTO(updatedPriceFactor);
+    }
+
+    @Override
+    public void deletePriceFactor(Long priceFactorId) {
+        PriceFactor priceFactor = priceFactorRepository.findById(priceFactorId)
+                .orElseThrow(() -> new RuntimeException("Price factor not found with id: " + priceFactorId));
+        priceFactorRepository.delete(priceFactor);
+        tariffCache.invalidate(priceFactor.getStation().getStationId());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // Chỉ đọc từ cache
+    public double getFactorAt(Long stationId, LocalDateTime time) {
+        return tariffCache.factorAt(stationId, toMillis(time));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // Chỉ đọc từ cache
+    public List<TariffSegmentDTO> getTariffTimeline(Long stationId, LocalDateTime startTime, LocalDateTime endTime) {
+        if (!endTime.isAfter(startTime)) {
+            throw new RuntimeException("End time must be after start time");
+        }
+        return tariffCache.get(stationId).split(toMillis(startTime), toMillis(endTime)).stream()
+                .map(segment -> new TariffSegmentDTO(toLocalDateTime(segment.start()),
+                        toLocalDateTime(segment.end()), segment.factor()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int reloadTariffCache() {
+        return tariffCache.reload();
+    }
+
+    // Helper methods
+    private void validateWindow(PriceFactorDTO priceFactorDTO) {
+        if (priceFactorDTO.getStartTime() == null || priceFactorDTO.getEndTime() == null
+                || !priceFactorDTO.getEndTime().isAfter(priceFactorDTO.getStartTime())) {
+            throw new RuntimeException("End time must be after start time");
+        }
+        if (priceFactorDTO.getFactor() == null || priceFactorDTO.getFactor() <= 0) {
+            throw new RuntimeException("Factor must be positive");
+        }
+    }
+
+    private long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    private PriceFactorDTO convertToDTO(PriceFactor priceFactor) {
+        PriceFactorDTO dto = new PriceFactorDTO();
+        dto.setPriceFactorId(priceFactor.getPriceFactorId());
+        dto.setStationId(priceFactor.getStation() != null ? priceFactor.getStation().getStationId() : null);
+        dto.setFactor(priceFactor.getFactor());
+        dto.setStartTime(priceFactor.getStartTime());
+        dto.setEndTime(priceFactor.getEndTime());
+        dto.setDescription(priceFactor.getDescription());
+        return dto;
+    }
+}
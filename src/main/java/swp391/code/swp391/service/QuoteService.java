@@ -0,0 +1,17 @@
+package swp391.code.swp391.service;
+
+import swp391.code.swp391.dto.QuoteDTO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface QuoteService {
+
+    // Báo giá cho mọi charging point tương thích với vehicle tại một station
+    List<QuoteDTO> quoteStation(Long stationId, String plateNumber, double startedBattery,
+                                double expectedBattery, LocalDateTime startTime);
+
+    // Báo giá cho mọi charging point tương thích với vehicle tại các station trong bán kính
+    List<QuoteDTO> quoteNearby(double latitude, double longitude, double radiusKm, String plateNumber,
+                               double startedBattery, double expectedBattery, LocalDateTime startTime);
+}
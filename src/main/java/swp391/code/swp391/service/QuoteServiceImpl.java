@@ -0,0 +1,139 @@
+package swp391.code.swp391.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import swp391.code.swp391.dto.QuoteDTO;
+import swp391.code.swp391.entity.ChargingPoint.ChargingPointStatus;
+import swp391.code.swp391.entity.ChargingStation.ChargingStationStatus;
+import swp391.code.swp391.service.ConnectorCompatibilityIndex.VehicleProfile;
+import swp391.code.swp391.service.ConnectorTypeCache.ConnectorTypeInfo;
+import swp391.code.swp391.service.StationGeoIndex.NearbyStation;
+import swp391.code.swp391.service.StationGeoIndex.StationLocation;
+import swp391.code.swp391.service.TariffCache.Segment;
+import swp391.code.swp391.service.TariffCache.Timeline;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Báo giá trước khi đặt chỗ.
+ * Mọi dữ liệu đều đọc từ bộ nhớ, không mở transaction và không lấy connection:
+ * hồ sơ xe (connector types, dung lượng pin) từ ConnectorCompatibilityIndex (chỉ truy vấn DB lần đầu gặp xe),
+ * trụ và trạng thái từ ChargingPointAvailabilityRegistry, công suất/giá từ ConnectorTypeCache,
+ * hệ số giá từ TariffCache, thông tin trạm từ StationGeoIndex.
+ */
+@Service
+@RequiredArgsConstructor
+public class QuoteServiceImpl implements QuoteService {
+
+    // Giới hạn số trạm cho một lần báo giá theo khu vực
+    private static final int MAX_NEARBY_STATIONS = 50;
+    private static final double MILLIS_PER_HOUR = 3_600_000.0;
+
+    private final ConnectorCompatibilityIndex compatibilityIndex;
+    private final ChargingPointAvailabilityRegistry availabilityRegistry;
+    private final ConnectorTypeCache connectorTypeCache;
+    private final TariffCache tariffCache;
+    private final StationGeoIndex stationGeoIndex;
+
+    @Override
+    public List<QuoteDTO> quoteStation(Long stationId, String plateNumber, double startedBattery,
+                                       double expectedBattery, LocalDateTime startTime) {
+        StationLocation station = stationGeoIndex.get(stationId);
+        if (station == null) {
+            throw new RuntimeException("Charging station not found with id: " + stationId);
+        }
+        VehicleQuote vehicle = loadVehicle(plateNumber, startedBattery, expectedBattery);
+        List<QuoteDTO> quotes = new ArrayList<>();
+        quoteStation(station, null, vehicle, toMillis(startTime), quotes);
+        quotes.sort(Comparator.comparingDouble(QuoteDTO::getEstimatedCost));
+        return quotes;
+    }
+
+    @Override
+    public List<QuoteDTO> quoteNearby(double latitude, double longitude, double radiusKm, String plateNumber,
+                                      double startedBattery, double expectedBattery, LocalDateTime startTime) {
+        VehicleQuote vehicle = loadVehicle(plateNumber, startedBattery, expectedBattery);
+        long start = toMillis(startTime);
+        List<QuoteDTO> quotes = new ArrayList<>();
+        for (NearbyStation nearby : stationGeoIndex.findNearby(latitude, longitude, radiusKm, MAX_NEARBY_STATIONS)) {
+            quoteStation(nearby.getLocation(), nearby.getDistanceKm(), vehicle, start, quotes);
+        }
+        quotes.sort(Comparator.comparingDouble(QuoteDTO::getEstimatedCost)
+                .thenComparingDouble(QuoteDTO::getDistanceKm));
+        return quotes;
+    }
+
+    // Helper methods
+    private VehicleQuote loadVehicle(String plateNumber, double startedBattery, double expectedBattery) {
+        if (startedBattery < 0 || expectedBattery > 100 || startedBattery >= expectedBattery) {
+            throw new RuntimeException("Battery levels must satisfy 0 <= startedBattery < expectedBattery <= 100");
+        }
+        VehicleProfile vehicle = compatibilityIndex.getVehicleProfile(plateNumber);
+        if (vehicle == null) {
+            throw new RuntimeException("Vehicle not found with plate number: " + plateNumber);
+        }
+        double energyKwh = vehicle.capacity() * (expectedBattery - startedBattery) / 100.0;
+        return new VehicleQuote(vehicle, energyKwh);
+    }
+
+    // Báo giá các trụ tương thích của một trạm, trụ cùng connector type dùng chung kết quả tính
+    private void quoteStation(StationLocation station, Double distanceKm, VehicleQuote vehicle, long start,
+                              List<QuoteDTO> quotes) {
+        if (station.getStatus() != ChargingStationStatus.ACTIVE) {
+            return;
+        }
+        Timeline tariff = tariffCache.get(station.getStationId());
+        Map<Long, double[]> estimates = new HashMap<>();
+
+        for (Long chargingPointId : availabilityRegistry.getChargingPointIds(station.getStationId())) {
+            ChargingPointStatus status = availabilityRegistry.getStatus(chargingPointId);
+            if (status != ChargingPointStatus.AVAILABLE && status != ChargingPointStatus.OCCUPIED) {
+                continue;
+            }
+            ConnectorTypeInfo connectorType = connectorTypeCache.get(availabilityRegistry.getConnectorTypeId(chargingPointId));
+            if (connectorType == null || connectorType.getPowerOutput() <= 0
+                    || !vehicle.profile().supports(connectorType.getTypeName())) {
+                continue;
+            }
+
+            double[] estimate = estimates.computeIfAbsent(connectorType.getConnectorTypeId(),
+                    id -> estimate(connectorType, vehicle.energyKwh(), start, tariff));
+            quotes.add(new QuoteDTO(chargingPointId, station.getStationId(), station.getStationName(), distanceKm,
+                    connectorType.getTypeName(), status, connectorType.getPowerOutput(),
+                    connectorType.getPricePerKwh(), vehicle.energyKwh(), estimate[0], estimate[1]));
+        }
+    }
+
+    /**
+     * Ước tính thời gian và chi phí khi sạc với công suất không đổi:
+     * khoảng sạc được cắt theo các khung hệ số giá, mỗi đoạn tính số kWh sạc được nhân giá và hệ số.
+     * @return {durationMinutes, estimatedCost}
+     */
+    private double[] estimate(ConnectorTypeInfo connectorType, double energyKwh, long start, Timeline tariff) {
+        double powerKw = connectorType.getPowerOutput();
+        long durationMillis = (long) Math.ceil(energyKwh / powerKw * MILLIS_PER_HOUR);
+        double cost = 0;
+        for (Segment segment : tariff.split(start, start + durationMillis)) {
+            double segmentEnergy = (segment.end() - segment.start()) / MILLIS_PER_HOUR * powerKw;
+            cost += segmentEnergy * connectorType.getPricePerKwh() * segment.factor();
+        }
+        return new double[]{durationMillis / 60_000.0, cost};
+    }
+
+    private long toMillis(LocalDateTime time) {
+        if (time == null) {
+            return System.currentTimeMillis();
+        }
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    // Hồ sơ xe và số kWh cần sạc của lần báo giá
+    private record VehicleQuote(VehicleProfile profile, double energyKwh) {
+    }
+}
@@ -0,0 +1,75 @@
+package swp391.code.swp391.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * VerificationCodeStore trên Redis (hoặc server tương thích Redis) để nhiều node dùng chung mã xác thực.
+ * Mỗi mã là một key có TTL, Redis tự xóa khi hết hạn. Các mã của user nằm trong một sorted set
+ * (score là thời điểm hết hạn) để giới hạn số mã đang chờ. Thêm mã chạy bằng một Lua script nên là nguyên tử.
+ * Key dùng hash tag {userId} để các key của một user nằm cùng slot khi chạy Redis Cluster.
+ */
+@Component
+@ConditionalOnProperty(name = "verification.store", havingValue = "redis")
+@RequiredArgsConstructor
+public class RedisVerificationCodeStore implements VerificationCodeStore {
+
+    private static final String KEY_PREFIX = "verification:{";
+
+    // KEYS[1] = key của mã, KEYS[2] = sorted set của user; ARGV = mã, ttl (ms), now (ms), số mã tối đa
+    private static final RedisScript<Long> PUT_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', ARGV[3]) "
+                    + "redis.call('ZREM', KEYS[2], KEYS[1]) "
+                    + "local excess = redis.call('ZCARD', KEYS[2]) - tonumber(ARGV[4]) + 1 "
+                    + "if excess > 0 then "
+                    + "  for _, k in ipairs(redis.call('ZRANGE', KEYS[2], 0, excess - 1)) do redis.call('DEL', k) end "
+                    + "  redis.call('ZREMRANGEBYRANK', KEYS[2], 0, excess - 1) "
+                    + "end "
+                    + "redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2]) "
+                    + "redis.call('ZADD', KEYS[2], tonumber(ARGV[3]) + tonumber(ARGV[2]), KEYS[1]) "
+                    + "redis.call('PEXPIRE', KEYS[2], ARGV[2]) "
+                    + "return 1",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${verification.max-codes-per-user:3}")
+    private int maxCodesPerUser;
+
+    @Override
+    public void put(VerificationKey key, String code, Duration ttl) {
+        redisTemplate.execute(PUT_SCRIPT, List.of(codeKey(key), userKey(key.userId())),
+                code, String.valueOf(ttl.toMillis()), String.valueOf(System.currentTimeMillis()),
+                String.valueOf(maxCodesPerUser));
+    }
+
+    @Override
+    public String get(VerificationKey key) {
+        return redisTemplate.opsForValue().get(codeKey(key));
+    }
+
+    @Override
+    public void remove(VerificationKey key) {
+        String codeKey = codeKey(key);
+        redisTemplate.delete(codeKey);
+        redisTemplate.opsForZSet().remove(userKey(key.userId()), codeKey);
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private static String codeKey(VerificationKey key) {
+        return KEY_PREFIX + key.userId() + "}:" + key.channel().name() + ":" + key.target();
+    }
+
+    private static String userKey(long userId) {
+        return KEY_PREFIX + userId + "}";
+    }
+}
@@ -0,0 +1,360 @@
+package swp391.code.swp391.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import swp391.code.swp391.entity.Revenue;
+import swp391.code.swp391.entity.Revenue.Granularity;
+import swp391.code.swp391.entity.Transaction;
+import swp391.code.swp391.repository.ChargingStationRepository;
+import swp391.code.swp391.repository.RevenueRepository;
+import swp391.code.swp391.repository.TransactionRepository;
+import swp391.code.swp391.utils.LongRollupMap;
+import swp391.code.swp391.utils.TransactionUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Tổng hợp doanh thu tăng dần theo trạm và theo giờ / ngày / tháng.
+ * - Mỗi Transaction SUCCESS được cộng vào ba bucket của trạm ngay khi settlement commit; bucket nằm trong
+ *   LongRollupMap (key long là chỉ số giờ/ngày/tháng), nên truy vấn dashboard chỉ tốn O(số bucket trong khoảng)
+ *   dù lịch sử giao dịch dài tới đâu.
+ * - Bucket thay đổi được ghi xuống bảng Revenue theo lịch (giá trị tuyệt đối, ghi lại nhiều lần vẫn đúng).
+ * - Khi khởi động hoặc khi admin yêu cầu, toàn bộ bucket được dựng lại bằng cách chia bảng Transaction theo
+ *   khoảng id và quét song song; giao dịch mới phát sinh trong lúc dựng lại được áp dụng lại khi thay thế.
+ * Chỉ đúng khi chỉ có một instance chạy settlement.
+ */
+@Component
+@RequiredArgsConstructor
+public class RevenueAggregator {
+
+    // Giới hạn số bucket cho một lần truy vấn
+    public static final int MAX_BUCKETS = 5000;
+
+    private final TransactionRepository transactionRepository;
+    private final RevenueRepository revenueRepository;
+    private final ChargingStationRepository chargingStationRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${revenue.rebuild.threads:4}")
+    private int rebuildThreads;
+
+    @Value("${revenue.rebuild.chunk-size:50000}")
+    private long rebuildChunkSize;
+
+    // stationId -> các bucket doanh thu của trạm
+    private volatile Map<Long, StationRollup> stations = new ConcurrentHashMap<>();
+    // Khóa ghi chỉ dùng khi thay thế toàn bộ bảng sau rebuild
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    // Chỉ một lần rebuild tại một thời điểm (ReentrantLock, không ghim carrier thread khi chạy trên virtual thread)
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    // Giao dịch ghi nhận trong lúc đang rebuild, null khi không rebuild
+    private volatile ConcurrentLinkedQueue<Entry> liveEntries;
+
+    // Dựng lại doanh thu khi ứng dụng khởi động
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        rebuild();
+    }
+
+    // Ghi nhận doanh thu sau khi transaction hiện tại commit
+    public void recordAfterCommit(Long transactionId, Long stationId, LocalDateTime at, double amount) {
+        TransactionUtils.afterCommit(() -> record(new Entry(transactionId, stationId, at, amount)));
+    }
+
+    // Xóa doanh thu trong bộ nhớ của trạm (khi trạm bị xóa)
+    public void removeStation(Long stationId) {
+        TransactionUtils.afterCommit(() -> stations.remove(stationId));
+    }
+
+    /**
+     * Dựng lại toàn bộ bucket từ bảng Transaction bằng nhiều luồng, mỗi luồng quét một khoảng id.
+     * @return số giao dịch đã quét
+     */
+    public long rebuild() {
+        rebuildLock.lock();
+        liveEntries = new ConcurrentLinkedQueue<>();
+        try {
+            Object[] range = transactionRepository.findIdRange().get(0);
+            long minId = ((Number) range[0]).longValue();
+            long maxId = ((Number) range[1]).longValue();
+
+            Map<Long, StationRollup> rebuilt = new HashMap<>();
+            long scanned = 0;
+            if (maxId > 0) {
+                ExecutorService executor = Executors.newFixedThreadPool(rebuildThreads,
+                        new CustomizableThreadFactory("revenue-rebuild-"));
+                try {
+                    List<CompletableFuture<Partial>> futures = new ArrayList<>();
+                    for (long from = minId - 1; from < maxId; from += rebuildChunkSize) {
+                        long chunkFrom = from;
+                        long chunkTo = Math.min(maxId, from + rebuildChunkSize);
+                        futures.add(CompletableFuture.supplyAsync(() -> scan(chunkFrom, chunkTo), executor));
+                    }
+                    for (CompletableFuture<Partial> future : futures) {
+                        Partial partial = future.join();
+                        scanned += partial.rows();
+                        partial.stations().forEach((stationId, rollup) ->
+                                rebuilt.computeIfAbsent(stationId, StationRollup::new).addAll(rollup));
+                    }
+                } finally {
+                    executor.shutdown();
+                }
+            }
+
+            swapLock.writeLock().lock();
+            try {
+                // Giao dịch có id lớn hơn maxId phát sinh sau khi bắt đầu quét, chưa có trong kết quả
+                Map<Long, StationRollup> swapped = new ConcurrentHashMap<>(rebuilt);
+                for (Entry entry : liveEntries) {
+                    if (entry.transactionId() > maxId) {
+                        swapped.computeIfAbsent(entry.stationId(), StationRollup::new).add(entry.at(), entry.amount());
+                    }
+                }
+                swapped.values().forEach(StationRollup::markAllDirty);
+                stations = swapped;
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+            return scanned;
+        } finally {
+            liveEntries = null;
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Doanh thu của trạm theo từng bucket trong [from, to], chỉ trả các bucket có giao dịch.
+     * Tra trực tiếp từng bucket nên tốn O(số bucket trong khoảng).
+     */
+    public List<Bucket> query(Long stationId, Granularity granularity, LocalDateTime from, LocalDateTime to) {
+        long first = bucketOf(granularity, from);
+        long last = bucketOf(granularity, to);
+        checkRange(first, last);
+        StationRollup rollup = stations.get(stationId);
+        List<Bucket> buckets = new ArrayList<>();
+        if (rollup == null) {
+            return buckets;
+        }
+        synchronized (rollup) {
+            LongRollupMap map = rollup.map(granularity);
+            for (long key = first; key <= last; key++) {
+                if (map.contains(key)) {
+                    buckets.add(new Bucket(stationId, granularity, bucketStart(granularity, key),
+                            map.amount(key), map.count(key)));
+                }
+            }
+        }
+        return buckets;
+    }
+
+    // Tổng doanh thu của từng trạm trong [from, to], O(số trạm × số bucket)
+    public List<Bucket> summary(Granularity granularity, LocalDateTime from, LocalDateTime to) {
+        long first = bucketOf(granularity, from);
+        long last = bucketOf(granularity, to);
+        checkRange(first, last);
+        List<Bucket> totals = new ArrayList<>();
+        for (StationRollup rollup : stations.values()) {
+            double amount = 0;
+            long count = 0;
+            synchronized (rollup) {
+                LongRollupMap map = rollup.map(granularity);
+                for (long key = first; key <= last; key++) {
+                    amount += map.amount(key);
+                    count += map.count(key);
+                }
+            }
+            if (count > 0) {
+                totals.add(new Bucket(rollup.stationId, granularity, bucketStart(granularity, first), amount, count));
+            }
+        }
+        return totals;
+    }
+
+    // Ghi các bucket đã thay đổi xuống bảng Revenue
+    @Scheduled(fixedDelayString = "${revenue.flush-interval-ms:60000}")
+    public void flush() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        for (StationRollup rollup : stations.values()) {
+            for (Granularity granularity : Granularity.values()) {
+                Map<Date, double[]> dirty = new HashMap<>();
+                Map<Date, Long> keys = new HashMap<>();
+                synchronized (rollup) {
+                    rollup.map(granularity).forEachDirty((key, amount, count) -> {
+                        Date period = toDate(bucketStart(granularity, key));
+                        dirty.put(period, new double[]{amount, count});
+                        keys.put(period, key);
+                    });
+                }
+                if (dirty.isEmpty()) {
+                    continue;
+                }
+                try {
+                    transactionTemplate.executeWithoutResult(status -> write(rollup.stationId, granularity, dirty));
+                } catch (RuntimeException e) {
+                    // Ghi lại ở lần flush sau
+                    synchronized (rollup) {
+                        keys.values().forEach(key -> rollup.map(granularity).markDirty(key));
+                    }
+                }
+            }
+        }
+    }
+
+    public int getStationCount() {
+        return stations.size();
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private void record(Entry entry) {
+        swapLock.readLock().lock();
+        try {
+            stations.computeIfAbsent(entry.stationId(), StationRollup::new).add(entry.at(), entry.amount());
+            ConcurrentLinkedQueue<Entry> pending = liveEntries;
+            if (pending != null) {
+                pending.add(entry);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private Partial scan(long fromId, long toId) {
+        Map<Long, StationRollup> partial = new HashMap<>();
+        List<Object[]> rows = transactionRepository.findRevenueRows(Transaction.Status.SUCCESS, fromId, toId);
+        for (Object[] row : rows) {
+            if (row[1] == null || row[2] == null) {
+                continue;
+            }
+            partial.computeIfAbsent((Long) row[0], StationRollup::new)
+                    .add((LocalDateTime) row[1], ((Number) row[2]).doubleValue());
+        }
+        return new Partial(partial, rows.size());
+    }
+
+    private void write(Long stationId, Granularity granularity, Map<Date, double[]> dirty) {
+        // Period đọc từ DB là java.sql.Timestamp nên so khớp theo epoch millis
+        Map<Long, Revenue> existing = new HashMap<>();
+        for (Revenue revenue : revenueRepository.findByStationStationIdAndGranularityAndPeriodIn(
+                stationId, granularity, dirty.keySet())) {
+            existing.put(revenue.getPeriod().getTime(), revenue);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Revenue> revenues = new ArrayList<>(dirty.size());
+        dirty.forEach((period, values) -> {
+            Revenue revenue = existing.get(period.getTime());
+            if (revenue == null) {
+                revenue = new Revenue();
+                revenue.setStation(chargingStationRepository.getReferenceById(stationId));
+                revenue.setGranularity(granularity);
+                revenue.setPeriod(period);
+            }
+            revenue.setAmount(values[0]);
+            revenue.setTransactionCount((long) values[1]);
+            revenue.setUpdatedAt(now);
+            revenues.add(revenue);
+        });
+        revenueRepository.saveAll(revenues);
+    }
+
+    private static void checkRange(long first, long last) {
+        if (last < first) {
+            throw new RuntimeException("End of range must not be before start");
+        }
+        if (last - first >= MAX_BUCKETS) {
+            throw new RuntimeException("Range covers more than " + MAX_BUCKETS + " buckets");
+        }
+    }
+
+    // Chỉ số bucket: số giờ / số ngày kể từ epoch, hoặc năm * 12 + tháng
+    static long bucketOf(Granularity granularity, LocalDateTime time) {
+        return switch (granularity) {
+            case HOUR -> time.toLocalDate().toEpochDay() * 24 + time.getHour();
+            case DAY -> time.toLocalDate().toEpochDay();
+            case MONTH -> time.getYear() * 12L + time.getMonthValue() - 1;
+        };
+    }
+
+    static LocalDateTime bucketStart(Granularity granularity, long key) {
+        return switch (granularity) {
+            case HOUR -> LocalDate.ofEpochDay(Math.floorDiv(key, 24)).atTime((int) Math.floorMod(key, 24), 0);
+            case DAY -> LocalDate.ofEpochDay(key).atStartOfDay();
+            case MONTH -> LocalDate.of((int) Math.floorDiv(key, 12), (int) Math.floorMod(key, 12) + 1, 1).atStartOfDay();
+        };
+    }
+
+    private static Date toDate(LocalDateTime time) {
+        return Date.from(time.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    // =============== INNER CLASSES ===============
+
+    private record Entry(Long transactionId, Long stationId, LocalDateTime at, double amount) {
+    }
+
+    private record Partial(Map<Long, StationRollup> stations, long rows) {
+    }
+
+    // Doanh thu của một bucket (hoặc tổng của một khoảng trong summary)
+    public record Bucket(Long stationId, Granularity granularity, LocalDateTime period, double amount, long count) {
+    }
+
+    // Các bucket của một trạm, mọi truy cập đồng bộ trên chính object
+    private static final class StationRollup {
+        private final Long stationId;
+        private final LongRollupMap hours = new LongRollupMap(256);
+        private final LongRollupMap days = new LongRollupMap(64);
+        private final LongRollupMap months = new LongRollupMap(16);
+
+        StationRollup(Long stationId) {
+            this.stationId = stationId;
+        }
+
+        synchronized void add(LocalDateTime at, double amount) {
+            hours.add(bucketOf(Granularity.HOUR, at), amount, 1);
+            days.add(bucketOf(Granularity.DAY, at), amount, 1);
+            months.add(bucketOf(Granularity.MONTH, at), amount, 1);
+        }
+
+        synchronized void addAll(StationRollup other) {
+            hours.addAll(other.hours);
+            days.addAll(other.days);
+            months.addAll(other.months);
+        }
+
+        synchronized void markAllDirty() {
+            hours.markAllDirty();
+            days.markAllDirty();
+            months.markAllDirty();
+        }
+
+        LongRollupMap map(Granularity granularity) {
+            return switch (granularity) {
+                case HOUR -> hours;
+                case DAY -> days;
+                case MONTH -> months;
+            };
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package swp391.code.swp391.service;
+
+import swp391.code.swp391.dto.RevenueDTO;
+import swp391.code.swp391.entity.Revenue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface RevenueService {
+
+    // Doanh thu của station theo từng giờ / ngày / tháng trong khoảng thời gian
+    List<RevenueDTO> getStationRevenue(Long stationId, Revenue.Granularity granularity,
+                                       LocalDateTime from, LocalDateTime to);
+
+    // Tổng doanh thu của từng station trong khoảng thời gian
+    List<RevenueDTO> getRevenueSummary(Revenue.Granularity granularity, LocalDateTime from, LocalDateTime to);
+
+    // Dựng lại toàn bộ doanh thu từ bảng Transaction, trả về số giao dịch đã quét
+    long rebuildRevenue();
+}
@@ -0,0 +1,54 @@
+package swp391.code.swp391.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import swp391.code.swp391.dto.RevenueDTO;
+import swp391.code.swp391.entity.Revenue;
+import swp391.code.swp391.service.RevenueAggregator.Bucket;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Đọc doanh thu từ RevenueAggregator trong bộ nhớ, không truy vấn DB.
+ */
+@Service
+@RequiredArgsConstructor
+public class RevenueServiceImpl implements RevenueService {
+
+    private final RevenueAggregator revenueAggregator;
+
+    @Override
+    public List<RevenueDTO> getStationRevenue(Long stationId, Revenue.Granularity granularity,
+                                              LocalDateTime from, LocalDateTime to) {
+        return revenueAggregator.query(stationId, granularity, from, to).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<RevenueDTO> getRevenueSummary(Revenue.Granularity granularity, LocalDateTime from, LocalDateTime to) {
+        return revenueAggregator.summary(granularity, from, to).stream()
+                .sorted(Comparator.comparingDouble(Bucket::amount).reversed())
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public long rebuildRevenue() {
+        return revenueAggregator.rebuild();
+    }
+
+    // Helper methods
+    private RevenueDTO convertToDTO(Bucket bucket) {
+        return new RevenueDTO(
+                bucket.stationId(),
+                bucket.granularity(),
+                bucket.period(),
+                bucket.amount(),
+                bucket.count()
+        );
+    }
+}
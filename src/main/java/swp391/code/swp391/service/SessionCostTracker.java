@@ -0,0 +1,174 @@
+package swp391.code.swp391.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import swp391.code.swp391.service.TariffCache.Timeline;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tính tiền sạc tăng dần trong lúc session đang chạy.
+ * Khi session bắt đầu, giá pricePerKwh của connector và timeline hệ số giá của trạm (TariffCache) được
+ * giữ trong một RunningCost, giá được chốt tại thời điểm bắt đầu. Mỗi mẫu đo chỉ cộng phần kWh tăng thêm
+ * nhân với giá và hệ số của khung giờ hiện tại; con trỏ khung giờ chỉ tiến về phía trước vì mẫu theo
+ * thứ tự thời gian, nên mỗi mẫu tốn O(1) và không tạo object.
+ * Phí phạt quá giờ (PENALTY) được tính từ thời điểm hết khung giờ đã đặt, cũng O(1) khi đọc.
+ * Mốc tính kWh là chỉ số công tơ ghi lúc bắt đầu session, không phải mẫu đầu tiên nhận được.
+ * Khi kết thúc session, chi phí được chốt (finish): mẫu gửi tới sau đó bị từ chối thay vì được nhận mà không tính tiền.
+ */
+@Component
+public class SessionCostTracker {
+
+    // Số phút được ở lại sau khi hết giờ đặt trước khi bị tính phí phạt
+    @Value("${charging.penalty.grace-minutes:10}")
+    private long penaltyGraceMinutes;
+
+    // Phí phạt mỗi phút quá giờ
+    @Value("${charging.penalty.per-minute:1000}")
+    private double penaltyPerMinute;
+
+    // sessionId -> chi phí đang chạy
+    private final Map<Long, RunningCost> active = new ConcurrentHashMap<>();
+
+    /**
+     * Bắt đầu theo dõi chi phí của session.
+     * @param meterStart chỉ số công tơ (kWh) lúc bắt đầu session
+     * @param bookedEnd thời điểm hết khung giờ đã đặt (epoch millis), null nếu không tính phí phạt
+     */
+    public RunningCost open(Long sessionId, long startTime, double meterStart, double pricePerKwh,
+                            Timeline tariff, Long bookedEnd) {
+        RunningCost cost = new RunningCost(startTime, meterStart, pricePerKwh, tariff,
+                bookedEnd != null ? bookedEnd + penaltyGraceMinutes * 60_000L : Long.MAX_VALUE,
+                penaltyPerMinute);
+        active.put(sessionId, cost);
+        return cost;
+    }
+
+    // Ghi nhận mẫu đo mới, false nếu session không còn được theo dõi hoặc mẫu bị từ chối
+    public boolean onSample(Long sessionId, long timestamp, double energyKwh) {
+        RunningCost cost = active.get(sessionId);
+        return cost != null && cost.onSample(timestamp, energyKwh);
+    }
+
+    public RunningCost get(Long sessionId) {
+        return active.get(sessionId);
+    }
+
+    // Ngừng theo dõi session
+    public RunningCost close(Long sessionId) {
+        return active.remove(sessionId);
+    }
+
+    public int getActiveCount() {
+        return active.size();
+    }
+
+    // =============== INNER CLASSES ===============
+
+    /**
+     * Chi phí đang chạy của một session. Các phương thức được đồng bộ trên chính object,
+     * mỗi session chỉ có một trụ gửi mẫu nên gần như không có tranh chấp.
+     */
+    public static final class RunningCost {
+        private final long startTime;
+        private final double pricePerKwh;
+        private final Timeline tariff;
+        private final long penaltyFrom;
+        private final double penaltyPerMinute;
+
+        private final double startEnergy;
+
+        private int cursor;
+        private double lastEnergy;
+        private long lastTimestamp;
+        private double energyCost;
+        // Thời điểm kết thúc session, Long.MAX_VALUE khi đang sạc
+        private long endTime = Long.MAX_VALUE;
+
+        private RunningCost(long startTime, double meterStart, double pricePerKwh, Timeline tariff,
+                            long penaltyFrom, double penaltyPerMinute) {
+            this.startTime = startTime;
+            this.startEnergy = meterStart;
+            this.lastEnergy = meterStart;
+            this.pricePerKwh = pricePerKwh;
+            this.tariff = tariff;
+            this.cursor = Math.max(0, tariff.indexOf(startTime));
+            this.penaltyFrom = penaltyFrom;
+            this.penaltyPerMinute = penaltyPerMinute;
+            this.lastTimestamp = startTime;
+        }
+
+        /**
+         * energyKwh là chỉ số công tơ của trụ, chỉ phần tăng thêm so với mẫu trước (hoặc chỉ số lúc bắt đầu)
+         * được tính tiền.
+         * @return false nếu mẫu bị từ chối: cũ hơn mẫu trước, hoặc session đã được chốt
+         */
+        public synchronized boolean onSample(long timestamp, double energyKwh) {
+            if (timestamp < lastTimestamp || endTime != Long.MAX_VALUE) {
+                return false;
+            }
+            double delta = energyKwh - lastEnergy;
+            if (delta > 0) {
+                energyCost += delta * pricePerKwh * factorAt(timestamp);
+                lastEnergy = energyKwh;
+            }
+            lastTimestamp = timestamp;
+            return true;
+        }
+
+        // Chốt chi phí khi kết thúc session, các mẫu gửi tới sau đó bị từ chối
+        public synchronized void finish(long at) {
+            endTime = at;
+        }
+
+        // Mở lại khi transaction kết thúc session bị rollback
+        public synchronized void reopen() {
+            endTime = Long.MAX_VALUE;
+        }
+
+        public synchronized boolean isFinished() {
+            return endTime != Long.MAX_VALUE;
+        }
+
+        // Số kWh đã sạc từ đầu session
+        public synchronized double getEnergyKwh() {
+            return lastEnergy - startEnergy;
+        }
+
+        public synchronized double getEnergyCost() {
+            return energyCost;
+        }
+
+        // Phí phạt quá giờ tính tới thời điểm cho trước
+        public double getPenaltyCost(long at) {
+            if (at <= penaltyFrom) {
+                return 0;
+            }
+            return Math.ceil((at - penaltyFrom) / 60_000.0) * penaltyPerMinute;
+        }
+
+        public synchronized double getTotalCost(long at) {
+            return energyCost + getPenaltyCost(at);
+        }
+
+        public long getStartTime() {
+            return startTime;
+        }
+
+        public synchronized long getLastTimestamp() {
+            return lastTimestamp;
+        }
+
+        // Con trỏ chỉ tiến về phía trước: tổng số bước trong cả session bằng số khung giờ
+        private double factorAt(long timestamp) {
+            while (cursor < tariff.size() && tariff.end(cursor) <= timestamp) {
+                cursor++;
+            }
+            if (cursor < tariff.size() && tariff.start(cursor) <= timestamp) {
+                return tariff.factor(cursor);
+            }
+            return TariffCache.DEFAULT_FACTOR;
+        }
+    }
+}
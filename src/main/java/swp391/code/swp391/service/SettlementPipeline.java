@@ -0,0 +1,349 @@
+package swp391.code.swp391.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import swp391.code.swp391.dto.SettlementMetricsDTO;
+import swp391.code.swp391.entity.Order;
+import swp391.code.swp391.entity.Transaction;
+import swp391.code.swp391.entity.WalletTransaction;
+import swp391.code.swp391.repository.SessionRepository;
+import swp391.code.swp391.repository.TransactionRepository;
+import swp391.code.swp391.repository.WalletRepository;
+import swp391.code.swp391.service.WalletLedger.Posting;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Quyết toán session đã kết thúc thành Transaction và WalletTransaction PAYMENT.
+ * - endSession chỉ đưa yêu cầu vào hàng đợi có giới hạn sau khi commit; một worker gom thành lô
+ *   (tối đa max-size yêu cầu hoặc chờ tối đa max-wait-ms kể từ yêu cầu đầu tiên) và ghi cả lô trong một
+ *   transaction bằng JDBC batch insert, nên đỉnh kết thúc session không biến thành đỉnh truy vấn trên DB.
+ * - Mỗi session có idempotency key "session:{sessionId}" (unique index trên Transaction): yêu cầu trùng trong
+ *   lô, trong hàng đợi hay sau khi khởi động lại đều bị bỏ qua.
+ * - Thanh toán bằng wallet đầu tiên của user qua WalletLedger: đủ số dư thì SUCCESS, thiếu thì FAILED;
+ *   user chưa có wallet thì giữ PENDING (CASH) để thu tại trạm.
+ * - Hàng đợi chỉ nằm trong bộ nhớ: khi khởi động và định kỳ, các session COMPLETED chưa có Transaction
+ *   được nạp lại vào hàng đợi (mất khi crash hoặc bị từ chối vì hàng đợi đầy).
+ */
+@Component
+@RequiredArgsConstructor
+public class SettlementPipeline {
+
+    private static final String INSERT_TRANSACTION = "INSERT INTO [Transaction] (session_id, user_id, amount, " +
+            "payment_method, status, idempotency_key, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    // Số giây trong cửa sổ tính throughput
+    private static final int RATE_WINDOW_SECONDS = 60;
+
+    private final SessionRepository sessionRepository;
+    private final TransactionRepository transactionRepository;
+    private final WalletRepository walletRepository;
+    private final WalletLedger walletLedger;
+    private final RevenueAggregator revenueAggregator;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${settlement.batch.max-size:200}")
+    private int maxBatchSize;
+
+    @Value("${settlement.batch.max-wait-ms:50}")
+    private long maxWaitMs;
+
+    @Value("${settlement.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${settlement.recovery.page-size:1000}")
+    private int recoveryPageSize;
+
+    private BlockingQueue<Settlement> queue;
+    private TransactionTemplate transactionTemplate;
+    private Thread worker;
+    private volatile boolean running;
+
+    // Metrics
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder recovered = new LongAdder();
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder pending = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final AtomicLong lastBatchSize = new AtomicLong();
+    private final AtomicLong lastBatchMillis = new AtomicLong();
+    private final AtomicLong lastLagMillis = new AtomicLong();
+    private final AtomicLong maxLagMillis = new AtomicLong();
+    // Số yêu cầu đã quyết toán theo từng giây, vòng tròn RATE_WINDOW_SECONDS ô
+    private final AtomicLongArray rateSeconds = new AtomicLongArray(RATE_WINDOW_SECONDS);
+    private final AtomicLongArray rateCounts = new AtomicLongArray(RATE_WINDOW_SECONDS);
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        running = true;
+        worker = new Thread(this::run, "settlement-pipeline");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * Đưa session vào hàng đợi quyết toán.
+     * @return false nếu hàng đợi đầy, session sẽ được nạp lại ở lần quét recovery kế tiếp
+     */
+    public boolean submit(Long sessionId, Long userId, Long stationId, Double amount) {
+        Settlement settlement = new Settlement(sessionId, userId, stationId, amount != null ? amount : 0.0,
+                System.currentTimeMillis());
+        if (!queue.offer(settlement)) {
+            rejected.increment();
+            return false;
+        }
+        submitted.increment();
+        return true;
+    }
+
+    // Quyết toán các session bị bỏ dở trước lần khởi động này
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverOnStartup() {
+        recover();
+    }
+
+    @Scheduled(initialDelayString = "${settlement.recovery.interval-ms:300000}",
+            fixedDelayString = "${settlement.recovery.interval-ms:300000}")
+    public void recoverPeriodically() {
+        recover();
+    }
+
+    // Nạp lại các session đã kết thúc nhưng chưa quyết toán, trả về số session được đưa vào hàng đợi
+    public int recover() {
+        List<Object[]> rows = transactionTemplate.execute(status -> sessionRepository.findUnsettled(
+                Order.Status.COMPLETED, PageRequest.of(0, recoveryPageSize)));
+        int count = 0;
+        for (Object[] row : rows) {
+            Double cost = row[3] != null ? ((Number) row[3]).doubleValue() : null;
+            if (!submit((Long) row[0], (Long) row[1], (Long) row[2], cost)) {
+                break;
+            }
+            count++;
+        }
+        recovered.add(count);
+        return count;
+    }
+
+    public SettlementMetricsDTO getMetrics() {
+        long now = System.currentTimeMillis();
+        Settlement oldest = queue.peek();
+        long batchCount = batches.sum();
+        long processed = succeeded.sum() + pending.sum() + failed.sum();
+        return new SettlementMetricsDTO(queue.size(), queueCapacity, submitted.sum(), rejected.sum(),
+                recovered.sum(), succeeded.sum(), pending.sum(), failed.sum(), duplicates.sum(), errors.sum(),
+                batchCount, batchCount > 0 ? (double) processed / batchCount : 0.0, lastBatchSize.get(),
+                lastBatchMillis.get(), throughputPerSecond(now), oldest != null ? now - oldest.enqueuedAt() : 0L,
+                lastLagMillis.get(), maxLagMillis.get());
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private void run() {
+        // Tiếp tục chạy khi đang dừng cho tới khi hết yêu cầu trong hàng đợi
+        while (running || !queue.isEmpty()) {
+            try {
+                Settlement first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<Settlement> batch = new ArrayList<>(maxBatchSize);
+                batch.add(first);
+                long deadline = System.currentTimeMillis() + maxWaitMs;
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (batch.size() >= maxBatchSize || remaining <= 0) {
+                        break;
+                    }
+                    Settlement next = queue.poll(remaining, TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void process(List<Settlement> batch) {
+        long started = System.currentTimeMillis();
+        long lag = started - batch.get(0).enqueuedAt();
+        lastLagMillis.set(lag);
+        maxLagMillis.accumulateAndGet(lag, Math::max);
+
+        // Gộp yêu cầu trùng session trong cùng lô
+        Map<String, Settlement> byKey = new LinkedHashMap<>();
+        for (Settlement settlement : batch) {
+            if (byKey.putIfAbsent(settlement.key(), settlement) != null) {
+                duplicates.increment();
+            }
+        }
+        try {
+            settle(new ArrayList<>(byKey.values()));
+        } catch (RuntimeException batchError) {
+            // Quyết toán lại từng session để một session lỗi không kéo theo cả lô
+            for (Settlement settlement : byKey.values()) {
+                try {
+                    settle(List.of(settlement));
+                } catch (RuntimeException e) {
+                    // Session sẽ được nạp lại ở lần quét recovery kế tiếp
+                    errors.increment();
+                }
+            }
+        }
+        lastBatchSize.set(batch.size());
+        lastBatchMillis.set(System.currentTimeMillis() - started);
+        batches.increment();
+    }
+
+    private void settle(List<Settlement> settlements) {
+        int[] counts = transactionTemplate.execute(status -> {
+            Map<String, Settlement> byKey = new LinkedHashMap<>();
+            for (Settlement settlement : settlements) {
+                byKey.put(settlement.key(), settlement);
+            }
+            for (Object[] row : transactionRepository.findIdsByIdempotencyKeys(byKey.keySet())) {
+                byKey.remove((String) row[0]);
+            }
+            int duplicateCount = settlements.size() - byKey.size();
+            if (byKey.isEmpty()) {
+                return new int[]{0, 0, 0, duplicateCount};
+            }
+
+            // Wallet thanh toán của mỗi user (wallet tạo sớm nhất)
+            Map<Long, Long> walletByUser = new HashMap<>();
+            List<Long> userIds = byKey.values().stream().map(Settlement::userId).distinct().toList();
+            for (Object[] row : walletRepository.findPrimaryWalletIds(userIds)) {
+                walletByUser.put((Long) row[0], (Long) row[1]);
+            }
+            walletLedger.lockUntilCompletion(walletByUser.values());
+
+            // Quyết định trạng thái theo số dư đã khóa, trừ dần khi một wallet trả nhiều session trong lô
+            Map<Long, Long> available = new HashMap<>();
+            Map<String, Long> payingWallet = new HashMap<>();
+            List<Object[]> rows = new ArrayList<>(byKey.size());
+            LocalDateTime settledAt = LocalDateTime.now();
+            Timestamp now = Timestamp.valueOf(settledAt);
+            int[] result = new int[]{0, 0, 0, duplicateCount};
+            for (Settlement settlement : byKey.values()) {
+                long amountMinor = WalletLedger.toMinor(settlement.amount());
+                Long walletId = walletByUser.get(settlement.userId());
+                Transaction.PaymentMethod method = walletId != null
+                        ? Transaction.PaymentMethod.WALLET : Transaction.PaymentMethod.CASH;
+                Transaction.Status outcome;
+                if (amountMinor <= 0) {
+                    outcome = Transaction.Status.SUCCESS;
+                } else if (walletId == null) {
+                    outcome = Transaction.Status.PENDING;
+                } else {
+                    long balance = available.computeIfAbsent(walletId, walletLedger::balanceOf);
+                    if (balance >= amountMinor) {
+                        available.put(walletId, balance - amountMinor);
+                        payingWallet.put(settlement.key(), walletId);
+                        outcome = Transaction.Status.SUCCESS;
+                    } else {
+                        outcome = Transaction.Status.FAILED;
+                    }
+                }
+                result[outcome.ordinal()]++;
+                rows.add(new Object[]{settlement.sessionId(), settlement.userId(), settlement.amount(),
+                        method.name(), outcome.name(), settlement.key(), now});
+            }
+            jdbcTemplate.batchUpdate(INSERT_TRANSACTION, rows);
+
+            if (!payingWallet.isEmpty()) {
+                Map<String, Long> transactionIds = new HashMap<>();
+                for (Object[] row : transactionRepository.findIdsByIdempotencyKeys(payingWallet.keySet())) {
+                    transactionIds.put((String) row[0], (Long) row[1]);
+                }
+                List<Posting> postings = new ArrayList<>(payingWallet.size());
+                for (Settlement settlement : byKey.values()) {
+                    Long walletId = payingWallet.get(settlement.key());
+                    if (walletId != null) {
+                        Long transactionId = transactionIds.get(settlement.key());
+                        postings.add(new Posting(walletId, WalletTransaction.Type.PAYMENT,
+                                WalletLedger.toMinor(settlement.amount()), transactionId));
+                        revenueAggregator.recordAfterCommit(transactionId, settlement.stationId(), settledAt,
+                                settlement.amount());
+                    }
+                }
+                walletLedger.postBatch(postings);
+            }
+            return result;
+        });
+        // Chỉ cập nhật metrics sau khi commit
+        pending.add(counts[Transaction.Status.PENDING.ordinal()]);
+        succeeded.add(counts[Transaction.Status.SUCCESS.ordinal()]);
+        failed.add(counts[Transaction.Status.FAILED.ordinal()]);
+        duplicates.add(counts[3]);
+        recordThroughput(settlements.size() - counts[3]);
+    }
+
+    private void recordThroughput(long count) {
+        long second = System.currentTimeMillis() / 1000;
+        int slot = (int) (second % RATE_WINDOW_SECONDS);
+        // Chỉ worker ghi nên không cần CAS giữa hai mảng
+        if (rateSeconds.get(slot) != second) {
+            rateCounts.set(slot, 0);
+            rateSeconds.set(slot, second);
+        }
+        rateCounts.addAndGet(slot, count);
+    }
+
+    private double throughputPerSecond(long now) {
+        long second = now / 1000;
+        long total = 0;
+        for (int i = 0; i < RATE_WINDOW_SECONDS; i++) {
+            if (second - rateSeconds.get(i) < RATE_WINDOW_SECONDS) {
+                total += rateCounts.get(i);
+            }
+        }
+        return (double) total / RATE_WINDOW_SECONDS;
+    }
+
+    // =============== INNER CLASSES ===============
+
+    private record Settlement(Long sessionId, Long userId, Long stationId, double amount, long enqueuedAt) {
+        String key() {
+            return "session:" + sessionId;
+        }
+    }
+}
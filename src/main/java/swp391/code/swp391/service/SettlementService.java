@@ -0,0 +1,16 @@
+package swp391.code.swp391.service;
+
+import swp391.code.swp391.dto.SettlementMetricsDTO;
+import swp391.code.swp391.dto.TransactionDTO;
+
+public interface SettlementService {
+
+    // Lấy transaction quyết toán của session
+    TransactionDTO getSettlementBySessionId(Long sessionId);
+
+    // Nạp lại các session đã kết thúc nhưng chưa quyết toán vào hàng đợi
+    int recoverUnsettled();
+
+    // Số liệu throughput / lag của settlement pipeline
+    SettlementMetricsDTO getMetrics();
+}
@@ -0,0 +1,52 @@
+package swp391.code.swp391.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import swp391.code.swp391.dto.SettlementMetricsDTO;
+import swp391.code.swp391.dto.TransactionDTO;
+import swp391.code.swp391.entity.Transaction;
+import swp391.code.swp391.repository.TransactionRepository;
+
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class SettlementServiceImpl implements SettlementService {
+
+    private final TransactionRepository transactionRepository;
+    private final SettlementPipeline settlementPipeline;
+
+    @Override
+    public TransactionDTO getSettlementBySessionId(Long sessionId) {
+        Transaction transaction = transactionRepository.findByIdempotencyKey("session:" + sessionId)
+                .orElseThrow(() -> new RuntimeException("Session " + sessionId + " has not been settled yet"));
+        return convertToDTO(transaction);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int recoverUnsettled() {
+        return settlementPipeline.recover();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public SettlementMetricsDTO getMetrics() {
+        return settlementPipeline.getMetrics();
+    }
+
+    // Helper methods
+    private TransactionDTO convertToDTO(Transaction transaction) {
+        return new TransactionDTO(
+                transaction.getTransactionId(),
+                transaction.getSession().getSessionId(),
+                transaction.getUser().getUserId(),
+                transaction.getAmount(),
+                transaction.getPaymentMethod(),
+                transaction.getStatus(),
+                transaction.getIdempotencyKey(),
+                transaction.getCreatedAt()
+        );
+    }
+}
@@ -0,0 +1,88 @@
+package swp391.code.swp391.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import swp391.code.swp391.entity.ChargingPoint.ChargingPointStatus;
+import swp391.code.swp391.entity.ChargingStation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ghi hàng loạt trạm và trụ sạc bằng JDBC.
+ * Hai bảng dùng IDENTITY nên Hibernate không gom insert thành batch (mỗi entity một round trip để lấy ID);
+ * ở đây mỗi câu INSERT nhiều dòng (VALUES (...), (...)) kèm OUTPUT INSERTED trả luôn ID được sinh,
+ * nên mỗi lô vài trăm dòng chỉ tốn một round trip.
+ * Phải gọi trong transaction để dùng chung connection với JPA.
+ */
+@Component
+@RequiredArgsConstructor
+public class StationBulkWriter {
+
+    // SQL Server giới hạn 2100 tham số và 1000 dòng VALUES cho mỗi câu lệnh
+    private static final int STATION_ROWS_PER_STATEMENT = 300; // 6 tham số mỗi dòng
+    private static final int POINT_ROWS_PER_STATEMENT = 500;   // 4 tham số mỗi dòng
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Thêm các trạm (chưa có ID), trả về ID được sinh theo tên trạm (tên trạm là duy nhất)
+    public Map<String, Long> insertStations(List<ChargingStation> stations) {
+        Map<String, Long> ids = new HashMap<>();
+        for (int from = 0; from < stations.size(); from += STATION_ROWS_PER_STATEMENT) {
+            List<ChargingStation> chunk = stations.subList(from, Math.min(from + STATION_ROWS_PER_STATEMENT, stations.size()));
+            StringBuilder sql = new StringBuilder("INSERT INTO charging_stations (station_name, address, status, " +
+                    "latitude, longitude, charging_point_number) OUTPUT INSERTED.new_station_id, INSERTED.station_name VALUES ");
+            List<Object> args = new ArrayList<>(chunk.size() * 6);
+            for (int i = 0; i < chunk.size(); i++) {
+                ChargingStation station = chunk.get(i);
+                sql.append(i == 0 ? "(?, ?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?, ?)");
+                args.add(station.getStationName());
+                args.add(station.getAddress());
+                args.add(station.getStatus().name());
+                args.add(station.getLatitude());
+                args.add(station.getLongitude());
+                args.add(station.getChargingPointNumber());
+            }
+            jdbcTemplate.query(sql.toString(), (RowCallbackHandler) rs -> ids.put(rs.getString(2), rs.getLong(1)),
+                    args.toArray());
+        }
+        return ids;
+    }
+
+    // Thêm các trụ sạc, trả về các dòng đã thêm kèm ID (thứ tự không nhất thiết trùng thứ tự đầu vào)
+    public List<InsertedPoint> insertChargingPoints(List<NewPoint> points) {
+        List<InsertedPoint> inserted = new ArrayList<>(points.size());
+        for (int from = 0; from < points.size(); from += POINT_ROWS_PER_STATEMENT) {
+            List<NewPoint> chunk = points.subList(from, Math.min(from + POINT_ROWS_PER_STATEMENT, points.size()));
+            // Cột khóa ngoại tới trạm do JPA tự đặt tên: {thuộc tính}_{cột khóa chính của trạm}
+            StringBuilder sql = new StringBuilder("INSERT INTO charging_points (station_new_station_id, status, " +
+                    "connector_type_id, version) OUTPUT INSERTED.charging_point_id, INSERTED.station_new_station_id, " +
+                    "INSERTED.connector_type_id, INSERTED.status VALUES ");
+            List<Object> args = new ArrayList<>(chunk.size() * 4);
+            for (int i = 0; i < chunk.size(); i++) {
+                NewPoint point = chunk.get(i);
+                sql.append(i == 0 ? "(?, ?, ?, ?)" : ", (?, ?, ?, ?)");
+                args.add(point.stationId());
+                args.add(point.status().name());
+                args.add(point.connectorTypeId());
+                args.add(0L);
+            }
+            jdbcTemplate.query(sql.toString(), (RowCallbackHandler) rs -> inserted.add(new InsertedPoint(
+                    rs.getLong(1), rs.getLong(2), rs.getLong(3), ChargingPointStatus.valueOf(rs.getString(4)))),
+                    args.toArray());
+        }
+        return inserted;
+    }
+
+    // =============== INNER CLASSES ===============
+
+    public record NewPoint(Long stationId, Long connectorTypeId, ChargingPointStatus status) {
+    }
+
+    public record InsertedPoint(Long chargingPointId, Long stationId, Long connectorTypeId, ChargingPointStatus status) {
+    }
+}
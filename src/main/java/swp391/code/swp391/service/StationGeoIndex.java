@@ -0,0 +1,389 @@
+package swp391.code.swp391.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import swp391.code.swp391.dto.CacheStatsDTO;
+import swp391.code.swp391.entity.ChargingStation;
+import swp391.code.swp391.entity.ChargingStation.ChargingStationStatus;
+import swp391.code.swp391.repository.ChargingStationRepository;
+import swp391.code.swp391.utils.TransactionUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Chỉ mục không gian giữ trong bộ nhớ cho vị trí các trạm sạc.
+ * Mặt đất được chia thành các ô lưới CELL_SIZE_DEG x CELL_SIZE_DEG, mỗi ô giữ danh sách stationId nằm trong ô đó.
+ * Truy vấn theo bán kính chỉ duyệt các ô giao với bán kính, truy vấn k trạm gần nhất duyệt các vòng ô quanh vị trí
+ * cho tới khi chắc chắn không còn trạm nào gần hơn.
+ * Đọc không cần khóa, ghi (create/update/delete station) được áp dụng sau khi transaction commit.
+ * Rebuild dựng lưới mới rồi thay cả lưới một lần, người đọc không bao giờ thấy index rỗng giữa chừng.
+ * Index cũng là cache cho các cột tĩnh của trạm (tên, địa chỉ, trạng thái, tọa độ, số trụ), get() có đếm hit/miss.
+ */
+@Component
+@RequiredArgsConstructor
+public class StationGeoIndex {
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = 111.32;
+    // Kích thước một ô lưới (độ), khoảng 5.5km theo vĩ độ
+    private static final double CELL_SIZE_DEG = 0.05;
+    private static final int LAT_CELLS = (int) Math.round(180 / CELL_SIZE_DEG);
+    private static final int LNG_CELLS = (int) Math.round(360 / CELL_SIZE_DEG);
+    // Ít trạm thì duyệt toàn bộ còn nhanh hơn duyệt lưới
+    private static final int BRUTE_FORCE_THRESHOLD = 256;
+    // Số vòng ô tối đa khi tìm k trạm gần nhất, quá số này thì duyệt toàn bộ
+    private static final int MAX_RINGS = 200;
+
+    private final ChargingStationRepository chargingStationRepository;
+
+    // Lưới hiện tại, được thay cả object khi rebuild
+    private volatile Grid grid = new Grid();
+
+    // Ghi lấy read lock, rebuild lấy write lock khi thay bằng lưới vừa dựng
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    // Chỉ một lần rebuild tại một thời điểm
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    // Cập nhật commit trong lúc đang quét DB, null khi không rebuild
+    private volatile ConcurrentLinkedQueue<LiveUpdate> liveUpdates;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Nạp toàn bộ trạm (khi ứng dụng khởi động hoặc admin làm mới cache).
+     * Quét DB vào lưới mới, không khóa người đọc; các cập nhật commit trong lúc quét vẫn áp dụng vào lưới cũ và được
+     * ghi lại, rồi được áp dụng lại lên lưới mới trước khi thay.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuildLock.lock();
+        liveUpdates = new ConcurrentLinkedQueue<>();
+        try {
+            Grid rebuilt = new Grid();
+            for (ChargingStation station : chargingStationRepository.findAll()) {
+                rebuilt.apply(StationLocation.from(station));
+            }
+            swapLock.writeLock().lock();
+            try {
+                for (LiveUpdate update : liveUpdates) {
+                    update.applyTo(rebuilt);
+                }
+                grid = rebuilt;
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+        } finally {
+            liveUpdates = null;
+            rebuildLock.unlock();
+        }
+    }
+
+    // Thêm/cập nhật trạm vào index (sau khi transaction commit)
+    public void put(ChargingStation station) {
+        StationLocation location = StationLocation.from(station);
+        TransactionUtils.afterCommit(() -> applyLive(new LiveUpdate(location.getStationId(), location)));
+    }
+
+    // Xóa trạm khỏi index (sau khi transaction commit)
+    public void remove(Long stationId) {
+        TransactionUtils.afterCommit(() -> applyLive(new LiveUpdate(stationId, null)));
+    }
+
+    public StationLocation get(Long stationId) {
+        StationLocation location = stationId != null ? grid.stations.get(stationId) : null;
+        (location != null ? hits : misses).increment();
+        return location;
+    }
+
+    public CacheStatsDTO getStats() {
+        return CacheStatsDTO.of("stations", grid.stations.size(), hits.sum(), misses.sum());
+    }
+
+    public int size() {
+        return grid.stations.size();
+    }
+
+    /**
+     * Tìm các trạm gần vị trí (latitude, longitude), sắp xếp theo khoảng cách tăng dần.
+     * @param radiusKm bán kính tìm kiếm, null nếu chỉ cần k trạm gần nhất
+     * @param limit số trạm tối đa trả về
+     */
+    public List<NearbyStation> findNearby(double latitude, double longitude, Double radiusKm, int limit) {
+        return findNearby(latitude, longitude, radiusKm, limit, null);
+    }
+
+    /**
+     * Như findNearby nhưng chỉ xét các trạm có stationId thỏa filter (null là mọi trạm).
+     * Có filter mà không có bán kính thì duyệt toàn bộ, vì số vòng ô cần duyệt phụ thuộc số trạm thỏa filter.
+     */
+    public List<NearbyStation> findNearby(double latitude, double longitude, Double radiusKm, int limit,
+                                          Predicate<Long> filter) {
+        PriorityQueue<NearbyStation> best = new PriorityQueue<>(limit + 1,
+                Comparator.comparingDouble(NearbyStation::getDistanceKm).reversed());
+        double maxDistance = radiusKm != null ? radiusKm : Double.MAX_VALUE;
+        // Cả truy vấn dùng cùng một lưới dù rebuild thay lưới giữa chừng
+        Grid grid = this.grid;
+
+        if (grid.stations.size() <= BRUTE_FORCE_THRESHOLD || radiusKm == null && filter != null) {
+            scanAll(grid, latitude, longitude, maxDistance, limit, filter, best);
+        } else if (radiusKm != null) {
+            scanRadius(grid, latitude, longitude, radiusKm, limit, filter, best);
+        } else {
+            scanRings(grid, latitude, longitude, limit, best);
+        }
+
+        List<NearbyStation> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(NearbyStation::getDistanceKm));
+        return result;
+    }
+
+    // Khoảng cách haversine giữa hai điểm (km)
+    public static double distanceKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private void applyLive(LiveUpdate update) {
+        swapLock.readLock().lock();
+        try {
+            // Các lần ghi tuần tự với nhau để cặp stations / cells luôn khớp và thứ tự trong hàng đợi đúng thứ tự áp dụng
+            synchronized (this) {
+                update.applyTo(grid);
+                ConcurrentLinkedQueue<LiveUpdate> pending = liveUpdates;
+                if (pending != null) {
+                    pending.add(update);
+                }
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private void scanAll(Grid grid, double latitude, double longitude, double maxDistance, int limit,
+                         Predicate<Long> filter, PriorityQueue<NearbyStation> best) {
+        for (StationLocation location : grid.stations.values()) {
+            if (filter == null || filter.test(location.getStationId())) {
+                offer(location, latitude, longitude, maxDistance, limit, best);
+            }
+        }
+    }
+
+    private void scanRadius(Grid grid, double latitude, double longitude, double radiusKm, int limit,
+                            Predicate<Long> filter, PriorityQueue<NearbyStation> best) {
+        int latSpan = (int) Math.ceil(radiusKm / KM_PER_DEGREE / CELL_SIZE_DEG);
+        double cosLat = Math.max(Math.cos(Math.toRadians(Math.min(89.9, Math.abs(latitude) + latSpan * CELL_SIZE_DEG))), 0.001);
+        int lngSpan = (int) Math.ceil(radiusKm / (KM_PER_DEGREE * cosLat) / CELL_SIZE_DEG);
+
+        // Bán kính quá lớn so với số trạm: duyệt toàn bộ rẻ hơn
+        long cellCount = (2L * latSpan + 1) * (2L * lngSpan + 1);
+        if (cellCount >= grid.stations.size() || 2 * lngSpan + 1 >= LNG_CELLS) {
+            scanAll(grid, latitude, longitude, radiusKm, limit, filter, best);
+            return;
+        }
+
+        int centerLat = latCell(latitude);
+        int centerLng = lngCell(longitude);
+        for (int dy = -latSpan; dy <= latSpan; dy++) {
+            int y = centerLat + dy;
+            if (y < 0 || y >= LAT_CELLS) {
+                continue;
+            }
+            for (int dx = -lngSpan; dx <= lngSpan; dx++) {
+                scanCell(grid, y, Math.floorMod(centerLng + dx, LNG_CELLS), latitude, longitude, radiusKm, limit,
+                        filter, best);
+            }
+        }
+    }
+
+    private void scanRings(Grid grid, double latitude, double longitude, int limit, PriorityQueue<NearbyStation> best) {
+        int centerLat = latCell(latitude);
+        int centerLng = lngCell(longitude);
+
+        for (int ring = 0; ; ring++) {
+            // Số ô đã duyệt vượt số trạm (vị trí ở xa mọi trạm, phải đi qua nhiều vòng ô trống)
+            // hoặc vòng đã bao trọn kinh độ: duyệt toàn bộ rẻ hơn
+            long visitedCells = (2L * ring + 1) * (2L * ring + 1);
+            if (visitedCells > grid.stations.size() || ring > MAX_RINGS || 2 * ring + 1 >= LNG_CELLS) {
+                best.clear();
+                scanAll(grid, latitude, longitude, Double.MAX_VALUE, limit, null, best);
+                return;
+            }
+            for (int dy = -ring; dy <= ring; dy++) {
+                int y = centerLat + dy;
+                if (y < 0 || y >= LAT_CELLS) {
+                    continue;
+                }
+                // Chỉ duyệt các ô nằm trên viền của vòng hiện tại
+                int step = (dy == -ring || dy == ring) ? 1 : Math.max(1, 2 * ring);
+                for (int dx = -ring; dx <= ring; dx += step) {
+                    scanCell(grid, y, Math.floorMod(centerLng + dx, LNG_CELLS), latitude, longitude, Double.MAX_VALUE,
+                            limit, null, best);
+                }
+            }
+
+            // Khoảng cách chắc chắn đã được phủ sau vòng hiện tại
+            double cosLat = Math.max(Math.cos(Math.toRadians(Math.min(89.9, Math.abs(latitude) + ring * CELL_SIZE_DEG))), 0.001);
+            double coveredKm = ring * CELL_SIZE_DEG * KM_PER_DEGREE * cosLat;
+            if (best.size() >= limit && best.peek().getDistanceKm() <= coveredKm) {
+                return;
+            }
+            if (best.size() >= grid.stations.size() && !grid.stations.isEmpty()) {
+                return;
+            }
+            if (grid.stations.isEmpty() || centerLat - ring < 0 && centerLat + ring >= LAT_CELLS) {
+                return;
+            }
+        }
+    }
+
+    private void scanCell(Grid grid, int y, int x, double latitude, double longitude, double maxDistance, int limit,
+                          Predicate<Long> filter, PriorityQueue<NearbyStation> best) {
+        Set<Long> ids = grid.cells.get(cellKey(y, x));
+        if (ids == null) {
+            return;
+        }
+        for (Long stationId : ids) {
+            if (filter != null && !filter.test(stationId)) {
+                continue;
+            }
+            StationLocation location = grid.stations.get(stationId);
+            if (location != null) {
+                offer(location, latitude, longitude, maxDistance, limit, best);
+            }
+        }
+    }
+
+    private void offer(StationLocation location, double latitude, double longitude, double maxDistance, int limit,
+                       PriorityQueue<NearbyStation> best) {
+        double distance = distanceKm(latitude, longitude, location.getLatitude(), location.getLongitude());
+        if (distance > maxDistance) {
+            return;
+        }
+        if (best.size() < limit) {
+            best.add(new NearbyStation(location, distance));
+        } else if (distance < best.peek().getDistanceKm()) {
+            best.poll();
+            best.add(new NearbyStation(location, distance));
+        }
+    }
+
+    private static int latCell(double latitude) {
+        return Math.min(LAT_CELLS - 1, Math.max(0, (int) Math.floor((latitude + 90) / CELL_SIZE_DEG)));
+    }
+
+    private static int lngCell(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / CELL_SIZE_DEG), LNG_CELLS);
+    }
+
+    private static long cellKey(double latitude, double longitude) {
+        return cellKey(latCell(latitude), lngCell(longitude));
+    }
+
+    private static long cellKey(int latCell, int lngCell) {
+        return ((long) latCell << 32) | (lngCell & 0xffffffffL);
+    }
+
+    // =============== INNER CLASSES ===============
+
+    /**
+     * Vị trí các trạm và lưới ô của chúng. Chỉ một luồng ghi tại một thời điểm (khóa của index, hoặc luồng rebuild
+     * khi lưới chưa được công bố); người đọc duyệt các map concurrent không cần khóa.
+     */
+    private static final class Grid {
+        // stationId -> vị trí và thông tin cơ bản của trạm
+        private final Map<Long, StationLocation> stations = new ConcurrentHashMap<>();
+        // cell key -> các stationId nằm trong ô
+        private final Map<Long, Set<Long>> cells = new ConcurrentHashMap<>();
+
+        void apply(StationLocation location) {
+            Long stationId = location.getStationId();
+            long newCell = cellKey(location.getLatitude(), location.getLongitude());
+            StationLocation previous = stations.put(stationId, location);
+            if (previous != null) {
+                long oldCell = cellKey(previous.getLatitude(), previous.getLongitude());
+                if (oldCell == newCell) {
+                    return;
+                }
+                removeFromCell(oldCell, stationId);
+            }
+            cells.computeIfAbsent(newCell, key -> ConcurrentHashMap.newKeySet()).add(stationId);
+        }
+
+        void remove(Long stationId) {
+            StationLocation previous = stations.remove(stationId);
+            if (previous != null) {
+                removeFromCell(cellKey(previous.getLatitude(), previous.getLongitude()), stationId);
+            }
+        }
+
+        private void removeFromCell(long cell, Long stationId) {
+            Set<Long> ids = cells.get(cell);
+            if (ids != null) {
+                ids.remove(stationId);
+                if (ids.isEmpty()) {
+                    cells.remove(cell, ids);
+                }
+            }
+        }
+    }
+
+    // Thêm/cập nhật (location khác null) hoặc xóa một trạm
+    private record LiveUpdate(Long stationId, StationLocation location) {
+        void applyTo(Grid grid) {
+            if (location != null) {
+                grid.apply(location);
+            } else {
+                grid.remove(stationId);
+            }
+        }
+    }
+
+    /**
+     * Bản chụp bất biến các cột cơ bản của một trạm sạc
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class StationLocation {
+        private final Long stationId;
+        private final String stationName;
+        private final String address;
+        private final ChargingStationStatus status;
+        private final double latitude;
+        private final double longitude;
+        private final int chargingPointNumber;
+
+        static StationLocation from(ChargingStation station) {
+            return new StationLocation(station.getStationId(), station.getStationName(), station.getAddress(),
+                    station.getStatus(), station.getLatitude(), station.getLongitude(),
+                    station.getChargingPointNumber());
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class NearbyStation {
+        private final StationLocation location;
+        private final double distanceKm;
+    }
+}
@@ -0,0 +1,489 @@
+package swp391.code.swp391.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import swp391.code.swp391.dto.BulkOnboardingResultDTO;
+import swp391.code.swp391.dto.ChargingPointDTO;
+import swp391.code.swp391.dto.ChargingStationDTO;
+import swp391.code.swp391.entity.ChargingPoint.ChargingPointStatus;
+import swp391.code.swp391.entity.ChargingStation.ChargingStationStatus;
+import swp391.code.swp391.repository.ChargingStationRepository;
+import swp391.code.swp391.utils.CsvReader;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Nhập mạng lưới trạm sạc từ file CSV hoặc JSON.
+ * File được đọc tuần tự (không nạp cả file vào bộ nhớ), gom thành từng chunk chunk-size trạm:
+ * - Kiểm tra dữ liệu song song trong ForkJoinPool, connector type tra trong ConnectorTypeCache (không truy vấn DB).
+ * - Tên trạm trùng trong file bị loại ngay khi đọc; trùng với DB được kiểm tra bằng một query cho cả chunk.
+ * - Mỗi chunk ghi trong một transaction qua ChargingStationService.createChargingStations. Lỗi tạm thời của DB
+ *   (deadlock, timeout...) được thử lại tối đa max-retries lần; lỗi khác thì ghi lại từng trạm để chỉ loại trạm lỗi.
+ * Các dòng bị loại được ghi vào file báo cáo CSV (line, station_name, reason).
+ *
+ * CSV: mỗi dòng là một charging point, các dòng liền nhau cùng station_name thuộc cùng một trạm; dòng đầu là header
+ * gồm các cột station_name, address, latitude, longitude, station_status (tùy chọn), connector_type,
+ * point_status (tùy chọn).
+ * JSON: một mảng các trạm cùng cấu trúc với ChargingStationDTO (chargingPoints[].typeName, status).
+ */
+@Component
+@RequiredArgsConstructor
+public class StationImporter {
+
+    private static final List<String> REQUIRED_COLUMNS =
+            List.of("station_name", "address", "latitude", "longitude", "connector_type");
+
+    private final ChargingStationService chargingStationService;
+    private final ChargingStationRepository chargingStationRepository;
+    private final ConnectorTypeCache connectorTypeCache;
+    private final ObjectMapper objectMapper;
+
+    @Value("${import.threads:4}")
+    private int threads;
+
+    @Value("${import.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${import.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${import.retry-backoff-ms:200}")
+    private long retryBackoffMs;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    public void init() {
+        pool = new ForkJoinPool(threads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Nhập toàn bộ file, ghi các dòng bị loại vào rejectionFile.
+     * @param progress cập nhật trong lúc chạy, để theo dõi tiến độ
+     */
+    public void importFile(Path file, ImportFormat format, Path rejectionFile, ImportProgress progress)
+            throws IOException {
+        progress.totalBytes = Files.size(file);
+        try (InputStream in = new CountingInputStream(Files.newInputStream(file), progress.bytesRead);
+             BufferedWriter rejections = Files.newBufferedWriter(rejectionFile, StandardCharsets.UTF_8)) {
+            rejections.write("line,station_name,reason");
+            rejections.newLine();
+            RowSource source = format == ImportFormat.CSV ? new CsvRowSource(in) : new JsonRowSource(in);
+
+            Set<String> seenNames = new HashSet<>();
+            List<ImportRow> chunk = new ArrayList<>(chunkSize);
+            ImportRow row;
+            while ((row = source.next()) != null) {
+                progress.rowsRead.add(row.records());
+                String name = row.station() != null ? row.station().getStationName() : null;
+                if (row.error() == null && name != null && !seenNames.add(name)) {
+                    row = row.reject("Duplicate station name in file");
+                }
+                chunk.add(row);
+                if (chunk.size() >= chunkSize) {
+                    processChunk(chunk, rejections, progress);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            processChunk(chunk, rejections, progress);
+        }
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private void processChunk(List<ImportRow> chunk, BufferedWriter rejections, ImportProgress progress)
+            throws IOException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<ImportRow> validated;
+        try {
+            validated = pool.submit(() -> chunk.parallelStream().map(this::validate).toList()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Import interrupted");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Validation failed: " + e.getCause().getMessage(), e.getCause());
+        }
+
+        List<ImportRow> valid = new ArrayList<>(validated.size());
+        for (ImportRow row : validated) {
+            if (row.error() != null) {
+                reject(rejections, progress, row, row.error());
+            } else {
+                valid.add(row);
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        // Tên trạm đã tồn tại trong DB: một query cho cả chunk
+        Set<String> existing = new HashSet<>(chargingStationRepository.findExistingStationNames(
+                valid.stream().map(row -> row.station().getStationName()).toList()));
+        if (!existing.isEmpty()) {
+            List<ImportRow> remaining = new ArrayList<>(valid.size());
+            for (ImportRow row : valid) {
+                if (existing.contains(row.station().getStationName())) {
+                    reject(rejections, progress, row, "Charging station already exists");
+                } else {
+                    remaining.add(row);
+                }
+            }
+            valid = remaining;
+        }
+        if (!valid.isEmpty()) {
+            writeChunk(valid, rejections, progress);
+        }
+    }
+
+    private void writeChunk(List<ImportRow> rows, BufferedWriter rejections, ImportProgress progress)
+            throws IOException {
+        List<ChargingStationDTO> stations = rows.stream().map(ImportRow::station).toList();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                record(progress, chargingStationService.createChargingStations(stations));
+                return;
+            } catch (TransientDataAccessException | RecoverableDataAccessException e) {
+                if (attempt >= maxRetries) {
+                    break;
+                }
+                progress.retries.increment();
+                backoff(attempt);
+            } catch (RuntimeException e) {
+                break;
+            }
+        }
+
+        // Cả chunk thất bại: ghi lại từng trạm để chỉ loại các trạm lỗi
+        for (ImportRow row : rows) {
+            try {
+                record(progress, chargingStationService.createChargingStations(List.of(row.station())));
+            } catch (RuntimeException e) {
+                reject(rejections, progress, row, e.getMessage());
+            }
+        }
+    }
+
+    private void record(ImportProgress progress, BulkOnboardingResultDTO result) {
+        progress.stationsImported.add(result.getStationsCreated());
+        progress.chargingPointsImported.add(result.getChargingPointsCreated());
+    }
+
+    private void backoff(int attempt) {
+        try {
+            Thread.sleep(retryBackoffMs << Math.min(attempt, 6));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Import interrupted");
+        }
+    }
+
+    // Kiểm tra dữ liệu của một trạm, chỉ dùng bộ nhớ nên chạy song song được
+    private ImportRow validate(ImportRow row) {
+        if (row.error() != null) {
+            return row;
+        }
+        ChargingStationDTO station = row.station();
+        if (station.getStationName() == null || station.getStationName().isBlank()) {
+            return row.reject("Station name is required");
+        }
+        if (station.getStationName().length() > 255) {
+            return row.reject("Station name must not exceed 255 characters");
+        }
+        if (station.getAddress() == null || station.getAddress().isBlank()) {
+            return row.reject("Address is required");
+        }
+        if (station.getAddress().length() > 500) {
+            return row.reject("Address must not exceed 500 characters");
+        }
+        if (station.getLatitude() == null || station.getLongitude() == null) {
+            return row.reject("Latitude and longitude are required");
+        }
+        if (station.getLatitude() < -90 || station.getLatitude() > 90
+                || station.getLongitude() < -180 || station.getLongitude() > 180) {
+            return row.reject("Latitude or longitude out of range");
+        }
+        if (station.getChargingPoints() == null || station.getChargingPoints().isEmpty()) {
+            return row.reject("At least one charging point is required");
+        }
+        for (ChargingPointDTO chargingPoint : station.getChargingPoints()) {
+            if (chargingPoint.getTypeName() == null || chargingPoint.getTypeName().isBlank()) {
+                return row.reject("Connector type name is required for each charging point");
+            }
+            if (connectorTypeCache.getByName(chargingPoint.getTypeName()) == null) {
+                return row.reject("Invalid connector type name: " + chargingPoint.getTypeName());
+            }
+        }
+        station.setChargingPointNumber(station.getChargingPoints().size());
+        return row;
+    }
+
+    private void reject(BufferedWriter rejections, ImportProgress progress, ImportRow row, String reason)
+            throws IOException {
+        progress.rejected.increment();
+        rejections.write(row.line() + "," + csv(row.station() != null ? row.station().getStationName() : null)
+                + "," + csv(reason));
+        rejections.newLine();
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+    }
+
+    // =============== INNER CLASSES ===============
+
+    public enum ImportFormat {
+        CSV, JSON
+    }
+
+    // Tiến độ của một lần nhập, được đọc từ thread khác trong lúc job chạy
+    public static final class ImportProgress {
+        private final LongAdder bytesRead = new LongAdder();
+        private final LongAdder rowsRead = new LongAdder();
+        private final LongAdder stationsImported = new LongAdder();
+        private final LongAdder chargingPointsImported = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private volatile long totalBytes;
+
+        public long getBytesRead() {
+            return bytesRead.sum();
+        }
+
+        public long getTotalBytes() {
+            return totalBytes;
+        }
+
+        public long getRowsRead() {
+            return rowsRead.sum();
+        }
+
+        public long getStationsImported() {
+            return stationsImported.sum();
+        }
+
+        public long getChargingPointsImported() {
+            return chargingPointsImported.sum();
+        }
+
+        public long getRejected() {
+            return rejected.sum();
+        }
+
+        public long getRetries() {
+            return retries.sum();
+        }
+    }
+
+    // Một trạm đọc từ file: line là dòng (CSV) hoặc vị trí phần tử (JSON, từ 1), records là số bản ghi đã gộp
+    private record ImportRow(long line, long records, ChargingStationDTO station, String error) {
+
+        ImportRow reject(String reason) {
+            return new ImportRow(line, records, station, reason);
+        }
+    }
+
+    private interface RowSource {
+        // Trạm tiếp theo, null khi hết file
+        ImportRow next() throws IOException;
+    }
+
+    private final class CsvRowSource implements RowSource {
+        private final CsvReader reader;
+        private final Map<String, Integer> columns = new HashMap<>();
+        private List<String> pending;
+
+        CsvRowSource(InputStream in) throws IOException {
+            reader = new CsvReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16));
+            List<String> header = reader.next();
+            if (header == null) {
+                throw new IOException("CSV file is empty");
+            }
+            for (int i = 0; i < header.size(); i++) {
+                // Bỏ BOM của UTF-8 nếu có
+                String name = header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT);
+                columns.put(name, i);
+            }
+            for (String column : REQUIRED_COLUMNS) {
+                if (!columns.containsKey(column)) {
+                    throw new IOException("CSV header is missing column: " + column);
+                }
+            }
+            pending = reader.next();
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            if (pending == null) {
+                return null;
+            }
+            long line = reader.getRecordLine();
+            List<String> first = pending;
+            String stationName = get(first, "station_name");
+            ChargingStationDTO station = new ChargingStationDTO();
+            station.setStationName(stationName);
+            station.setAddress(get(first, "address"));
+            station.setChargingPoints(new ArrayList<>());
+            String error = null;
+            try {
+                station.setLatitude(parseDouble(get(first, "latitude")));
+                station.setLongitude(parseDouble(get(first, "longitude")));
+                station.setStatus(parseEnum(ChargingStationStatus.class, get(first, "station_status")));
+            } catch (IllegalArgumentException e) {
+                error = "Invalid station value: " + e.getMessage();
+            }
+
+            // Gộp các dòng liền nhau cùng station_name thành các charging points của trạm
+            long records = 0;
+            List<String> record = first;
+            while (record != null && equalsName(stationName, get(record, "station_name"))) {
+                records++;
+                ChargingPointDTO chargingPoint = new ChargingPointDTO();
+                chargingPoint.setTypeName(get(record, "connector_type"));
+                try {
+                    chargingPoint.setStatus(parseEnum(ChargingPointStatus.class, get(record, "point_status")));
+                } catch (IllegalArgumentException e) {
+                    if (error == null) {
+                        error = "Invalid point status at line " + reader.getRecordLine() + ": " + e.getMessage();
+                    }
+                }
+                station.getChargingPoints().add(chargingPoint);
+                record = reader.next();
+            }
+            pending = record;
+            return new ImportRow(line, records, station, error);
+        }
+
+        private String get(List<String> record, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= record.size()) {
+                return null;
+            }
+            String value = record.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        private boolean equalsName(String a, String b) {
+            return a == null ? b == null : a.equals(b);
+        }
+
+        private Double parseDouble(String value) {
+            return value != null ? Double.valueOf(value) : null;
+        }
+    }
+
+    private final class JsonRowSource implements RowSource {
+        private final JsonParser parser;
+        private long index;
+
+        JsonRowSource(InputStream in) throws IOException {
+            parser = objectMapper.getFactory().createParser(in);
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("JSON file must contain an array of charging stations");
+            }
+        }
+
+        @Override
+        public ImportRow next() throws IOException {
+            JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.END_ARRAY) {
+                return null;
+            }
+            index++;
+            // Đọc từng phần tử thành cây rồi mới bind, để lỗi dữ liệu của một trạm không làm hỏng parser
+            JsonNode node = parser.readValueAsTree();
+            try {
+                ChargingStationDTO station = objectMapper.treeToValue(node, ChargingStationDTO.class);
+                if (station == null) {
+                    return new ImportRow(index, 1, null, "Element is not a charging station");
+                }
+                return new ImportRow(index, 1, station, null);
+            } catch (IOException | IllegalArgumentException e) {
+                ChargingStationDTO station = new ChargingStationDTO();
+                station.setStationName(node.path("stationName").asText(null));
+                return new ImportRow(index, 1, station, "Invalid charging station: " + e.getMessage());
+            }
+        }
+    }
+
+    // Đếm số byte đã đọc để tính tiến độ
+    private static final class CountingInputStream extends FilterInputStream {
+        private final LongAdder counter;
+
+        CountingInputStream(InputStream in, LongAdder counter) {
+            super(in);
+            this.counter = counter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                counter.increment();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                counter.add(n);
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            counter.add(skipped);
+            return skipped;
+        }
+    }
+}
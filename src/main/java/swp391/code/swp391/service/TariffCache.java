@@ -0,0 +1,281 @@
+package swp391.code.swp391.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import swp391.code.swp391.repository.PriceFactorRepository;
+import swp391.code.swp391.utils.TransactionUtils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bảng hệ số giá (PriceFactor) của từng trạm, đã biên dịch sẵn trong bộ nhớ.
+ * Các PriceFactor của một trạm được chuyển thành các khung không giao nhau, sắp theo thời gian, lưu trong
+ * mảng primitive (long[] starts, long[] ends, double[] factors). Khung trùng nhau lấy theo PriceFactor
+ * được tạo sau cùng (priceFactorId lớn nhất); ngoài mọi khung hệ số là 1.0.
+ * Tra hệ số tại một thời điểm và cắt một khoảng thời gian theo ranh giới khung đều dùng binary search,
+ * không truy vấn DB. Timeline là bất biến nên đọc không cần khóa; khi PriceFactor thay đổi
+ * timeline của trạm được biên dịch lại và thay thế sau khi transaction commit.
+ * Biên dịch lại (có truy vấn DB) dùng ReentrantLock thay vì synchronized để không ghim carrier thread
+ * khi chạy trên virtual thread.
+ */
+@Component
+@RequiredArgsConstructor
+public class TariffCache {
+
+    public static final double DEFAULT_FACTOR = 1.0;
+
+    private final PriceFactorRepository priceFactorRepository;
+
+    // stationId -> timeline hệ số giá
+    private volatile Map<Long, Timeline> timelines = new ConcurrentHashMap<>();
+    // Tăng mỗi lần cache thay đổi, client có thể dùng để biết báo giá đã cũ
+    private final AtomicLong version = new AtomicLong();
+    // Tuần tự hóa các lần nạp lại
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    // Nạp toàn bộ PriceFactor khi ứng dụng khởi động
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        reload();
+    }
+
+    // Nạp lại toàn bộ (bulk reload), timeline mới thay thế cả bảng một lần
+    public int reload() {
+        reloadLock.lock();
+        try {
+            Map<Long, List<Window>> windowsByStation = new HashMap<>();
+            for (Object[] row : priceFactorRepository.findAllWindows()) {
+                Window window = toWindow(row[0], row[2], row[3], row[4]);
+                if (window != null) {
+                    windowsByStation.computeIfAbsent((Long) row[1], id -> new ArrayList<>()).add(window);
+                }
+            }
+            Map<Long, Timeline> compiled = new ConcurrentHashMap<>();
+            windowsByStation.forEach((stationId, windows) -> compiled.put(stationId, compile(windows)));
+            timelines = compiled;
+            version.incrementAndGet();
+            return compiled.size();
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    // Biên dịch lại timeline của một trạm sau khi transaction hiện tại commit
+    public void invalidate(Long stationId) {
+        TransactionUtils.afterCommit(() -> reloadStation(stationId));
+    }
+
+    // Xóa timeline của trạm (khi trạm bị xóa)
+    public void removeStation(Long stationId) {
+        TransactionUtils.afterCommit(() -> {
+            timelines.remove(stationId);
+            version.incrementAndGet();
+        });
+    }
+
+    public Timeline get(Long stationId) {
+        Timeline timeline = timelines.get(stationId);
+        return timeline != null ? timeline : Timeline.EMPTY;
+    }
+
+    // Hệ số giá của trạm tại thời điểm t (epoch millis)
+    public double factorAt(Long stationId, long t) {
+        return get(stationId).factorAt(t);
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public int size() {
+        return timelines.size();
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private void reloadStation(Long stationId) {
+        reloadLock.lock();
+        try {
+            List<Window> windows = new ArrayList<>();
+            for (Object[] row : priceFactorRepository.findWindowsByStationId(stationId)) {
+                Window window = toWindow(row[0], row[2], row[3], row[4]);
+                if (window != null) {
+                    windows.add(window);
+                }
+            }
+            if (windows.isEmpty()) {
+                timelines.remove(stationId);
+            } else {
+                timelines.put(stationId, compile(windows));
+            }
+            version.incrementAndGet();
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private static Window toWindow(Object id, Object factor, Object start, Object end) {
+        if (factor == null || start == null || end == null) {
+            return null;
+        }
+        long startMillis = toMillis((LocalDateTime) start);
+        long endMillis = toMillis((LocalDateTime) end);
+        if (endMillis <= startMillis) {
+            return null;
+        }
+        return new Window((Long) id, startMillis, endMillis, (Double) factor);
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Chia trục thời gian theo mọi ranh giới start/end rồi chọn PriceFactor có id lớn nhất phủ mỗi đoạn.
+     * Các đoạn liền nhau có cùng hệ số được gộp lại.
+     */
+    static Timeline compile(List<Window> windows) {
+        long[] boundaries = new long[windows.size() * 2];
+        int n = 0;
+        for (Window window : windows) {
+            boundaries[n++] = window.start;
+            boundaries[n++] = window.end;
+        }
+        Arrays.sort(boundaries);
+
+        long[] starts = new long[boundaries.length];
+        long[] ends = new long[boundaries.length];
+        double[] factors = new double[boundaries.length];
+        int size = 0;
+        for (int i = 1; i < boundaries.length; i++) {
+            long from = boundaries[i - 1];
+            long to = boundaries[i];
+            if (from == to) {
+                continue;
+            }
+            Window winner = null;
+            for (Window window : windows) {
+                if (window.start <= from && window.end >= to && (winner == null || window.id > winner.id)) {
+                    winner = window;
+                }
+            }
+            if (winner == null) {
+                continue;
+            }
+            if (size > 0 && ends[size - 1] == from && factors[size - 1] == winner.factor) {
+                ends[size - 1] = to;
+            } else {
+                starts[size] = from;
+                ends[size] = to;
+                factors[size] = winner.factor;
+                size++;
+            }
+        }
+        return new Timeline(Arrays.copyOf(starts, size), Arrays.copyOf(ends, size), Arrays.copyOf(factors, size));
+    }
+
+    // =============== INNER CLASSES ===============
+
+    private record Window(long id, long start, long end, double factor) {
+    }
+
+    /**
+     * Timeline hệ số giá bất biến của một trạm: các khung [starts[i], ends[i]) không giao nhau, tăng dần
+     */
+    public static final class Timeline {
+        static final Timeline EMPTY = new Timeline(new long[0], new long[0], new double[0]);
+
+        private final long[] starts;
+        private final long[] ends;
+        private final double[] factors;
+
+        Timeline(long[] starts, long[] ends, double[] factors) {
+            this.starts = starts;
+            this.ends = ends;
+            this.factors = factors;
+        }
+
+        public int size() {
+            return starts.length;
+        }
+
+        public long start(int i) {
+            return starts[i];
+        }
+
+        public long end(int i) {
+            return ends[i];
+        }
+
+        public double factor(int i) {
+            return factors[i];
+        }
+
+        /**
+         * Vị trí khung cuối cùng bắt đầu không muộn hơn t, -1 nếu không có.
+         * Khung đó chỉ chứa t nếu t < end(i).
+         */
+        public int indexOf(long t) {
+            int low = 0;
+            int high = starts.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid] <= t) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return high;
+        }
+
+        // Hệ số giá tại thời điểm t
+        public double factorAt(long t) {
+            int i = indexOf(t);
+            return i >= 0 && t < ends[i] ? factors[i] : DEFAULT_FACTOR;
+        }
+
+        /**
+         * Cắt khoảng [from, to) theo ranh giới các khung, kể cả các đoạn hệ số mặc định ở giữa.
+         * Tốn O(log n + k) với k là số khung giao với khoảng.
+         */
+        public List<Segment> split(long from, long to) {
+            List<Segment> segments = new ArrayList<>();
+            long cursor = from;
+            int i = indexOf(from);
+            if (i < 0 || ends[i] <= from) {
+                i++;
+            }
+            while (cursor < to) {
+                if (i >= starts.length || starts[i] >= to) {
+                    segments.add(new Segment(cursor, to, DEFAULT_FACTOR));
+                    break;
+                }
+                if (cursor < starts[i]) {
+                    segments.add(new Segment(cursor, starts[i], DEFAULT_FACTOR));
+                    cursor = starts[i];
+                }
+                long end = Math.min(ends[i], to);
+                segments.add(new Segment(cursor, end, factors[i]));
+                cursor = end;
+                i++;
+            }
+            return segments;
+        }
+    }
+
+    // Một đoạn [start, end) có cùng hệ số giá
+    public record Segment(long start, long end, double factor) {
+    }
+}
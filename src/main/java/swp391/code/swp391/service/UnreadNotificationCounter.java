@@ -0,0 +1,110 @@
+package swp391.code.swp391.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import swp391.code.swp391.repository.NotificationRepository;
+import swp391.code.swp391.utils.TransactionUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Số notification chưa đọc của từng user, giữ trong bộ nhớ để API badge trả về O(1) mà không query DB.
+ * Nạp một lần khi khởi động (một câu GROUP BY), sau đó chỉ cộng / trừ nguyên tử sau khi transaction commit:
+ * +1 khi tạo notification, -n với n là số dòng câu UPDATE đánh dấu đã đọc thực sự thay đổi.
+ * User không còn notification chưa đọc thì bị xóa khỏi map.
+ * Nạp lại không chặn các thay đổi: kết quả quét được dựng vào map mới, các delta commit trong lúc quét
+ * được ghi lại và áp dụng lên map mới trước khi thay thế (delta của transaction commit ngay trước khi câu quét
+ * đọc tới có thể bị tính hai lần; bộ đếm chỉ dùng cho badge nên chấp nhận).
+ */
+@Component
+@RequiredArgsConstructor
+public class UnreadNotificationCounter {
+
+    private final NotificationRepository notificationRepository;
+
+    // userId -> số notification chưa đọc; được thay cả map khi nạp lại nên người đọc không thấy map rỗng giữa chừng
+    private volatile Map<Long, Long> unread = new ConcurrentHashMap<>();
+
+    // Delta áp dụng dưới read lock; nạp lại lấy write lock khi áp dụng các delta đã ghi và thay map
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    // Chỉ một lần nạp lại tại một thời điểm; ReentrantLock thay vì synchronized vì giữ trong lúc query DB
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    // Delta commit trong lúc đang quét DB, null khi không nạp lại
+    private volatile ConcurrentLinkedQueue<LiveUpdate> liveUpdates;
+
+    // Nạp bộ đếm từ DB khi ứng dụng khởi động
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuildLock.lock();
+        liveUpdates = new ConcurrentLinkedQueue<>();
+        try {
+            Map<Long, Long> rebuilt = new ConcurrentHashMap<>();
+            for (Object[] row : notificationRepository.countUnreadByUser()) {
+                rebuilt.put((Long) row[0], ((Number) row[1]).longValue());
+            }
+            swapLock.writeLock().lock();
+            try {
+                for (LiveUpdate update : liveUpdates) {
+                    apply(rebuilt, update.userId(), update.delta());
+                }
+                unread = rebuilt;
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+        } finally {
+            liveUpdates = null;
+            rebuildLock.unlock();
+        }
+    }
+
+    public long getUnread(Long userId) {
+        Long count = unread.get(userId);
+        return count != null ? count : 0;
+    }
+
+    // Có notification mới cho user (áp dụng sau khi transaction commit)
+    public void increment(Long userId) {
+        TransactionUtils.afterCommit(() -> add(userId, 1));
+    }
+
+    // User đã đọc count notification (áp dụng sau khi transaction commit)
+    public void decrement(Long userId, long count) {
+        if (count > 0) {
+            TransactionUtils.afterCommit(() -> add(userId, -count));
+        }
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private void add(Long userId, long delta) {
+        swapLock.readLock().lock();
+        try {
+            apply(unread, userId, delta);
+            ConcurrentLinkedQueue<LiveUpdate> pending = liveUpdates;
+            if (pending != null) {
+                pending.add(new LiveUpdate(userId, delta));
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private static void apply(Map<Long, Long> counts, Long userId, long delta) {
+        // compute chạy nguyên tử trên entry của user; về 0 thì trả null để xóa entry
+        counts.compute(userId, (id, count) -> {
+            long next = (count != null ? count : 0) + delta;
+            return next > 0 ? next : null;
+        });
+    }
+
+    // =============== INNER CLASSES ===============
+
+    private record LiveUpdate(Long userId, long delta) {
+    }
+}
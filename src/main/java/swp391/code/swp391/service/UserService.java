@@ -1,6 +1,8 @@
 package swp391.code.swp391.service;
 
+import swp391.code.swp391.dto.AuthMetricsDTO;
 import swp391.code.swp391.dto.LoginRequestDTO;
+import swp391.code.swp391.dto.LoginResponseDTO;
 import swp391.code.swp391.dto.RegisterRequestDTO;
 import swp391.code.swp391.entity.User;
 import swp391.code.swp391.entity.Vehicle;
@@ -12,6 +14,23 @@ import java.util.Optional;
 
 public interface UserService {
     User checkLoginUser(LoginRequestDTO loginRequestDTO);
+
+    /**
+     * Đăng nhập và phát hành access token JWT.
+     * @param loginRequestDTO username (email/phone) và password
+     * @param clientIp địa chỉ IP của client, dùng cho rate limit theo IP
+     * @return token kèm thông tin cơ bản của user, null nếu sai username hoặc password
+     * @throws IllegalArgumentException nếu username sai định dạng hoặc tài khoản không ở trạng thái ACTIVE
+     * @throws LoginRateLimiter.RateLimitExceededException nếu vượt giới hạn đăng nhập theo tài khoản hoặc IP
+     * @throws java.util.concurrent.RejectedExecutionException nếu pool băm mật khẩu đang quá tải
+     */
+    LoginResponseDTO login(LoginRequestDTO loginRequestDTO, String clientIp);
+
+    /**
+     * Số liệu của pool băm mật khẩu và rate limit đăng nhập.
+     * @return AuthMetricsDTO
+     */
+    AuthMetricsDTO getAuthMetrics();
     Long registerUser(RegisterRequestDTO registerDTO);
     User checkLoginByEmail(String email, String password);
     User checkLoginByPhone(String phone, String password);
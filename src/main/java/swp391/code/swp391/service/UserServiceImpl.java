@@ -1,20 +1,25 @@
 package swp391.code.swp391.service;
 
-import lombok.Getter;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.security.oauth2.jwt.Jwt;
+import swp391.code.swp391.dto.AuthMetricsDTO;
 import swp391.code.swp391.dto.LoginRequestDTO;
+import swp391.code.swp391.dto.LoginResponseDTO;
 import swp391.code.swp391.dto.RegisterRequestDTO;
 import org.springframework.stereotype.Service;
 import swp391.code.swp391.dto.UpdateUserDTO;
+import swp391.code.swp391.entity.NotificationOutbox;
 import swp391.code.swp391.entity.User;
 import swp391.code.swp391.repository.UserRepository;
+import swp391.code.swp391.service.VerificationCodeStore.Channel;
+import swp391.code.swp391.service.VerificationCodeStore.VerificationKey;
+import swp391.code.swp391.utils.JWTUtils;
 
-import java.time.LocalDateTime;
-import java.util.Map;
+import java.time.Duration;
 import java.util.Optional;
 import java.util.Random;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 
@@ -29,21 +34,40 @@ public class UserServiceImpl implements UserService {
 
     // Dependencies
 
-    private PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
 
     private final UserRepository userRepository;
 
-    // Lưu trữ mã xác thực tạm thời (trong thực tế nên dùng Redis)
-    private final Map<String, VerificationData> verificationCodes = new ConcurrentHashMap<>();
+    private final JWTUtils jwtUtils;
+
+    private final JwtClaimsCache jwtClaimsCache;
+
+    private final LoginRateLimiter loginRateLimiter;
+
+    // Lưu trữ mã xác thực tạm thời, tự hết hạn (bộ nhớ hoặc Redis, theo verification.store)
+    private final VerificationCodeStore verificationCodes;
+
+    // Ghi thông báo vào outbox cùng transaction, gửi ở nền
+    private final NotificationPublisher notificationPublisher;
+
+    @Value("${verification.code.ttl-minutes:15}")
+    private long verificationCodeTtlMinutes;
 
 
     /**
      * Constructor injection for dependencies
-     * Initializes BCryptPasswordEncoder for password hashing
+     * BCrypt runs on the bounded PasswordHasher pool, not on the request thread
      */
-    public UserServiceImpl(UserRepository userRepository) {
+    public UserServiceImpl(UserRepository userRepository, PasswordHasher passwordHasher, JWTUtils jwtUtils,
+                           JwtClaimsCache jwtClaimsCache, LoginRateLimiter loginRateLimiter,
+                           VerificationCodeStore verificationCodes, NotificationPublisher notificationPublisher) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
+        this.jwtUtils = jwtUtils;
+        this.jwtClaimsCache = jwtClaimsCache;
+        this.loginRateLimiter = loginRateLimiter;
+        this.verificationCodes = verificationCodes;
+        this.notificationPublisher = notificationPublisher;
     }
 
     /**
@@ -72,6 +96,38 @@ public class UserServiceImpl implements UserService {
         return user;
     }
 
+    /**
+     * Authenticates user and issues a JWT access token
+     * Rate limits are checked before any lookup or hash; no transaction is held while waiting for the hash pool
+     * @return token and basic user info if authentication successful, null otherwise
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public LoginResponseDTO login(LoginRequestDTO loginRequestDTO, String clientIp) {
+        loginRateLimiter.acquire(loginRequestDTO.getUsername(), clientIp);
+        User user = checkLoginUser(loginRequestDTO);
+        if (user == null) {
+            return null;
+        }
+        if (user.getStatus() != User.UserStatus.ACTIVE) {
+            throw new IllegalArgumentException("Account is " + user.getStatus());
+        }
+
+        Jwt token = jwtUtils.generateToken(user);
+        return new LoginResponseDTO(token.getTokenValue(), "Bearer", token.getExpiresAt().toEpochMilli(),
+                user.getUserId(), user.getFullName(), user.getEmail(), user.getRole());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public AuthMetricsDTO getAuthMetrics() {
+        return new AuthMetricsDTO(passwordHasher.getPoolSize(), passwordHasher.getActiveCount(),
+                passwordHasher.getQueueDepth(), passwordHasher.getQueueCapacity(), passwordHasher.getCompleted(),
+                passwordHasher.getRejected(), passwordHasher.getAverageHashMillis(), passwordHasher.getMaxHashMillis(),
+                loginRateLimiter.getAccountRejected(), loginRateLimiter.getIpRejected(),
+                loginRateLimiter.getTrackedAccounts(), loginRateLimiter.getTrackedIps());
+    }
+
     /**
      * Registers a new user in the system
      * @param registerDTO Contains user registration details
@@ -87,7 +143,7 @@ public class UserServiceImpl implements UserService {
         }
 
         // Hash password and create new user
-        String encodedPassword = passwordEncoder.encode(registerDTO.getPassword());
+        String encodedPassword = passwordHasher.encode(registerDTO.getPassword());
         User user = new User(registerDTO.getFullName(), username, encodedPassword, null, null, null);
 
         try {
@@ -108,7 +164,7 @@ public class UserServiceImpl implements UserService {
         if (userOptional.isPresent()) {
             User user = userOptional.get();
             // Verify password hash matches
-            if (passwordEncoder.matches(password, user.getPassword())) {
+            if (passwordHasher.matches(password, user.getPassword())) {
                 return user;
             }
         }
@@ -121,7 +177,7 @@ public class UserServiceImpl implements UserService {
         Optional<User> userOptional = userRepository.findByPhone(phone);
         if (userOptional.isPresent()) {
             User user = userOptional.get();
-            if (passwordEncoder.matches(password, user.getPassword())) {
+            if (passwordHasher.matches(password, user.getPassword())) {
                 return user;
             }
         }
@@ -219,12 +275,13 @@ public class UserServiceImpl implements UserService {
             }
 
             // Kiểm tra mật khẩu cũ
-            if (!passwordEncoder.matches(updateDTO.getOldPassword(), user.getPassword())) {
+            if (!passwordHasher.matches(updateDTO.getOldPassword(), user.getPassword())) {
                 throw new RuntimeException("Mật khẩu cũ không đúng");
             }
 
-            // Mã hóa và cập nhật mật khẩu mới
-            user.setPassword(passwordEncoder.encode(updateDTO.getNewPassword()));
+            // Mã hóa và cập nhật mật khẩu mới, thu hồi các token đã phát hành
+            user.setPassword(passwordHasher.encode(updateDTO.getNewPassword()));
+            jwtClaimsCache.revokeUser(userId);
         }
 
         return userRepository.save(user);
@@ -259,16 +316,12 @@ public class UserServiceImpl implements UserService {
         // Tạo mã xác thực
         String verificationCode = generateVerificationCode();
 
-        // Lưu mã xác thực (key = userId_email_type)
-        String key = userId + "_" + newEmail + "_EMAIL";
-        verificationCodes.put(key, new VerificationData(
-                verificationCode,
-                newEmail,
-                LocalDateTime.now().plusMinutes(15) // Hết hạn sau 15 phút
-        ));
+        // Lưu mã xác thực (key = userId + EMAIL + email mới), hết hạn sau verification.code.ttl-minutes
+        VerificationKey key = new VerificationKey(userId, Channel.EMAIL, newEmail);
+        verificationCodes.put(key, verificationCode, Duration.ofMinutes(verificationCodeTtlMinutes));
 
-        // Gửi email (giả lập)
-        sendEmailCode(newEmail, verificationCode, user.getFullName());
+        // Gửi email qua outbox (không chờ gửi xong)
+        sendEmailCode(userId, newEmail, verificationCode, user.getFullName());
 
         return "Mã xác thực đã được gửi đến: " + maskEmail(newEmail);
     }
@@ -280,19 +333,15 @@ public class UserServiceImpl implements UserService {
         User user = getUserById(userId);
 
         // Kiểm tra mã xác thực
-        String key = userId + "_" + newEmail + "_EMAIL";
-        VerificationData verificationData = verificationCodes.get(key);
+        VerificationKey key = new VerificationKey(userId, Channel.EMAIL, newEmail);
+        String storedCode = verificationCodes.get(key);
 
-        if (verificationData == null) {
-            throw new IllegalArgumentException("Không tìm thấy mã xác thực. Vui lòng gửi lại mã.");
+        // Mã hết hạn đã bị store xóa
+        if (storedCode == null) {
+            throw new IllegalArgumentException("Không tìm thấy mã xác thực hoặc mã đã hết hạn. Vui lòng gửi lại mã.");
         }
 
-        if (verificationData.isExpired()) {
-            verificationCodes.remove(key);
-            throw new IllegalArgumentException("Mã xác thực đã hết hạn. Vui lòng gửi lại mã.");
-        }
-
-        if (!verificationData.getCode().equals(verificationCode)) {
+        if (!storedCode.equals(verificationCode)) {
             throw new IllegalArgumentException("Mã xác thực không đúng");
         }
 
@@ -338,15 +387,11 @@ public class UserServiceImpl implements UserService {
         String verificationCode = generateVerificationCode();
 
         // Lưu mã xác thực
-        String key = userId + "_" + newPhone + "_PHONE";
-        verificationCodes.put(key, new VerificationData(
-                verificationCode,
-                newPhone,
-                LocalDateTime.now().plusMinutes(15)
-        ));
+        VerificationKey key = new VerificationKey(userId, Channel.PHONE, newPhone);
+        verificationCodes.put(key, verificationCode, Duration.ofMinutes(verificationCodeTtlMinutes));
 
-        // Gửi SMS (giả lập)
-        sendSMSCode(newPhone, verificationCode, user.getFullName());
+        // Gửi SMS qua outbox (không chờ gửi xong)
+        sendSMSCode(userId, newPhone, verificationCode, user.getFullName());
 
         return "Mã xác thực đã được gửi đến: " + maskPhoneNumber(newPhone);
     }
@@ -358,19 +403,15 @@ public class UserServiceImpl implements UserService {
         User user = getUserById(userId);
 
         // Kiểm tra mã xác thực
-        String key = userId + "_" + newPhone + "_PHONE";
-        VerificationData verificationData = verificationCodes.get(key);
-
-        if (verificationData == null) {
-            throw new IllegalArgumentException("Không tìm thấy mã xác thực. Vui lòng gửi lại mã.");
-        }
+        VerificationKey key = new VerificationKey(userId, Channel.PHONE, newPhone);
+        String storedCode = verificationCodes.get(key);
 
-        if (verificationData.isExpired()) {
-            verificationCodes.remove(key);
-            throw new IllegalArgumentException("Mã xác thực đã hết hạn. Vui lòng gửi lại mã.");
+        // Mã hết hạn đã bị store xóa
+        if (storedCode == null) {
+            throw new IllegalArgumentException("Không tìm thấy mã xác thực hoặc mã đã hết hạn. Vui lòng gửi lại mã.");
         }
 
-        if (!verificationData.getCode().equals(verificationCode)) {
+        if (!storedCode.equals(verificationCode)) {
             throw new IllegalArgumentException("Mã xác thực không đúng");
         }
 
@@ -396,6 +437,9 @@ public class UserServiceImpl implements UserService {
     public User changeUserStatus(Long userId, User.UserStatus newStatus) {
         User user = getUserById(userId);
         user.setStatus(newStatus);
+        if (newStatus != User.UserStatus.ACTIVE) {
+            jwtClaimsCache.revokeUser(userId);
+        }
         return userRepository.save(user);
     }
 
@@ -403,12 +447,14 @@ public class UserServiceImpl implements UserService {
     public void deleteUser(Long userId) {
             User user = getUserById(userId);
             userRepository.delete(user);
+            jwtClaimsCache.revokeUser(userId);
     }
 
     @Override
     public User banUser(Long id) {
             User user =  getUserById(id);
             user.setStatus(User.UserStatus.BANNED);
+            jwtClaimsCache.revokeUser(id);
             return userRepository.save(user);
     }
 
@@ -462,57 +508,23 @@ public class UserServiceImpl implements UserService {
     }
 
     /**
-     * Giả lập gửi email
-     */
-    private void sendEmailCode(String email, String code, String fullName) {
-        System.out.println("=== SENDING EMAIL ===");
-        System.out.println("To: " + email);
-        System.out.println("Subject: Mã xác thực thay đổi email");
-        System.out.println("Content: Xin chào " + fullName + ",");
-        System.out.println("Mã xác thực của bạn là: " + code);
-        System.out.println("Mã có hiệu lực trong 15 phút.");
-        System.out.println("====================");
-
-        // TODO: Implement real email sending
-        // emailService.sendVerificationCode(email, code, fullName);
-    }
-
-    /**
-     * Giả lập gửi SMS
+     * Đưa email mã xác thực vào outbox, dispatcher gửi sau khi commit
      */
-    private void sendSMSCode(String phone, String code, String fullName) {
-        System.out.println("=== SENDING SMS ===");
-        System.out.println("To: " + phone);
-        System.out.println("Message: Xin chào " + fullName + ". Mã xác thực của bạn là: " + code + ". Có hiệu lực 15 phút.");
-        System.out.println("===================");
-
-        // TODO: Implement real SMS sending
-        // smsService.sendVerificationCode(phone, code, fullName);
+    private void sendEmailCode(Long userId, String email, String code, String fullName) {
+        String content = "Xin chào " + fullName + ",\n"
+                + "Mã xác thực của bạn là: " + code + "\n"
+                + "Mã có hiệu lực trong " + verificationCodeTtlMinutes + " phút.";
+        notificationPublisher.enqueue(NotificationOutbox.Channel.EMAIL, email,
+                "Mã xác thực thay đổi email", content, userId);
     }
 
-    // =============== INNER CLASSES ===============
-
     /**
-     * Class lưu trữ thông tin mã xác thực
+     * Đưa SMS mã xác thực vào outbox, dispatcher gửi sau khi commit
      */
-    private static class VerificationData {
-        @Getter
-        private final String code;
-        @Getter
-        private final String newValue;
-        private final LocalDateTime expiryTime;
-
-        public VerificationData(String code, String newValue, LocalDateTime expiryTime) {
-            this.code = code;
-            this.newValue = newValue;
-            this.expiryTime = expiryTime;
-        }
-
-        public boolean isExpired() {
-            return LocalDateTime.now().isAfter(expiryTime);
-        }
+    private void sendSMSCode(Long userId, String phone, String code, String fullName) {
+        String content = "Xin chào " + fullName + ". Mã xác thực của bạn là: " + code
+                + ". Có hiệu lực " + verificationCodeTtlMinutes + " phút.";
+        notificationPublisher.enqueue(NotificationOutbox.Channel.SMS, phone, null, content, userId);
     }
 
-
-
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package swp391.code.swp391.service;
 
+import swp391.code.swp391.dto.KeysetPageDTO;
 import swp391.code.swp391.dto.VehicleDTO;
 
 import java.util.List;
@@ -12,8 +13,8 @@ public interface VehicleService {
     // Lấy vehicle theo plate number
     VehicleDTO getVehicleByPlateNumber(String plateNumber);
 
-    // Lấy tất cả vehicles
-    List<VehicleDTO> getAllVehicles();
+    // Lấy một trang vehicles theo keyset (khóa lớn hơn after, tối đa limit phần tử)
+    KeysetPageDTO<VehicleDTO> getVehiclesPage(String after, int limit);
 
     // Lấy vehicles theo user ID
     List<VehicleDTO> getVehiclesByUserId(Long userId);
@@ -1,8 +1,10 @@
 package swp391.code.swp391.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import swp391.code.swp391.dto.KeysetPageDTO;
 import swp391.code.swp391.dto.VehicleDTO;
 import swp391.code.swp391.entity.ConnectorType;
 import swp391.code.swp391.entity.User;
@@ -22,6 +24,7 @@ public class VehicleServiceImpl implements VehicleService {
     private final VehicleRepository vehicleRepository;
     private final UserRepository userRepository;
     private final ConnectorTypeRepository connectorTypeRepository;
+    private final ConnectorCompatibilityIndex compatibilityIndex;
 
     @Override
     public VehicleDTO createVehicle(VehicleDTO vehicleDTO) {
@@ -45,10 +48,13 @@ public class VehicleServiceImpl implements VehicleService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<VehicleDTO> getAllVehicles() {
-        return vehicleRepository.findAll().stream()
+    public KeysetPageDTO<VehicleDTO> getVehiclesPage(String after, int limit) {
+        int pageSize = KeysetPageDTO.clampLimit(limit);
+        List<VehicleDTO> rows = vehicleRepository
+                .findByPlateNumberGreaterThanOrderByPlateNumberAsc(after != null ? after : "", Limit.of(pageSize + 1)).stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
+        return KeysetPageDTO.of(rows, pageSize, VehicleDTO::getPlateNumber);
     }
 
     @Override
@@ -84,6 +90,7 @@ public class VehicleServiceImpl implements VehicleService {
         }
 
         Vehicle updatedVehicle = vehicleRepository.save(existingVehicle);
+        compatibilityIndex.evictVehicle(plateNumber);
         return convertToDTO(updatedVehicle);
     }
 
@@ -97,6 +104,7 @@ public class VehicleServiceImpl implements VehicleService {
             throw new RuntimeException("You don't have permission to delete this vehicle");
         }
         vehicleRepository.deleteById(plateNumber);
+        compatibilityIndex.evictVehicle(plateNumber);
     }
 
     @Override
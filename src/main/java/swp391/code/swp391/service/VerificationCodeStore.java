@@ -0,0 +1,31 @@
+package swp391.code.swp391.service;
+
+import java.time.Duration;
+
+/**
+ * Nơi lưu mã xác thực đổi email / số điện thoại, mỗi mã tự hết hạn sau ttl.
+ * Mỗi user giữ tối đa một số mã đang chờ; thêm mã vượt giới hạn thì mã cũ nhất của user bị xóa.
+ * Chọn triển khai bằng verification.store: memory (mặc định, một node) hoặc redis (nhiều node dùng chung).
+ */
+public interface VerificationCodeStore {
+
+    // Lưu mã cho key (thay mã cũ cùng key nếu có)
+    void put(VerificationKey key, String code, Duration ttl);
+
+    // Mã còn hạn của key, null nếu không có hoặc đã hết hạn
+    String get(VerificationKey key);
+
+    // Xóa mã của key (sau khi xác thực xong)
+    void remove(VerificationKey key);
+
+    enum Channel {
+        EMAIL,
+        PHONE
+    }
+
+    /**
+     * Khóa của một mã: user, kênh và giá trị mới (email / số điện thoại) cần xác thực
+     */
+    record VerificationKey(long userId, Channel channel, String target) {
+    }
+}
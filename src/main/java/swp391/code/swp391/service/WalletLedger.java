@@ -0,0 +1,331 @@
+package swp391.code.swp391.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import swp391.code.swp391.entity.Transaction;
+import swp391.code.swp391.entity.Wallet;
+import swp391.code.swp391.entity.WalletBalanceSnapshot;
+import swp391.code.swp391.entity.WalletTransaction;
+import swp391.code.swp391.repository.WalletBalanceSnapshotRepository;
+import swp391.code.swp391.repository.WalletRepository;
+import swp391.code.swp391.repository.WalletTransactionRepository;
+import swp391.code.swp391.utils.StripedLock;
+import swp391.code.swp391.utils.TransactionUtils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sổ cái ví chỉ ghi nối tiếp (append-only).
+ * - Mỗi biến động số dư là một WalletTransaction mới với amountMinor có dấu (đơn vị 1/100, kiểu long nên cộng
+ *   dồn chính xác) và số dư sau giao dịch; không dòng nào bị sửa.
+ * - Ghi sổ giữ khóa phân dải theo walletId tới khi transaction kết thúc, nên các giao dịch của cùng một ví
+ *   được tuần tự hóa còn ví khác chạy song song; không cần khóa dòng Wallet trên DB.
+ * - Số dư hiện tại giữ trong bộ nhớ (O(1)), cập nhật sau khi commit. Trong một transaction, số dư sau mỗi
+ *   bút toán được cộng dồn trên bản nháp riêng của transaction, nên nhiều bút toán cùng ví vẫn đúng.
+ *   Định kỳ chụp WalletBalanceSnapshot;
+ *   số dư luôn dựng lại chính xác được bằng snapshot + tổng các giao dịch sau snapshot.
+ * Số dư trong bộ nhớ chỉ đúng khi chỉ có một instance ghi sổ.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WalletLedger {
+
+    // Số đơn vị nhỏ nhất trong một đơn vị tiền
+    public static final int MINOR_SCALE = 2;
+
+    private final WalletRepository walletRepository;
+    private final WalletTransactionRepository walletTransactionRepository;
+    private final WalletBalanceSnapshotRepository snapshotRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${wallet.lock.stripes:1024}")
+    private int stripes;
+
+    @Value("${wallet.lock.timeout-ms:3000}")
+    private long lockTimeoutMs;
+
+    // walletId -> số dư hiện tại
+    private final Map<Long, Balance> balances = new ConcurrentHashMap<>();
+
+    private StripedLock locks;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        locks = new StripedLock(stripes);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Tạo snapshot ban đầu cho các ví có từ trước sổ cái, lấy theo cột Wallet.balance
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Wallet wallet : walletRepository.findAll()) {
+                if (!snapshotRepository.existsById(wallet.getWalletId())) {
+                    snapshotRepository.save(new WalletBalanceSnapshot(wallet.getWalletId(),
+                            toMinor(wallet.getBalance() != null ? wallet.getBalance() : 0.0),
+                            walletTransactionRepository.findMaxEntryId(wallet.getWalletId()), LocalDateTime.now()));
+                }
+            }
+        });
+    }
+
+    // Snapshot rỗng cho ví mới, ghi trong cùng transaction tạo ví
+    public void open(Wallet wallet) {
+        snapshotRepository.save(new WalletBalanceSnapshot(wallet.getWalletId(), 0L, 0L, LocalDateTime.now()));
+    }
+
+    /**
+     * Ghi một giao dịch vào sổ. Phải gọi trong transaction; khóa của ví được giữ tới khi transaction kết thúc.
+     * @param amountMinor số tiền dương theo đơn vị nhỏ nhất, dấu được suy ra từ type
+     */
+    public WalletTransaction post(Wallet wallet, WalletTransaction.Type type, long amountMinor, Transaction transaction) {
+        if (amountMinor <= 0) {
+            throw new RuntimeException("Amount must be positive");
+        }
+        Long walletId = wallet.getWalletId();
+        ReentrantLock lock = locks.lock(walletId, lockTimeoutMs, "Wallet " + walletId);
+        TransactionUtils.lockUntilCompletion(lock);
+
+        Map<Long, long[]> pending = pending();
+        long delta = type == WalletTransaction.Type.DEPOSIT ? amountMinor : -amountMinor;
+        long balanceAfter = Math.addExact(currentBalance(pending, walletId), delta);
+        if (balanceAfter < 0) {
+            throw new RuntimeException("Insufficient balance in wallet " + walletId);
+        }
+
+        WalletTransaction entry = new WalletTransaction();
+        entry.setWallet(wallet);
+        entry.setTransaction(transaction);
+        entry.setType(type);
+        entry.setAmount(toMajor(amountMinor));
+        entry.setAmountMinor(delta);
+        entry.setBalanceAfterMinor(balanceAfter);
+        entry.setCreatedAt(LocalDateTime.now());
+        WalletTransaction savedEntry = walletTransactionRepository.save(entry);
+
+        pending.put(walletId, new long[]{balanceAfter, savedEntry.getWalletTransactionId()});
+        return savedEntry;
+    }
+
+    // Khóa nhiều ví tới khi transaction kết thúc, theo thứ tự walletId tăng dần
+    public void lockUntilCompletion(Collection<Long> walletIds) {
+        for (Long walletId : new TreeSet<>(walletIds)) {
+            TransactionUtils.lockUntilCompletion(locks.lock(walletId, lockTimeoutMs, "Wallet " + walletId));
+        }
+    }
+
+    /**
+     * Ghi nhiều giao dịch bằng một JDBC batch insert. Phải gọi trong transaction và đã khóa các ví
+     * bằng lockUntilCompletion(walletIds); các bút toán cùng ví được cộng dồn theo thứ tự trong danh sách.
+     */
+    public void postBatch(List<Posting> postings) {
+        if (postings.isEmpty()) {
+            return;
+        }
+        Map<Long, long[]> pending = pending();
+        Map<Long, Long> balanceAfter = new HashMap<>();
+        List<Object[]> rows = new ArrayList<>(postings.size());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (Posting posting : postings) {
+            if (posting.amountMinor() <= 0) {
+                throw new RuntimeException("Amount must be positive");
+            }
+            Long walletId = posting.walletId();
+            long delta = posting.type() == WalletTransaction.Type.DEPOSIT ? posting.amountMinor() : -posting.amountMinor();
+            long after = Math.addExact(balanceAfter.computeIfAbsent(walletId, id -> currentBalance(pending, id)), delta);
+            if (after < 0) {
+                throw new RuntimeException("Insufficient balance in wallet " + walletId);
+            }
+            balanceAfter.put(walletId, after);
+            rows.add(new Object[]{walletId, posting.transactionId(), toMajor(posting.amountMinor()), delta, after,
+                    posting.type().name(), now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO wallet_transaction (wallet_id, transaction_id, amount, amount_minor, " +
+                "balance_after_minor, type, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)", rows);
+
+        // Ví đang bị khóa nên id lớn nhất của mỗi ví chính là bút toán cuối vừa ghi
+        for (Object[] row : walletTransactionRepository.findMaxEntryIds(balanceAfter.keySet())) {
+            Long walletId = (Long) row[0];
+            pending.put(walletId, new long[]{balanceAfter.get(walletId), ((Number) row[1]).longValue()});
+        }
+    }
+
+    // Số dư hiện tại theo đơn vị nhỏ nhất
+    public long balanceOf(Long walletId) {
+        return balance(walletId).amount;
+    }
+
+    // Dựng lại số dư từ snapshot trên DB và các giao dịch sau đó (không dùng bộ nhớ)
+    public long replay(Long walletId) {
+        WalletBalanceSnapshot snapshot = snapshotRepository.findById(walletId)
+                .orElseThrow(() -> new RuntimeException("Wallet not found with id: " + walletId));
+        Object[] row = walletTransactionRepository.sumAfter(walletId, snapshot.getLastEntryId()).get(0);
+        return snapshot.getBalanceMinor() + ((Number) row[0]).longValue();
+    }
+
+    /**
+     * Chụp snapshot cho các ví có giao dịch mới, đồng thời cập nhật cột Wallet.balance để hiển thị.
+     * Ví chụp lỗi (khóa bận, lỗi DB) vẫn giữ dirty để lần sau chụp lại và không chặn các ví còn lại.
+     */
+    @Scheduled(fixedDelayString = "${wallet.snapshot.interval-ms:60000}")
+    public void snapshot() {
+        balances.forEach((walletId, balance) -> {
+            if (!balance.dirty) {
+                return;
+            }
+            try {
+                snapshot(walletId, balance);
+            } catch (RuntimeException e) {
+                log.warn("Could not snapshot balance of wallet {}, will retry", walletId, e);
+            }
+        });
+    }
+
+    public static long toMinor(double amount) {
+        return BigDecimal.valueOf(amount).movePointRight(MINOR_SCALE)
+                .setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    public static double toMajor(long amountMinor) {
+        return BigDecimal.valueOf(amountMinor, MINOR_SCALE).doubleValue();
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private void snapshot(Long walletId, Balance balance) {
+        long amount;
+        long lastEntryId;
+        ReentrantLock lock = locks.lock(walletId, lockTimeoutMs, "Wallet " + walletId);
+        try {
+            amount = balance.amount;
+            lastEntryId = balance.lastEntryId;
+        } finally {
+            lock.unlock();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            snapshotRepository.save(new WalletBalanceSnapshot(walletId, amount, lastEntryId, now));
+            walletRepository.updateBalance(walletId, toMajor(amount), now);
+        });
+
+        // Chỉ xóa dirty sau khi snapshot đã commit và không có bút toán nào commit trong lúc chụp
+        lock = locks.lock(walletId, lockTimeoutMs, "Wallet " + walletId);
+        try {
+            if (balance.lastEntryId == lastEntryId) {
+                balance.dirty = false;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Số dư nháp của các ví đã ghi sổ trong transaction hiện tại: walletId -> {số dư sau bút toán cuối, id bút toán cuối}.
+     * Được áp vào bộ nhớ một lần khi commit, trước khi khóa ví được nhả; bị bỏ đi nếu rollback.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<Long, long[]> pending() {
+        Map<Long, long[]> pending = (Map<Long, long[]>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            return pending;
+        }
+        Map<Long, long[]> created = new HashMap<>();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                created.forEach((walletId, entry) -> balance(walletId).apply(entry[0], entry[1]));
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(WalletLedger.this);
+            }
+        });
+        return created;
+    }
+
+    // Số dư hiện tại của ví trong transaction: bản nháp nếu đã ghi sổ, nếu chưa thì số dư đã commit
+    private long currentBalance(Map<Long, long[]> pending, Long walletId) {
+        long[] entry = pending.get(walletId);
+        return entry != null ? entry[0] : balance(walletId).amount;
+    }
+
+    private Balance balance(Long walletId) {
+        Balance balance = balances.get(walletId);
+        if (balance != null) {
+            return balance;
+        }
+        // Đọc DB ngoài computeIfAbsent để không giữ khóa bucket của map trong lúc chờ DB; khóa của ví
+        // chặn bút toán commit giữa lúc đọc và lúc đưa vào map (khóa reentrant nên post() gọi được)
+        ReentrantLock lock = locks.lock(walletId, lockTimeoutMs, "Wallet " + walletId);
+        try {
+            balance = balances.get(walletId);
+            if (balance != null) {
+                return balance;
+            }
+            balance = load(walletId);
+            balances.put(walletId, balance);
+            return balance;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Số dư từ snapshot và tổng các giao dịch sau snapshot
+    private Balance load(Long walletId) {
+        WalletBalanceSnapshot snapshot = snapshotRepository.findById(walletId)
+                .orElseThrow(() -> new RuntimeException("Wallet not found with id: " + walletId));
+        Object[] row = walletTransactionRepository.sumAfter(walletId, snapshot.getLastEntryId()).get(0);
+        return new Balance(snapshot.getBalanceMinor() + ((Number) row[0]).longValue(), ((Number) row[1]).longValue());
+    }
+
+    // =============== INNER CLASSES ===============
+
+    // Một bút toán trong postBatch, amountMinor dương, dấu suy ra từ type
+    public record Posting(Long walletId, WalletTransaction.Type type, long amountMinor, Long transactionId) {
+    }
+
+    private static final class Balance {
+        private volatile long amount;
+        private volatile long lastEntryId;
+        private volatile boolean dirty;
+
+        Balance(long amount, long lastEntryId) {
+            this.amount = amount;
+            this.lastEntryId = lastEntryId;
+        }
+
+        // Chỉ được gọi khi đang giữ khóa của ví
+        void apply(long amount, long lastEntryId) {
+            this.amount = amount;
+            this.lastEntryId = lastEntryId;
+            this.dirty = true;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package swp391.code.swp391.service;
+
+import swp391.code.swp391.dto.WalletDTO;
+import swp391.code.swp391.dto.WalletTransactionDTO;
+import swp391.code.swp391.entity.WalletTransaction;
+
+import java.util.List;
+import java.util.Map;
+
+public interface WalletService {
+
+    // Tạo wallet mới cho user
+    WalletDTO createWallet(Long userId);
+
+    // Lấy wallet theo ID
+    WalletDTO getWalletById(Long walletId);
+
+    // Lấy wallets theo user ID
+    List<WalletDTO> getWalletsByUserId(Long userId);
+
+    // Ghi giao dịch nạp/rút/thanh toán vào sổ cái
+    WalletTransactionDTO post(Long walletId, WalletTransaction.Type type, WalletTransactionDTO walletTransactionDTO);
+
+    // Lấy lịch sử giao dịch của wallet
+    List<WalletTransactionDTO> getTransactionsByWalletId(Long walletId);
+
+    // Đối soát số dư trong bộ nhớ với số dư dựng lại từ snapshot
+    Map<String, Object> verifyBalance(Long walletId);
+}
@@ -0,0 +1,126 @@
+package swp391.code.swp391.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import swp391.code.swp391.dto.WalletDTO;
+import swp391.code.swp391.dto.WalletTransactionDTO;
+import swp391.code.swp391.entity.Transaction;
+import swp391.code.swp391.entity.User;
+import swp391.code.swp391.entity.Wallet;
+import swp391.code.swp391.entity.WalletTransaction;
+import swp391.code.swp391.repository.TransactionRepository;
+import swp391.code.swp391.repository.UserRepository;
+import swp391.code.swp391.repository.WalletRepository;
+import swp391.code.swp391.repository.WalletTransactionRepository;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class WalletServiceImpl implements WalletService {
+
+    private final WalletRepository walletRepository;
+    private final WalletTransactionRepository walletTransactionRepository;
+    private final TransactionRepository transactionRepository;
+    private final UserRepository userRepository;
+    private final WalletLedger walletLedger;
+
+    @Override
+    public WalletDTO createWallet(Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
+
+        Wallet wallet = new Wallet(null, user, 0.0, LocalDateTime.now());
+        Wallet savedWallet = walletRepository.save(wallet);
+        walletLedger.open(savedWallet);
+        return convertToDTO(savedWallet);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public WalletDTO getWalletById(Long walletId) {
+        Wallet wallet = walletRepository.findById(walletId)
+                .orElseThrow(() -> new RuntimeException("Wallet not found with id: " + walletId));
+        return convertToDTO(wallet);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<WalletDTO> getWalletsByUserId(Long userId) {
+        return walletRepository.findByUserUserId(userId).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public WalletTransactionDTO post(Long walletId, WalletTransaction.Type type, WalletTransactionDTO walletTransactionDTO) {
+        if (walletTransactionDTO.getAmount() == null || walletTransactionDTO.getAmount() <= 0) {
+            throw new RuntimeException("Amount must be positive");
+        }
+        // Không load Wallet: sổ cái chỉ cần khóa ngoại, số dư nằm trong WalletLedger
+        if (!walletRepository.existsById(walletId)) {
+            throw new RuntimeException("Wallet not found with id: " + walletId);
+        }
+        Wallet wallet = walletRepository.getReferenceById(walletId);
+
+        Transaction transaction = null;
+        if (walletTransactionDTO.getTransactionId() != null) {
+            transaction = transactionRepository.findById(walletTransactionDTO.getTransactionId())
+                    .orElseThrow(() -> new RuntimeException("Transaction not found with id: " + walletTransactionDTO.getTransactionId()));
+        }
+
+        WalletTransaction entry = walletLedger.post(wallet, type,
+                WalletLedger.toMinor(walletTransactionDTO.getAmount()), transaction);
+        return convertToDTO(entry, walletId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<WalletTransactionDTO> getTransactionsByWalletId(Long walletId) {
+        return walletTransactionRepository.findByWalletWalletIdOrderByWalletTransactionIdDesc(walletId).stream()
+                .map(entry -> convertToDTO(entry, walletId))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Object> verifyBalance(Long walletId) {
+        long current = walletLedger.balanceOf(walletId);
+        long replayed = walletLedger.replay(walletId);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("walletId", walletId);
+        result.put("balance", WalletLedger.toMajor(current));
+        result.put("replayedBalance", WalletLedger.toMajor(replayed));
+        result.put("consistent", current == replayed);
+        return result;
+    }
+
+    // Helper methods
+    private WalletDTO convertToDTO(Wallet wallet) {
+        WalletDTO dto = new WalletDTO();
+        dto.setWalletId(wallet.getWalletId());
+        dto.setUserId(wallet.getUser() != null ? wallet.getUser().getUserId() : null);
+        // Số dư lấy từ sổ cái, cột Wallet.balance chỉ được cập nhật khi chụp snapshot
+        dto.setBalance(WalletLedger.toMajor(walletLedger.balanceOf(wallet.getWalletId())));
+        dto.setUpdatedAt(wallet.getUpdatedAt());
+        return dto;
+    }
+
+    private WalletTransactionDTO convertToDTO(WalletTransaction entry, Long walletId) {
+        WalletTransactionDTO dto = new WalletTransactionDTO();
+        dto.setWalletTransactionId(entry.getWalletTransactionId());
+        dto.setWalletId(walletId);
+        dto.setTransactionId(entry.getTransaction() != null ? entry.getTransaction().getTransactionId() : null);
+        dto.setAmount(entry.getAmount());
+        dto.setBalanceAfter(entry.getBalanceAfterMinor() != null ? WalletLedger.toMajor(entry.getBalanceAfterMinor()) : null);
+        dto.setType(entry.getType());
+        dto.setCreatedAt(entry.getCreatedAt());
+        return dto;
+    }
+}
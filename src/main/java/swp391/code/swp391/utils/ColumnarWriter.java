@@ -0,0 +1,142 @@
+package swp391.code.swp391.utils;
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Ghi dữ liệu dạng cột, theo từng row group có kích thước cố định (bộ nhớ không phụ thuộc số dòng).
+ * Định dạng (big-endian, thường được bọc trong GZIPOutputStream):
+ * - Header: magic "EVCOL", version (byte), tên bảng (UTF), số cột (int), mỗi cột: tên (UTF) + kiểu (byte).
+ * - Mỗi row group: số dòng (int > 0), rồi từng cột: bitmap null ((n + 7) / 8 byte, bit = 1 là null)
+ *   và các giá trị không null liền nhau: LONG/TIMESTAMP là long (epoch millis), DOUBLE là double,
+ *   STRING là độ dài (int) + UTF-8.
+ * - Kết thúc: số dòng = 0.
+ * Các giá trị cùng cột nằm cạnh nhau nên nén tốt hơn CSV và đọc được từng cột riêng.
+ */
+public final class ColumnarWriter implements Closeable {
+
+    private static final byte[] MAGIC = "EVCOL".getBytes(StandardCharsets.US_ASCII);
+    private static final byte VERSION = 1;
+
+    private final DataOutputStream out;
+    private final List<Column> columns;
+    private final int rowGroupSize;
+
+    // Bộ đệm của row group hiện tại, mỗi cột chỉ dùng một trong ba mảng theo kiểu
+    private final long[][] longs;
+    private final double[][] doubles;
+    private final String[][] strings;
+    private final boolean[][] nulls;
+    private int rows;
+    private long rowCount;
+
+    public ColumnarWriter(OutputStream out, String table, List<Column> columns, int rowGroupSize) throws IOException {
+        this.out = new DataOutputStream(out);
+        this.columns = List.copyOf(columns);
+        this.rowGroupSize = rowGroupSize;
+        int n = columns.size();
+        longs = new long[n][];
+        doubles = new double[n][];
+        strings = new String[n][];
+        nulls = new boolean[n][rowGroupSize];
+        for (int c = 0; c < n; c++) {
+            switch (columns.get(c).type()) {
+                case LONG, TIMESTAMP -> longs[c] = new long[rowGroupSize];
+                case DOUBLE -> doubles[c] = new double[rowGroupSize];
+                case STRING -> strings[c] = new String[rowGroupSize];
+            }
+        }
+
+        this.out.write(MAGIC);
+        this.out.writeByte(VERSION);
+        this.out.writeUTF(table);
+        this.out.writeInt(n);
+        for (Column column : columns) {
+            this.out.writeUTF(column.name());
+            this.out.writeByte(column.type().ordinal());
+        }
+    }
+
+    // Đọc dòng hiện tại của ResultSet, cột thứ i của writer lấy từ cột thứ i + 1 của ResultSet
+    public void append(ResultSet rs) throws SQLException, IOException {
+        for (int c = 0; c < columns.size(); c++) {
+            int index = c + 1;
+            switch (columns.get(c).type()) {
+                case LONG -> longs[c][rows] = rs.getLong(index);
+                case DOUBLE -> doubles[c][rows] = rs.getDouble(index);
+                case STRING -> strings[c][rows] = rs.getString(index);
+                case TIMESTAMP -> {
+                    Timestamp timestamp = rs.getTimestamp(index);
+                    longs[c][rows] = timestamp != null ? timestamp.getTime() : 0L;
+                }
+            }
+            nulls[c][rows] = rs.wasNull();
+        }
+        if (++rows == rowGroupSize) {
+            flushRowGroup();
+        }
+    }
+
+    public long getRowCount() {
+        return rowCount + rows;
+    }
+
+    @Override
+    public void close() throws IOException {
+        flushRowGroup();
+        out.writeInt(0);
+        out.close();
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private void flushRowGroup() throws IOException {
+        if (rows == 0) {
+            return;
+        }
+        out.writeInt(rows);
+        for (int c = 0; c < columns.size(); c++) {
+            boolean[] columnNulls = nulls[c];
+            byte[] bitmap = new byte[(rows + 7) / 8];
+            for (int r = 0; r < rows; r++) {
+                if (columnNulls[r]) {
+                    bitmap[r >>> 3] |= (byte) (1 << (r & 7));
+                }
+            }
+            out.write(bitmap);
+            for (int r = 0; r < rows; r++) {
+                if (columnNulls[r]) {
+                    continue;
+                }
+                switch (columns.get(c).type()) {
+                    case LONG, TIMESTAMP -> out.writeLong(longs[c][r]);
+                    case DOUBLE -> out.writeDouble(doubles[c][r]);
+                    case STRING -> {
+                        byte[] bytes = strings[c][r].getBytes(StandardCharsets.UTF_8);
+                        out.writeInt(bytes.length);
+                        out.write(bytes);
+                        strings[c][r] = null;
+                    }
+                }
+            }
+        }
+        rowCount += rows;
+        rows = 0;
+    }
+
+    // =============== INNER CLASSES ===============
+
+    public enum Type {
+        LONG, DOUBLE, STRING, TIMESTAMP
+    }
+
+    public record Column(String name, Type type) {
+    }
+}
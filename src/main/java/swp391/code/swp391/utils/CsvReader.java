@@ -0,0 +1,122 @@
+package swp391.code.swp391.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Đọc CSV (RFC 4180) theo từng bản ghi, không nạp cả file vào bộ nhớ.
+ * Hỗ trợ trường trong dấu nháy kép (chứa dấu phẩy, xuống dòng, "" là một dấu nháy), dòng kết thúc bằng \n hoặc \r\n.
+ */
+public final class CsvReader implements Closeable {
+
+    private final Reader reader;
+    private final StringBuilder field = new StringBuilder();
+    private int peeked = -2;
+    private long line = 1;
+    private long recordLine;
+
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    // Đọc bản ghi tiếp theo, null khi hết file. Dòng trống bị bỏ qua.
+    public List<String> next() throws IOException {
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                return null;
+            }
+            if (c == '\r' || c == '\n') {
+                consumeLineEnd(c);
+                continue;
+            }
+            recordLine = line;
+            return readRecord(c);
+        }
+    }
+
+    // Số dòng (bắt đầu từ 1) nơi bản ghi vừa đọc bắt đầu
+    public long getRecordLine() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private List<String> readRecord(int first) throws IOException {
+        List<String> fields = new ArrayList<>();
+        int c = first;
+        while (true) {
+            field.setLength(0);
+            if (c == '"') {
+                c = readQuoted();
+            } else {
+                while (c != ',' && c != '\r' && c != '\n' && c != -1) {
+                    field.append((char) c);
+                    c = read();
+                }
+            }
+            fields.add(field.toString());
+            if (c == ',') {
+                c = read();
+                continue;
+            }
+            if (c == '\r' || c == '\n') {
+                consumeLineEnd(c);
+            }
+            return fields;
+        }
+    }
+
+    // Đọc phần trong dấu nháy, trả về ký tự đầu tiên sau dấu nháy đóng
+    private int readQuoted() throws IOException {
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                throw new IOException("Unterminated quoted field starting at line " + recordLine);
+            }
+            if (c == '"') {
+                int next = read();
+                if (next == '"') {
+                    field.append('"');
+                    continue;
+                }
+                // Bỏ qua ký tự thừa giữa dấu nháy đóng và dấu phân cách
+                while (next != ',' && next != '\r' && next != '\n' && next != -1) {
+                    next = read();
+                }
+                return next;
+            }
+            if (c == '\n') {
+                line++;
+            }
+            field.append((char) c);
+        }
+    }
+
+    private void consumeLineEnd(int c) throws IOException {
+        if (c == '\r') {
+            int next = read();
+            if (next != '\n') {
+                peeked = next;
+            }
+        }
+        line++;
+    }
+
+    private int read() throws IOException {
+        if (peeked != -2) {
+            int c = peeked;
+            peeked = -2;
+            return c;
+        }
+        return reader.read();
+    }
+}
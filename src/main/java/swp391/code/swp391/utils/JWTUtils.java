@@ -1,4 +1,60 @@
 package swp391.code.swp391.utils;
 
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.stereotype.Component;
+import swp391.code.swp391.entity.User;
+
+import java.time.Instant;
+
+/**
+ * Phát hành và xác thực access token JWT (HS512, khóa bí mật jwt.secret).
+ * Token mang userId (sub), email và role nên filter không phải tra DB để dựng Authentication.
+ */
+@Component
+@RequiredArgsConstructor
 public class JWTUtils {
+
+    public static final String CLAIM_EMAIL = "email";
+    public static final String CLAIM_ROLE = "role";
+
+    private final JwtEncoder jwtEncoder;
+    private final JwtDecoder jwtDecoder;
+
+    @Value("${jwt.issuer:swp391}")
+    private String issuer;
+
+    @Value("${jwt.expiration-ms:3600000}")
+    private long expirationMs;
+
+    // Tạo access token cho user đã đăng nhập
+    public Jwt generateToken(User user) {
+        Instant now = Instant.now();
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .issuer(issuer)
+                .subject(String.valueOf(user.getUserId()))
+                .issuedAt(now)
+                .expiresAt(now.plusMillis(expirationMs))
+                .claim(CLAIM_EMAIL, user.getEmail())
+                .claim(CLAIM_ROLE, user.getRole().name())
+                .build();
+        JwsHeader header = JwsHeader.with(MacAlgorithm.HS512).build();
+        return jwtEncoder.encode(JwtEncoderParameters.from(header, claims));
+    }
+
+    /**
+     * Kiểm tra chữ ký HMAC và thời hạn của token.
+     * @throws JwtException nếu token sai chữ ký, hết hạn hoặc không đọc được
+     */
+    public Jwt verifyToken(String token) {
+        return jwtDecoder.decode(token);
+    }
 }
@@ -0,0 +1,58 @@
+package swp391.code.swp391.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import swp391.code.swp391.dto.KeysetPageDTO;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Ghi JSON array theo từng phần tử ngay khi được tạo ra, không giữ cả danh sách trong bộ nhớ.
+ */
+public final class JsonStreamUtils {
+
+    private JsonStreamUtils() {
+    }
+
+    /**
+     * Ghi toàn bộ bảng theo từng trang keyset: pageLoader nhận khóa after (null cho trang đầu) và trả về trang kế.
+     * Mỗi trang được đọc trong một transaction ngắn riêng (gọi qua service), connection trả lại pool ngay sau đó,
+     * nên client tải chậm không giữ transaction hay connection trong suốt quá trình tải.
+     */
+    public static <T> StreamingResponseBody keysetArray(ObjectMapper objectMapper,
+                                                        Function<String, KeysetPageDTO<T>> pageLoader) {
+        return jsonArray(objectMapper, consumer -> {
+            String after = null;
+            do {
+                KeysetPageDTO<T> page = pageLoader.apply(after);
+                page.getItems().forEach(consumer);
+                after = page.getNextAfter();
+            } while (after != null);
+        });
+    }
+
+    /**
+     * @param source nhận một consumer và đẩy lần lượt từng phần tử vào đó
+     */
+    public static <T> StreamingResponseBody jsonArray(ObjectMapper objectMapper, Consumer<Consumer<T>> source) {
+        return out -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(out)) {
+                generator.writeStartArray();
+                source.accept(item -> {
+                    try {
+                        generator.writeObject(item);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+    }
+}
@@ -0,0 +1,138 @@
+package swp391.code.swp391.utils;
+
+import java.util.Arrays;
+
+/**
+ * Bảng băm địa chỉ mở với key long, mỗi ô giữ tổng tiền (double) và số lượng (long).
+ * Không boxing, không tạo object cho mỗi lần cộng; dùng cho các bucket tổng hợp theo thời gian.
+ * Ô có thay đổi từ lần forEachDirty trước được đánh dấu dirty.
+ * Không thread-safe: người gọi tự đồng bộ.
+ */
+public final class LongRollupMap {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private double[] amounts;
+    private long[] counts;
+    private boolean[] dirty;
+    private int size;
+    private int mask;
+
+    public LongRollupMap() {
+        this(16);
+    }
+
+    public LongRollupMap(int expectedSize) {
+        allocate(Integer.highestOneBit(Math.max(8, expectedSize * 2 - 1)) << 1);
+    }
+
+    // Cộng amount và count vào bucket key (key không được là Long.MIN_VALUE)
+    public void add(long key, double amount, long count) {
+        int slot = slotFor(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            if (++size * 2 > keys.length) {
+                resize();
+                slot = slotFor(key);
+            }
+        }
+        amounts[slot] += amount;
+        counts[slot] += count;
+        dirty[slot] = true;
+    }
+
+    // Cộng toàn bộ bucket của map khác vào map này
+    public void addAll(LongRollupMap other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] != EMPTY) {
+                add(other.keys[i], other.amounts[i], other.counts[i]);
+            }
+        }
+    }
+
+    public double amount(long key) {
+        int slot = slotFor(key);
+        return keys[slot] == EMPTY ? 0.0 : amounts[slot];
+    }
+
+    public long count(long key) {
+        int slot = slotFor(key);
+        return keys[slot] == EMPTY ? 0L : counts[slot];
+    }
+
+    public boolean contains(long key) {
+        return keys[slotFor(key)] != EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Duyệt các bucket đã thay đổi và xóa cờ dirty
+    public void forEachDirty(BucketConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY && dirty[i]) {
+                consumer.accept(keys[i], amounts[i], counts[i]);
+                dirty[i] = false;
+            }
+        }
+    }
+
+    // Đánh dấu lại bucket là dirty (khi ghi xuống DB thất bại)
+    public void markDirty(long key) {
+        int slot = slotFor(key);
+        if (keys[slot] != EMPTY) {
+            dirty[slot] = true;
+        }
+    }
+
+    // Đánh dấu lại toàn bộ bucket là dirty (sau khi rebuild, để flush ghi đè toàn bộ)
+    public void markAllDirty() {
+        for (int i = 0; i < keys.length; i++) {
+            dirty[i] = keys[i] != EMPTY;
+        }
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private int slotFor(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (h ^ (h >>> 32)) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        amounts = new double[capacity];
+        counts = new long[capacity];
+        dirty = new boolean[capacity];
+        mask = capacity - 1;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        double[] oldAmounts = amounts;
+        long[] oldCounts = counts;
+        boolean[] oldDirty = dirty;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slotFor(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                amounts[slot] = oldAmounts[i];
+                counts[slot] = oldCounts[i];
+                dirty[slot] = oldDirty[i];
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface BucketConsumer {
+        void accept(long key, double amount, long count);
+    }
+}
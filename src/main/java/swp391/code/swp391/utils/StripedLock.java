@@ -0,0 +1,52 @@
+package swp391.code.swp391.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Mảng ReentrantLock cố định (lũy thừa của 2), khóa được chọn theo hash của key.
+ * Các thao tác trên cùng một key được tuần tự hóa, key khác nhau gần như không chờ nhau,
+ * bộ nhớ không tăng theo số key.
+ */
+public final class StripedLock {
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    public StripedLock(int stripes) {
+        // Làm tròn lên lũy thừa của 2 để dùng phép AND thay cho phép chia lấy dư
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        mask = size - 1;
+    }
+
+    public ReentrantLock lockFor(long key) {
+        // Trộn bit của key để các id liên tiếp rơi vào các dải khác nhau
+        long h = key * 0x9E3779B97F4A7C15L;
+        return locks[(int) (h ^ (h >>> 32)) & mask];
+    }
+
+    /**
+     * Khóa key, ném RuntimeException nếu chờ quá timeoutMs thay vì treo request.
+     * @param resource mô tả tài nguyên dùng trong thông báo lỗi
+     */
+    public ReentrantLock lock(long key, long timeoutMs, String resource) {
+        ReentrantLock lock = lockFor(key);
+        try {
+            if (!lock.tryLock(timeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new RuntimeException(resource + " is busy, please retry");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for " + resource);
+        }
+        return lock;
+    }
+
+    public int size() {
+        return locks.length;
+    }
+}
@@ -0,0 +1,65 @@
+package swp391.code.swp391.utils;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.locks.Lock;
+
+public final class TransactionUtils {
+
+    private TransactionUtils() {
+    }
+
+    /**
+     * Chạy action sau khi transaction hiện tại commit thành công.
+     * Nếu không có transaction nào đang chạy thì action được chạy ngay.
+     * Dùng để cập nhật các index/cache trong bộ nhớ, tránh trường hợp rollback nhưng cache đã bị sửa.
+     */
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Chạy action nếu transaction hiện tại bị rollback, dùng để hoàn tác thay đổi đã làm trước trên bộ nhớ.
+     * Nếu không có transaction nào đang chạy thì không làm gì.
+     */
+    public static void afterRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * Giữ lock (đã được khóa) tới khi transaction hiện tại kết thúc, commit hoặc rollback.
+     * Các action afterCommit chạy trước khi lock được nhả.
+     */
+    public static void lockUntilCompletion(Lock lock) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            lock.unlock();
+            throw new IllegalStateException("lockUntilCompletion requires an active transaction");
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
+}
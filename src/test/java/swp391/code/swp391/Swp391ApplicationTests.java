@@ -2,8 +2,10 @@ package swp391.code.swp391;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
 
 @SpringBootTest
+@ActiveProfiles("dev")
 class Swp391ApplicationTests {
 
     @Test
@@ -0,0 +1,115 @@
+package swp391.code.swp391;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * So sánh Tomcat chạy trên thread pool và trên virtual threads (spring.threads.virtual.enabled) khi có
+ * 1000 / 5000 / 10000 client gọi đồng thời GET /api/charging-stations?limit=20.
+ * Mỗi cấu hình khởi động ứng dụng riêng trên port ngẫu nhiên, dùng DB trong application.properties (profile dev).
+ * In ra thông lượng, độ trễ p50 / p99, số request bị RequestConcurrencyFilter trả 503 và số request lỗi kết nối.
+ * Client cần đủ file descriptor cho 10000 kết nối (ulimit -n).
+ * Không chạy trong build thường, chạy bằng: mvn test -Dtest=VirtualThreadLoadBenchmark
+ */
+@Tag("benchmark")
+class VirtualThreadLoadBenchmark {
+
+    private static final int[] CLIENTS = {1000, 5000, 10000};
+    private static final String PATH = "/api/charging-stations?limit=20";
+    private static final int WARMUP_REQUESTS = 500;
+
+    @Test
+    void platformThreadsVersusVirtualThreads() throws Exception {
+        System.out.printf("%-10s %8s %12s %10s %10s %8s %8s%n",
+                "threads", "clients", "requests/s", "p50 ms", "p99 ms", "503", "errors");
+        for (boolean virtual : new boolean[]{false, true}) {
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Swp391Application.class)
+                    .profiles("dev")
+                    .properties("server.port=0", "spring.threads.virtual.enabled=" + virtual)
+                    .run()) {
+                URI uri = URI.create("http://localhost:"
+                        + context.getEnvironment().getProperty("local.server.port") + PATH);
+                fire(uri, WARMUP_REQUESTS, null);
+                for (int clients : CLIENTS) {
+                    fire(uri, clients, virtual ? "virtual" : "platform");
+                }
+            }
+        }
+    }
+
+    // =============== HELPER METHODS ===============
+
+    // Mỗi client một virtual thread, cùng bắt đầu sau latch và gửi đúng một request; label null là lượt warm-up
+    private void fire(URI uri, int clients, String label) throws Exception {
+        long[] latencies = new long[clients];
+        LongAdder rejected = new LongAdder();
+        LongAdder errors = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60)).GET().build();
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        for (int i = 0; i < clients; i++) {
+            int client = i;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    long sent = System.nanoTime();
+                    HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                    latencies[client] = System.nanoTime() - sent;
+                    if (response.statusCode() == 503) {
+                        rejected.increment();
+                    } else if (response.statusCode() != 200) {
+                        errors.increment();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    latencies[client] = -1;
+                    errors.increment();
+                }
+            });
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES));
+        double seconds = (System.nanoTime() - started) / 1e9;
+        httpClient.close();
+
+        if (label == null) {
+            return;
+        }
+        // Request lỗi kết nối không có độ trễ, không tính vào percentile
+        long[] completed = Arrays.stream(latencies).filter(latency -> latency >= 0).sorted().toArray();
+        System.out.printf("%-10s %8d %12.0f %10.1f %10.1f %8d %8d%n", label, clients, clients / seconds,
+                percentile(completed, 0.50), percentile(completed, 0.99), rejected.sum(), errors.sum());
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
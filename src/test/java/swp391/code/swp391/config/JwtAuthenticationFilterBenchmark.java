@@ -0,0 +1,125 @@
+package swp391.code.swp391.config;
+
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import swp391.code.swp391.entity.User;
+import swp391.code.swp391.service.JwtClaimsCache;
+import swp391.code.swp391.utils.JWTUtils;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Benchmark chi phí xác thực mỗi request của JwtAuthenticationFilter khi số luồng tăng dần.
+ * So sánh: có JwtClaimsCache (chỉ băm SHA-256 token rồi tra map) và không cache (mỗi request kiểm tra lại HMAC
+ * và parse claims bằng NimbusJwtDecoder). 1000 user, mỗi user một token HS512 thật.
+ * Không chạy trong build thường, chạy bằng: mvn test -Dtest=JwtAuthenticationFilterBenchmark
+ */
+@Tag("benchmark")
+class JwtAuthenticationFilterBenchmark {
+
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32};
+    private static final int USERS = 1000;
+    private static final long DURATION_MS = 2000;
+    private static final String SECRET = "benchmark-secret-0123456789abcdefghijklmnopqrstuvwxyz-0123456789abcdef";
+
+    @Test
+    void authenticationsPerSecondCachedVersusUncached() throws Exception {
+        JWTUtils jwtUtils = jwtUtils();
+        String[] headers = new String[USERS];
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setUserId((long) i + 1);
+            user.setEmail("user" + i + "@example.com");
+            headers[i] = "Bearer " + jwtUtils.generateToken(user).getTokenValue();
+        }
+
+        System.out.printf("%-10s %8s %16s %12s%n", "cache", "threads", "requests/s", "hit rate");
+        for (int threads : THREADS) {
+            run("cached", threads, jwtUtils, claimsCache(USERS), headers);
+            // maxSize = 0: put không bao giờ lưu, mọi request đều kiểm tra HMAC
+            run("uncached", threads, jwtUtils, claimsCache(0), headers);
+        }
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private void run(String scenario, int threads, JWTUtils jwtUtils, JwtClaimsCache claimsCache, String[] headers)
+            throws Exception {
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtUtils, claimsCache);
+        // Lượt đầu: nạp cache (với kịch bản cached) và kiểm tra mọi token đều hợp lệ
+        for (String header : headers) {
+            assertEquals(200, authenticate(filter, header));
+        }
+
+        LongAdder requests = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION_MS);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        authenticate(filter, headers[random.nextInt(headers.length)]);
+                        requests.increment();
+                    }
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(DURATION_MS + 30_000, TimeUnit.MILLISECONDS));
+        double seconds = (System.nanoTime() - started) / 1e9;
+        System.out.printf("%-10s %8d %16.0f %12.2f%n", scenario, threads, requests.sum() / seconds,
+                claimsCache.getStats().getHitRate());
+    }
+
+    private static int authenticate(JwtAuthenticationFilter filter, String header) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/wallet");
+        request.setServletPath("/api/wallet");
+        request.addHeader(HttpHeaders.AUTHORIZATION, header);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+
+    // Cùng cấu hình HS512 với SecurityConfig
+    private static JWTUtils jwtUtils() {
+        SecretKey key = new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA512");
+        JWTUtils jwtUtils = new JWTUtils(new NimbusJwtEncoder(new ImmutableSecret<>(key)),
+                NimbusJwtDecoder.withSecretKey(key).macAlgorithm(MacAlgorithm.HS512).build());
+        ReflectionTestUtils.setField(jwtUtils, "issuer", "swp391");
+        ReflectionTestUtils.setField(jwtUtils, "expirationMs", 3_600_000L);
+        return jwtUtils;
+    }
+
+    private static JwtClaimsCache claimsCache(int maxSize) {
+        JwtClaimsCache claimsCache = new JwtClaimsCache();
+        ReflectionTestUtils.setField(claimsCache, "maxSize", maxSize);
+        return claimsCache;
+    }
+}
@@ -0,0 +1,90 @@
+package swp391.code.swp391.config;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestConcurrencyFilterTest {
+
+    @Test
+    void requestOverLimitGetsServiceUnavailableWithRetryAfter() throws Exception {
+        RequestConcurrencyFilter filter = filter(true, 1);
+        CountDownLatch inHandler = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() -> status(filter, (request, response) -> {
+            inHandler.countDown();
+            await(release);
+        }));
+        assertTrue(inHandler.await(10, TimeUnit.SECONDS));
+
+        MockHttpServletResponse rejected = execute(filter, new MockFilterChain());
+        assertEquals(503, rejected.getStatus());
+        assertEquals("1", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+
+        // Request đầu xong thì permit được trả lại
+        release.countDown();
+        assertEquals(200, first.get(10, TimeUnit.SECONDS));
+        assertEquals(200, execute(filter, new MockFilterChain()).getStatus());
+    }
+
+    @Test
+    void permitIsReleasedWhenHandlerThrows() throws Exception {
+        RequestConcurrencyFilter filter = filter(true, 1);
+
+        assertThrows(IllegalStateException.class, () -> execute(filter, (request, response) -> {
+            throw new IllegalStateException("Handler failed");
+        }));
+
+        assertEquals(200, execute(filter, new MockFilterChain()).getStatus());
+    }
+
+    @Test
+    void disabledFilterDoesNotLimit() throws Exception {
+        // max-in-flight = 0: mọi request sẽ bị từ chối nếu filter chạy
+        RequestConcurrencyFilter filter = filter(false, 0);
+
+        assertEquals(200, execute(filter, new MockFilterChain()).getStatus());
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private static RequestConcurrencyFilter filter(boolean enabled, int maxInFlight) {
+        RequestConcurrencyFilter filter = new RequestConcurrencyFilter(enabled, maxInFlight);
+        ReflectionTestUtils.setField(filter, "acquireTimeoutMs", 50L);
+        return filter;
+    }
+
+    private static MockHttpServletResponse execute(RequestConcurrencyFilter filter, FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/charging-stations"), response, chain);
+        return response;
+    }
+
+    private static int status(RequestConcurrencyFilter filter, FilterChain chain) {
+        try {
+            return execute(filter, chain).getStatus();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
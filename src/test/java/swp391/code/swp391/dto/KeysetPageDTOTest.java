@@ -0,0 +1,47 @@
+package swp391.code.swp391.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class KeysetPageDTOTest {
+
+    @Test
+    void extraRowMeansThereIsANextPage() {
+        KeysetPageDTO<String> page = KeysetPageDTO.of(List.of("29A-001", "29A-002", "29A-003", "29A-004"), 3,
+                plate -> plate);
+
+        assertEquals(List.of("29A-001", "29A-002", "29A-003"), page.getItems());
+        // Khóa của phần tử cuối trong trang, không phải của dòng thừa
+        assertEquals("29A-003", page.getNextAfter());
+    }
+
+    @Test
+    void fullLastPageHasNoNextCursor() {
+        KeysetPageDTO<Long> page = KeysetPageDTO.of(List.of(7L, 8L, 9L), 3, id -> id);
+
+        assertEquals(List.of(7L, 8L, 9L), page.getItems());
+        assertNull(page.getNextAfter());
+    }
+
+    @Test
+    void shortAndEmptyPagesHaveNoNextCursor() {
+        assertNull(KeysetPageDTO.of(List.of(1L), 3, id -> id).getNextAfter());
+
+        KeysetPageDTO<Long> empty = KeysetPageDTO.of(List.of(), 3, id -> id);
+        assertEquals(List.of(), empty.getItems());
+        assertNull(empty.getNextAfter());
+    }
+
+    @Test
+    void limitIsClampedToAllowedRange() {
+        assertEquals(1, KeysetPageDTO.clampLimit(0));
+        assertEquals(1, KeysetPageDTO.clampLimit(-5));
+        assertEquals(250, KeysetPageDTO.clampLimit(250));
+        assertEquals(KeysetPageDTO.MAX_LIMIT, KeysetPageDTO.clampLimit(KeysetPageDTO.MAX_LIMIT));
+        assertEquals(KeysetPageDTO.MAX_LIMIT, KeysetPageDTO.clampLimit(Integer.MAX_VALUE));
+    }
+}
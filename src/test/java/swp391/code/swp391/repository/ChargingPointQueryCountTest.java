@@ -0,0 +1,138 @@
+package swp391.code.swp391.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import swp391.code.swp391.dto.ChargingPointDTO;
+import swp391.code.swp391.dto.ConnectorTypeDTO;
+import swp391.code.swp391.entity.ChargingPoint;
+import swp391.code.swp391.entity.ChargingPoint.ChargingPointStatus;
+import swp391.code.swp391.entity.ChargingStation;
+import swp391.code.swp391.entity.ConnectorType;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Đếm số câu SQL của các API đọc charging point / connector type bằng Hibernate statistics:
+ * projection DTO phải chạy đúng một câu query, không phụ thuộc số dòng (không còn N+1).
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-count;MODE=MSSQLServer;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.auto_quote_keyword=true",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ChargingPointQueryCountTest {
+
+    private static final int STATIONS = 4;
+    private static final int POINTS_PER_STATION = 5;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ChargingPointRepository chargingPointRepository;
+
+    @Autowired
+    private ConnectorTypeRepository connectorTypeRepository;
+
+    private Statistics statistics;
+    private Long firstStationId;
+
+    @BeforeEach
+    void setUp() {
+        for (int s = 0; s < STATIONS; s++) {
+            ChargingStation station = new ChargingStation();
+            station.setStationName("Station " + s);
+            station.setAddress("Address " + s);
+            station.setLatitude(10.7 + s * 0.01);
+            station.setLongitude(106.7);
+            station.setChargingPointNumber(POINTS_PER_STATION);
+            testEntityManager.persist(station);
+            if (firstStationId == null) {
+                firstStationId = station.getStationId();
+            }
+            for (int p = 0; p < POINTS_PER_STATION; p++) {
+                ChargingPoint point = new ChargingPoint();
+                point.setStation(station);
+                point.setStatus(ChargingPointStatus.AVAILABLE);
+                testEntityManager.persist(point);
+
+                ConnectorType connectorType = new ConnectorType();
+                connectorType.setTypeName("CCS2-" + s + "-" + p);
+                connectorType.setPowerOutput(60.0);
+                connectorType.setPricePerKwh(3500.0);
+                connectorType.setChargingPoint(point);
+                testEntityManager.persist(connectorType);
+                point.setConnectorType(connectorType);
+            }
+        }
+        testEntityManager.flush();
+        // Đọc từ DB, không lấy từ persistence context
+        testEntityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void chargingPointPageIsOneQuery() {
+        List<ChargingPointDTO> page = chargingPointRepository.findDTOsAfter(0L, Limit.of(100));
+
+        assertEquals(STATIONS * POINTS_PER_STATION, page.size());
+        page.forEach(dto -> {
+            assertTrue(dto.getStationName().startsWith("Station "));
+            assertEquals(3500.0, dto.getPricePerKwh());
+        });
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void chargingPointsOfStationIsOneQuery() {
+        List<ChargingPointDTO> points = chargingPointRepository.findDTOsByStationId(firstStationId);
+
+        assertEquals(POINTS_PER_STATION, points.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void connectorTypePageIsOneQuery() {
+        List<ConnectorTypeDTO> page = connectorTypeRepository.findDTOsAfter(0L, Limit.of(100));
+
+        assertEquals(STATIONS * POINTS_PER_STATION, page.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void loadingEntitiesWouldIssueOneQueryPerAssociation() {
+        // Cách đọc cũ (findAll rồi map entity sang DTO): mỗi station / connector type là một câu query riêng
+        List<ChargingPoint> points = chargingPointRepository.findAll();
+        points.forEach(point -> {
+            point.getStation().getStationName();
+            point.getConnectorType().getTypeName();
+        });
+
+        assertEquals(STATIONS * POINTS_PER_STATION, points.size());
+        assertTrue(statistics.getPrepareStatementCount() > STATIONS,
+                "Expected N+1 selects, got " + statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,73 @@
+package swp391.code.swp391.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Benchmark thông lượng giữ chỗ (ChargingPointBookingIndex + ChargingPointLocks) khi số luồng đặt chỗ tăng dần.
+ * So sánh: mọi luồng đặt cùng một trụ (tranh chấp tối đa), đặt trên nhiều trụ với khóa phân dải,
+ * và đặt trên nhiều trụ nhưng chỉ có một khóa (mọi trụ chặn nhau).
+ * Chỉ đo đường giữ chỗ trong bộ nhớ; order được OrderBatchWriter ghi theo lô nên không nằm trên đường này.
+ * Không chạy trong build thường, chạy bằng: mvn test -Dtest=BookingContentionBenchmark
+ */
+@Tag("benchmark")
+class BookingContentionBenchmark {
+
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64};
+    private static final int POINTS = 1024;
+    private static final long DURATION_MS = 2000;
+
+    @Test
+    void reservationThroughputAsBookersScaleUp() throws Exception {
+        System.out.printf("%-28s %8s %14s %12s%n", "scenario", "threads", "attempts/s", "accepted");
+        for (int threads : THREADS) {
+            run("one hot point, 1024 stripes", threads, 1, 1024);
+            run("1024 points, 1024 stripes", threads, POINTS, 1024);
+            run("1024 points, 1 lock", threads, POINTS, 1);
+        }
+    }
+
+    private void run(String scenario, int threads, int points, int stripes) throws Exception {
+        ChargingPointBookingIndex index = new ChargingPointBookingIndex(null,
+                ChargingPointBookingIndexTest.locks(stripes));
+        LongAdder attempts = new LongAdder();
+        LongAdder accepted = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION_MS);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    // Khung 30 phút bất kỳ trong 30 ngày tới
+                    long from = random.nextLong(TimeUnit.DAYS.toMillis(30));
+                    long pointId = 1 + random.nextInt(points);
+                    if (index.tryReserve(pointId, from, from + TimeUnit.MINUTES.toMillis(30)) != null) {
+                        accepted.increment();
+                    }
+                    attempts.increment();
+                }
+            });
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(DURATION_MS + 30_000, TimeUnit.MILLISECONDS));
+        double seconds = (System.nanoTime() - started) / 1e9;
+        System.out.printf("%-28s %8d %14.0f %12d%n", scenario, threads, attempts.sum() / seconds, accepted.sum());
+    }
+}
@@ -0,0 +1,85 @@
+package swp391.code.swp391.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import swp391.code.swp391.entity.ChargingPoint;
+import swp391.code.swp391.entity.ChargingPoint.ChargingPointStatus;
+import swp391.code.swp391.entity.ChargingStation;
+import swp391.code.swp391.repository.ChargingPointRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ChargingPointAvailabilityRegistryTest {
+
+    private ChargingPointRepository repository;
+    private ChargingPointAvailabilityRegistry registry;
+    private final List<Object> events = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ChargingPointRepository.class);
+        registry = new ChargingPointAvailabilityRegistry(repository, events::add, new ConnectorCompatibilityIndex(null));
+    }
+
+    @Test
+    void olderVersionDoesNotOverwriteNewerStatus() {
+        // Không có transaction: update áp dụng ngay, theo thứ tự gọi (mô phỏng afterCommit chạy lệch thứ tự)
+        registry.update(point(1L, 10L, ChargingPointStatus.OCCUPIED, 2L));
+        registry.update(point(1L, 10L, ChargingPointStatus.AVAILABLE, 1L));
+
+        assertEquals(ChargingPointStatus.OCCUPIED, registry.getStatus(1L));
+        assertEquals(1, registry.countByStation(10L, ChargingPointStatus.OCCUPIED));
+        assertEquals(0, registry.countByStation(10L, ChargingPointStatus.AVAILABLE));
+        assertEquals(1, events.size());
+    }
+
+    @Test
+    void removedPointIsNotResurrectedByLateUpdate() {
+        registry.update(point(1L, 10L, ChargingPointStatus.AVAILABLE, 1L));
+        registry.remove(1L);
+        registry.update(point(1L, 10L, ChargingPointStatus.OCCUPIED, 2L));
+
+        assertNull(registry.getStatus(1L));
+        assertEquals(0, registry.countByStation(10L));
+    }
+
+    @Test
+    void updatesCommittedDuringRebuildScanAreKept() {
+        registry.update(point(1L, 10L, ChargingPointStatus.AVAILABLE, 1L));
+        when(repository.findAllPointStates()).thenAnswer(invocation -> {
+            // Một transaction commit trong lúc đang quét DB, sau khi câu query đã đọc dòng cũ
+            registry.update(point(1L, 10L, ChargingPointStatus.OCCUPIED, 2L));
+            registry.update(point(2L, 10L, ChargingPointStatus.AVAILABLE, 0L));
+            List<Object[]> rows = new ArrayList<>();
+            rows.add(new Object[]{1L, 10L, ChargingPointStatus.AVAILABLE, null, 1L});
+            return rows;
+        });
+
+        registry.rebuild();
+
+        assertEquals(ChargingPointStatus.OCCUPIED, registry.getStatus(1L));
+        assertEquals(ChargingPointStatus.AVAILABLE, registry.getStatus(2L));
+        assertEquals(1, registry.count(ChargingPointStatus.OCCUPIED));
+        assertEquals(1, registry.count(ChargingPointStatus.AVAILABLE));
+        assertEquals(List.of(1L, 2L), registry.getChargingPointIds(10L));
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private static ChargingPoint point(Long chargingPointId, Long stationId, ChargingPointStatus status, Long version) {
+        ChargingStation station = new ChargingStation();
+        station.setStationId(stationId);
+        ChargingPoint chargingPoint = new ChargingPoint();
+        chargingPoint.setChargingPointId(chargingPointId);
+        chargingPoint.setStation(station);
+        chargingPoint.setStatus(status);
+        chargingPoint.setVersion(version);
+        return chargingPoint;
+    }
+}
@@ -0,0 +1,115 @@
+package swp391.code.swp391.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import swp391.code.swp391.service.ChargingPointBookingIndex.Reservation;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChargingPointBookingIndexTest {
+
+    private static final long POINT = 1L;
+
+    private ChargingPointBookingIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ChargingPointBookingIndex(null, locks(1024));
+        assertNotNull(index.tryReserve(POINT, 100, 200));
+    }
+
+    @Test
+    void overlappingWindowsAreRejected() {
+        assertNull(index.tryReserve(POINT, 100, 200)); // trùng hoàn toàn
+        assertNull(index.tryReserve(POINT, 50, 150)); // kết thúc bên trong
+        assertNull(index.tryReserve(POINT, 150, 250)); // bắt đầu bên trong
+        assertNull(index.tryReserve(POINT, 120, 180)); // nằm trong
+        assertNull(index.tryReserve(POINT, 50, 250)); // bao trọn
+        assertFalse(index.isFree(POINT, 199, 201));
+    }
+
+    @Test
+    void adjacentWindowsAreAccepted() {
+        // Khung giờ là [start, end): kết thúc đúng lúc khung kia bắt đầu thì không trùng
+        assertNotNull(index.tryReserve(POINT, 200, 300));
+        assertNotNull(index.tryReserve(POINT, 0, 100));
+        assertNull(index.tryReserve(POINT, 99, 101));
+        assertNull(index.tryReserve(POINT, 299, 301));
+    }
+
+    @Test
+    void otherChargingPointsAreIndependent() {
+        assertTrue(index.isFree(2L, 100, 200));
+        assertNotNull(index.tryReserve(2L, 100, 200));
+    }
+
+    @Test
+    void releasedWindowCanBeReservedAgain() {
+        Reservation reservation = index.tryReserve(POINT, 300, 400);
+        index.attachOrder(reservation, 42L);
+        assertNull(index.tryReserve(POINT, 350, 450));
+
+        index.releaseOrder(42L);
+
+        assertTrue(index.isFree(POINT, 300, 400));
+        assertNotNull(index.tryReserve(POINT, 350, 450));
+    }
+
+    @Test
+    void concurrentReservationsNeverOverlap() throws Exception {
+        int threads = 16;
+        ConcurrentLinkedQueue<Reservation> accepted = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 2000; i++) {
+                    long from = 1000 + random.nextLong(100_000);
+                    Reservation reservation = index.tryReserve(POINT, from, from + 1 + random.nextLong(500));
+                    if (reservation != null) {
+                        accepted.add(reservation);
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        List<Reservation> sorted = new ArrayList<>(accepted);
+        sorted.sort(Comparator.comparingLong(Reservation::getStart));
+        for (int i = 1; i < sorted.size(); i++) {
+            assertTrue(sorted.get(i - 1).getEnd() <= sorted.get(i).getStart(),
+                    "Overlapping reservations accepted: " + sorted.get(i - 1).getStart() + "-"
+                            + sorted.get(i - 1).getEnd() + " and " + sorted.get(i).getStart());
+        }
+    }
+
+    static ChargingPointLocks locks(int stripes) {
+        ChargingPointLocks locks = new ChargingPointLocks();
+        ReflectionTestUtils.setField(locks, "stripes", stripes);
+        ReflectionTestUtils.setField(locks, "lockTimeoutMs", 3000L);
+        locks.init();
+        return locks;
+    }
+}
@@ -0,0 +1,134 @@
+package swp391.code.swp391.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import swp391.code.swp391.dto.ChargingPointStatusEvent;
+import swp391.code.swp391.entity.ChargingPoint.ChargingPointStatus;
+import swp391.code.swp391.entity.ChargingStation.ChargingStationStatus;
+import swp391.code.swp391.service.StationGeoIndex.StationLocation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ChargingPointStatusBroadcasterTest {
+
+    private static final long STATION_ID = 10L;
+    private static final long SEND_TIMEOUT_MS = 100;
+
+    private final Queue<SseEmitter> nextEmitters = new ConcurrentLinkedQueue<>();
+    private ChargingPointStatusBroadcaster broadcaster;
+
+    @BeforeEach
+    void setUp() {
+        StationGeoIndex stationGeoIndex = mock(StationGeoIndex.class);
+        when(stationGeoIndex.get(STATION_ID)).thenReturn(new StationLocation(STATION_ID, "Station", "Address",
+                ChargingStationStatus.ACTIVE, 10.7, 106.7, 2));
+        broadcaster = new ChargingPointStatusBroadcaster(stationGeoIndex, mock(ChargingPointAvailabilityRegistry.class)) {
+            @Override
+            SseEmitter createEmitter() {
+                return nextEmitters.poll();
+            }
+        };
+        ReflectionTestUtils.setField(broadcaster, "emitterTimeoutMs", 60_000L);
+        ReflectionTestUtils.setField(broadcaster, "sendTimeoutMs", SEND_TIMEOUT_MS);
+        ReflectionTestUtils.setField(broadcaster, "maxPendingPerSubscriber", 1024);
+        broadcaster.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.stop();
+    }
+
+    @Test
+    void nonReadingClientsDoNotBlockOtherSubscribersAndAreDropped() throws Exception {
+        // Nhiều client không đọc hơn số sender thread cố định trước đây (4)
+        List<StalledEmitter> stalled = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            StalledEmitter emitter = new StalledEmitter();
+            stalled.add(emitter);
+            nextEmitters.add(emitter);
+            broadcaster.subscribeStation(STATION_ID);
+        }
+        RecordingEmitter healthy = new RecordingEmitter();
+        nextEmitters.add(healthy);
+        broadcaster.subscribeStation(STATION_ID);
+
+        broadcaster.onStatusChanged(new ChargingPointStatusEvent(1L, STATION_ID, ChargingPointStatus.AVAILABLE,
+                ChargingPointStatus.OCCUPIED, System.currentTimeMillis()));
+        broadcaster.flush();
+
+        // Client bình thường vẫn nhận được sự kiện dù các client kia đang treo
+        assertNotNull(healthy.sent.poll(2, TimeUnit.SECONDS));
+        for (StalledEmitter emitter : stalled) {
+            assertTrue(emitter.blocked.await(2, TimeUnit.SECONDS));
+        }
+
+        Thread.sleep(SEND_TIMEOUT_MS * 3);
+        broadcaster.dropStalledSubscribers();
+
+        for (StalledEmitter emitter : stalled) {
+            assertTrue(emitter.interrupted.await(2, TimeUnit.SECONDS));
+        }
+        assertEquals(1, broadcaster.getSubscriberCount());
+
+        // Sau khi ngắt các client treo, client bình thường vẫn tiếp tục nhận
+        broadcaster.onStatusChanged(new ChargingPointStatusEvent(1L, STATION_ID, ChargingPointStatus.OCCUPIED,
+                ChargingPointStatus.AVAILABLE, System.currentTimeMillis()));
+        broadcaster.flush();
+        assertNotNull(healthy.sent.poll(2, TimeUnit.SECONDS));
+    }
+
+    // =============== INNER CLASSES ===============
+
+    // Client không đọc: snapshot lúc subscribe gửi được, các lần gửi sau treo tới khi thread bị interrupt
+    private static final class StalledEmitter extends SseEmitter {
+        private final AtomicInteger sends = new AtomicInteger();
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private final CountDownLatch interrupted = new CountDownLatch(1);
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (sends.getAndIncrement() == 0) {
+                return;
+            }
+            blocked.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw new IOException("Send interrupted", e);
+            }
+        }
+    }
+
+    // Client bình thường: ghi lại các sự kiện status đã nhận
+    private static final class RecordingEmitter extends SseEmitter {
+        private final AtomicInteger sends = new AtomicInteger();
+        private final BlockingQueue<SseEventBuilder> sent = new LinkedBlockingQueue<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            if (sends.getAndIncrement() > 0) {
+                sent.add(builder);
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package swp391.code.swp391.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import swp391.code.swp391.repository.VehicleRepository;
+import swp391.code.swp391.service.ConnectorCompatibilityIndex.StationSet;
+import swp391.code.swp391.service.ConnectorCompatibilityIndex.VehicleProfile;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConnectorCompatibilityIndexTest {
+
+    private static final long CCS2 = 1L;
+    private static final long TYPE2 = 2L;
+
+    private VehicleRepository vehicleRepository;
+    private ConnectorCompatibilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        vehicleRepository = mock(VehicleRepository.class);
+        index = new ConnectorCompatibilityIndex(vehicleRepository);
+        // Gán bit theo thứ tự: CCS2 -> 0, TYPE2 -> 1
+        index.adjust(10L, CCS2, true, 1);
+        index.adjust(20L, TYPE2, false, 1);
+        when(vehicleRepository.findProfileRowsByPlateNumber("CCS2-CAR")).thenReturn(rows(60.0, CCS2));
+        when(vehicleRepository.findProfileRowsByPlateNumber("TYPE2-CAR")).thenReturn(rows(40.0, TYPE2));
+        when(vehicleRepository.findProfileRowsByPlateNumber("DUAL-CAR")).thenReturn(rows(75.0, CCS2, TYPE2));
+    }
+
+    @Test
+    void findStationsMatchesAnyConnectorOfVehicle() {
+        assertEquals(Set.of(10L), ids(index.findStations(index.getVehicleMask("CCS2-CAR"), false)));
+        assertEquals(Set.of(10L), ids(index.findStations(index.getVehicleMask("CCS2-CAR"), true)));
+        assertEquals(Set.of(20L), ids(index.findStations(index.getVehicleMask("TYPE2-CAR"), false)));
+        // Trụ TYPE2 của trạm 20 không AVAILABLE
+        assertEquals(Set.of(), ids(index.findStations(index.getVehicleMask("TYPE2-CAR"), true)));
+        assertEquals(Set.of(10L, 20L), ids(index.findStations(index.getVehicleMask("DUAL-CAR"), false)));
+    }
+
+    @Test
+    void stationStaysUntilLastPointOfTypeIsRemoved() {
+        long[] mask = index.getVehicleMask("CCS2-CAR");
+        index.adjust(10L, CCS2, true, 1);
+        index.adjust(10L, CCS2, true, -1);
+        assertTrue(index.findStations(mask, true).contains(10L));
+
+        // Trụ cuối chuyển khỏi AVAILABLE: còn trong tập ALL, không còn trong tập AVAILABLE
+        index.adjust(10L, CCS2, true, -1);
+        index.adjust(10L, CCS2, false, 1);
+        assertTrue(index.findStations(mask, false).contains(10L));
+        assertFalse(index.findStations(mask, true).contains(10L));
+
+        index.adjust(10L, CCS2, false, -1);
+        assertEquals(0, index.findStations(mask, false).size());
+    }
+
+    @Test
+    void bitmapsGrowPastOneWord() {
+        for (long stationId = 1000; stationId < 1200; stationId++) {
+            index.adjust(stationId, CCS2, stationId % 2 == 0, 1);
+        }
+
+        StationSet all = index.findStations(index.getVehicleMask("CCS2-CAR"), false);
+        StationSet available = index.findStations(index.getVehicleMask("CCS2-CAR"), true);
+
+        assertEquals(201, all.size());
+        assertEquals(101, available.size());
+        assertTrue(all.contains(1199L));
+        assertFalse(available.contains(1199L));
+        assertFalse(all.contains(20L));
+    }
+
+    @Test
+    void unknownVehicleHasNoMask() {
+        when(vehicleRepository.findProfileRowsByPlateNumber("NONE")).thenReturn(List.of());
+
+        assertNull(index.getVehicleMask("NONE"));
+        assertNull(index.getVehicleProfile("NONE"));
+    }
+
+    @Test
+    void vehicleWithoutConnectorsHasEmptyProfile() {
+        when(vehicleRepository.findProfileRowsByPlateNumber("BARE")).thenReturn(rows(50.0));
+
+        VehicleProfile profile = index.getVehicleProfile("BARE");
+
+        assertEquals(50.0, profile.capacity());
+        assertTrue(profile.typeNames().isEmpty());
+        assertEquals(0, index.findStations(profile.mask(), false).size());
+    }
+
+    @Test
+    void profileCarriesCapacityAndNormalizedTypeNames() {
+        VehicleProfile profile = index.getVehicleProfile("DUAL-CAR");
+
+        assertEquals(75.0, profile.capacity());
+        assertEquals(Set.of("CCS2", "TYPE2"), profile.typeNames());
+        assertTrue(profile.supports(" ccs2 "));
+        assertFalse(profile.supports("CHAdeMO"));
+        assertSame(profile.mask(), index.getVehicleMask("DUAL-CAR"));
+        verify(vehicleRepository, times(1)).findProfileRowsByPlateNumber("DUAL-CAR");
+    }
+
+    @Test
+    void maskIsCachedUntilVehicleIsEvicted() {
+        long[] mask = index.getVehicleMask("CCS2-CAR");
+        assertSame(mask, index.getVehicleMask("CCS2-CAR"));
+
+        when(vehicleRepository.findProfileRowsByPlateNumber("CCS2-CAR")).thenReturn(rows(60.0, TYPE2));
+        // Không có transaction: evict áp dụng ngay
+        index.evictVehicle("CCS2-CAR");
+
+        assertArrayEquals(index.getVehicleMask("TYPE2-CAR"), index.getVehicleMask("CCS2-CAR"));
+        verify(vehicleRepository, times(2)).findProfileRowsByPlateNumber("CCS2-CAR");
+    }
+
+    @Test
+    void maskLoadedBeforeUpdateCommitsIsNotCached() {
+        // Lần đọc đầu thấy dữ liệu cũ, cập nhật của xe commit (evict) trước khi lần đọc kịp lưu vào cache
+        when(vehicleRepository.findProfileRowsByPlateNumber("CAR"))
+                .thenAnswer(invocation -> {
+                    index.evictVehicle("CAR");
+                    return rows(60.0, CCS2);
+                })
+                .thenReturn(rows(60.0, TYPE2));
+
+        index.getVehicleMask("CAR");
+
+        assertArrayEquals(index.getVehicleMask("TYPE2-CAR"), index.getVehicleMask("CAR"));
+        assertArrayEquals(index.getVehicleMask("TYPE2-CAR"), index.getVehicleMask("CAR"));
+        verify(vehicleRepository, times(2)).findProfileRowsByPlateNumber("CAR");
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private static Set<Long> ids(StationSet stations) {
+        return new HashSet<>(stations.getStationIds());
+    }
+
+    // Dòng [capacity, connectorTypeId, typeName] như findProfileRowsByPlateNumber trả về
+    private static List<Object[]> rows(double capacity, long... connectorTypeIds) {
+        List<Object[]> rows = new ArrayList<>();
+        for (long connectorTypeId : connectorTypeIds) {
+            rows.add(new Object[]{capacity, connectorTypeId, connectorTypeId == CCS2 ? "CCS2" : "Type2"});
+        }
+        if (rows.isEmpty()) {
+            rows.add(new Object[]{capacity, null, null});
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,90 @@
+package swp391.code.swp391.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import swp391.code.swp391.entity.ConnectorType;
+import swp391.code.swp391.repository.ConnectorTypeRepository;
+import swp391.code.swp391.service.ConnectorTypeCache.ConnectorTypeInfo;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConnectorTypeCacheTest {
+
+    private ConnectorTypeRepository repository;
+    private ConnectorTypeCache cache;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ConnectorTypeRepository.class);
+        cache = new ConnectorTypeCache(repository);
+    }
+
+    @Test
+    void renameDropsOldNameAndRemoveDropsBoth() {
+        // Không có transaction: put / remove áp dụng ngay
+        cache.put(connectorType(1L, "CCS2", 150.0, 3500.0));
+        cache.put(connectorType(1L, "CCS Combo 2", 150.0, 3800.0));
+
+        assertNull(cache.getByName("CCS2"));
+        assertEquals(3800.0, cache.getByName("CCS Combo 2").getPricePerKwh());
+        assertEquals("CCS Combo 2", cache.get(1L).getTypeName());
+
+        cache.remove(1L);
+        assertNull(cache.get(1L));
+        assertNull(cache.getByName("CCS Combo 2"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void findByNameLoadsMissFromDatabase() {
+        when(repository.findByTypeName("Type2")).thenReturn(Optional.of(connectorType(2L, "Type2", 22.0, null)));
+
+        ConnectorTypeInfo info = cache.findByName("Type2");
+
+        assertEquals(22.0, info.getPowerOutput());
+        assertEquals(0.0, info.getPricePerKwh());
+        assertNotNull(cache.get(2L));
+        assertNull(cache.findByName("CHAdeMO"));
+    }
+
+    @Test
+    void rebuildServesOldEntriesDuringScanAndReplaysUpdatesCommittedMeanwhile() {
+        cache.put(connectorType(1L, "CCS2", 150.0, 3500.0));
+        cache.put(connectorType(2L, "Type2", 22.0, 2500.0));
+        when(repository.findAll()).thenAnswer(invocation -> {
+            // Trong lúc quét: người đọc vẫn thấy bảng cũ
+            assertEquals(2, cache.size());
+            assertNotNull(cache.getByName("CCS2"));
+            cache.put(connectorType(1L, "CCS2", 150.0, 4000.0));
+            cache.remove(2L);
+            cache.put(connectorType(3L, "CHAdeMO", 50.0, 3000.0));
+            // Kết quả quét chưa thấy các cập nhật trên
+            return List.of(connectorType(1L, "CCS2", 150.0, 3500.0), connectorType(2L, "Type2", 22.0, 2500.0));
+        });
+
+        cache.rebuild();
+
+        assertEquals(2, cache.size());
+        assertEquals(4000.0, cache.get(1L).getPricePerKwh());
+        assertNull(cache.getByName("Type2"));
+        assertEquals(3L, cache.getByName("CHAdeMO").getConnectorTypeId());
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private static ConnectorType connectorType(Long id, String typeName, Double powerOutput, Double pricePerKwh) {
+        ConnectorType connectorType = new ConnectorType();
+        connectorType.setConnectorTypeId(id);
+        connectorType.setTypeName(typeName);
+        connectorType.setPowerOutput(powerOutput);
+        connectorType.setPricePerKwh(pricePerKwh);
+        return connectorType;
+    }
+}
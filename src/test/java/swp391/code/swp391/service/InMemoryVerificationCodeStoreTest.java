@@ -0,0 +1,121 @@
+package swp391.code.swp391.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import swp391.code.swp391.service.VerificationCodeStore.Channel;
+import swp391.code.swp391.service.VerificationCodeStore.VerificationKey;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryVerificationCodeStoreTest {
+
+    private static final VerificationKey EMAIL = new VerificationKey(1L, Channel.EMAIL, "new@example.com");
+    private static final VerificationKey PHONE = new VerificationKey(1L, Channel.PHONE, "0900000000");
+
+    private InMemoryVerificationCodeStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryVerificationCodeStore();
+        ReflectionTestUtils.setField(store, "maxCodesPerUser", 3);
+    }
+
+    @Test
+    void codeExpiresAfterTtl() {
+        store.put(EMAIL, "123456", Duration.ofSeconds(30));
+
+        elapse(29);
+        assertEquals("123456", store.get(EMAIL));
+
+        elapse(1);
+        // Chưa chạy advance: get tự so sánh tick với hạn
+        assertNull(store.get(EMAIL));
+    }
+
+    @Test
+    void advanceRemovesExpiredCodes() {
+        store.put(EMAIL, "123456", Duration.ofSeconds(30));
+        store.put(PHONE, "654321", Duration.ofSeconds(90));
+
+        elapse(31);
+        store.advance();
+
+        assertNull(store.get(EMAIL));
+        assertEquals("654321", store.get(PHONE));
+        assertEquals(1, entries().size());
+
+        elapse(60);
+        store.advance();
+
+        assertTrue(entries().isEmpty());
+        assertTrue(userKeys().isEmpty());
+    }
+
+    @Test
+    void replacedCodeKeepsItsOwnDeadline() {
+        store.put(EMAIL, "111111", Duration.ofSeconds(10));
+        elapse(5);
+        store.put(EMAIL, "222222", Duration.ofSeconds(10));
+
+        // Hạn của mã cũ đã qua, mã mới còn 5 giây
+        elapse(5);
+        store.advance();
+        assertEquals("222222", store.get(EMAIL));
+
+        elapse(5);
+        store.advance();
+        assertNull(store.get(EMAIL));
+        assertTrue(entries().isEmpty());
+    }
+
+    @Test
+    void codeLongerThanOneWheelRoundSurvivesEarlierPasses() {
+        // 20 phút dài hơn một vòng wheel (1024 tick), ô của mã được duyệt trước khi tới hạn
+        store.put(EMAIL, "123456", Duration.ofMinutes(20));
+
+        elapse(200);
+        store.advance();
+        elapse(999);
+        store.advance();
+        assertEquals("123456", store.get(EMAIL));
+
+        elapse(1);
+        store.advance();
+        assertNull(store.get(EMAIL));
+        assertTrue(entries().isEmpty());
+    }
+
+    @Test
+    void oldestCodeOfUserIsDroppedOverLimit() {
+        for (int i = 0; i < 4; i++) {
+            store.put(new VerificationKey(1L, Channel.EMAIL, "mail" + i + "@example.com"), "code" + i,
+                    Duration.ofMinutes(5));
+        }
+
+        assertNull(store.get(new VerificationKey(1L, Channel.EMAIL, "mail0@example.com")));
+        assertEquals("code3", store.get(new VerificationKey(1L, Channel.EMAIL, "mail3@example.com")));
+        assertEquals(3, entries().size());
+    }
+
+    // =============== HELPER METHODS ===============
+
+    // Lùi mốc bắt đầu của store để giả lập thời gian trôi qua, không phải sleep
+    private void elapse(long seconds) {
+        long startMillis = (long) ReflectionTestUtils.getField(store, "startMillis");
+        ReflectionTestUtils.setField(store, "startMillis", startMillis - seconds * 1000);
+    }
+
+    private Map<?, ?> entries() {
+        return (Map<?, ?>) ReflectionTestUtils.getField(store, "entries");
+    }
+
+    private Map<?, ?> userKeys() {
+        return (Map<?, ?>) ReflectionTestUtils.getField(store, "userKeys");
+    }
+}
@@ -0,0 +1,77 @@
+package swp391.code.swp391.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import swp391.code.swp391.service.JwtClaimsCache.VerifiedToken;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtClaimsCacheTest {
+
+    private static final long USER_ID = 7L;
+    private static final long HOUR_MS = 3_600_000L;
+
+    private JwtClaimsCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new JwtClaimsCache();
+        ReflectionTestUtils.setField(cache, "maxSize", 2);
+    }
+
+    @Test
+    void tokenIssuedInTheSecondOfRevocationIsAccepted() {
+        long before = System.currentTimeMillis();
+        // Không có transaction: thu hồi được áp dụng ngay
+        cache.revokeUser(USER_ID);
+        long after = System.currentTimeMillis();
+
+        // iat trong JWT làm tròn xuống giây, token phát hành ngay sau khi thu hồi có thể cùng giây
+        assertFalse(cache.isRevoked(token(USER_ID, seconds(after))));
+        assertTrue(cache.isRevoked(token(USER_ID, seconds(before) - 1000)));
+        assertFalse(cache.isRevoked(token(USER_ID + 1, seconds(before) - 1000)));
+    }
+
+    @Test
+    void revocationDropsCachedTokensOfTheUser() {
+        VerifiedToken own = token(USER_ID, seconds(System.currentTimeMillis()));
+        VerifiedToken other = token(USER_ID + 1, seconds(System.currentTimeMillis()));
+        cache.put("own", own);
+        cache.put("other", other);
+
+        cache.revokeUser(USER_ID);
+
+        assertNull(cache.get("own"));
+        assertSame(other, cache.get("other"));
+    }
+
+    @Test
+    void expiredTokenIsMissAndFullCacheStopsCaching() {
+        long now = System.currentTimeMillis();
+        cache.put("expired", new VerifiedToken(USER_ID, "a@b.c", "DRIVER", now - 2 * HOUR_MS, now - 1));
+        cache.put("a", token(USER_ID, now));
+        // Đầy: dọn token hết hạn rồi mới thêm
+        cache.put("b", token(USER_ID, now));
+        // Vẫn đầy sau khi dọn: không cache thêm
+        cache.put("c", token(USER_ID, now));
+
+        assertNull(cache.get("expired"));
+        assertNull(cache.get("c"));
+        assertEquals(2, cache.getStats().getSize());
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private static VerifiedToken token(long userId, long issuedAtMs) {
+        return new VerifiedToken(userId, "user" + userId + "@example.com", "DRIVER", issuedAtMs, issuedAtMs + HOUR_MS);
+    }
+
+    private static long seconds(long epochMillis) {
+        return epochMillis / 1000 * 1000;
+    }
+}
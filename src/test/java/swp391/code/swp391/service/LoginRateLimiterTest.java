@@ -0,0 +1,137 @@
+package swp391.code.swp391.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import swp391.code.swp391.service.LoginRateLimiter.RateLimitExceededException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoginRateLimiterTest {
+
+    private LoginRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        limiter = limiter(5, 5, 30, 60);
+    }
+
+    @Test
+    void accountIsRejectedAfterCapacityWithRetryAfter() {
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire("driver@example.com", null);
+        }
+
+        RateLimitExceededException e = assertThrows(RateLimitExceededException.class,
+                () -> limiter.acquire("driver@example.com", null));
+        assertEquals("Too many login attempts for this account", e.getMessage());
+        // 5 lần mỗi phút: token kế tiếp sau khoảng 12 giây
+        assertTrue(e.getRetryAfterSeconds() >= 11 && e.getRetryAfterSeconds() <= 13,
+                "retryAfterSeconds = " + e.getRetryAfterSeconds());
+        assertEquals(1, limiter.getAccountRejected());
+    }
+
+    @Test
+    void accountKeyIgnoresCaseAndSurroundingSpaces() {
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire(i % 2 == 0 ? " Driver@Example.com" : "driver@example.com ", null);
+        }
+
+        assertThrows(RateLimitExceededException.class, () -> limiter.acquire("DRIVER@EXAMPLE.COM", null));
+        assertEquals(1, limiter.getTrackedAccounts());
+        // Tài khoản khác không bị ảnh hưởng
+        assertDoesNotThrow(() -> limiter.acquire("other@example.com", null));
+    }
+
+    @Test
+    void addressIsLimitedAcrossAccounts() {
+        limiter = limiter(5, 5, 3, 60);
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire("user" + i + "@example.com", "10.0.0.1");
+        }
+
+        RateLimitExceededException e = assertThrows(RateLimitExceededException.class,
+                () -> limiter.acquire("user3@example.com", "10.0.0.1"));
+        assertEquals("Too many login attempts from this address", e.getMessage());
+        assertEquals(1, limiter.getIpRejected());
+        assertEquals(0, limiter.getAccountRejected());
+        assertDoesNotThrow(() -> limiter.acquire("user3@example.com", "10.0.0.2"));
+    }
+
+    @Test
+    void bucketRefillsOverTime() throws Exception {
+        // 60.000 lần mỗi phút: một token mỗi mili giây
+        limiter = limiter(1, 60_000, 30, 60);
+        limiter.acquire("driver@example.com", null);
+        assertThrows(RateLimitExceededException.class, () -> limiter.acquire("driver@example.com", null));
+
+        Thread.sleep(5);
+
+        assertDoesNotThrow(() -> limiter.acquire("driver@example.com", null));
+    }
+
+    @Test
+    void purgeDropsOnlyRefilledBuckets() throws Exception {
+        limiter = limiter(1, 60_000, 1, 60_000);
+        limiter.acquire("refilled@example.com", "10.0.0.1");
+        Thread.sleep(5);
+        // Refill còn 1 lần mỗi phút: bucket của drained@ vừa bị lấy token nên chưa đầy lại
+        ReflectionTestUtils.setField(limiter, "accountRefillPerMinute", 1);
+        limiter.acquire("drained@example.com", null);
+
+        limiter.purgeFullBuckets();
+
+        assertEquals(1, limiter.getTrackedAccounts());
+        assertEquals(0, limiter.getTrackedIps());
+    }
+
+    @Test
+    void concurrentAttemptsNeverExceedCapacity() throws Exception {
+        limiter = limiter(50, 1, 30, 60);
+        LongAdder accepted = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        for (int i = 0; i < 16 * 20; i++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    limiter.acquire("driver@example.com", null);
+                    accepted.increment();
+                } catch (RateLimitExceededException e) {
+                    rejected.increment();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(50, accepted.sum());
+        assertEquals(16 * 20 - 50, rejected.sum());
+        assertEquals(rejected.sum(), limiter.getAccountRejected());
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private static LoginRateLimiter limiter(int accountCapacity, int accountRefillPerMinute,
+                                            int ipCapacity, int ipRefillPerMinute) {
+        LoginRateLimiter limiter = new LoginRateLimiter();
+        ReflectionTestUtils.setField(limiter, "accountCapacity", accountCapacity);
+        ReflectionTestUtils.setField(limiter, "accountRefillPerMinute", accountRefillPerMinute);
+        ReflectionTestUtils.setField(limiter, "ipCapacity", ipCapacity);
+        ReflectionTestUtils.setField(limiter, "ipRefillPerMinute", ipRefillPerMinute);
+        return limiter;
+    }
+}
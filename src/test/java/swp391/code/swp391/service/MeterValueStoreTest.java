@@ -0,0 +1,204 @@
+package swp391.code.swp391.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import swp391.code.swp391.service.MeterValueStore.SeriesSlice;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MeterValueStoreTest {
+
+    private static final long SESSION = 1L;
+    private static final long START = 1_760_000_000_000L;
+    private static final long STEP_MS = 1000;
+    private static final int SAMPLES = 3600;
+
+    @TempDir
+    Path dir;
+
+    private MeterValueStore store;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        store = new MeterValueStore();
+        ReflectionTestUtils.setField(store, "storeDir", dir.toString());
+        // Block nhỏ để dữ liệu trải qua cả block đã ghi đĩa lẫn block đang ghi
+        ReflectionTestUtils.setField(store, "blockSize", 500);
+        ReflectionTestUtils.setField(store, "evictAfterMs", 0L);
+        store.start();
+        // Một giờ sạc, mỗi giây một mẫu, năng lượng tăng đều 0.01 kWh/giây
+        for (int i = 0; i < SAMPLES; i++) {
+            assertTrue(store.append(SESSION, START + i * STEP_MS, i * 0.01f, 36f, 20f + i / 100f));
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        store.stop();
+    }
+
+    @Test
+    void defaultRangeIsDownsampledAcrossWholeSession() {
+        // Giá trị mặc định của MeterValueServiceImpl khi không truyền from/to
+        SeriesSlice slice = store.query(SESSION, 0L, Long.MAX_VALUE - 1, 100);
+
+        assertEquals(SAMPLES, slice.matched());
+        assertEquals(100, slice.size());
+        long[] timestamps = slice.timestamps();
+        // Mỗi khoảng 36 mẫu, mẫu đại diện là mẫu cuối của khoảng
+        for (int b = 0; b < 100; b++) {
+            assertEquals(START + ((b + 1) * 36L - 1) * STEP_MS, timestamps[b]);
+        }
+        assertEquals((SAMPLES - 1) * 0.01f, slice.energyKwh()[99], 1e-3);
+    }
+
+    @Test
+    void boundedRangeIsDownsampledWithinRange() {
+        long from = START + 600 * STEP_MS;
+        long to = START + 1199 * STEP_MS;
+
+        SeriesSlice slice = store.query(SESSION, from, to, 60);
+
+        assertEquals(600, slice.matched());
+        assertEquals(60, slice.size());
+        assertEquals(START + 609 * STEP_MS, slice.timestamps()[0]);
+        assertEquals(to, slice.timestamps()[59]);
+    }
+
+    @Test
+    void rangeWiderThanSamplesUsesActualSamples() {
+        // Khoảng truy vấn dài gấp nhiều lần phiên sạc: vẫn chia đều theo các mẫu thực tế
+        SeriesSlice slice = store.query(SESSION, START - 86_400_000L, START + 86_400_000L, 10);
+
+        assertEquals(10, slice.size());
+        assertEquals(START + 359 * STEP_MS, slice.timestamps()[0]);
+        assertEquals(START + (SAMPLES - 1) * STEP_MS, slice.timestamps()[9]);
+    }
+
+    @Test
+    void powerIsAveragedPerBucket() {
+        store.append(2L, 0, 0f, 10f, 50f);
+        store.append(2L, 1, 0f, 20f, 50f);
+        store.append(2L, 2, 0f, 30f, 50f);
+        store.append(2L, 3, 0f, 50f, 50f);
+
+        SeriesSlice slice = store.query(2L, 0L, Long.MAX_VALUE - 1, 2);
+
+        assertArrayEquals(new long[]{1, 3}, slice.timestamps());
+        assertArrayEquals(new float[]{15f, 40f}, slice.powerKw());
+    }
+
+    @Test
+    void smallResultIsNotDownsampled() {
+        SeriesSlice slice = store.query(SESSION, START, START + 9 * STEP_MS, 100);
+
+        assertEquals(10, slice.size());
+        assertEquals(10, slice.matched());
+    }
+
+    @Test
+    void outOfOrderSampleIsRejected() {
+        assertFalse(store.append(SESSION, START, 0f, 0f, 0f));
+        assertEquals(SAMPLES, store.query(SESSION, 0L, Long.MAX_VALUE - 1, 5000).matched());
+    }
+
+    @Test
+    void closedSessionIsReadBackFromDisk() {
+        store.close(SESSION);
+        store.evictClosed();
+        // evictClosed chỉ giải phóng khi mọi block đã ghi xong
+        SeriesSlice slice = store.query(SESSION, 0L, Long.MAX_VALUE - 1, 5000);
+
+        assertEquals(SAMPLES, slice.size());
+        assertEquals(START + (SAMPLES - 1) * STEP_MS, store.last(SESSION).timestamp());
+    }
+
+    @Test
+    void failedWriteIsRetriedAndBlocksEvictionUntilWritten() throws Exception {
+        // Giải phóng ngay khi được phép, không phụ thuộc lastAccess
+        ReflectionTestUtils.setField(store, "evictAfterMs", -1L);
+        // File của session là thư mục: mọi lần ghi đều lỗi
+        Path file = Files.createDirectory(dir.resolve("3.meter"));
+        appendSamples(3L, 0, 1000);
+        store.close(3L);
+        awaitFlushes();
+
+        store.evictClosed();
+        awaitFlushes();
+        // Chưa ghi được nên không bị giải phóng, mẫu vẫn đọc được từ bộ nhớ
+        assertEquals(2, store.getOpenSeriesCount());
+        assertEquals(1000, store.query(3L, 0L, Long.MAX_VALUE - 1, 5000).matched());
+
+        Files.delete(file);
+        store.evictClosed();
+        awaitFlushes();
+        store.evictClosed();
+
+        // Chỉ còn SESSION đang mở
+        assertEquals(1, store.getOpenSeriesCount());
+        assertEquals(2L * blockBytes(500), Files.size(file));
+        assertReadBackFromDisk(3L, 1000);
+    }
+
+    @Test
+    void partialBlockAtEndOfFileIsOverwritten() throws Exception {
+        ReflectionTestUtils.setField(store, "evictAfterMs", -1L);
+        appendSamples(4L, 0, 500);
+        store.close(4L);
+        awaitFlushes();
+        store.evictClosed();
+        // Block ghi dở khi ứng dụng dừng đột ngột: header hợp lệ nhưng thiếu dữ liệu
+        ByteBuffer partial = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN).putInt(500).putLong(START);
+        Files.write(dir.resolve("4.meter"), partial.array(), StandardOpenOption.APPEND);
+
+        appendSamples(4L, 500, 500);
+        store.close(4L);
+        awaitFlushes();
+        store.evictClosed();
+
+        assertEquals(2L * blockBytes(500), Files.size(dir.resolve("4.meter")));
+        assertReadBackFromDisk(4L, 1000);
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private void appendSamples(long sessionId, int from, int count) {
+        for (int i = from; i < from + count; i++) {
+            assertTrue(store.append(sessionId, START + i * STEP_MS, i * 0.01f, 36f, 20f));
+        }
+    }
+
+    // Thread flusher chạy tuần tự: task rỗng chạy xong nghĩa là các lần ghi trước đã xong
+    private void awaitFlushes() throws Exception {
+        ExecutorService flusher = (ExecutorService) ReflectionTestUtils.getField(store, "flusher");
+        flusher.submit(() -> { }).get(10, TimeUnit.SECONDS);
+    }
+
+    private void assertReadBackFromDisk(long sessionId, int samples) {
+        SeriesSlice slice = store.query(sessionId, 0L, Long.MAX_VALUE - 1, 5000);
+        assertEquals(samples, slice.size());
+        long[] timestamps = slice.timestamps();
+        for (int i = 0; i < samples; i++) {
+            assertEquals(START + i * STEP_MS, timestamps[i]);
+        }
+        assertEquals((samples - 1) * 0.01f, slice.energyKwh()[samples - 1], 1e-4);
+    }
+
+    private static int blockBytes(int count) {
+        return Integer.BYTES + count * (Long.BYTES + 3 * Float.BYTES);
+    }
+}
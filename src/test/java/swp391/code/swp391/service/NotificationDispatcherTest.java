@@ -0,0 +1,175 @@
+package swp391.code.swp391.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import swp391.code.swp391.entity.NotificationOutbox.Channel;
+import swp391.code.swp391.repository.NotificationOutboxRepository;
+import swp391.code.swp391.service.NotificationSender.Message;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class NotificationDispatcherTest {
+
+    // Các lô mà câu CLAIM lần lượt trả về, hết thì outbox rỗng
+    private final Queue<List<Message>> claims = new ConcurrentLinkedQueue<>();
+    // outbox_id -> tham số COMPLETE (status, sent_at, next_attempt_at, last_error, status, outbox_id)
+    private final Map<Long, Object[]> completed = new ConcurrentHashMap<>();
+    private JdbcTemplate jdbcTemplate;
+    private NotificationDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        doAnswer(invocation -> {
+            List<Message> batch = claims.poll();
+            if (batch != null) {
+                RowCallbackHandler handler = invocation.getArgument(1);
+                for (Message message : batch) {
+                    handler.processRow(row(message));
+                }
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any(), any(), any());
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> rows = invocation.getArgument(1);
+            rows.forEach(args -> completed.put((Long) args[5], args));
+            return new int[rows.size()];
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (dispatcher != null) {
+            dispatcher.stop();
+        }
+    }
+
+    @Test
+    void saturatedChannelDoesNotHoldOtherChannels() throws Exception {
+        CountDownLatch releaseSms = new CountDownLatch(1);
+        NotificationSender sms = sender(Channel.SMS, message -> assertTrue(releaseSms.await(10, TimeUnit.SECONDS)));
+        NotificationSender email = sender(Channel.EMAIL, message -> { });
+        claims.add(List.of(message(1L, Channel.SMS), message(2L, Channel.SMS), message(3L, Channel.EMAIL)));
+
+        start(List.of(sms, email), 60_000);
+
+        // SMS chỉ có 1 chỗ và đang bị giữ: email phía sau vẫn được gửi
+        assertEquals("SENT", awaitResult(3L)[0]);
+        assertFalse(completed.containsKey(1L));
+        assertFalse(completed.containsKey(2L));
+
+        releaseSms.countDown();
+        assertEquals("SENT", awaitResult(1L)[0]);
+        assertEquals("SENT", awaitResult(2L)[0]);
+    }
+
+    @Test
+    void hungSendTimesOutIsRetriedAndFreesItsSlot() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        NotificationSender push = sender(Channel.PUSH, message -> {
+            if (message.outboxId() == 1L) {
+                try {
+                    new CountDownLatch(1).await();
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw e;
+                }
+            }
+        });
+        claims.add(List.of(message(1L, Channel.PUSH), message(2L, Channel.PUSH)));
+
+        start(List.of(push), 100);
+
+        Object[] timedOut = awaitResult(1L);
+        assertEquals("PENDING", timedOut[0]);
+        assertTrue(((String) timedOut[3]).contains("timed out"));
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+        // Chỗ duy nhất của kênh được trả lại sau khi quá hạn
+        assertEquals("SENT", awaitResult(2L)[0]);
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private void start(List<NotificationSender> senders, long sendTimeoutMs) {
+        dispatcher = new NotificationDispatcher(jdbcTemplate, mock(NotificationOutboxRepository.class),
+                new ArrayList<>(senders));
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 100);
+        ReflectionTestUtils.setField(dispatcher, "pollIntervalMs", 20L);
+        ReflectionTestUtils.setField(dispatcher, "leaseMs", 60_000L);
+        ReflectionTestUtils.setField(dispatcher, "sendTimeoutMs", sendTimeoutMs);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", 8);
+        ReflectionTestUtils.setField(dispatcher, "backoffBaseMs", 1_000L);
+        ReflectionTestUtils.setField(dispatcher, "backoffMaxMs", 600_000L);
+        ReflectionTestUtils.setField(dispatcher, "emailConcurrency", 8);
+        ReflectionTestUtils.setField(dispatcher, "smsConcurrency", 1);
+        ReflectionTestUtils.setField(dispatcher, "pushConcurrency", 1);
+        dispatcher.start();
+    }
+
+    private Object[] awaitResult(long outboxId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!completed.containsKey(outboxId) && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        Object[] args = completed.get(outboxId);
+        assertNotNull(args, "No result for outbox " + outboxId);
+        return args;
+    }
+
+    private static NotificationSender sender(Channel channel, Send send) throws Exception {
+        NotificationSender sender = mock(NotificationSender.class);
+        when(sender.getChannel()).thenReturn(channel);
+        doAnswer(invocation -> {
+            send.send(invocation.getArgument(0));
+            return null;
+        }).when(sender).send(any(Message.class));
+        return sender;
+    }
+
+    private static Message message(long outboxId, Channel channel) {
+        return new Message(outboxId, channel, "driver@example.com", "Booking", "Your booking is confirmed", 10L, 1,
+                LocalDateTime.now());
+    }
+
+    private static ResultSet row(Message message) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(1)).thenReturn(message.outboxId());
+        when(rs.getString(2)).thenReturn(message.channel().name());
+        when(rs.getString(3)).thenReturn(message.recipient());
+        when(rs.getString(4)).thenReturn(message.subject());
+        when(rs.getString(5)).thenReturn(message.content());
+        when(rs.getObject(6, Long.class)).thenReturn(message.userId());
+        when(rs.getInt(7)).thenReturn(message.attempt());
+        when(rs.getTimestamp(8)).thenReturn(Timestamp.valueOf(message.createdAt()));
+        return rs;
+    }
+
+    private interface Send {
+        void send(Message message) throws Exception;
+    }
+}
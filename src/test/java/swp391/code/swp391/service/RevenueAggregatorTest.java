@@ -0,0 +1,143 @@
+package swp391.code.swp391.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import swp391.code.swp391.entity.Revenue.Granularity;
+import swp391.code.swp391.entity.Transaction;
+import swp391.code.swp391.repository.ChargingStationRepository;
+import swp391.code.swp391.repository.RevenueRepository;
+import swp391.code.swp391.repository.TransactionRepository;
+import swp391.code.swp391.service.RevenueAggregator.Bucket;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RevenueAggregatorTest {
+
+    private static final long STATION_ID = 1L;
+
+    private TransactionRepository transactionRepository;
+    private RevenueAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository = mock(TransactionRepository.class);
+        aggregator = new RevenueAggregator(transactionRepository, mock(RevenueRepository.class),
+                mock(ChargingStationRepository.class), mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(aggregator, "rebuildThreads", 2);
+        ReflectionTestUtils.setField(aggregator, "rebuildChunkSize", 2L);
+    }
+
+    @Test
+    void bucketsAroundEpochAndBeforeIt() {
+        assertEquals(0, RevenueAggregator.bucketOf(Granularity.HOUR, LocalDateTime.of(1970, 1, 1, 0, 0)));
+        assertEquals(-1, RevenueAggregator.bucketOf(Granularity.HOUR, LocalDateTime.of(1969, 12, 31, 23, 59, 59)));
+        assertEquals(LocalDateTime.of(1969, 12, 31, 23, 0), RevenueAggregator.bucketStart(Granularity.HOUR, -1));
+        assertEquals(-1, RevenueAggregator.bucketOf(Granularity.DAY, LocalDateTime.of(1969, 12, 31, 12, 0)));
+        assertEquals(LocalDateTime.of(1969, 12, 31, 0, 0), RevenueAggregator.bucketStart(Granularity.DAY, -1));
+    }
+
+    @Test
+    void bucketBoundariesAtEndOfHourDayMonthAndYear() {
+        LocalDateTime lastInstant = LocalDateTime.of(2024, 12, 31, 23, 59, 59, 999_999_999);
+        LocalDateTime nextYear = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+        for (Granularity granularity : Granularity.values()) {
+            assertEquals(RevenueAggregator.bucketOf(granularity, lastInstant) + 1,
+                    RevenueAggregator.bucketOf(granularity, nextYear), granularity.name());
+            assertEquals(nextYear, RevenueAggregator.bucketStart(granularity,
+                    RevenueAggregator.bucketOf(granularity, nextYear)), granularity.name());
+        }
+        assertEquals(LocalDateTime.of(2024, 12, 1, 0, 0), RevenueAggregator.bucketStart(Granularity.MONTH,
+                RevenueAggregator.bucketOf(Granularity.MONTH, lastInstant)));
+        // Ngày nhuận nằm trong tháng 2
+        assertEquals(LocalDateTime.of(2024, 2, 1, 0, 0), RevenueAggregator.bucketStart(Granularity.MONTH,
+                RevenueAggregator.bucketOf(Granularity.MONTH, LocalDateTime.of(2024, 2, 29, 18, 30))));
+        assertEquals(LocalDateTime.of(2024, 2, 29, 0, 0), RevenueAggregator.bucketStart(Granularity.DAY,
+                RevenueAggregator.bucketOf(Granularity.DAY, LocalDateTime.of(2024, 2, 29, 18, 30))));
+    }
+
+    @Test
+    void everyInstantFallsInsideItsBucket() {
+        LocalDateTime time = LocalDateTime.of(2023, 10, 29, 0, 17, 3);
+        for (int i = 0; i < 2_000; i++) {
+            for (Granularity granularity : Granularity.values()) {
+                long key = RevenueAggregator.bucketOf(granularity, time);
+                LocalDateTime start = RevenueAggregator.bucketStart(granularity, key);
+                assertTrue(!start.isAfter(time) && RevenueAggregator.bucketStart(granularity, key + 1).isAfter(time),
+                        granularity + " " + time);
+            }
+            time = time.plusMinutes(397);
+        }
+    }
+
+    @Test
+    void queryReturnsOnlyBucketsWithRevenueInRange() {
+        // Không có transaction: ghi nhận ngay
+        aggregator.recordAfterCommit(1L, STATION_ID, LocalDateTime.of(2024, 5, 1, 9, 5), 10_000);
+        aggregator.recordAfterCommit(2L, STATION_ID, LocalDateTime.of(2024, 5, 1, 9, 55), 5_000);
+        aggregator.recordAfterCommit(3L, STATION_ID, LocalDateTime.of(2024, 5, 1, 11, 0), 7_000);
+        aggregator.recordAfterCommit(4L, STATION_ID, LocalDateTime.of(2024, 5, 2, 0, 0), 1_000);
+
+        List<Bucket> hours = aggregator.query(STATION_ID, Granularity.HOUR,
+                LocalDateTime.of(2024, 5, 1, 9, 30), LocalDateTime.of(2024, 5, 1, 23, 59));
+        assertEquals(2, hours.size());
+        assertEquals(new Bucket(STATION_ID, Granularity.HOUR, LocalDateTime.of(2024, 5, 1, 9, 0), 15_000, 2),
+                hours.get(0));
+        assertEquals(new Bucket(STATION_ID, Granularity.HOUR, LocalDateTime.of(2024, 5, 1, 11, 0), 7_000, 1),
+                hours.get(1));
+
+        List<Bucket> total = aggregator.summary(Granularity.DAY,
+                LocalDateTime.of(2024, 5, 1, 12, 0), LocalDateTime.of(2024, 5, 2, 12, 0));
+        assertEquals(List.of(new Bucket(STATION_ID, Granularity.DAY, LocalDateTime.of(2024, 5, 1, 0, 0), 23_000, 4)),
+                total);
+    }
+
+    @Test
+    void rangeIsValidated() {
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        assertThrows(RuntimeException.class, () -> aggregator.query(STATION_ID, Granularity.DAY, from, from.minusDays(1)));
+        // MAX_BUCKETS bucket là giới hạn, thêm một bucket thì bị từ chối
+        aggregator.query(STATION_ID, Granularity.HOUR, from, from.plusHours(RevenueAggregator.MAX_BUCKETS - 1));
+        assertThrows(RuntimeException.class, () -> aggregator.query(STATION_ID, Granularity.HOUR, from,
+                from.plusHours(RevenueAggregator.MAX_BUCKETS)));
+    }
+
+    @Test
+    void rebuildSumsEveryChunkAndSkipsRowsWithoutTimestamp() {
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = 1; id <= 5; id++) {
+            // Giao dịch 3 chưa có created_at (chưa được SchemaMigrations điền)
+            LocalDateTime at = id == 3 ? null : LocalDateTime.of(2024, 5, 1, 9, (int) id);
+            rows.add(new Object[]{STATION_ID, at, 1_000.0 * id});
+        }
+        when(transactionRepository.findIdRange()).thenReturn(List.<Object[]>of(new Object[]{1L, 5L}));
+        when(transactionRepository.findRevenueRows(eq(Transaction.Status.SUCCESS), anyLong(), anyLong()))
+                .thenAnswer(invocation -> {
+                    long fromId = invocation.getArgument(1);
+                    long toId = invocation.getArgument(2);
+                    // Khoảng (fromId, toId]
+                    return new ArrayList<>(rows.subList((int) fromId, (int) toId));
+                });
+
+        assertEquals(5, aggregator.rebuild());
+
+        List<Bucket> hours = aggregator.query(STATION_ID, Granularity.HOUR,
+                LocalDateTime.of(2024, 5, 1, 9, 0), LocalDateTime.of(2024, 5, 1, 9, 0));
+        assertEquals(1, hours.size());
+        assertEquals(12_000, hours.get(0).amount());
+        assertEquals(4, hours.get(0).count());
+    }
+}
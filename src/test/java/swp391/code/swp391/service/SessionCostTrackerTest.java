@@ -0,0 +1,96 @@
+package swp391.code.swp391.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import swp391.code.swp391.service.SessionCostTracker.RunningCost;
+import swp391.code.swp391.service.TariffCache.Timeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionCostTrackerTest {
+
+    private static final long START = 1_760_000_000_000L;
+    private static final double PRICE = 3000;
+
+    private SessionCostTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new SessionCostTracker();
+        ReflectionTestUtils.setField(tracker, "penaltyGraceMinutes", 10L);
+        ReflectionTestUtils.setField(tracker, "penaltyPerMinute", 1000.0);
+    }
+
+    @Test
+    void energyBeforeFirstSampleIsBilledFromMeterStart() {
+        RunningCost cost = tracker.open(1L, START, 100.0, PRICE, Timeline.EMPTY, null);
+
+        // Mẫu đầu tiên tới sau khi đã sạc được 5 kWh
+        assertTrue(tracker.onSample(1L, START + 60_000, 105.0));
+        assertTrue(tracker.onSample(1L, START + 120_000, 107.0));
+
+        assertEquals(7.0, cost.getEnergyKwh(), 1e-9);
+        assertEquals(7.0 * PRICE, cost.getEnergyCost(), 1e-6);
+    }
+
+    @Test
+    void samplesAreBilledWithFactorOfTheirWindow() {
+        // Giờ cao điểm hệ số 1.5 từ phút 10 tới phút 20
+        Timeline tariff = new Timeline(new long[]{START + 600_000}, new long[]{START + 1_200_000}, new double[]{1.5});
+        RunningCost cost = tracker.open(1L, START, 0.0, PRICE, tariff, null);
+
+        tracker.onSample(1L, START + 300_000, 1.0);
+        tracker.onSample(1L, START + 900_000, 3.0);
+        tracker.onSample(1L, START + 1_500_000, 4.0);
+
+        assertEquals(PRICE * (1.0 + 2.0 * 1.5 + 1.0), cost.getEnergyCost(), 1e-6);
+    }
+
+    @Test
+    void samplesAfterFinishAreRejected() {
+        RunningCost cost = tracker.open(1L, START, 0.0, PRICE, Timeline.EMPTY, null);
+        tracker.onSample(1L, START + 60_000, 2.0);
+
+        cost.finish(START + 120_000);
+
+        assertFalse(tracker.onSample(1L, START + 90_000, 3.0));
+        assertFalse(tracker.onSample(1L, START + 180_000, 4.0));
+        assertEquals(2.0, cost.getEnergyKwh(), 1e-9);
+        assertEquals(2.0 * PRICE, cost.getEnergyCost(), 1e-6);
+    }
+
+    @Test
+    void reopenedCostAcceptsSamplesAgain() {
+        RunningCost cost = tracker.open(1L, START, 0.0, PRICE, Timeline.EMPTY, null);
+        cost.finish(START + 60_000);
+
+        // Transaction kết thúc session bị rollback
+        cost.reopen();
+
+        assertTrue(tracker.onSample(1L, START + 90_000, 1.0));
+        assertEquals(PRICE, cost.getEnergyCost(), 1e-6);
+    }
+
+    @Test
+    void olderSamplesAndMeterResetsAreIgnored() {
+        RunningCost cost = tracker.open(1L, START, 10.0, PRICE, Timeline.EMPTY, null);
+
+        assertFalse(tracker.onSample(1L, START - 1, 20.0));
+        assertTrue(tracker.onSample(1L, START + 60_000, 8.0));
+
+        assertEquals(0.0, cost.getEnergyCost(), 1e-9);
+    }
+
+    @Test
+    void penaltyStartsAfterGracePeriod() {
+        long bookedEnd = START + 3_600_000;
+        RunningCost cost = tracker.open(1L, START, 0.0, PRICE, Timeline.EMPTY, bookedEnd);
+
+        assertEquals(0.0, cost.getPenaltyCost(bookedEnd + 600_000), 1e-9);
+        assertEquals(1000.0, cost.getPenaltyCost(bookedEnd + 600_001), 1e-9);
+        assertEquals(5000.0, cost.getPenaltyCost(bookedEnd + 900_000), 1e-9);
+    }
+}
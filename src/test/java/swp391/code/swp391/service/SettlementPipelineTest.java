@@ -0,0 +1,160 @@
+package swp391.code.swp391.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import swp391.code.swp391.dto.SettlementMetricsDTO;
+import swp391.code.swp391.entity.WalletTransaction;
+import swp391.code.swp391.repository.SessionRepository;
+import swp391.code.swp391.repository.TransactionRepository;
+import swp391.code.swp391.repository.WalletRepository;
+import swp391.code.swp391.service.WalletLedger.Posting;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SettlementPipelineTest {
+
+    private static final long STATION_ID = 7L;
+    // Insert của session này luôn lỗi
+    private static final Long BROKEN_SESSION = 2L;
+
+    // Bảng Transaction giả: idempotency key -> dòng đã insert (session_id, user_id, amount, method, status, key, created_at)
+    private final Map<String, Object[]> inserted = new LinkedHashMap<>();
+    private final List<Integer> batchSizes = new ArrayList<>();
+    private WalletRepository walletRepository;
+    private WalletLedger walletLedger;
+    private RevenueAggregator revenueAggregator;
+    private SettlementPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        TransactionRepository transactionRepository = mock(TransactionRepository.class);
+        when(transactionRepository.findIdsByIdempotencyKeys(anyCollection())).thenAnswer(invocation -> {
+            List<Object[]> rows = new ArrayList<>();
+            List<String> keys = new ArrayList<>(inserted.keySet());
+            for (String key : invocation.<Collection<String>>getArgument(0)) {
+                if (inserted.containsKey(key)) {
+                    rows.add(new Object[]{key, 500L + keys.indexOf(key)});
+                }
+            }
+            return rows;
+        });
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<Object[]> rows = invocation.getArgument(1);
+            batchSizes.add(rows.size());
+            for (Object[] row : rows) {
+                if (row[0].equals(BROKEN_SESSION)) {
+                    throw new IllegalStateException("Constraint violation on session " + row[0]);
+                }
+            }
+            rows.forEach(row -> inserted.put((String) row[5], row));
+            return new int[rows.size()];
+        });
+        walletRepository = mock(WalletRepository.class);
+        walletLedger = mock(WalletLedger.class);
+        revenueAggregator = mock(RevenueAggregator.class);
+
+        pipeline = new SettlementPipeline(mock(SessionRepository.class), transactionRepository, walletRepository,
+                walletLedger, revenueAggregator, jdbcTemplate, mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(pipeline, "maxBatchSize", 200);
+        ReflectionTestUtils.setField(pipeline, "maxWaitMs", 0L);
+        ReflectionTestUtils.setField(pipeline, "queueCapacity", 100);
+        // Không chạy worker: queue và transactionTemplate như start(), rồi gọi run() trên luồng test
+        ReflectionTestUtils.setField(pipeline, "queue", new ArrayBlockingQueue<>(100));
+        ReflectionTestUtils.setField(pipeline, "transactionTemplate",
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+    }
+
+    @Test
+    void duplicateSessionsAreSettledOnce() {
+        pipeline.submit(1L, 10L, STATION_ID, 30.0);
+        pipeline.submit(1L, 10L, STATION_ID, 30.0);
+        pipeline.submit(3L, 11L, STATION_ID, 12.5);
+        drain();
+
+        // Session đã quyết toán ở lô trước (hoặc trước khi khởi động lại)
+        pipeline.submit(3L, 11L, STATION_ID, 12.5);
+        pipeline.submit(4L, 11L, STATION_ID, 0.0);
+        drain();
+
+        assertEquals(List.of("session:1", "session:3", "session:4"), new ArrayList<>(inserted.keySet()));
+        assertEquals(List.of(2, 1), batchSizes);
+        SettlementMetricsDTO metrics = pipeline.getMetrics();
+        assertEquals(2, metrics.getDuplicates());
+        // User chưa có wallet: giữ PENDING để thu tiền mặt, số tiền 0 thì SUCCESS ngay
+        assertEquals(2, metrics.getPending());
+        assertEquals(1, metrics.getSucceeded());
+        assertEquals("CASH", inserted.get("session:1")[3]);
+        assertEquals("PENDING", inserted.get("session:1")[4]);
+        assertEquals("SUCCESS", inserted.get("session:4")[4]);
+        assertEquals(2, metrics.getBatches());
+    }
+
+    @Test
+    void failedBatchIsRetriedSessionBySession() {
+        pipeline.submit(1L, 10L, STATION_ID, 30.0);
+        pipeline.submit(BROKEN_SESSION, 10L, STATION_ID, 30.0);
+        pipeline.submit(3L, 11L, STATION_ID, 12.5);
+        drain();
+
+        // Lô 3 session lỗi, quyết toán lại từng session: chỉ session hỏng bị bỏ lại cho recovery
+        assertEquals(List.of(3, 1, 1, 1), batchSizes);
+        assertEquals(List.of("session:1", "session:3"), new ArrayList<>(inserted.keySet()));
+        SettlementMetricsDTO metrics = pipeline.getMetrics();
+        assertEquals(1, metrics.getErrors());
+        assertEquals(2, metrics.getPending());
+        assertEquals(1, metrics.getBatches());
+        assertEquals(3, metrics.getLastBatchSize());
+    }
+
+    @Test
+    void walletPaysUntilBalanceRunsOut() {
+        when(walletRepository.findPrimaryWalletIds(anyCollection()))
+                .thenAnswer(invocation -> List.<Object[]>of(new Object[]{10L, 100L}));
+        // 50.00 trong wallet: đủ trả session 1, không đủ trả thêm session 3
+        when(walletLedger.balanceOf(100L)).thenReturn(5_000L);
+        pipeline.submit(1L, 10L, STATION_ID, 30.0);
+        pipeline.submit(3L, 10L, STATION_ID, 30.0);
+        drain();
+
+        assertEquals("WALLET", inserted.get("session:1")[3]);
+        assertEquals("SUCCESS", inserted.get("session:1")[4]);
+        assertEquals("FAILED", inserted.get("session:3")[4]);
+        verify(walletLedger).lockUntilCompletion(argThat(walletIds -> List.copyOf(walletIds).equals(List.of(100L))));
+        verify(walletLedger).postBatch(List.of(new Posting(100L, WalletTransaction.Type.PAYMENT, 3_000, 500L)));
+        verify(revenueAggregator, times(1)).recordAfterCommit(eq(500L), eq(STATION_ID), any(LocalDateTime.class),
+                eq(30.0));
+        SettlementMetricsDTO metrics = pipeline.getMetrics();
+        assertEquals(1, metrics.getSucceeded());
+        assertEquals(1, metrics.getFailed());
+    }
+
+    // =============== HELPER METHODS ===============
+
+    // Worker chưa chạy (running = false): run() xử lý hết hàng đợi rồi trả về
+    private void drain() {
+        ReflectionTestUtils.invokeMethod(pipeline, "run");
+    }
+}
@@ -0,0 +1,152 @@
+package swp391.code.swp391.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import swp391.code.swp391.entity.ChargingStation;
+import swp391.code.swp391.repository.ChargingStationRepository;
+import swp391.code.swp391.service.StationGeoIndex.NearbyStation;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StationGeoIndexTest {
+
+    // Nhiều hơn ngưỡng duyệt toàn bộ để truy vấn đi qua lưới ô
+    private static final int STATION_COUNT = 2000;
+
+    private StationGeoIndex index;
+    private final List<ChargingStation> stations = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        index = new StationGeoIndex(null);
+        Random random = new Random(42);
+        for (long id = 1; id <= STATION_COUNT; id++) {
+            // Quanh TP.HCM, trong khoảng ~55km
+            ChargingStation station = station(id, 10.5 + random.nextDouble() * 0.5, 106.4 + random.nextDouble() * 0.5);
+            stations.add(station);
+            // Không có transaction: put áp dụng ngay
+            index.put(station);
+        }
+    }
+
+    @Test
+    void radiusSearchReturnsExactlyStationsInsideRadiusSortedByDistance() {
+        double lat = 10.776;
+        double lng = 106.700;
+        double radiusKm = 5;
+
+        List<NearbyStation> result = index.findNearby(lat, lng, radiusKm, 200);
+
+        List<Long> expected = bruteForce(lat, lng, radiusKm, 200);
+        assertEquals(expected, ids(result));
+        for (int i = 1; i < result.size(); i++) {
+            assertTrue(result.get(i - 1).getDistanceKm() <= result.get(i).getDistanceKm());
+        }
+        result.forEach(nearby -> assertTrue(nearby.getDistanceKm() <= radiusKm));
+    }
+
+    @Test
+    void radiusSearchRespectsLimit() {
+        List<NearbyStation> result = index.findNearby(10.776, 106.700, 20.0, 10);
+
+        assertEquals(bruteForce(10.776, 106.700, 20.0, 10), ids(result));
+    }
+
+    @Test
+    void radiusSearchWithFilterSkipsFilteredStations() {
+        List<NearbyStation> result = index.findNearby(10.776, 106.700, 10.0, 50, id -> id % 2 == 0);
+
+        result.forEach(nearby -> assertEquals(0, nearby.getLocation().getStationId() % 2));
+        assertEquals(bruteForce(10.776, 106.700, 10.0, Integer.MAX_VALUE).stream().filter(id -> id % 2 == 0).limit(50).toList(),
+                ids(result));
+    }
+
+    @Test
+    void radiusSearchFarFromEveryStationReturnsNothing() {
+        assertTrue(index.findNearby(21.028, 105.834, 10.0, 50).isEmpty());
+    }
+
+    @Test
+    void nearestSearchFarFromEveryStationFallsBackToFullScan() {
+        // Hà Nội: cách mọi trạm hơn 1000km, không phải duyệt hàng nghìn vòng ô trống
+        List<NearbyStation> result = index.findNearby(21.028, 105.834, null, 5);
+
+        assertEquals(bruteForce(21.028, 105.834, Double.MAX_VALUE, 5), ids(result));
+    }
+
+    @Test
+    void removedAndMovedStationsAreReflected() {
+        ChargingStation nearest = stations.stream()
+                .min(Comparator.comparingDouble(s -> StationGeoIndex.distanceKm(10.776, 106.700, s.getLatitude(), s.getLongitude())))
+                .orElseThrow();
+        index.remove(nearest.getStationId());
+        assertTrue(ids(index.findNearby(10.776, 106.700, 50.0, 200)).stream()
+                .noneMatch(id -> id.equals(nearest.getStationId())));
+
+        nearest.setLatitude(10.776);
+        nearest.setLongitude(106.700);
+        index.put(nearest);
+        assertEquals(nearest.getStationId(), index.findNearby(10.776, 106.700, 1.0, 1).get(0).getLocation().getStationId());
+    }
+
+    @Test
+    void rebuildServesOldGridDuringScanAndReplaysUpdatesCommittedMeanwhile() {
+        ChargingStationRepository repository = mock(ChargingStationRepository.class);
+        StationGeoIndex rebuilt = new StationGeoIndex(repository);
+        rebuilt.put(station(1, 10.70, 106.60));
+        rebuilt.put(station(2, 10.75, 106.65));
+        when(repository.findAll()).thenAnswer(invocation -> {
+            // Trong lúc quét: người đọc vẫn thấy lưới cũ
+            assertEquals(2, rebuilt.size());
+            assertNotNull(rebuilt.get(1L));
+            rebuilt.put(station(3, 10.80, 106.70));
+            rebuilt.remove(2L);
+            // Kết quả quét chưa thấy hai cập nhật trên
+            return List.of(station(1, 10.70, 106.60), station(2, 10.75, 106.65));
+        });
+
+        rebuilt.rebuild();
+
+        assertEquals(2, rebuilt.size());
+        assertNull(rebuilt.get(2L));
+        assertEquals(List.of(3L), ids(rebuilt.findNearby(10.80, 106.70, 1.0, 5)));
+        assertEquals(List.of(1L, 3L), ids(rebuilt.findNearby(10.70, 106.60, null, 5)));
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private List<Long> bruteForce(double lat, double lng, double radiusKm, int limit) {
+        return stations.stream()
+                .filter(s -> index.get(s.getStationId()) != null)
+                .filter(s -> StationGeoIndex.distanceKm(lat, lng, s.getLatitude(), s.getLongitude()) <= radiusKm)
+                .sorted(Comparator.comparingDouble(s -> StationGeoIndex.distanceKm(lat, lng, s.getLatitude(), s.getLongitude())))
+                .limit(limit)
+                .map(ChargingStation::getStationId)
+                .toList();
+    }
+
+    private static List<Long> ids(List<NearbyStation> result) {
+        return result.stream().map(nearby -> nearby.getLocation().getStationId()).toList();
+    }
+
+    private static ChargingStation station(long id, double latitude, double longitude) {
+        ChargingStation station = new ChargingStation();
+        station.setStationId(id);
+        station.setStationName("Station " + id);
+        station.setAddress("Address " + id);
+        station.setLatitude(latitude);
+        station.setLongitude(longitude);
+        station.setChargingPointNumber(2);
+        return station;
+    }
+}
@@ -0,0 +1,119 @@
+package swp391.code.swp391.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import swp391.code.swp391.dto.BulkOnboardingResultDTO;
+import swp391.code.swp391.dto.ChargingPointDTO;
+import swp391.code.swp391.dto.ChargingStationDTO;
+import swp391.code.swp391.entity.ConnectorType;
+import swp391.code.swp391.repository.ConnectorTypeRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Đo số trạm onboard được mỗi giây: POST /bulk (createChargingStations, INSERT nhiều dòng theo lô)
+ * so với tạo từng trạm (createChargingStation, mỗi trạm và mỗi trụ một lần save).
+ * Chạy trên DB cấu hình trong application.properties (cần SQL Server vì StationBulkWriter dùng OUTPUT INSERTED);
+ * các trạm, trụ và connector type tạo ra đều có tiền tố riêng và bị xóa sau khi đo.
+ * Không chạy trong build thường, chạy bằng: mvn test -Dtest=StationOnboardingBenchmark
+ */
+@Tag("benchmark")
+@SpringBootTest
+@ActiveProfiles("dev")
+class StationOnboardingBenchmark {
+
+    private static final int[] STATIONS = {100, 1000, 5000};
+    // Tạo từng trạm chậm hơn nhiều, chỉ đo tới mức này
+    private static final int MAX_SINGLE_STATIONS = 1000;
+    private static final int POINTS_PER_STATION = 4;
+    // Bằng giới hạn số trạm mỗi request của createChargingStations
+    private static final int BULK_REQUEST_SIZE = 1000;
+
+    @Autowired
+    private ChargingStationService chargingStationService;
+
+    @Autowired
+    private ConnectorTypeRepository connectorTypeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final String prefix = "bench-" + System.currentTimeMillis() + "-";
+    private ConnectorType connectorType;
+
+    @BeforeEach
+    void setUp() {
+        ConnectorType type = new ConnectorType();
+        type.setTypeName(prefix + "CCS2");
+        type.setPowerOutput(60.0);
+        type.setPricePerKwh(3500.0);
+        connectorType = connectorTypeRepository.save(type);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE cp FROM charging_points cp JOIN charging_stations cs " +
+                "ON cp.station_new_station_id = cs.new_station_id WHERE cs.station_name LIKE ?", prefix + "%");
+        jdbcTemplate.update("DELETE FROM charging_stations WHERE station_name LIKE ?", prefix + "%");
+        connectorTypeRepository.deleteById(connectorType.getConnectorTypeId());
+    }
+
+    @Test
+    void stationsPerSecondBulkVersusOneByOne() {
+        System.out.printf("%-12s %10s %12s %14s%n", "path", "stations", "elapsed ms", "stations/s");
+        for (int stations : STATIONS) {
+            measure("bulk", stations, batch -> {
+                for (int from = 0; from < batch.size(); from += BULK_REQUEST_SIZE) {
+                    BulkOnboardingResultDTO result = chargingStationService.createChargingStations(
+                            batch.subList(from, Math.min(from + BULK_REQUEST_SIZE, batch.size())));
+                    assertEquals(Math.min(BULK_REQUEST_SIZE, batch.size() - from), result.getStationsCreated());
+                }
+            });
+            if (stations <= MAX_SINGLE_STATIONS) {
+                measure("one-by-one", stations, batch -> batch.forEach(chargingStationService::createChargingStation));
+            }
+        }
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private void measure(String path, int stations, Consumer<List<ChargingStationDTO>> onboarding) {
+        List<ChargingStationDTO> batch = stations(path, stations);
+        long started = System.nanoTime();
+        onboarding.accept(batch);
+        long elapsedNanos = System.nanoTime() - started;
+        System.out.printf("%-12s %10d %12d %14.0f%n", path, stations, elapsedNanos / 1_000_000,
+                stations / (elapsedNanos / 1e9));
+    }
+
+    private List<ChargingStationDTO> stations(String path, int count) {
+        List<ChargingStationDTO> stations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ChargingStationDTO station = new ChargingStationDTO();
+            station.setStationName(prefix + path + "-" + count + "-" + i);
+            station.setAddress("Benchmark address " + i);
+            station.setLatitude(10.5 + (i % 100) * 0.005);
+            station.setLongitude(106.4 + (i / 100 % 100) * 0.005);
+            List<ChargingPointDTO> points = new ArrayList<>(POINTS_PER_STATION);
+            for (int p = 0; p < POINTS_PER_STATION; p++) {
+                ChargingPointDTO point = new ChargingPointDTO();
+                point.setTypeName(connectorType.getTypeName());
+                points.add(point);
+            }
+            station.setChargingPoints(points);
+            station.setChargingPointNumber(POINTS_PER_STATION);
+            stations.add(station);
+        }
+        return stations;
+    }
+}
@@ -0,0 +1,97 @@
+package swp391.code.swp391.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import swp391.code.swp391.repository.NotificationRepository;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UnreadNotificationCounterTest {
+
+    private NotificationRepository repository;
+    private UnreadNotificationCounter counter;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(NotificationRepository.class);
+        counter = new UnreadNotificationCounter(repository);
+    }
+
+    @Test
+    void countsFollowIncrementsAndDecrements() {
+        when(repository.countUnreadByUser()).thenReturn(rows(new Object[]{1L, 2L}));
+        counter.rebuild();
+
+        // Không có transaction: thay đổi áp dụng ngay
+        counter.increment(1L);
+        counter.increment(2L);
+        counter.decrement(1L, 3);
+
+        assertEquals(0, counter.getUnread(1L));
+        assertEquals(1, counter.getUnread(2L));
+    }
+
+    @Test
+    void deltasCommittedDuringScanSurviveTheSwap() {
+        counter.increment(1L);
+        when(repository.countUnreadByUser()).thenAnswer(invocation -> {
+            // Trong lúc quét: người đọc vẫn thấy map cũ, delta mới được áp dụng và ghi lại
+            assertEquals(1, counter.getUnread(1L));
+            counter.increment(2L);
+            counter.decrement(3L, 1);
+            return rows(new Object[]{1L, 5L}, new Object[]{3L, 4L});
+        });
+
+        counter.rebuild();
+
+        assertEquals(5, counter.getUnread(1L));
+        assertEquals(1, counter.getUnread(2L));
+        assertEquals(3, counter.getUnread(3L));
+    }
+
+    @Test
+    void concurrentIncrementsDuringRebuildAreNotLost() throws Exception {
+        CountDownLatch scanning = new CountDownLatch(1);
+        CountDownLatch incremented = new CountDownLatch(1);
+        when(repository.countUnreadByUser()).thenAnswer(invocation -> {
+            scanning.countDown();
+            assertTrue(incremented.await(10, TimeUnit.SECONDS));
+            return rows(new Object[]{1L, 10L});
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        executor.execute(counter::rebuild);
+        assertTrue(scanning.await(10, TimeUnit.SECONDS));
+        CountDownLatch done = new CountDownLatch(3);
+        for (int t = 0; t < 3; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    counter.increment(2L);
+                }
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        incremented.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(10, counter.getUnread(1L));
+        assertEquals(3000, counter.getUnread(2L));
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return List.of(rows);
+    }
+}
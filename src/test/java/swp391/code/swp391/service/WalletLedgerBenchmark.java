@@ -0,0 +1,133 @@
+package swp391.code.swp391.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import swp391.code.swp391.entity.Wallet;
+import swp391.code.swp391.entity.WalletBalanceSnapshot;
+import swp391.code.swp391.entity.WalletTransaction;
+import swp391.code.swp391.entity.WalletTransaction.Type;
+import swp391.code.swp391.repository.WalletBalanceSnapshotRepository;
+import swp391.code.swp391.repository.WalletRepository;
+import swp391.code.swp391.repository.WalletTransactionRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Benchmark thông lượng ghi sổ ví (WalletLedger.post) với tải trộn 20% DEPOSIT, 10% WITHDRAWAL, 70% PAYMENT,
+ * mỗi thao tác là một transaction riêng, khi số luồng tăng dần.
+ * So sánh: mọi luồng ghi vào cùng một ví (tuần tự hóa theo khóa của ví) và ghi vào 10.000 ví (song song).
+ * Repository được giả lập trong bộ nhớ nên chỉ đo phần khóa và tính số dư, không gồm thời gian DB.
+ * Không chạy trong build thường, chạy bằng: mvn test -Dtest=WalletLedgerBenchmark
+ */
+@Tag("benchmark")
+class WalletLedgerBenchmark {
+
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64};
+    private static final int WALLETS = 10_000;
+    private static final long DURATION_MS = 2000;
+    private static final long INITIAL_MINOR = 1_000_000_00L;
+
+    @Test
+    void mixedPostingThroughputAsThreadsScaleUp() throws Exception {
+        System.out.printf("%-16s %8s %14s %12s%n", "scenario", "threads", "postings/s", "rejected");
+        for (int threads : THREADS) {
+            run("one hot wallet", threads, 1);
+            run("10000 wallets", threads, WALLETS);
+        }
+    }
+
+    private void run(String scenario, int threads, int wallets) throws Exception {
+        WalletLedger ledger = ledger();
+        List<Wallet> walletList = new ArrayList<>(wallets);
+        for (long id = 1; id <= wallets; id++) {
+            Wallet wallet = new Wallet();
+            wallet.setWalletId(id);
+            walletList.add(wallet);
+        }
+        LongAdder postings = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION_MS);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    Wallet wallet = walletList.get(random.nextInt(wallets));
+                    int roll = random.nextInt(10);
+                    Type type = roll < 2 ? Type.DEPOSIT : roll < 3 ? Type.WITHDRAWAL : Type.PAYMENT;
+                    long amountMinor = 1 + random.nextLong(type == Type.DEPOSIT ? 50_000_00 : 10_000_00);
+                    WalletLedgerTest.begin();
+                    try {
+                        ledger.post(wallet, type, amountMinor, null);
+                        WalletLedgerTest.complete(TransactionSynchronization.STATUS_COMMITTED);
+                        postings.increment();
+                    } catch (RuntimeException e) {
+                        WalletLedgerTest.complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+                        rejected.increment();
+                    }
+                }
+            });
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(DURATION_MS + 30_000, TimeUnit.MILLISECONDS));
+        double seconds = (System.nanoTime() - started) / 1e9;
+        System.out.printf("%-16s %8d %14.0f %12d%n", scenario, threads, postings.sum() / seconds, rejected.sum());
+    }
+
+    // Ledger với repository giả lập không ghi lại lời gọi (stubOnly) để không tốn bộ nhớ theo số giao dịch
+    private static WalletLedger ledger() {
+        AtomicLong entryIds = new AtomicLong();
+        WalletTransactionRepository walletTransactionRepository = mock(WalletTransactionRepository.class,
+                withSettings().stubOnly());
+        when(walletTransactionRepository.save(any(WalletTransaction.class))).thenAnswer(invocation -> {
+            WalletTransaction entry = invocation.getArgument(0);
+            entry.setWalletTransactionId(entryIds.incrementAndGet());
+            return entry;
+        });
+        when(walletTransactionRepository.sumAfter(anyLong(), anyLong())).thenAnswer(invocation -> {
+            List<Object[]> rows = new ArrayList<>();
+            rows.add(new Object[]{0L, 0L});
+            return rows;
+        });
+        WalletBalanceSnapshotRepository snapshotRepository = mock(WalletBalanceSnapshotRepository.class,
+                withSettings().stubOnly());
+        when(snapshotRepository.findById(anyLong())).thenAnswer(invocation -> Optional.of(
+                new WalletBalanceSnapshot(invocation.getArgument(0), INITIAL_MINOR, 0L, LocalDateTime.now())));
+
+        WalletLedger ledger = new WalletLedger(mock(WalletRepository.class), walletTransactionRepository,
+                snapshotRepository, mock(PlatformTransactionManager.class), mock(JdbcTemplate.class));
+        ReflectionTestUtils.setField(ledger, "stripes", 1024);
+        ReflectionTestUtils.setField(ledger, "lockTimeoutMs", 30_000L);
+        ledger.init();
+        return ledger;
+    }
+}
@@ -0,0 +1,256 @@
+package swp391.code.swp391.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import swp391.code.swp391.entity.Wallet;
+import swp391.code.swp391.entity.WalletBalanceSnapshot;
+import swp391.code.swp391.entity.WalletTransaction;
+import swp391.code.swp391.entity.WalletTransaction.Type;
+import swp391.code.swp391.repository.WalletBalanceSnapshotRepository;
+import swp391.code.swp391.repository.WalletRepository;
+import swp391.code.swp391.repository.WalletTransactionRepository;
+import swp391.code.swp391.service.WalletLedger.Posting;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WalletLedgerTest {
+
+    private static final long WALLET_ID = 1L;
+    // 100.00 trong snapshot, cộng 20.00 từ các giao dịch sau snapshot
+    private static final long SNAPSHOT_MINOR = 10_000;
+    private static final long AFTER_SNAPSHOT_MINOR = 2_000;
+
+    private final AtomicLong entryIds = new AtomicLong(100);
+    private WalletTransactionRepository walletTransactionRepository;
+    private WalletBalanceSnapshotRepository snapshotRepository;
+    private WalletRepository walletRepository;
+    private WalletLedger ledger;
+    private Wallet wallet;
+
+    @BeforeEach
+    void setUp() {
+        walletTransactionRepository = mock(WalletTransactionRepository.class);
+        snapshotRepository = mock(WalletBalanceSnapshotRepository.class);
+        walletRepository = mock(WalletRepository.class);
+        when(snapshotRepository.findById(WALLET_ID)).thenReturn(Optional.of(
+                new WalletBalanceSnapshot(WALLET_ID, SNAPSHOT_MINOR, 50L, LocalDateTime.now())));
+        when(walletTransactionRepository.sumAfter(WALLET_ID, 50L))
+                .thenReturn(rows(new Object[]{AFTER_SNAPSHOT_MINOR, 60L}));
+        when(walletTransactionRepository.save(any(WalletTransaction.class))).thenAnswer(invocation -> {
+            WalletTransaction entry = invocation.getArgument(0);
+            entry.setWalletTransactionId(entryIds.incrementAndGet());
+            return entry;
+        });
+
+        ledger = new WalletLedger(walletRepository, walletTransactionRepository, snapshotRepository,
+                mock(PlatformTransactionManager.class), mock(JdbcTemplate.class));
+        ReflectionTestUtils.setField(ledger, "stripes", 16);
+        ReflectionTestUtils.setField(ledger, "lockTimeoutMs", 1000L);
+        ledger.init();
+
+        wallet = new Wallet();
+        wallet.setWalletId(WALLET_ID);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+    }
+
+    @Test
+    void balanceIsSnapshotPlusEntriesAfterSnapshot() {
+        assertEquals(SNAPSHOT_MINOR + AFTER_SNAPSHOT_MINOR, ledger.balanceOf(WALLET_ID));
+    }
+
+    @Test
+    void postingsInOneTransactionBuildOnEachOther() {
+        begin();
+        WalletTransaction deposit = ledger.post(wallet, Type.DEPOSIT, 5_000, null);
+        WalletTransaction withdrawal = ledger.post(wallet, Type.WITHDRAWAL, 12_000, null);
+        WalletTransaction payment = ledger.post(wallet, Type.PAYMENT, 1_050, null);
+
+        assertEquals(17_000, deposit.getBalanceAfterMinor());
+        assertEquals(5_000, withdrawal.getBalanceAfterMinor());
+        assertEquals(3_950, payment.getBalanceAfterMinor());
+        assertEquals(-12_000, withdrawal.getAmountMinor());
+        assertEquals(10.5, payment.getAmount());
+        // Số dư đã commit chưa đổi cho tới khi transaction commit
+        assertEquals(12_000, ledger.balanceOf(WALLET_ID));
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertEquals(3_950, ledger.balanceOf(WALLET_ID));
+    }
+
+    @Test
+    void overdraftIsCheckedAgainstPendingBalance() {
+        begin();
+        ledger.post(wallet, Type.PAYMENT, 8_000, null);
+
+        // Số dư đã commit (120.00) đủ, nhưng số dư trong transaction chỉ còn 40.00
+        assertThrows(RuntimeException.class, () -> ledger.post(wallet, Type.PAYMENT, 5_000, null));
+    }
+
+    @Test
+    void rolledBackPostingsDoNotChangeBalance() {
+        begin();
+        ledger.post(wallet, Type.DEPOSIT, 5_000, null);
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertEquals(12_000, ledger.balanceOf(WALLET_ID));
+
+        begin();
+        WalletTransaction entry = ledger.post(wallet, Type.PAYMENT, 2_000, null);
+        assertEquals(10_000, entry.getBalanceAfterMinor());
+    }
+
+    @Test
+    void batchPostingContinuesFromPendingBalance() {
+        when(walletTransactionRepository.findMaxEntryIds(anyCollection()))
+                .thenAnswer(invocation -> rows(new Object[]{WALLET_ID, 200L}));
+
+        begin();
+        ledger.lockUntilCompletion(List.of(WALLET_ID));
+        ledger.post(wallet, Type.DEPOSIT, 1_000, null);
+        ledger.postBatch(List.of(
+                new Posting(WALLET_ID, Type.PAYMENT, 4_000, 7L),
+                new Posting(WALLET_ID, Type.DEPOSIT, 500, 8L)));
+        assertThrows(RuntimeException.class, () -> ledger.postBatch(List.of(
+                new Posting(WALLET_ID, Type.PAYMENT, 10_000, 9L))));
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertEquals(12_000 + 1_000 - 4_000 + 500, ledger.balanceOf(WALLET_ID));
+    }
+
+    @Test
+    void nonPositiveAmountIsRejected() {
+        begin();
+        assertThrows(RuntimeException.class, () -> ledger.post(wallet, Type.DEPOSIT, 0, null));
+        assertThrows(RuntimeException.class, () -> ledger.post(wallet, Type.PAYMENT, -1, null));
+    }
+
+    @Test
+    void postingOutsideTransactionIsRejected() {
+        assertThrows(IllegalStateException.class, () -> ledger.post(wallet, Type.DEPOSIT, 100, null));
+    }
+
+    @Test
+    void minorUnitConversionRoundsHalfUp() {
+        assertEquals(13, WalletLedger.toMinor(0.125));
+        assertEquals(1_999_999, WalletLedger.toMinor(19_999.99));
+        assertEquals(10, WalletLedger.toMinor(0.1));
+        assertEquals(12.34, WalletLedger.toMajor(1_234));
+        assertEquals(-0.05, WalletLedger.toMajor(-5));
+    }
+
+    @Test
+    void unknownWalletIsRejected() {
+        assertThrows(RuntimeException.class, () -> ledger.balanceOf(2L));
+    }
+
+    @Test
+    void failedSnapshotIsRetriedWithoutBlockingOtherWallets() {
+        Wallet other = new Wallet();
+        other.setWalletId(2L);
+        when(snapshotRepository.findById(2L)).thenReturn(Optional.of(
+                new WalletBalanceSnapshot(2L, 0L, 0L, LocalDateTime.now())));
+        when(walletTransactionRepository.sumAfter(2L, 0L)).thenReturn(rows(new Object[]{0L, 0L}));
+        List<WalletBalanceSnapshot> saved = new ArrayList<>();
+        when(snapshotRepository.save(any(WalletBalanceSnapshot.class)))
+                .thenThrow(new RuntimeException("Connection reset"))
+                .thenAnswer(invocation -> {
+                    saved.add(invocation.getArgument(0));
+                    return invocation.getArgument(0);
+                });
+        begin();
+        ledger.post(wallet, Type.DEPOSIT, 1_000, null);
+        ledger.post(other, Type.DEPOSIT, 3_000, null);
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        // Ví chụp đầu tiên lỗi, ví còn lại vẫn được chụp
+        ledger.snapshot();
+        assertEquals(1, saved.size());
+
+        ledger.snapshot();
+        assertEquals(2, saved.size());
+        assertEquals(Set.of(WALLET_ID, 2L), Set.of(saved.get(0).getWalletId(), saved.get(1).getWalletId()));
+
+        // Cả hai ví đã chụp xong, lần sau không ghi lại
+        ledger.snapshot();
+        assertEquals(2, saved.size());
+        verify(walletRepository, times(2)).updateBalance(anyLong(), anyDouble(), any(LocalDateTime.class));
+    }
+
+    @Test
+    void postingCommittedDuringSnapshotKeepsWalletDirty() {
+        List<WalletBalanceSnapshot> saved = new ArrayList<>();
+        when(snapshotRepository.save(any(WalletBalanceSnapshot.class))).thenAnswer(invocation -> {
+            if (saved.isEmpty()) {
+                // Một bút toán commit trong lúc snapshot đang ghi
+                begin();
+                ledger.post(wallet, Type.DEPOSIT, 500, null);
+                complete(TransactionSynchronization.STATUS_COMMITTED);
+            }
+            saved.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        begin();
+        ledger.post(wallet, Type.DEPOSIT, 1_000, null);
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        ledger.snapshot();
+        ledger.snapshot();
+        ledger.snapshot();
+
+        assertEquals(2, saved.size());
+        assertEquals(13_000, saved.get(0).getBalanceMinor());
+        assertEquals(13_500, saved.get(1).getBalanceMinor());
+        assertEquals(entryIds.get(), saved.get(1).getLastEntryId());
+    }
+
+    // =============== HELPER METHODS ===============
+
+    // Mô phỏng một transaction: bật synchronization như TransactionTemplate, rồi commit/rollback bằng tay
+    static void begin() {
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    static void complete(int status) {
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        }
+        TransactionSynchronizationUtils.triggerAfterCompletion(status);
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    private static List<Object[]> rows(Object[] row) {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(row);
+        return rows;
+    }
+}
@@ -0,0 +1,162 @@
+package swp391.code.swp391.utils;
+
+import org.junit.jupiter.api.Test;
+import swp391.code.swp391.utils.ColumnarWriter.Column;
+import swp391.code.swp391.utils.ColumnarWriter.Type;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ColumnarWriterTest {
+
+    private static final List<Column> COLUMNS = List.of(
+            new Column("session_id", Type.LONG),
+            new Column("cost", Type.DOUBLE),
+            new Column("station", Type.STRING),
+            new Column("end_time", Type.TIMESTAMP));
+
+    @Test
+    void rowsRoundTripAcrossRowGroups() throws Exception {
+        List<Object[]> rows = List.of(
+                new Object[]{1L, 35_000.5, "Trạm Quận 1", new Timestamp(1_700_000_000_000L)},
+                new Object[]{2L, null, "", new Timestamp(1_700_000_360_000L)},
+                new Object[]{3L, 0.0, null, null},
+                new Object[]{null, -1.25, "Trạm \"Thủ Đức\"", new Timestamp(0L)},
+                new Object[]{Long.MAX_VALUE, Double.MAX_VALUE, "x".repeat(70_000), new Timestamp(1L)},
+                new Object[]{6L, 1.0, "B", new Timestamp(2L)},
+                new Object[]{7L, 2.0, "C", new Timestamp(3L)});
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ColumnarWriter writer = new ColumnarWriter(out, "session", COLUMNS, 3);
+        RowSource source = new RowSource();
+        for (Object[] row : rows) {
+            source.row = row;
+            writer.append(source.resultSet);
+        }
+        assertEquals(7, writer.getRowCount());
+        writer.close();
+
+        Decoded decoded = decode(out.toByteArray());
+        assertEquals("session", decoded.table);
+        assertEquals(COLUMNS, decoded.columns);
+        // Row group đầy 3 dòng, dòng lẻ nằm ở row group cuối
+        assertEquals(List.of(3, 3, 1), decoded.rowGroupSizes);
+        assertEquals(rows.size(), decoded.rows.size());
+        for (int r = 0; r < rows.size(); r++) {
+            assertArrayEquals(expected(rows.get(r)), decoded.rows.get(r), "row " + r);
+        }
+    }
+
+    @Test
+    void emptyTableHasHeaderAndTerminatorOnly() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ColumnarWriter(out, "fee", COLUMNS, 3).close();
+
+        Decoded decoded = decode(out.toByteArray());
+        assertEquals(COLUMNS, decoded.columns);
+        assertEquals(List.of(), decoded.rowGroupSizes);
+    }
+
+    // =============== HELPER METHODS ===============
+
+    // Giá trị mong đợi khi đọc lại: timestamp thành epoch millis
+    private static Object[] expected(Object[] row) {
+        Object[] expected = Arrays.copyOf(row, row.length);
+        if (expected[3] != null) {
+            expected[3] = ((Timestamp) expected[3]).getTime();
+        }
+        return expected;
+    }
+
+    // Đọc lại theo định dạng mô tả trong ColumnarWriter
+    private static Decoded decode(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        byte[] magic = new byte[5];
+        in.readFully(magic);
+        assertEquals("EVCOL", new String(magic, StandardCharsets.US_ASCII));
+        assertEquals(1, in.readByte());
+
+        Decoded decoded = new Decoded();
+        decoded.table = in.readUTF();
+        int columnCount = in.readInt();
+        for (int c = 0; c < columnCount; c++) {
+            decoded.columns.add(new Column(in.readUTF(), Type.values()[in.readByte()]));
+        }
+        int groupRows;
+        while ((groupRows = in.readInt()) > 0) {
+            decoded.rowGroupSizes.add(groupRows);
+            Object[][] group = new Object[groupRows][columnCount];
+            for (int c = 0; c < columnCount; c++) {
+                byte[] bitmap = new byte[(groupRows + 7) / 8];
+                in.readFully(bitmap);
+                for (int r = 0; r < groupRows; r++) {
+                    if ((bitmap[r >>> 3] & (1 << (r & 7))) != 0) {
+                        continue;
+                    }
+                    group[r][c] = switch (decoded.columns.get(c).type()) {
+                        case LONG, TIMESTAMP -> in.readLong();
+                        case DOUBLE -> in.readDouble();
+                        case STRING -> {
+                            byte[] value = new byte[in.readInt()];
+                            in.readFully(value);
+                            yield new String(value, StandardCharsets.UTF_8);
+                        }
+                    };
+                }
+            }
+            decoded.rows.addAll(Arrays.asList(group));
+        }
+        assertEquals(-1, in.read());
+        return decoded;
+    }
+
+    // =============== INNER CLASSES ===============
+
+    private static final class Decoded {
+        private String table;
+        private final List<Column> columns = new ArrayList<>();
+        private final List<Integer> rowGroupSizes = new ArrayList<>();
+        private final List<Object[]> rows = new ArrayList<>();
+    }
+
+    // ResultSet giả trả về các giá trị của row hiện tại, wasNull theo lần đọc cuối như JDBC
+    private static final class RowSource {
+        private final ResultSet resultSet = mock(ResultSet.class);
+        private Object[] row;
+        private boolean lastNull;
+
+        RowSource() throws Exception {
+            when(resultSet.getLong(anyInt())).thenAnswer(invocation -> {
+                Object value = read(invocation.getArgument(0));
+                return value != null ? (Long) value : 0L;
+            });
+            when(resultSet.getDouble(anyInt())).thenAnswer(invocation -> {
+                Object value = read(invocation.getArgument(0));
+                return value != null ? (Double) value : 0.0;
+            });
+            when(resultSet.getString(anyInt())).thenAnswer(invocation -> read(invocation.getArgument(0)));
+            when(resultSet.getTimestamp(anyInt())).thenAnswer(invocation -> read(invocation.getArgument(0)));
+            when(resultSet.wasNull()).thenAnswer(invocation -> lastNull);
+        }
+
+        private Object read(int index) {
+            Object value = row[index - 1];
+            lastNull = value == null;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package swp391.code.swp391.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvReaderTest {
+
+    @Test
+    void readsRecordsWithAndWithoutTrailingNewline() throws Exception {
+        CsvReader reader = reader("name,power,price\nTrạm A,50,3500\nTrạm B,,4000");
+
+        assertEquals(List.of("name", "power", "price"), reader.next());
+        assertEquals(1, reader.getRecordLine());
+        assertEquals(List.of("Trạm A", "50", "3500"), reader.next());
+        assertEquals(2, reader.getRecordLine());
+        // Trường rỗng vẫn được giữ chỗ
+        assertEquals(List.of("Trạm B", "", "4000"), reader.next());
+        assertEquals(3, reader.getRecordLine());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void quotedFieldKeepsCommasAndEscapedQuotes() throws Exception {
+        CsvReader reader = reader("\"Trạm \"\"Trung tâm\"\", Quận 1\",\"\",10\n");
+
+        assertEquals(List.of("Trạm \"Trung tâm\", Quận 1", "", "10"), reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void quotedFieldSpansLinesAndLineNumbersFollowTheFile() throws Exception {
+        CsvReader reader = reader("name,address\n\"Trạm A\",\"12 Lê Lợi\nQuận 1\nTP.HCM\"\nTrạm B,34 Hai Bà Trưng\n");
+
+        reader.next();
+        assertEquals(List.of("Trạm A", "12 Lê Lợi\nQuận 1\nTP.HCM"), reader.next());
+        assertEquals(2, reader.getRecordLine());
+        // Bản ghi trước chiếm dòng 2 tới 4
+        assertEquals(List.of("Trạm B", "34 Hai Bà Trưng"), reader.next());
+        assertEquals(5, reader.getRecordLine());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void crlfAndBlankLinesAreSkippedButCounted() throws Exception {
+        CsvReader reader = reader("a,b\r\n\r\n\n c ,d\r\n\re\r\n");
+
+        assertEquals(List.of("a", "b"), reader.next());
+        assertEquals(1, reader.getRecordLine());
+        // Khoảng trắng ngoài dấu nháy được giữ nguyên
+        assertEquals(List.of(" c ", "d"), reader.next());
+        assertEquals(4, reader.getRecordLine());
+        // \r đứng riêng cũng là một dòng
+        assertEquals(List.of("e"), reader.next());
+        assertEquals(6, reader.getRecordLine());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void charactersAfterClosingQuoteAreIgnored() throws Exception {
+        CsvReader reader = reader("\"A\" x,B\n");
+
+        assertEquals(List.of("A", "B"), reader.next());
+    }
+
+    @Test
+    void unterminatedQuoteReportsStartLine() throws Exception {
+        CsvReader reader = reader("a,b\nc,\"open\nstill open");
+        reader.next();
+
+        IOException e = assertThrows(IOException.class, reader::next);
+        assertTrue(e.getMessage().contains("line 2"), e.getMessage());
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private static CsvReader reader(String content) {
+        return new CsvReader(new StringReader(content));
+    }
+}
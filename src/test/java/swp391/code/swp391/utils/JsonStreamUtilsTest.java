@@ -0,0 +1,46 @@
+package swp391.code.swp391.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import swp391.code.swp391.dto.KeysetPageDTO;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JsonStreamUtilsTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void keysetArrayWritesEveryPageInOrder() throws Exception {
+        List<Long> rows = LongStream.rangeClosed(1, 7).boxed().toList();
+        List<String> requested = new ArrayList<>();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonStreamUtils.<Long>keysetArray(objectMapper, after -> {
+            requested.add(after);
+            long from = after != null ? Long.parseLong(after) : 0L;
+            // Giống service: đọc limit + 1 dòng có khóa lớn hơn after
+            List<Long> page = rows.stream().filter(id -> id > from).limit(3 + 1).toList();
+            return KeysetPageDTO.of(page, 3, id -> id);
+        }).writeTo(out);
+
+        assertEquals("[1,2,3,4,5,6,7]", out.toString(StandardCharsets.UTF_8));
+        assertEquals(Arrays.asList(null, "3", "6"), requested);
+    }
+
+    @Test
+    void keysetArrayOfEmptyTableIsEmptyArray() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonStreamUtils.<Long>keysetArray(objectMapper, after -> KeysetPageDTO.of(List.of(), 3, id -> id))
+                .writeTo(out);
+
+        assertEquals("[]", out.toString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,121 @@
+package swp391.code.swp391.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongRollupMapTest {
+
+    @Test
+    void addAccumulatesPerKey() {
+        LongRollupMap map = new LongRollupMap();
+        map.add(10, 1.5, 1);
+        map.add(10, 2.5, 2);
+        map.add(-3, 4.0, 1);
+
+        assertEquals(4.0, map.amount(10));
+        assertEquals(3, map.count(10));
+        assertEquals(4.0, map.amount(-3));
+        assertEquals(2, map.size());
+        // Key chưa có: 0 và không bị thêm vào map
+        assertFalse(map.contains(11));
+        assertEquals(0.0, map.amount(11));
+        assertEquals(0, map.count(11));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void resizeKeepsEveryBucket() {
+        LongRollupMap map = new LongRollupMap(1);
+        // Key liên tiếp, âm và cực trị như chỉ số giờ / ngày / tháng trước và sau epoch
+        for (long key = -5_000; key < 5_000; key++) {
+            map.add(key, key, 1);
+        }
+        map.add(Long.MAX_VALUE, 1.0, 1);
+        map.add(Long.MIN_VALUE + 1, 2.0, 1);
+
+        assertEquals(10_002, map.size());
+        for (long key = -5_000; key < 5_000; key++) {
+            assertEquals(key, map.amount(key), "key " + key);
+            assertEquals(1, map.count(key));
+        }
+        assertEquals(1.0, map.amount(Long.MAX_VALUE));
+        assertEquals(2.0, map.amount(Long.MIN_VALUE + 1));
+    }
+
+    @Test
+    void forEachDirtyReportsOnlyChangesSinceLastCall() {
+        LongRollupMap map = new LongRollupMap();
+        map.add(1, 10.0, 1);
+        map.add(2, 20.0, 1);
+        assertEquals(Map.of(1L, 10.0, 2L, 20.0), dirty(map));
+        assertEquals(Map.of(), dirty(map));
+
+        // Giá trị báo ra là tổng tuyệt đối của bucket, không phải phần cộng thêm
+        map.add(2, 5.0, 1);
+        assertEquals(Map.of(2L, 25.0), dirty(map));
+    }
+
+    @Test
+    void dirtyFlagSurvivesResize() {
+        LongRollupMap map = new LongRollupMap(1);
+        map.add(1, 1.0, 1);
+        dirty(map);
+        map.add(2, 2.0, 1);
+        for (long key = 100; key < 200; key++) {
+            map.add(key, 0.0, 0);
+        }
+
+        Map<Long, Double> reported = dirty(map);
+        assertFalse(reported.containsKey(1L));
+        assertTrue(reported.containsKey(2L));
+        assertEquals(101, reported.size());
+    }
+
+    @Test
+    void markDirtyRequeuesOnlyExistingBuckets() {
+        LongRollupMap map = new LongRollupMap();
+        map.add(1, 10.0, 1);
+        map.add(2, 20.0, 1);
+        dirty(map);
+
+        map.markDirty(1);
+        map.markDirty(3);
+        assertEquals(Map.of(1L, 10.0), dirty(map));
+        assertFalse(map.contains(3));
+
+        map.markAllDirty();
+        assertEquals(Map.of(1L, 10.0, 2L, 20.0), dirty(map));
+    }
+
+    @Test
+    void addAllMergesBuckets() {
+        LongRollupMap map = new LongRollupMap();
+        map.add(1, 10.0, 1);
+        LongRollupMap other = new LongRollupMap();
+        other.add(1, 5.0, 2);
+        other.add(7, 3.0, 1);
+
+        map.addAll(other);
+
+        assertEquals(15.0, map.amount(1));
+        assertEquals(3, map.count(1));
+        assertEquals(3.0, map.amount(7));
+        assertEquals(2, map.size());
+        // Map nguồn không đổi
+        assertEquals(5.0, other.amount(1));
+    }
+
+    // =============== HELPER METHODS ===============
+
+    private static Map<Long, Double> dirty(LongRollupMap map) {
+        Map<Long, Double> dirty = new HashMap<>();
+        map.forEachDirty((key, amount, count) -> dirty.put(key, amount));
+        return dirty;
+    }
+}